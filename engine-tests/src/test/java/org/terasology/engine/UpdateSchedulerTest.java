@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.entitySystem.event.PendingEvent;
+import org.terasology.entitySystem.event.internal.EventSystem;
+import org.terasology.entitySystem.event.internal.ThreadEventBuffer;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.ParallelUpdate;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+public class UpdateSchedulerTest {
+
+    private EventSystem eventSystem;
+    private UpdateScheduler scheduler;
+    private List<String> updated;
+
+    @Before
+    public void setUp() {
+        eventSystem = mock(EventSystem.class);
+        scheduler = new UpdateScheduler(() -> eventSystem, 4);
+        updated = Collections.synchronizedList(Lists.newArrayList());
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testUnannotatedSystemsRunOnCallingThreadInOrder() {
+        scheduler.add(new SequentialSystem("a"));
+        scheduler.add(new SequentialSystem("b"));
+        scheduler.update(1f);
+
+        assertEquals(Lists.newArrayList("a", "b"), updated);
+    }
+
+    @Test
+    public void testNonConflictingSystemsRunOnWorkerThreads() {
+        ReadingSystem first = new ReadingSystem("first");
+        ReadingSystem second = new ReadingSystem("second");
+        scheduler.add(first);
+        scheduler.add(second);
+        scheduler.update(1f);
+
+        assertEquals(2, updated.size());
+        assertNotSame(Thread.currentThread(), first.updateThread);
+        assertNotSame(Thread.currentThread(), second.updateThread);
+    }
+
+    @Test
+    public void testConflictingSystemsRunSequentially() {
+        WritingSystem writer = new WritingSystem("writer");
+        ReadingSystem reader = new ReadingSystem("reader");
+        scheduler.add(writer);
+        scheduler.add(reader);
+        scheduler.update(1f);
+
+        assertEquals(Lists.newArrayList("writer", "reader"), updated);
+        assertSame(Thread.currentThread(), writer.updateThread);
+        assertSame(Thread.currentThread(), reader.updateThread);
+    }
+
+    @Test
+    public void testEventsAreDeliveredInSystemOrder() {
+        ReadingSystem first = new ReadingSystem("first");
+        ReadingSystem second = new ReadingSystem("second");
+        scheduler.add(first);
+        scheduler.add(second);
+        scheduler.update(1f);
+
+        InOrder order = inOrder(eventSystem);
+        order.verify(eventSystem).send(EntityRef.NULL, first.sentEvent);
+        order.verify(eventSystem).send(EntityRef.NULL, second.sentEvent);
+    }
+
+    private abstract class RecordingSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+        Thread updateThread;
+        Event sentEvent = new Event() { };
+        private final String name;
+
+        RecordingSystem(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void update(float delta) {
+            updateThread = Thread.currentThread();
+            updated.add(name);
+            // What the event system does when an event is sent from a thread other than the main thread
+            ThreadEventBuffer.offer(new PendingEvent(EntityRef.NULL, sentEvent));
+        }
+    }
+
+    private class SequentialSystem extends RecordingSystem {
+        SequentialSystem(String name) {
+            super(name);
+        }
+    }
+
+    @ParallelUpdate(reads = IntegerComponent.class)
+    private class ReadingSystem extends RecordingSystem {
+        ReadingSystem(String name) {
+            super(name);
+        }
+    }
+
+    @ParallelUpdate(writes = IntegerComponent.class, reads = StringComponent.class)
+    private class WritingSystem extends RecordingSystem {
+        WritingSystem(String name) {
+            super(name);
+        }
+    }
+}
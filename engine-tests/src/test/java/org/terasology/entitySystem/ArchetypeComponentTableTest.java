@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem;
+
+import com.google.common.collect.Lists;
+import gnu.trove.iterator.TLongObjectIterator;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.internal.Archetype;
+import org.terasology.entitySystem.entity.internal.ArchetypeComponentTable;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ArchetypeComponentTableTest {
+
+    private ArchetypeComponentTable table;
+
+    @Before
+    public void setup() {
+        table = new ArchetypeComponentTable();
+    }
+
+    @Test
+    public void testPutAndGet() {
+        IntegerComponent comp = new IntegerComponent(1);
+        assertNull(table.put(1, comp));
+        assertSame(comp, table.get(1, IntegerComponent.class));
+        assertNull(table.get(1, StringComponent.class));
+        assertNull(table.get(2, IntegerComponent.class));
+    }
+
+    @Test
+    public void testReplaceComponent() {
+        IntegerComponent first = new IntegerComponent(1);
+        IntegerComponent second = new IntegerComponent(2);
+        table.put(1, first);
+        assertSame(first, table.put(1, second));
+        assertSame(second, table.get(1, IntegerComponent.class));
+        assertEquals(1, table.getComponentCount(IntegerComponent.class));
+    }
+
+    @Test
+    public void testAddingComponentKeepsExistingComponents() {
+        IntegerComponent intComp = new IntegerComponent(1);
+        StringComponent stringComp = new StringComponent("a");
+        table.put(1, intComp);
+        table.put(1, stringComp);
+        assertSame(intComp, table.get(1, IntegerComponent.class));
+        assertSame(stringComp, table.get(1, StringComponent.class));
+        assertEquals(1, table.numEntities());
+    }
+
+    @Test
+    public void testRemoveComponent() {
+        IntegerComponent intComp = new IntegerComponent(1);
+        StringComponent stringComp = new StringComponent("a");
+        table.putAll(1, Arrays.asList(intComp, stringComp));
+        assertSame(stringComp, table.remove(1, StringComponent.class));
+        assertNull(table.get(1, StringComponent.class));
+        assertSame(intComp, table.get(1, IntegerComponent.class));
+        assertSame(intComp, table.remove(1, IntegerComponent.class));
+        assertEquals(0, table.numEntities());
+        assertNull(table.remove(1, IntegerComponent.class));
+    }
+
+    @Test
+    public void testRemovingEntityKeepsOtherRowsIntact() {
+        for (int i = 1; i <= 10; i++) {
+            table.putAll(i, Arrays.asList(new IntegerComponent(i), new StringComponent(Integer.toString(i))));
+        }
+        table.remove(3);
+        table.remove(7);
+
+        assertEquals(8, table.numEntities());
+        for (int i = 1; i <= 10; i++) {
+            if (i == 3 || i == 7) {
+                assertNull(table.get(i, IntegerComponent.class));
+            } else {
+                assertEquals(i, table.get(i, IntegerComponent.class).value);
+                assertEquals(Integer.toString(i), table.get(i, StringComponent.class).value);
+            }
+        }
+    }
+
+    @Test
+    public void testArchetypesWith() {
+        table.put(1, new IntegerComponent(1));
+        table.putAll(2, Arrays.asList(new IntegerComponent(2), new StringComponent("b")));
+        table.put(3, new StringComponent("c"));
+
+        List<Archetype> both = Lists.newArrayList(table.getArchetypesWith(new Class[]{IntegerComponent.class, StringComponent.class}));
+        assertEquals(1, both.size());
+        Archetype archetype = both.get(0);
+        assertEquals(1, archetype.size());
+        assertEquals(2, archetype.getEntityId(0));
+        assertEquals(2, archetype.getComponent(0, IntegerComponent.class).value);
+
+        assertEquals(2, table.getEntityCount(new Class[]{IntegerComponent.class}));
+        assertEquals(1, table.getEntityCount(new Class[]{IntegerComponent.class, StringComponent.class}));
+        assertEquals(2, table.getEntityIdsWith(new Class[]{StringComponent.class}).size());
+    }
+
+    @Test
+    public void testComponentIterator() {
+        table.put(1, new IntegerComponent(1));
+        table.putAll(2, Arrays.asList(new IntegerComponent(2), new StringComponent("b")));
+        table.put(3, new StringComponent("c"));
+
+        List<Long> ids = Lists.newArrayList();
+        TLongObjectIterator<IntegerComponent> iterator = table.componentIterator(IntegerComponent.class);
+        while (iterator.hasNext()) {
+            iterator.advance();
+            ids.add(iterator.key());
+            assertEquals(iterator.key(), iterator.value().value);
+        }
+        assertEquals(2, ids.size());
+        assertTrue(ids.contains(1L));
+        assertTrue(ids.contains(2L));
+    }
+}
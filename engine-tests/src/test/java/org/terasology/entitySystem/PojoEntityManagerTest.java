@@ -43,6 +43,9 @@
 import org.terasology.entitySystem.stubs.EntityRefComponent;
 import org.terasology.entitySystem.stubs.IntegerComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.AABB;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.network.NetworkSystem;
 import org.terasology.recording.RecordAndReplayCurrentStatus;
 import org.terasology.registry.CoreRegistry;
@@ -412,4 +415,51 @@ public void testMoveToPool() {
         assertTrue(pool2.contains(id));
         assertFalse(pool1.contains(id));
     }
+
+    @Test
+    public void testGetEntitiesWithin() {
+        EntityRef near = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        EntityRef inOtherCell = entityManager.create(new LocationComponent(new Vector3f(-4, 2, 3)));
+        EntityRef far = entityManager.create(new LocationComponent(new Vector3f(100, 2, 3)));
+        entityManager.create(new StringComponent("no location"));
+
+        List<EntityRef> result = entityManager.getEntitiesWithin(new Vector3f(0, 2, 3), 5);
+
+        assertEquals(2, result.size());
+        assertTrue(result.contains(near));
+        assertTrue(result.contains(inOtherCell));
+        assertFalse(result.contains(far));
+    }
+
+    @Test
+    public void testGetEntitiesInFiltersComponents() {
+        EntityRef withString = entityManager.create(new LocationComponent(new Vector3f(10, 10, 10)), new StringComponent("test"));
+        entityManager.create(new LocationComponent(new Vector3f(12, 10, 10)));
+        entityManager.create(new LocationComponent(new Vector3f(50, 10, 10)), new StringComponent("test"));
+
+        List<EntityRef> result = entityManager.getEntitiesIn(AABB.createMinMax(new Vector3f(0, 0, 0), new Vector3f(20, 20, 20)),
+                StringComponent.class);
+
+        assertEquals(Collections.singletonList(withString), result);
+    }
+
+    @Test
+    public void testSpatialIndexFollowsLocationChanges() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(0, 0, 0)));
+        Vector3f origin = new Vector3f(0, 0, 0);
+        Vector3f target = new Vector3f(200, 0, 0);
+
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.setWorldPosition(target);
+        entity.saveComponent(location);
+        assertTrue(entityManager.getEntitiesWithin(origin, 10).isEmpty());
+        assertEquals(Collections.singletonList(entity), entityManager.getEntitiesWithin(target, 10));
+
+        entityManager.deactivateForStorage(entity);
+        assertTrue(entityManager.getEntitiesWithin(target, 10).isEmpty());
+
+        EntityRef other = entityManager.create(new LocationComponent(target));
+        other.destroy();
+        assertTrue(entityManager.getEntitiesWithin(target, 10).isEmpty());
+    }
 }
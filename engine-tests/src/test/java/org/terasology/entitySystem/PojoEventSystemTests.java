@@ -214,6 +214,39 @@ public void testEventReceiverRegistration() {
         assertEquals(1, receiver.eventList.size());
     }
 
+    @Test
+    public void testHandlerRegisteredAfterSendReceivesEvents() {
+        entity.addComponent(new StringComponent());
+        TestEventHandler handler = new TestEventHandler();
+        eventSystem.registerEventHandler(handler);
+        entity.send(new TestEvent());
+
+        TestHighPriorityEventHandler lateHandler = new TestHighPriorityEventHandler();
+        eventSystem.registerEventHandler(lateHandler);
+        entity.send(new TestEvent());
+
+        assertEquals(2, handler.receivedList.size());
+        assertEquals(1, lateHandler.receivedList.size());
+    }
+
+    @Test
+    public void testDispatchFollowsComponentChanges() {
+        TestCompoundComponentEventHandler handler = new TestCompoundComponentEventHandler();
+        eventSystem.registerEventHandler(handler);
+
+        entity.addComponent(new StringComponent());
+        entity.send(new TestEvent());
+        assertEquals(0, handler.receivedList.size());
+
+        entity.addComponent(new IntegerComponent());
+        entity.send(new TestEvent());
+        assertEquals(1, handler.receivedList.size());
+
+        entity.removeComponent(StringComponent.class);
+        entity.send(new TestEvent());
+        assertEquals(1, handler.receivedList.size());
+    }
+
     private static class TestEvent extends AbstractConsumableEvent {
 
     }
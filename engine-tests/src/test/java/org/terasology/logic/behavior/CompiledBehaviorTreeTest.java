@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.logic.behavior.actions.CounterAction;
+import org.terasology.logic.behavior.actions.Print;
+import org.terasology.logic.behavior.actions.TimeoutAction;
+import org.terasology.logic.behavior.core.Actor;
+import org.terasology.logic.behavior.core.BehaviorNode;
+import org.terasology.logic.behavior.core.BehaviorState;
+import org.terasology.logic.behavior.core.BehaviorTreeBuilder;
+import org.terasology.logic.behavior.core.BehaviorTreeRunner;
+import org.terasology.logic.behavior.core.CompiledBehaviorTree;
+import org.terasology.logic.behavior.core.CompiledBehaviorTreeRunner;
+
+import java.util.List;
+
+/**
+ */
+public class CompiledBehaviorTreeTest {
+    private BehaviorTreeBuilder treeBuilder;
+
+    @Before
+    public void setup() {
+        treeBuilder = new BehaviorTreeBuilder();
+        treeBuilder.registerAction("print", Print.class);
+        treeBuilder.registerDecorator("counter", CounterAction.class);
+        treeBuilder.registerDecorator("timeout", TimeoutAction.class);
+    }
+
+    @Test
+    public void testComposites() {
+        assertSameAsDefault("{ sequence:[ { print:{msg:A} }, { print:{msg:B} } ] }", 3);
+        assertSameAsDefault("{ sequence:[ { print:{msg:A} }, failure, { print:{msg:B} } ] }", 3);
+        assertSameAsDefault("{ sequence:[ { print:{msg:A} }, running, { print:{msg:B} } ] }", 3);
+        assertSameAsDefault("{ selector:[ failure, { print:{msg:A} }, { print:{msg:B} } ] }", 3);
+        assertSameAsDefault("{ selector:[ failure, running, { print:{msg:B} } ] }", 3);
+        assertSameAsDefault("{ dynamic:[ failure, { print:{msg:A} }, { print:{msg:B} } ] }", 3);
+        assertSameAsDefault("{ dynamic:[ { sequence:[ { print:{msg:A} }, failure ] }, running ] }", 3);
+        assertSameAsDefault("{ parallel:[ running, { print:{msg:A} } ] }", 3);
+        assertSameAsDefault("{ parallel:[ running, running ] }", 3);
+        assertSameAsDefault("{ parallel:[ { print:{msg:A} }, failure ] }", 3);
+    }
+
+    @Test
+    public void testDecorators() {
+        assertSameAsDefault("{ sequence:[ { counter:{ count=2, child:{ print:{msg:A} } } },{ print:{msg:B} } ] }", 4);
+        assertSameAsDefault("{ sequence:[ { counter:{ count=2, child:{ counter:{ count=2, child:{ print:{msg:A} } } } } },{ print:{msg:B} } ] }", 6);
+        assertSameAsDefault("{ sequence:[ { timeout:{ time=2, child:{ print:{msg:A} } } },{ print:{msg:B} } ] }", 4);
+        assertSameAsDefault("{ sequence:[ { timeout:{ time=1, child:{ running } } },{ print:{msg:B} } ] }", 4);
+    }
+
+    @Test
+    public void testRunnersOfOneTreeDontShareState() {
+        BehaviorNode node = treeBuilder.fromJson("{ sequence:[ { print:{msg:A} }, running ] }");
+        CompiledBehaviorTree tree = CompiledBehaviorTree.compile(node);
+        BehaviorTreeRunner first = new CompiledBehaviorTreeRunner(tree, createActor());
+        BehaviorTreeRunner second = new CompiledBehaviorTreeRunner(tree, createActor());
+
+        Print.output = new StringBuilder();
+        first.step();
+        first.step();
+        second.step();
+
+        Assert.assertEquals("[A][A]", Print.output.toString());
+    }
+
+    @Test
+    public void testThreadSafety() {
+        Assert.assertTrue(CompiledBehaviorTree.compile(treeBuilder.fromJson(
+                "{ sequence:[ { counter:{ count=2, child:{ timeout:{ time=1, child:{ running } } } } }, success ] }")).isThreadSafe());
+        Assert.assertFalse(CompiledBehaviorTree.compile(treeBuilder.fromJson(
+                "{ sequence:[ { counter:{ count=2, child:{ print:{msg:A} } } }, success ] }")).isThreadSafe());
+    }
+
+    private void assertSameAsDefault(String json, int steps) {
+        BehaviorNode node = treeBuilder.fromJson(json);
+
+        Print.output = new StringBuilder();
+        List<BehaviorState> expectedStates = run(new DefaultBehaviorTreeRunner(node, createActor()), steps);
+        String expectedOutput = Print.output.toString();
+
+        Print.output = new StringBuilder();
+        List<BehaviorState> actualStates = run(new CompiledBehaviorTreeRunner(CompiledBehaviorTree.compile(node), createActor()), steps);
+
+        Assert.assertEquals(json, expectedStates, actualStates);
+        Assert.assertEquals(json, expectedOutput, Print.output.toString());
+    }
+
+    private static List<BehaviorState> run(BehaviorTreeRunner runner, int steps) {
+        List<BehaviorState> states = Lists.newArrayList();
+        for (int i = 0; i < steps; i++) {
+            states.add(runner.step());
+        }
+        return states;
+    }
+
+    private static Actor createActor() {
+        Actor actor = new Actor(null);
+        actor.setDelta(0.5f);
+        return actor;
+    }
+}
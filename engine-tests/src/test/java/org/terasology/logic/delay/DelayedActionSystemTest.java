@@ -19,15 +19,23 @@
 import org.junit.Test;
 import org.terasology.TerasologyTestingEnvironment;
 import org.terasology.engine.Time;
+import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.event.ReceiveEvent;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DelayedActionSystemTest extends TerasologyTestingEnvironment {
@@ -161,6 +169,116 @@ public void testMultipleDelayedActionsInRandomOrder() {
                 "Fourth", (time.getGameTimeInMs() + 2500) - time.getGameTimeInMs());
     }
 
+    @Test
+    public void testDelayedActionFiresOnceDue() {
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        EntityRef entity = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        delayedActionSystem.addDelayedAction(entity, "Action", 1000);
+
+        when(time.getGameTimeInMs()).thenReturn(999L);
+        delayedActionSystem.update(0.999f);
+        verify(entity, never()).send(any(DelayedActionTriggeredEvent.class));
+        assertTrue(delayedActionSystem.hasDelayedAction(entity, "Action"));
+
+        when(time.getGameTimeInMs()).thenReturn(1200L);
+        delayedActionSystem.update(0.2f);
+        delayedActionSystem.update(0f);
+        verify(entity, times(1)).send(any(DelayedActionTriggeredEvent.class));
+        assertFalse(delayedActionSystem.hasDelayedAction(entity, "Action"));
+    }
+
+    @Test
+    public void testCancelledDelayedActionDoesNotFire() {
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        EntityRef entity = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        delayedActionSystem.addDelayedAction(entity, "Action", 1000);
+        delayedActionSystem.cancelDelayedAction(entity, "Action");
+
+        when(time.getGameTimeInMs()).thenReturn(2000L);
+        delayedActionSystem.update(2f);
+
+        verify(entity, never()).send(any(DelayedActionTriggeredEvent.class));
+        assertFalse(delayedActionSystem.hasDelayedAction(entity, "Action"));
+    }
+
+    @Test
+    public void testPeriodicActionIsRescheduled() {
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        EntityRef entity = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        delayedActionSystem.addPeriodicAction(entity, "Action", 100, 50);
+
+        when(time.getGameTimeInMs()).thenReturn(100L);
+        delayedActionSystem.update(0.1f);
+        when(time.getGameTimeInMs()).thenReturn(149L);
+        delayedActionSystem.update(0.049f);
+        verify(entity, times(1)).send(any(PeriodicActionTriggeredEvent.class));
+
+        when(time.getGameTimeInMs()).thenReturn(150L);
+        delayedActionSystem.update(0.001f);
+        verify(entity, times(2)).send(any(PeriodicActionTriggeredEvent.class));
+        assertTrue(delayedActionSystem.hasPeriodicAction(entity, "Action"));
+    }
+
+    @Test
+    public void testAddingActionDoesNotTouchExistingComponent() {
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        EntityRef entity = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        DelayedActionComponent delayedActionComponent = new DelayedActionComponent();
+        when(entity.getComponent(DelayedActionComponent.class)).thenReturn(delayedActionComponent);
+        when(entity.hasComponent(DelayedActionComponent.class)).thenReturn(true);
+
+        delayedActionSystem.addDelayedAction(entity, "Action", 1000);
+
+        verify(entity, never()).saveComponent(any());
+        verify(entity, never()).addComponent(any());
+        assertTrue(delayedActionComponent.isEmpty());
+    }
+
+    @Test
+    public void testFiringAndCancellingDoNotTouchComponents() {
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        EntityRef entity = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        delayedActionSystem.addDelayedAction(entity, "Delayed", 1000);
+        delayedActionSystem.addPeriodicAction(entity, "Periodic", 100, 50);
+        when(entity.hasComponent(DelayedActionComponent.class)).thenReturn(true);
+        when(entity.hasComponent(PeriodicActionComponent.class)).thenReturn(true);
+
+        when(time.getGameTimeInMs()).thenReturn(1000L);
+        delayedActionSystem.update(1f);
+        delayedActionSystem.cancelPeriodicAction(entity, "Periodic");
+
+        verify(entity, never()).saveComponent(any());
+        verify(entity, never()).removeComponent(any());
+    }
+
+    @Test
+    public void testActionsArePersistedOnSave() {
+        when(time.getGameTimeInMs()).thenReturn(0L);
+        EntityRef pending = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        DelayedActionComponent pendingComponent = new DelayedActionComponent();
+        when(pending.getComponent(DelayedActionComponent.class)).thenReturn(pendingComponent);
+        EntityRef finished = createFakeEntityWith(new ArbritaryDelayActionComponent());
+        delayedActionSystem.addDelayedAction(pending, "Pending", 2000);
+        delayedActionSystem.addDelayedAction(finished, "Finished", 1000);
+
+        when(time.getGameTimeInMs()).thenReturn(1000L);
+        delayedActionSystem.update(1f);
+
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getEntitiesWith(DelayedActionComponent.class)).thenReturn(Arrays.asList(pending, finished));
+        when(entityManager.getEntitiesWith(PeriodicActionComponent.class)).thenReturn(Collections.emptyList());
+        delayedActionSystem.setEntityManager(entityManager);
+        delayedActionSystem.preSave();
+
+        verify(pending).saveComponent(pendingComponent);
+        assertEquals(2000L, pendingComponent.getActionIdsWakeUp().get("Pending").longValue());
+        verify(finished).removeComponent(DelayedActionComponent.class);
+
+        // an unchanged schedule is not saved again
+        delayedActionSystem.preSave();
+        verify(pending, times(1)).saveComponent(pendingComponent);
+    }
+
     @ReceiveEvent
     public void finishWaiting(DelayedActionTriggeredEvent event, EntityRef entity, ArbritaryDelayActionComponent arbritaryDelayActionComp) {
         assertEquals(vals.get(lookingForId).intValue(), arbritaryDelayActionComp.value);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.delay;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void testTimersFireInDeadlineOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        wheel.schedule(5000, "third");
+        wheel.schedule(70, "second");
+        wheel.schedule(3, "first");
+        wheel.schedule(1L << 40, "far");
+
+        List<String> fired = Lists.newArrayList();
+        wheel.advance(2, fired);
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(10000, fired);
+        assertEquals(Lists.newArrayList("first", "second", "third"), fired);
+        assertEquals(1, wheel.size());
+
+        fired.clear();
+        wheel.advance(1L << 40, fired);
+        assertEquals(Lists.newArrayList("far"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelledTimersDoNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(100);
+        TimingWheel.Timer<String> timer = wheel.schedule(200, "cancelled");
+        wheel.schedule(200, "kept");
+
+        assertTrue(wheel.cancel(timer));
+        assertFalse(wheel.cancel(timer));
+
+        List<String> fired = Lists.newArrayList();
+        wheel.advance(300, fired);
+        assertEquals(Lists.newArrayList("kept"), fired);
+    }
+
+    @Test
+    public void testOverdueTimersFireWithNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(100);
+        wheel.schedule(50, "overdue");
+
+        List<String> fired = Lists.newArrayList();
+        wheel.advance(100, fired);
+        assertEquals(Lists.newArrayList("overdue"), fired);
+    }
+
+    @Test
+    public void testMatchesReferenceSchedule() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(12345);
+        Map<Long, TimingWheel.Timer<Long>> pending = Maps.newHashMap();
+        long time = 12345;
+        long nextId = 0;
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                long id = nextId++;
+                long deadline = time + (long) Math.pow(2, random.nextDouble() * 30) - 2;
+                pending.put(id, wheel.schedule(deadline, id));
+            } else if (operation < 7 && !pending.isEmpty()) {
+                Long id = pending.keySet().iterator().next();
+                assertTrue(wheel.cancel(pending.remove(id)));
+            } else {
+                time += (long) Math.pow(2, random.nextDouble() * 20);
+                List<Long> fired = Lists.newArrayList();
+                wheel.advance(time, fired);
+                for (Long id : fired) {
+                    assertTrue(pending.remove(id).getDeadline() <= time);
+                }
+                for (TimingWheel.Timer<Long> timer : pending.values()) {
+                    assertTrue(timer.getDeadline() > time);
+                }
+                assertEquals(pending.size(), wheel.size());
+            }
+        }
+    }
+}
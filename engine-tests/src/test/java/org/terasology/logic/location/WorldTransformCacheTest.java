@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.location;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.testUtil.TeraAssert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class WorldTransformCacheTest {
+
+    private WorldTransformCache cache;
+    private LocationComponent root;
+    private LocationComponent middle;
+    private LocationComponent leaf;
+    private EntityRef rootEntity;
+    private EntityRef middleEntity;
+    private EntityRef leafEntity;
+    private long nextFakeEntityId = 1;
+
+    @Before
+    public void setup() {
+        cache = new WorldTransformCache();
+
+        root = new LocationComponent(new Vector3f(2, 3, 4));
+        root.setLocalRotation(new Quat4f(TeraMath.DEG_TO_RAD * 90, 0, 0));
+        root.setLocalScale(2.0f);
+        rootEntity = createFakeEntityWith(root);
+
+        middle = new LocationComponent(new Vector3f(1, 0, 0));
+        middle.setLocalRotation(new Quat4f(0, TeraMath.DEG_TO_RAD * 45, 0));
+        middle.parent = rootEntity;
+        middleEntity = createFakeEntityWith(middle);
+
+        leaf = new LocationComponent(new Vector3f(0, 1, 2));
+        leaf.setLocalScale(0.5f);
+        leaf.parent = middleEntity;
+        leafEntity = createFakeEntityWith(leaf);
+    }
+
+    private EntityRef createFakeEntityWith(LocationComponent locationComponent) {
+        EntityRef entRef = mock(EntityRef.class);
+        when(entRef.getComponent(LocationComponent.class)).thenReturn(locationComponent);
+        when(entRef.exists()).thenReturn(true);
+        when(entRef.getId()).thenReturn(nextFakeEntityId++);
+        return entRef;
+    }
+
+    @Test
+    public void testMatchesLocationComponent() {
+        // resolve the leaf first, so the ancestors are resolved on the way
+        assertSameTransform(leaf, leafEntity);
+        assertSameTransform(middle, middleEntity);
+        assertSameTransform(root, rootEntity);
+    }
+
+    @Test
+    public void testEntityWithoutLocation() {
+        EntityRef entity = mock(EntityRef.class);
+        when(entity.getId()).thenReturn(nextFakeEntityId++);
+
+        assertNull(cache.getWorldPosition(entity, new Vector3f()));
+        assertNull(cache.getWorldRotation(entity, new Quat4f()));
+        assertEquals(Float.NaN, cache.getWorldScale(entity), 0);
+    }
+
+    @Test
+    public void testChangesAreResolvedAfterClear() {
+        Vector3f before = cache.getWorldPosition(leafEntity, new Vector3f());
+
+        root.getLocalPosition().x += 10;
+        assertEquals(before, cache.getWorldPosition(leafEntity, new Vector3f()));
+
+        cache.clear();
+        assertSameTransform(leaf, leafEntity);
+    }
+
+    private void assertSameTransform(LocationComponent location, EntityRef entity) {
+        TeraAssert.assertEquals(location.getWorldPosition(), cache.getWorldPosition(entity, new Vector3f()), 0.00001f);
+        Quat4f expectedRotation = location.getWorldRotation();
+        Quat4f rotation = cache.getWorldRotation(entity, new Quat4f());
+        assertEquals(expectedRotation.x, rotation.x, 0.00001f);
+        assertEquals(expectedRotation.y, rotation.y, 0.00001f);
+        assertEquals(expectedRotation.z, rotation.z, 0.00001f);
+        assertEquals(expectedRotation.w, rotation.w, 0.00001f);
+        assertEquals(location.getWorldScale(), cache.getWorldScale(entity), 0.00001f);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.protobuf.NetData;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkDeltaCacheTest {
+    private static final int CHUNK_VOLUME = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z;
+
+    @Test
+    public void testFirstTransferIsComplete() {
+        ChunkDeltaCache server = new ChunkDeltaCache();
+        ChunkDeltaCache client = new ChunkDeltaCache();
+        EntityData.ChunkStore chunk = createChunk(0, 0);
+
+        EntityData.ChunkStore sent = server.encode(chunk);
+        assertSame(chunk, sent);
+        assertEquals(chunk, client.decode(sent));
+    }
+
+    @Test
+    public void testChangedChunkIsTransferredAsDelta() {
+        ChunkDeltaCache server = new ChunkDeltaCache();
+        ChunkDeltaCache client = new ChunkDeltaCache();
+        EntityData.ChunkStore original = createChunk(0, 0);
+        EntityData.ChunkStore changed = createChunk(1000, 7);
+        client.decode(server.encode(original));
+
+        EntityData.ChunkStore sent = server.encode(changed);
+        assertTrue(sent.getSerializedSize() < changed.getSerializedSize());
+        assertEquals(changed, client.decode(sent));
+
+        EntityData.ChunkStore changedAgain = createChunk(2000, 9);
+        assertEquals(changedAgain, client.decode(server.encode(changedAgain)));
+    }
+
+    @Test
+    public void testDeltaRelativeToUnknownVersionIsRejected() {
+        ChunkDeltaCache server = new ChunkDeltaCache();
+        server.encode(createChunk(0, 0));
+
+        assertNull(new ChunkDeltaCache().decode(server.encode(createChunk(1000, 7))));
+    }
+
+    @Test
+    public void testDeltaRelativeToDifferentVersionIsRejected() {
+        ChunkDeltaCache server = new ChunkDeltaCache();
+        ChunkDeltaCache client = new ChunkDeltaCache();
+        server.encode(createChunk(0, 0));
+        client.decode(createChunk(500, 3));
+
+        assertNull(client.decode(server.encode(createChunk(1000, 7))));
+    }
+
+    @Test
+    public void testResendRequestsAreTransferred() {
+        NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
+        assertTrue(ChunkDeltaCache.getResendRequests(message.build()).isEmpty());
+
+        List<Vector3i> chunkPositions = Lists.newArrayList(new Vector3i(1, 2, 3), new Vector3i(-4, 0, 5));
+        ChunkDeltaCache.requestResend(message, chunkPositions);
+        assertEquals(chunkPositions, ChunkDeltaCache.getResendRequests(message.build()));
+    }
+
+    @Test
+    public void testSupportIsAnnouncedInJoinMessage() {
+        NetData.JoinMessage.Builder joinMessage = NetData.JoinMessage.newBuilder().setName("Test");
+        assertFalse(ChunkDeltaCache.isSupportAnnounced(joinMessage.build()));
+
+        ChunkDeltaCache.announceSupport(joinMessage);
+        assertTrue(ChunkDeltaCache.isSupportAnnounced(joinMessage.build()));
+    }
+
+    /**
+     * Creates a chunk of alternating rows of two blocks, with a single other block at the given index.
+     */
+    private static EntityData.ChunkStore createChunk(int changedIndex, int changedBlock) {
+        int[] blocks = new int[CHUNK_VOLUME];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = 1 + (i / ChunkConstants.SIZE_X) % 2;
+        }
+        if (changedBlock != 0) {
+            blocks[changedIndex] = changedBlock;
+        }
+
+        EntityData.RunLengthEncoding16.Builder blockData = EntityData.RunLengthEncoding16.newBuilder();
+        int start = 0;
+        for (int i = 1; i <= blocks.length; i++) {
+            if (i == blocks.length || blocks[i] != blocks[start]) {
+                blockData.addRunLengths(i - start).addValues(blocks[start]);
+                start = i;
+            }
+        }
+        return EntityData.ChunkStore.newBuilder()
+                .setX(1).setY(2).setZ(3)
+                .setBlockData(blockData)
+                .addExtraData(EntityData.RunLengthEncoding16.getDefaultInstance())
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class EntityReplicationSchedulerTest {
+
+    @Test
+    public void testEntitiesOrderedByWeight() {
+        EntityReplicationScheduler scheduler = new EntityReplicationScheduler();
+        TIntSet waiting = new TIntHashSet(new int[]{1, 2, 3});
+
+        int[] order = scheduler.beginTick(waiting, netId -> netId == 2 ? Double.POSITIVE_INFINITY : 1.0 / netId, 100);
+        assertArrayEquals(new int[]{2, 1, 3}, order);
+    }
+
+    @Test
+    public void testWaitingEntitiesGainPriority() {
+        EntityReplicationScheduler scheduler = new EntityReplicationScheduler();
+        TIntSet waiting = new TIntHashSet(new int[]{1, 2});
+
+        scheduler.beginTick(waiting, netId -> netId == 1 ? 1.0 : 0.4, 100);
+        scheduler.sent(1, 10);
+        int[] order = scheduler.beginTick(waiting, netId -> netId == 1 ? 1.0 : 0.4, 100);
+        assertArrayEquals(new int[]{1, 2}, order);
+
+        scheduler.sent(1, 10);
+        order = scheduler.beginTick(waiting, netId -> netId == 1 ? 1.0 : 0.4, 100);
+        assertArrayEquals(new int[]{2, 1}, order);
+    }
+
+    @Test
+    public void testBudgetLimitsUpdates() {
+        EntityReplicationScheduler scheduler = new EntityReplicationScheduler();
+        TIntSet waiting = new TIntHashSet(new int[]{1, 2});
+
+        scheduler.beginTick(waiting, netId -> netId == 1 ? Double.POSITIVE_INFINITY : 1.0, 100);
+        scheduler.sent(2, 150);
+        assertFalse(scheduler.canSend(2));
+        assertTrue(scheduler.canSend(1));
+
+        scheduler.beginTick(waiting, netId -> 1.0, 100);
+        assertTrue(scheduler.canSend(2));
+    }
+}
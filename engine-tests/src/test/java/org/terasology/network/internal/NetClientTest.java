@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Maps;
+import com.google.protobuf.ByteString;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.metadata.EventLibrary;
+import org.terasology.entitySystem.metadata.ReplicatedFieldMetadata;
+import org.terasology.identity.PublicIdentityCertificate;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.NetworkComponent;
+import org.terasology.persistence.serializers.EventSerializer;
+import org.terasology.persistence.serializers.NetworkEntitySerializer;
+import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
+import org.terasology.protobuf.EntityData;
+import org.terasology.protobuf.NetData;
+import org.terasology.reflection.metadata.ClassMetadata;
+import org.terasology.reflection.metadata.FieldMetadata;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class NetClientTest extends TerasologyTestingEnvironment {
+    private static final int NET_ID = 42;
+
+    private Channel channel;
+    private NetClient client;
+    private EntityRef entity;
+    private ComponentLibrary componentLibrary;
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        EngineEntityManager entityManager = getEntityManager();
+        componentLibrary = entityManager.getComponentLibrary();
+
+        NetworkSystemImpl networkSystem = mock(NetworkSystemImpl.class);
+        when(networkSystem.isPrioritizedReplicationEnabled()).thenReturn(true);
+        when(networkSystem.getBandwidthPerClient()).thenReturn(10000);
+        channel = mock(Channel.class);
+        when(channel.getPipeline()).thenReturn(mock(ChannelPipeline.class));
+        PublicIdentityCertificate identity = mock(PublicIdentityCertificate.class);
+        when(identity.getId()).thenReturn("testClient");
+
+        NetworkEntitySerializer entitySerializer = new NetworkEntitySerializer(entityManager, componentLibrary,
+                new TypeHandlerLibrary(entityManager.getTypeSerializerLibrary()));
+        entitySerializer.setIdMapping(generateIds());
+
+        client = new NetClient(channel, networkSystem, identity);
+        client.connected(entityManager, entitySerializer, mock(EventSerializer.class), mock(EventLibrary.class));
+
+        entity = entityManager.create(new NetworkComponent(), new LocationComponent(new Vector3f(1, 2, 3)));
+        when(networkSystem.getEntity(NET_ID)).thenReturn(entity);
+    }
+
+    @Test
+    public void testUnchangedFieldsAreNotSentAgain() {
+        client.setNetInitial(NET_ID);
+        client.update(true);
+
+        client.setComponentDirty(NET_ID, LocationComponent.class);
+        client.update(true);
+        assertEquals(getReplicatedFieldCount(), getLastUpdate().getFieldIds().size());
+
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.setLocalPosition(new Vector3f(4, 5, 6));
+        entity.saveComponent(location);
+        client.setComponentDirty(NET_ID, LocationComponent.class);
+        client.update(true);
+        byte positionId = componentLibrary.getMetadata(LocationComponent.class).getField("position").getId();
+        assertEquals(ByteString.copyFrom(new byte[]{positionId}), getLastUpdate().getFieldIds());
+
+        client.setComponentDirty(NET_ID, LocationComponent.class);
+        client.update(true);
+        assertEquals(0, getLastMessage().getUpdateEntityCount());
+    }
+
+    @Test
+    public void testAllFieldsAreSentAgainAfterNetInitial() {
+        client.setNetInitial(NET_ID);
+        client.update(true);
+        client.setComponentDirty(NET_ID, LocationComponent.class);
+        client.update(true);
+
+        client.setNetInitial(NET_ID);
+        client.update(true);
+        assertEquals(1, getLastMessage().getCreateEntityCount());
+
+        client.setComponentDirty(NET_ID, LocationComponent.class);
+        client.update(true);
+        assertEquals(getReplicatedFieldCount(), getLastUpdate().getFieldIds().size());
+    }
+
+    private NetData.NetMessage getLastMessage() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(channel, atLeastOnce()).write(captor.capture());
+        return (NetData.NetMessage) captor.getValue();
+    }
+
+    private EntityData.PackedEntity getLastUpdate() {
+        NetData.NetMessage message = getLastMessage();
+        assertEquals(1, message.getUpdateEntityCount());
+        return message.getUpdateEntity(0).getEntity();
+    }
+
+    private int getReplicatedFieldCount() {
+        int count = 0;
+        for (ReplicatedFieldMetadata<?, ?> field : componentLibrary.getMetadata(LocationComponent.class).getFields()) {
+            if (field.isReplicated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Assigns the component and field ids the same way a hosting network system does.
+     */
+    private Map<Class<? extends Component>, Integer> generateIds() {
+        Map<Class<? extends Component>, Integer> result = Maps.newHashMap();
+        for (ClassMetadata<? extends Component, ?> metadata : componentLibrary) {
+            result.put(metadata.getType(), result.size());
+            byte fieldId = 0;
+            for (FieldMetadata<?, ?> field : metadata.getFields()) {
+                field.setId(fieldId++);
+            }
+        }
+        return result;
+    }
+}
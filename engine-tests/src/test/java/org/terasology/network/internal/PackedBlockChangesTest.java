@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import gnu.trove.map.TIntIntMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.NetData;
+import org.terasology.world.BlockRegionEdit;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class PackedBlockChangesTest {
+    private Block stone;
+    private Block dirt;
+    private BlockManager blockManager;
+
+    @Before
+    public void setup() {
+        stone = createBlock((short) 1);
+        dirt = createBlock((short) 300);
+        blockManager = mock(BlockManager.class);
+        when(blockManager.getBlock((short) 1)).thenReturn(stone);
+        when(blockManager.getBlock((short) 300)).thenReturn(dirt);
+    }
+
+    @Test
+    public void testChangesAreTransferredPerChunk() {
+        PackedBlockChanges changes = new PackedBlockChanges();
+        for (int x = -40; x < -30; x++) {
+            add(changes, new Vector3i(x, 5, 70), stone);
+        }
+        add(changes, new Vector3i(-35, 5, 70), dirt);
+        add(changes, new Vector3i(-34, 6, 71), dirt);
+        add(changes, new Vector3i(3, -2, 1), dirt);
+
+        Map<Vector3i, TIntIntMap> received = write(changes);
+
+        assertEquals(3, received.size());
+        Vector3i chunkPos = ChunkMath.calcChunkPos(-34, 6, 71);
+        Region3i region = PackedBlockChanges.getRegion(chunkPos, received.get(chunkPos));
+        assertEquals(Region3i.createFromMinMax(new Vector3i(-40, 5, 70), new Vector3i(-33, 6, 71)), region);
+
+        BlockRegionEdit edit = PackedBlockChanges.createEdit(chunkPos, received.get(chunkPos), blockManager);
+        assertSame(stone, edit.apply(-33, 5, 70, null));
+        assertSame(dirt, edit.apply(-35, 5, 70, null));
+        assertSame(dirt, edit.apply(-34, 6, 71, null));
+        assertNull(edit.apply(-33, 6, 71, null));
+
+        Vector3i otherChunkPos = ChunkMath.calcChunkPos(-31, 5, 70);
+        BlockRegionEdit otherEdit = PackedBlockChanges.createEdit(otherChunkPos, received.get(otherChunkPos), blockManager);
+        assertSame(stone, otherEdit.apply(-32, 5, 70, null));
+        assertSame(stone, otherEdit.apply(-31, 5, 70, null));
+        assertNull(otherEdit.apply(-30, 5, 70, null));
+    }
+
+    @Test
+    public void testChangesAreOnlySentOnce() {
+        PackedBlockChanges changes = new PackedBlockChanges();
+        add(changes, new Vector3i(1, 2, 3), stone);
+        write(changes);
+
+        NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
+        changes.write(message);
+        assertTrue(PackedBlockChanges.read(message.build()).isEmpty());
+    }
+
+    @Test
+    public void testRunsArePacked() {
+        PackedBlockChanges changes = new PackedBlockChanges();
+        for (Vector3i pos : Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(31, 15, 31))) {
+            add(changes, pos, stone);
+        }
+
+        NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
+        changes.write(message);
+        assertTrue(message.build().getSerializedSize() < 32);
+        assertEquals(32 * 16 * 32, PackedBlockChanges.read(message.build()).get(Vector3i.zero()).size());
+    }
+
+    private static void add(PackedBlockChanges changes, Vector3i pos, Block block) {
+        changes.add(ChunkMath.calcChunkPos(pos), pos, block);
+    }
+
+    private static Map<Vector3i, TIntIntMap> write(PackedBlockChanges changes) {
+        NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
+        changes.write(message);
+        return PackedBlockChanges.read(message.build());
+    }
+
+    private static Block createBlock(short id) {
+        Block block = new Block();
+        block.setId(id);
+        return block;
+    }
+}
@@ -28,8 +28,10 @@
 import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.stubs.EntityRefComponent;
 import org.terasology.entitySystem.stubs.GetterSetterComponent;
 import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.MappedContainerComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
@@ -39,6 +41,7 @@
 import org.terasology.persistence.typeHandling.mathTypes.Quat4fTypeHandler;
 import org.terasology.persistence.typeHandling.mathTypes.Vector3fTypeHandler;
 import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.metadata.FieldMetadata;
 import org.terasology.recording.RecordAndReplayCurrentStatus;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.testUtil.ModuleManagerFactory;
@@ -51,6 +54,7 @@
 public class ComponentSerializerTest {
     private static ModuleManager moduleManager;
     private ComponentSerializer componentSerializer;
+    private ComponentLibrary componentLibrary;
     private Context context;
 
     @BeforeClass
@@ -79,7 +83,9 @@ public void setup() {
         entityManager.getComponentLibrary().register(new SimpleUri("test", "gettersetter"), GetterSetterComponent.class);
         entityManager.getComponentLibrary().register(new SimpleUri("test", "string"), StringComponent.class);
         entityManager.getComponentLibrary().register(new SimpleUri("test", "integer"), IntegerComponent.class);
-        ComponentLibrary componentLibrary = entityManager.getComponentLibrary();
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "entityref"), EntityRefComponent.class);
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "mappedcontainer"), MappedContainerComponent.class);
+        componentLibrary = entityManager.getComponentLibrary();
         componentSerializer = new ComponentSerializer(componentLibrary, serializationLibrary);
 
     }
@@ -146,4 +152,73 @@ public void testDeltaComponentTypeIdDeserializesWithoutValue() throws Exception
         componentSerializer.deserializeOnto(original, compData);
         assertEquals(null, original.value);
     }
+
+    @Test
+    public void testPrimitiveFieldSerializesAsPlainValue() throws Exception {
+        EntityData.Component componentData = componentSerializer.serialize(new IntegerComponent(42));
+
+        assertEquals("value", componentData.getField(0).getName());
+        assertEquals(EntityData.Value.newBuilder().addInteger(42).build(), componentData.getField(0).getValue());
+        assertEquals(new IntegerComponent(42), componentSerializer.deserialize(componentData));
+    }
+
+    @Test
+    public void testPrimitiveFieldDeserializesFromOtherNumberType() throws Exception {
+        EntityData.Component compData = EntityData.Component.newBuilder().setType("test:integer")
+                .addField(EntityData.NameValue.newBuilder().setName("value").setValue(EntityData.Value.newBuilder().addFloat(3.0f))).build();
+
+        assertEquals(new IntegerComponent(3), componentSerializer.deserialize(compData));
+    }
+
+    @Test
+    public void testFieldIdsFollowChangedIds() throws Exception {
+        componentSerializer.setUsingFieldIds(true);
+        FieldMetadata<?, ?> field = componentLibrary.getMetadata(IntegerComponent.class).getField("value");
+        field.setId((byte) 5);
+
+        EntityData.Component componentData = componentSerializer.serialize(new IntegerComponent(7));
+        assertEquals(5, componentData.getField(0).getNameIndex());
+        assertEquals(new IntegerComponent(7), componentSerializer.deserialize(componentData));
+
+        field.setId((byte) 9);
+        componentData = componentSerializer.serialize(new IntegerComponent(8));
+        assertEquals(9, componentData.getField(0).getNameIndex());
+        assertEquals(new IntegerComponent(8), componentSerializer.deserialize(componentData));
+    }
+
+    @Test
+    public void testEncodedComponentParsesToSerializedComponent() throws Exception {
+        GetterSetterComponent component = new GetterSetterComponent();
+        assertEquals(componentSerializer.serialize(component),
+                EntityData.Component.parseFrom(componentSerializer.encode(component)));
+
+        componentSerializer.setIdMapping(ImmutableMap.<Class<? extends Component>, Integer>builder().put(StringComponent.class, 3).build());
+        assertEquals(componentSerializer.serialize(new StringComponent("Test")),
+                EntityData.Component.parseFrom(componentSerializer.encode(new StringComponent("Test"))));
+    }
+
+    @Test
+    public void testEncodedComponentUsesFieldIds() throws Exception {
+        componentSerializer.setUsingFieldIds(true);
+        componentLibrary.getMetadata(IntegerComponent.class).getField("value").setId((byte) 5);
+
+        assertEquals(componentSerializer.serialize(new IntegerComponent(7)),
+                EntityData.Component.parseFrom(componentSerializer.encode(new IntegerComponent(7))));
+    }
+
+    @Test
+    public void testEncodedComponentDeltas() throws Exception {
+        StringComponent original = new StringComponent("Original");
+        assertEquals(componentSerializer.serialize(original, new StringComponent("Delta")),
+                EntityData.Component.parseFrom(componentSerializer.encode(original, new StringComponent("Delta"))));
+        assertNull(componentSerializer.encode(original, new StringComponent("Original")));
+    }
+
+    @Test
+    public void testComponentsReferencingEntities() throws Exception {
+        assertTrue(componentSerializer.isReferencingEntities(new EntityRefComponent()));
+        assertTrue(componentSerializer.isReferencingEntities(new MappedContainerComponent()));
+        assertFalse(componentSerializer.isReferencingEntities(new StringComponent("Test")));
+        assertFalse(componentSerializer.isReferencingEntities(new IntegerComponent(1)));
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ */
+public class ChunkRegionFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndReadBack() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.region");
+        byte[] first = createData(100, (byte) 1);
+        byte[] second = createData(10000, (byte) 2);
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, false)) {
+            regionFile.write(new Vector3i(0, 0, 0), first);
+            regionFile.write(new Vector3i(3, 1, 2), second);
+
+            assertArrayEquals(first, regionFile.read(new Vector3i(0, 0, 0)));
+            assertArrayEquals(second, regionFile.read(new Vector3i(3, 1, 2)));
+            assertNull(regionFile.read(new Vector3i(1, 0, 0)));
+        }
+
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, true)) {
+            assertArrayEquals(first, regionFile.read(new Vector3i(0, 0, 0)));
+            assertArrayEquals(second, regionFile.read(new Vector3i(3, 1, 2)));
+        }
+    }
+
+    @Test
+    public void testOverwriteKeepsOtherChunks() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.region");
+        byte[] neighbour = createData(5000, (byte) 7);
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, false)) {
+            regionFile.write(new Vector3i(0, 0, 0), createData(100, (byte) 1));
+            regionFile.write(new Vector3i(0, 0, 1), neighbour);
+
+            byte[] grown = createData(20000, (byte) 3);
+            regionFile.write(new Vector3i(0, 0, 0), grown);
+            assertArrayEquals(grown, regionFile.read(new Vector3i(0, 0, 0)));
+            assertArrayEquals(neighbour, regionFile.read(new Vector3i(0, 0, 1)));
+
+            byte[] shrunk = createData(50, (byte) 4);
+            regionFile.write(new Vector3i(0, 0, 0), shrunk);
+            assertArrayEquals(shrunk, regionFile.read(new Vector3i(0, 0, 0)));
+            assertArrayEquals(neighbour, regionFile.read(new Vector3i(0, 0, 1)));
+        }
+    }
+
+    @Test
+    public void testFreedSectorsGetReused() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.region");
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, false)) {
+            for (int i = 0; i < 100; i++) {
+                regionFile.write(new Vector3i(0, 0, 0), createData(4096 + i * 10, (byte) i));
+                regionFile.write(new Vector3i(0, 0, 1), createData(100 * i + 1, (byte) i));
+            }
+            assertArrayEquals(createData(4096 + 990, (byte) 99), regionFile.read(new Vector3i(0, 0, 0)));
+        }
+        long sizeAfterRewrites = Files.size(path);
+
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, false)) {
+            regionFile.write(new Vector3i(0, 0, 0), createData(8000, (byte) 5));
+        }
+        assertEquals(sizeAfterRewrites, Files.size(path));
+    }
+
+    @Test
+    public void testStoredChunksAreOnlyReplacedByFlush() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.region");
+        byte[] stored = createData(5000, (byte) 1);
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, false)) {
+            regionFile.write(new Vector3i(0, 0, 0), stored);
+        }
+
+        try (ChunkRegionFile regionFile = ChunkRegionFile.open(path, false)) {
+            byte[] replacement = createData(4000, (byte) 2);
+            regionFile.write(new Vector3i(0, 0, 0), replacement);
+            regionFile.write(new Vector3i(0, 0, 1), createData(3000, (byte) 3));
+            assertArrayEquals(replacement, regionFile.read(new Vector3i(0, 0, 0)));
+
+            try (ChunkRegionFile storedState = ChunkRegionFile.open(path, true)) {
+                assertArrayEquals(stored, storedState.read(new Vector3i(0, 0, 0)));
+                assertNull(storedState.read(new Vector3i(0, 0, 1)));
+            }
+
+            regionFile.flush();
+            try (ChunkRegionFile storedState = ChunkRegionFile.open(path, true)) {
+                assertArrayEquals(replacement, storedState.read(new Vector3i(0, 0, 0)));
+                assertArrayEquals(createData(3000, (byte) 3), storedState.read(new Vector3i(0, 0, 1)));
+            }
+        }
+    }
+
+    @Test
+    public void testLoadWhileStoreReopensRegionForWriting() throws Exception {
+        ChunkRegionStore store = new ChunkRegionStore(new StoragePathProvider(temporaryFolder.getRoot().toPath()));
+        Vector3i loadedPos = new Vector3i(0, 0, 0);
+        byte[] loaded = createData(5000, (byte) 1);
+        store.store(loadedPos, loaded);
+        store.close();
+
+        ExecutorService loader = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 200; i++) {
+                // the loader opens the region read only, the store reopens it for writing and closes it again
+                Future<?> loads = loader.submit(() -> {
+                    for (int j = 0; j < 20; j++) {
+                        assertArrayEquals(loaded, store.load(loadedPos));
+                    }
+                    return null;
+                });
+                store.store(new Vector3i(0, 0, 1), createData(100 + i, (byte) i));
+                store.flush();
+                store.close();
+                loads.get();
+            }
+        } finally {
+            loader.shutdownNow();
+            store.close();
+        }
+    }
+
+    @Test
+    public void testRegionPositionOfNegativeChunks() {
+        assertEquals(new Vector3i(0, 0, 0), ChunkRegionFile.getRegionPosition(new Vector3i(0, 0, 0)));
+        assertEquals(new Vector3i(-1, 0, 0), ChunkRegionFile.getRegionPosition(new Vector3i(-1, 0, 0)));
+        assertEquals(new Vector3i(-1, 0, 1), ChunkRegionFile.getRegionPosition(
+                new Vector3i(-ChunkRegionFile.REGION_DIM, 0, ChunkRegionFile.REGION_DIM)));
+    }
+
+    private static byte[] createData(int length, byte value) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, value);
+        return data;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import org.junit.Test;
+import org.terasology.protobuf.EntityData;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class CompressedChunkBuilderTest {
+
+    @Test
+    public void testWrittenChunkStoreParsesToBuiltMessage() throws Exception {
+        EntityData.EntityStore entityStore = createEntityStore();
+        EntityData.ChunkStore chunkWithoutEntities = createChunkWithoutEntities();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        CompressedChunkBuilder.writeChunkStore(output, chunkWithoutEntities, entityStore);
+        output.flush();
+
+        EntityData.ChunkStore expected = chunkWithoutEntities.toBuilder().setStore(entityStore).build();
+        EntityData.ChunkStore parsed = EntityData.ChunkStore.parseFrom(bytes.toByteArray());
+        assertEquals(entityStore, parsed.getStore());
+        assertEquals(expected, parsed);
+    }
+
+    @Test
+    public void testChunkStoreWithEncodedEntityStoreParsesToBuiltMessage() throws Exception {
+        EntityData.EntityStore entityStore = createEntityStore();
+        EntityData.ChunkStore chunkWithoutEntities = createChunkWithoutEntities();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        CompressedChunkBuilder.writeChunkStore(output, chunkWithoutEntities, entityStore.toByteArray());
+        output.flush();
+
+        EntityData.ChunkStore expected = chunkWithoutEntities.toBuilder().setStore(entityStore).build();
+        assertEquals(expected, EntityData.ChunkStore.parseFrom(bytes.toByteArray()));
+    }
+
+    private EntityData.EntityStore createEntityStore() {
+        return EntityData.EntityStore.newBuilder()
+                .addEntity(EntityData.Entity.newBuilder().setId(3).setParentPrefab("engine:first")
+                        .addComponent(EntityData.Component.newBuilder().setTypeIndex(1)))
+                .addEntity(EntityData.Entity.newBuilder().setId(7).setOwner(3))
+                .addComponentClass("engine:location")
+                .addComponentClass("engine:health")
+                .addEntityName("named")
+                .addEntityNamed(7)
+                .build();
+    }
+
+    private EntityData.ChunkStore createChunkWithoutEntities() {
+        return EntityData.ChunkStore.newBuilder()
+                .setX(1).setY(-2).setZ(3)
+                .setDeprecatedData4(ByteString.copyFrom(new byte[]{1, 2, 3}))
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.assets.AssetFactory;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.assets.module.ModuleAwareAssetTypeManager;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.entity.internal.EntityScope;
+import org.terasology.entitySystem.prefab.Prefab;
+import org.terasology.entitySystem.prefab.PrefabData;
+import org.terasology.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.entitySystem.stubs.EntityRefComponent;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.OwnerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.network.NetworkSystem;
+import org.terasology.protobuf.EntityData;
+import org.terasology.recording.RecordAndReplayCurrentStatus;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+import org.terasology.utilities.Assets;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class EntityStoreEncoderTest {
+
+    private static Context context;
+    private static ModuleManager moduleManager;
+    private EngineEntityManager entityManager;
+    private Prefab prefab;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        context = new ContextImpl();
+        CoreRegistry.setContext(context);
+        context.put(RecordAndReplayCurrentStatus.class, new RecordAndReplayCurrentStatus());
+        moduleManager = ModuleManagerFactory.create();
+        context.put(ModuleManager.class, moduleManager);
+
+        ModuleAwareAssetTypeManager assetTypeManager = new ModuleAwareAssetTypeManager();
+        assetTypeManager.registerCoreAssetType(Prefab.class,
+                (AssetFactory<Prefab, PrefabData>) PojoPrefab::new, "prefabs");
+        assetTypeManager.switchEnvironment(moduleManager.getEnvironment());
+        context.put(AssetManager.class, assetTypeManager.getAssetManager());
+    }
+
+    @Before
+    public void setup() {
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        entityManager = context.get(EngineEntityManager.class);
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "string"), StringComponent.class);
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "integer"), IntegerComponent.class);
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "entityref"), EntityRefComponent.class);
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "owner"), OwnerComponent.class);
+
+        PrefabData prefabData = new PrefabData();
+        prefabData.addComponent(new StringComponent("Value"));
+        prefabData.addComponent(new IntegerComponent(1));
+        prefab = Assets.generateAsset(new ResourceUrn("test:Test"), prefabData, Prefab.class);
+    }
+
+    @Test
+    public void testEncodedStoreParsesToStoredEntities() throws Exception {
+        EntityRef plainEntity = entityManager.create(new StringComponent("Plain"), new IntegerComponent(4));
+        plainEntity.setScope(EntityScope.CHUNK);
+        EntityRef prefabEntity = entityManager.create(prefab);
+        prefabEntity.removeComponent(IntegerComponent.class);
+        prefabEntity.addComponent(new EntityRefComponent(plainEntity));
+        prefabEntity.setOwner(plainEntity);
+        EntityRef unchangedEntity = entityManager.create(prefab);
+        unchangedEntity.setScope(EntityScope.GLOBAL);
+
+        assertStoresEqual(plainEntity, prefabEntity, unchangedEntity);
+    }
+
+    @Test
+    public void testOwnedEntitiesAreStored() throws Exception {
+        EntityRef child = entityManager.create(new StringComponent("Child"));
+        OwnerComponent ownerComponent = new OwnerComponent();
+        ownerComponent.child = child;
+        EntityRef owner = entityManager.create(ownerComponent);
+
+        EntityStoreEncoder encoder = assertStoresEqual(owner);
+        assertEquals(2, encoder.getStoredEntities().size());
+        assertTrue(encoder.getStoredEntities().contains(child));
+    }
+
+    @Test
+    public void testEntitiesMayBeDeactivatedBeforeEncoding() throws Exception {
+        EntityRef referenced = entityManager.create(new StringComponent("Referenced"));
+        EntityRef entity = entityManager.create(new StringComponent("Value"), new EntityRefComponent(referenced));
+
+        EntityStorer storer = new EntityStorer(entityManager);
+        storer.store(entity);
+        EntityStoreEncoder encoder = new EntityStoreEncoder(entityManager);
+        encoder.store(entity);
+        entityManager.deactivateForStorage(entity);
+        referenced.destroy();
+
+        assertEquals(storer.finaliseStore(), EntityData.EntityStore.parseFrom(encoder.encode()));
+    }
+
+    private EntityStoreEncoder assertStoresEqual(EntityRef... entities) throws Exception {
+        EntityStorer storer = new EntityStorer(entityManager);
+        EntityStoreEncoder encoder = new EntityStoreEncoder(entityManager);
+        Arrays.stream(entities).forEach(storer::store);
+        Arrays.stream(entities).forEach(encoder::store);
+
+        assertEquals(storer.finaliseStore(), EntityData.EntityStore.parseFrom(encoder.encode()));
+        assertEquals(storer.getStoredEntities(), encoder.getStoredEntities());
+        return encoder;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import gnu.trove.set.hash.TLongHashSet;
+import org.junit.Test;
+import org.terasology.protobuf.EntityData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class GlobalStoreJournalTest {
+
+    @Test
+    public void testEntriesGetAppliedInOrder() throws Exception {
+        EntityData.GlobalStore base = EntityData.GlobalStore.newBuilder()
+                .addComponentClass("engine:a")
+                .addEntity(createEntity(1, 0))
+                .addEntity(createEntity(2, 0))
+                .setNextEntityId(3)
+                .build();
+
+        ByteArrayOutputStream journal = new ByteArrayOutputStream();
+        GlobalStoreJournal.writeEntry(journal, new TLongHashSet(new long[]{2}), EntityData.GlobalStore.newBuilder()
+                .addComponentClass("engine:b")
+                .addEntity(createEntity(3, 0))
+                .setNextEntityId(4)
+                .build());
+        GlobalStoreJournal.writeEntry(journal, new TLongHashSet(), EntityData.GlobalStore.newBuilder()
+                .addComponentClass("engine:b")
+                .addComponentClass("engine:a")
+                .addEntity(createEntity(1, 0))
+                .setNextEntityId(4)
+                .build());
+
+        EntityData.GlobalStore result = GlobalStoreJournal.apply(base, new ByteArrayInputStream(journal.toByteArray()));
+
+        assertEquals(2, result.getComponentClassCount());
+        assertEquals(2, result.getEntityCount());
+        assertEquals(1, result.getEntity(0).getId());
+        assertEquals("engine:b", getComponentClass(result, result.getEntity(0)));
+        assertEquals(3, result.getEntity(1).getId());
+        assertEquals("engine:b", getComponentClass(result, result.getEntity(1)));
+        assertEquals(4, result.getNextEntityId());
+    }
+
+    @Test
+    public void testEmptyJournalKeepsStore() throws Exception {
+        EntityData.GlobalStore base = EntityData.GlobalStore.newBuilder()
+                .addComponentClass("engine:a")
+                .addEntity(createEntity(1, 0))
+                .setNextEntityId(2)
+                .build();
+
+        assertEquals(base, GlobalStoreJournal.apply(base, new ByteArrayInputStream(new byte[0])));
+    }
+
+    private static EntityData.Entity createEntity(long id, int typeIndex) {
+        return EntityData.Entity.newBuilder()
+                .setId(id)
+                .addComponent(EntityData.Component.newBuilder().setTypeIndex(typeIndex))
+                .build();
+    }
+
+    private static String getComponentClass(EntityData.GlobalStore store, EntityData.Entity entity) {
+        return store.getComponentClass(entity.getComponent(0).getTypeIndex());
+    }
+}
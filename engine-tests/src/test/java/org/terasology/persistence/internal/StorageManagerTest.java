@@ -235,6 +235,34 @@ public void testGlobalEntitiesStoredAndRestored() throws Exception {
     }
 
 
+    @Test
+    public void testIncrementalSaveKeepsGlobalEntityChanges() throws Exception {
+        esm.setIncrementalSavesEnabled(true);
+        EntityRef changedEntity = entityManager.create(new StringComponent("Before"));
+        EntityRef destroyedEntity = entityManager.create(new StringComponent("Destroyed"));
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+
+        StringComponent component = changedEntity.getComponent(StringComponent.class);
+        component.value = "After";
+        changedEntity.saveComponent(component);
+        destroyedEntity.destroy();
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+        assertTrue(Files.isRegularFile(new StoragePathProvider(savePath).getGlobalEntityStoreJournalPath()));
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                extraDataManager, false, recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
+        newSM.loadGlobalStore();
+
+        List<EntityRef> entities = Lists.newArrayList(newEntityManager.getEntitiesWith(StringComponent.class));
+        assertEquals(1, entities.size());
+        assertEquals(changedEntity.getId(), entities.get(0).getId());
+        assertEquals("After", entities.get(0).getComponent(StringComponent.class).value);
+    }
+
     @Test
     public void testReferenceRemainsValidOverStorageRestoral() throws Exception {
         EntityRef someEntity = entityManager.create();
@@ -310,6 +338,35 @@ public void testChunkSurvivesStorageSaveAndRestore() throws Exception {
         assertEquals(testBlock2, restored.getChunk().getBlock(0, 4, 2));
     }
 
+    @Test
+    public void testChunkSurvivesStorageSaveAndRestoreInRegions() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, extraDataManager);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.setBlock(0, 4, 2, testBlock2);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.setStoreChunksInRegions(true);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        ReadWriteStorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                extraDataManager, false, recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
+        newSM.setStoreChunksInRegions(true);
+        newSM.loadGlobalStore();
+
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertNotNull(restored);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+        assertEquals(testBlock2, restored.getChunk().getBlock(0, 4, 2));
+        assertFalse(Files.exists(new StoragePathProvider(savePath).getChunkPath(CHUNK_POS)));
+    }
+
     @Test
     public void testEntitySurvivesStorageInChunkStore() throws Exception {
         Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, extraDataManager);
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import org.junit.Test;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.protobuf.EntityData;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ProtobufEncodedPersistedDataSerializerTest {
+
+    private ProtobufPersistedDataSerializer messageSerializer = new ProtobufPersistedDataSerializer();
+    private ProtobufEncodedPersistedDataSerializer encodedSerializer = new ProtobufEncodedPersistedDataSerializer();
+
+    @Test
+    public void testSingleValues() {
+        assertSameValue(messageSerializer.serialize("text"), encodedSerializer.serialize("text"));
+        assertSameValue(messageSerializer.serialize(1.5f), encodedSerializer.serialize(1.5f));
+        assertSameValue(messageSerializer.serialize(-300), encodedSerializer.serialize(-300));
+        assertSameValue(messageSerializer.serialize(Long.MIN_VALUE), encodedSerializer.serialize(Long.MIN_VALUE));
+        assertSameValue(messageSerializer.serialize(true), encodedSerializer.serialize(true));
+        assertSameValue(messageSerializer.serialize(-2.25), encodedSerializer.serialize(-2.25));
+    }
+
+    @Test
+    public void testArrays() {
+        assertSameValue(messageSerializer.serialize("a", "\u00e4", ""), encodedSerializer.serialize("a", "\u00e4", ""));
+        assertSameValue(messageSerializer.serializeStrings(Lists.newArrayList("x", "y")),
+                encodedSerializer.serializeStrings(Lists.newArrayList("x", "y")));
+        assertSameValue(messageSerializer.serialize(1f, -2f), encodedSerializer.serialize(1f, -2f));
+        assertSameValue(messageSerializer.serialize(0, 1, Integer.MAX_VALUE, Integer.MIN_VALUE),
+                encodedSerializer.serialize(0, 1, Integer.MAX_VALUE, Integer.MIN_VALUE));
+        assertSameValue(messageSerializer.serialize(5L, -5L), encodedSerializer.serialize(5L, -5L));
+        assertSameValue(messageSerializer.serialize(true, false, true), encodedSerializer.serialize(true, false, true));
+        assertSameValue(messageSerializer.serialize(0.5, 1e100), encodedSerializer.serialize(0.5, 1e100));
+    }
+
+    @Test
+    public void testIterators() {
+        assertSameValue(messageSerializer.serialize(new TFloatArrayList(new float[]{1, 2}).iterator()),
+                encodedSerializer.serialize(new TFloatArrayList(new float[]{1, 2}).iterator()));
+        assertSameValue(messageSerializer.serialize(new TIntArrayList(new int[]{-1, 1000}).iterator()),
+                encodedSerializer.serialize(new TIntArrayList(new int[]{-1, 1000}).iterator()));
+        assertSameValue(messageSerializer.serialize(new TLongArrayList(new long[]{-1, 1L << 40}).iterator()),
+                encodedSerializer.serialize(new TLongArrayList(new long[]{-1, 1L << 40}).iterator()));
+        assertSameValue(messageSerializer.serialize(new TDoubleArrayList(new double[]{3, 4}).iterator()),
+                encodedSerializer.serialize(new TDoubleArrayList(new double[]{3, 4}).iterator()));
+    }
+
+    @Test
+    public void testBytes() {
+        byte[] bytes = {1, 2, 3};
+        assertSameValue(messageSerializer.serialize(bytes), encodedSerializer.serialize(bytes));
+        assertSameValue(messageSerializer.serialize(ByteBuffer.wrap(bytes)), encodedSerializer.serialize(ByteBuffer.wrap(bytes)));
+        assertSameValue(messageSerializer.serialize(new byte[0]), encodedSerializer.serialize(new byte[0]));
+        assertFalse(encodedSerializer.serialize(new byte[0]).isNull());
+    }
+
+    @Test
+    public void testNestedValues() {
+        PersistedData expectedList = messageSerializer.serialize(messageSerializer.serialize(1), messageSerializer.serializeNull(),
+                messageSerializer.serialize("a", "b"));
+        PersistedData encodedList = encodedSerializer.serialize(encodedSerializer.serialize(1), encodedSerializer.serializeNull(),
+                encodedSerializer.serialize("a", "b"));
+        assertSameValue(expectedList, encodedList);
+
+        Map<String, PersistedData> expectedMap = ImmutableMap.of("list", expectedList, "value", messageSerializer.serialize(2.5f));
+        Map<String, PersistedData> encodedMap = ImmutableMap.of("list", encodedList, "value", encodedSerializer.serialize(2.5f));
+        assertSameValue(messageSerializer.serialize(expectedMap), encodedSerializer.serialize(encodedMap));
+    }
+
+    @Test
+    public void testNestedMessageValuesAreAccepted() {
+        PersistedData child = messageSerializer.serialize(7L);
+        assertSameValue(messageSerializer.serialize(child), encodedSerializer.serialize(child));
+        assertSameValue(messageSerializer.serialize(ImmutableMap.of("key", child)),
+                encodedSerializer.serialize(ImmutableMap.of("key", child)));
+    }
+
+    @Test
+    public void testEmptyValuesAreNull() {
+        assertTrue(encodedSerializer.serializeNull().isNull());
+        assertTrue(encodedSerializer.serialize(new int[0]).isNull());
+        assertSameValue(messageSerializer.serializeNull(), encodedSerializer.serializeNull());
+        assertSameValue(messageSerializer.serialize(new int[0]), encodedSerializer.serialize(new int[0]));
+    }
+
+    @Test
+    public void testReadsParseTheValue() {
+        PersistedData data = encodedSerializer.serialize("text");
+        assertTrue(data.isString());
+        assertEquals("text", data.getAsString());
+        assertEquals(3, encodedSerializer.serialize(1, 2, 3).getAsArray().size());
+    }
+
+    private void assertSameValue(PersistedData expected, PersistedData encoded) {
+        EntityData.Value expectedValue = ((ProtobufPersistedData) expected).getValue();
+        ProtobufEncodedPersistedData encodedData = (ProtobufEncodedPersistedData) encoded;
+        assertEquals(expectedValue, encodedData.getValue());
+        assertEquals(expectedValue.getSerializedSize(), encodedData.getSerializedSize());
+    }
+}
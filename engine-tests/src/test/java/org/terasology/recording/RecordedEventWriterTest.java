@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.recording;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.protobuf.EntityData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class RecordedEventWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEventsAreReadBackInOrderAcrossSegments() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath().resolve("recording");
+        RecordedEventWriter writer = new RecordedEventWriter(() -> directory, 256);
+        for (int i = 0; i < 1000; i++) {
+            writer.write(EntityData.Value.newBuilder().addLong(i).build());
+        }
+        writer.close();
+
+        assertTrue(writer.getSegmentCount() > 1);
+        assertTrue(RecordedEventReader.hasSegments(directory));
+        try (RecordedEventReader reader = new RecordedEventReader(directory)) {
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, reader.next().getLong(0));
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testFlushMakesEventsReadable() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        RecordedEventWriter writer = new RecordedEventWriter(() -> directory, Long.MAX_VALUE);
+        writer.write(EntityData.Value.newBuilder().addLong(42).build());
+        writer.flush();
+
+        try (RecordedEventReader reader = new RecordedEventReader(directory)) {
+            assertEquals(42, reader.next().getLong(0));
+            assertNull(reader.next());
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testNothingIsWrittenWithoutEvents() {
+        Path directory = temporaryFolder.getRoot().toPath();
+        RecordedEventWriter writer = new RecordedEventWriter(() -> directory, 256);
+        writer.flush();
+        writer.close();
+
+        assertFalse(RecordedEventReader.hasSegments(directory));
+        assertFalse(Files.exists(RecordedEventWriter.getSegmentPath(directory, 1)));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lwjgl.BufferUtils;
+import org.terasology.config.RenderingConfig;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkMeshCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RenderingConfig renderingConfig;
+    private ChunkMeshCache cache;
+    private ChunkView chunkView;
+    private Block stone;
+    private Vector3i position = new Vector3i(1, -2, 3);
+
+    @Before
+    public void setup() throws Exception {
+        renderingConfig = mock(RenderingConfig.class);
+        cache = new ChunkMeshCache(temporaryFolder.getRoot().toPath().resolve("world"), null, renderingConfig, 42);
+        stone = new Block();
+        stone.setId((short) 1);
+        chunkView = mock(ChunkView.class);
+        when(chunkView.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(stone);
+    }
+
+    @Test
+    public void testStoredMeshIsLoaded() {
+        ChunkMeshCache.Key key = cache.createKey(position, chunkView);
+        cache.store(key, createMesh(7));
+
+        ChunkMesh loaded = cache.load(key);
+        assertNotNull(loaded);
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements elements = loaded.getVertexElements(type);
+            assertBuffer(type.getIndex() * 100 + 7, 14 * (type.getIndex() + 1), elements.finalVertices);
+            assertBuffer(type.getIndex() * 100 + 8, 6 * type.getIndex(), elements.finalIndices);
+        }
+        assertEquals(ChunkVisibilityGraph.ALL_SIDES_CONNECTED, loaded.getSideConnections());
+    }
+
+    @Test
+    public void testChangedChunkIsNotLoaded() {
+        ChunkMeshCache.Key key = cache.createKey(position, chunkView);
+        cache.store(key, createMesh(7));
+
+        when(chunkView.getSunlight(5, 5, 5)).thenReturn((byte) 15);
+        ChunkMeshCache.Key changedKey = cache.createKey(position, chunkView);
+        assertFalse(key.matches(changedKey));
+        assertNull(cache.load(changedKey));
+    }
+
+    @Test
+    public void testChangedBorderIsNotLoaded() {
+        ChunkMeshCache.Key key = cache.createKey(position, chunkView);
+        cache.store(key, createMesh(7));
+
+        when(chunkView.getLight(-1, 0, 0)).thenReturn((byte) 3);
+        assertNull(cache.load(cache.createKey(position, chunkView)));
+    }
+
+    @Test
+    public void testOtherTessellationVersionIsNotLoaded() throws Exception {
+        ChunkMeshCache.Key key = cache.createKey(position, chunkView);
+        cache.store(key, createMesh(7));
+
+        ChunkMeshCache otherCache = new ChunkMeshCache(temporaryFolder.getRoot().toPath().resolve("world"), null, renderingConfig, 43);
+        assertNull(otherCache.load(key));
+        assertTrue(key.matches(otherCache.createKey(position, chunkView)));
+    }
+
+    @Test
+    public void testMeshOfOtherSettingsIsNotLoaded() {
+        ChunkMeshCache.Key key = cache.createKey(position, chunkView);
+        cache.store(key, createMesh(7));
+
+        when(renderingConfig.isGreedyMeshing()).thenReturn(true);
+        ChunkMeshCache.Key greedyKey = cache.createKey(position, chunkView);
+        assertFalse(key.matches(greedyKey));
+        assertNull(cache.load(greedyKey));
+
+        cache.store(greedyKey, createMesh(9));
+        assertNotNull(cache.load(greedyKey));
+    }
+
+    @Test
+    public void testNewerMeshDoesNotReplaceLoadedFile() throws Exception {
+        ChunkMeshCache.Key key = cache.createKey(position, chunkView);
+        cache.store(key, createMesh(7));
+        ChunkMesh loaded = cache.load(key);
+
+        when(chunkView.getSunlight(5, 5, 5)).thenReturn((byte) 15);
+        ChunkMeshCache.Key changedKey = cache.createKey(position, chunkView);
+        cache.store(changedKey, createMesh(9));
+
+        assertBuffer(7, 14, loaded.getVertexElements(ChunkMesh.RenderType.OPAQUE).finalVertices);
+        assertNotNull(cache.load(changedKey));
+        assertNull(cache.load(key));
+        assertEquals(1, countFiles());
+    }
+
+    private long countFiles() throws Exception {
+        try (Stream<Path> files = Files.list(temporaryFolder.getRoot().toPath().resolve("world"))) {
+            return files.count();
+        }
+    }
+
+    private static ChunkMesh createMesh(int seed) {
+        ChunkMesh mesh = new ChunkMesh(null);
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            elements.finalVertices = createBuffer(type.getIndex() * 100 + seed, 14 * (type.getIndex() + 1));
+            elements.finalIndices = createBuffer(type.getIndex() * 100 + seed + 1, 6 * type.getIndex());
+        }
+        return mesh;
+    }
+
+    private static IntBuffer createBuffer(int firstValue, int size) {
+        IntBuffer buffer = BufferUtils.createIntBuffer(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put(firstValue + i);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void assertBuffer(int firstValue, int size, IntBuffer buffer) {
+        assertEquals(size, buffer.remaining());
+        for (int i = 0; i < size; i++) {
+            assertEquals(firstValue + i, buffer.get(buffer.position() + i));
+        }
+    }
+}
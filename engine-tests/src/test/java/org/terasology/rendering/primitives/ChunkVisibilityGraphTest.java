@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Side;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkVisibilityGraphTest {
+
+    private Block air;
+    private Block stone;
+    private ChunkView chunkView;
+
+    @Before
+    public void setup() {
+        air = new Block();
+        air.setTranslucent(true);
+
+        stone = new Block();
+        stone.setMeshGenerator(mock(BlockMeshGenerator.class));
+        for (Side side : Side.values()) {
+            stone.setFullSide(side, true);
+        }
+
+        chunkView = mock(ChunkView.class);
+    }
+
+    @Test
+    public void testEmptyChunkConnectsAllSides() {
+        when(chunkView.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(air);
+
+        assertEquals(ChunkVisibilityGraph.ALL_SIDES_CONNECTED, new ChunkVisibilityGraph().calculateSideConnections(chunkView));
+    }
+
+    @Test
+    public void testSolidChunkConnectsNoSides() {
+        when(chunkView.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(stone);
+
+        long connections = new ChunkVisibilityGraph().calculateSideConnections(chunkView);
+        for (Side from : Side.values()) {
+            for (Side to : Side.values()) {
+                assertFalse(ChunkVisibilityGraph.areSidesConnected(connections, from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testSolidLayerSeparatesTopAndBottom() {
+        when(chunkView.getBlock(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+                (Integer) invocation.getArguments()[1] == 10 ? stone : air);
+
+        long connections = new ChunkVisibilityGraph().calculateSideConnections(chunkView);
+        assertFalse(ChunkVisibilityGraph.areSidesConnected(connections, Side.TOP, Side.BOTTOM));
+        assertTrue(ChunkVisibilityGraph.areSidesConnected(connections, Side.LEFT, Side.RIGHT));
+        assertTrue(ChunkVisibilityGraph.areSidesConnected(connections, Side.TOP, Side.FRONT));
+        assertTrue(ChunkVisibilityGraph.areSidesConnected(connections, Side.BACK, Side.BOTTOM));
+    }
+}
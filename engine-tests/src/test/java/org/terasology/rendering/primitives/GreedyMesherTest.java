@@ -0,0 +1,315 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.terasology.math.Side;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ */
+public class GreedyMesherTest {
+    private static final float TILE_SIZE = 1f / 16;
+    private static final int MESH_HEIGHT = 8;
+    private static final int VERTEX_SIZE = 14;
+
+    private final Block air = createAir();
+    private final Block stone = createCube((short) 1, 0, true);
+    private final Block dirt = createCube((short) 2, 1, true);
+    private final Map<Vector3i, Block> blocks = Maps.newHashMap();
+    private ToIntFunction<Vector3i> sunlight = pos -> 15;
+
+    @Test
+    public void testUniformLayerBecomesOneQuadPerSide() {
+        fill(stone, 0, 0, 0, 4, 1, 4);
+
+        List<Quad> quads = generateGreedy();
+
+        assertEquals(6, quads.size());
+        assertEquals(generateFaces(), unitFaces(quads));
+    }
+
+    @Test
+    public void testDifferentBlocksAreNotMerged() {
+        for (int x = 0; x < 4; x++) {
+            fill(x % 2 == 0 ? stone : dirt, x, 0, 0, 1, 1, 1);
+        }
+
+        List<Quad> quads = generateGreedy();
+
+        assertEquals(4, countQuads(quads, Side.TOP));
+        assertEquals(generateFaces(), unitFaces(quads));
+    }
+
+    @Test
+    public void testDifferentlyLitFacesAreNotMerged() {
+        fill(stone, 0, 0, 0, 8, 1, 1);
+        sunlight = pos -> pos.x < 4 ? 15 : 5;
+
+        List<Quad> quads = generateGreedy();
+
+        for (Quad quad : quads) {
+            if (quad.side == Side.TOP) {
+                assertFalse("A quad spans both light levels", quad.min.x < 3.5f && quad.max.x > 4.5f);
+            }
+        }
+        assertTrue(countQuads(quads, Side.TOP) > 1);
+        assertEquals(generateFaces(), unitFaces(quads));
+    }
+
+    @Test
+    public void testFacesNotShowingWholeTilesAreNotMerged() {
+        Block partial = createCube((short) 3, 2, false);
+        fill(partial, 0, 0, 0, 4, 1, 1);
+
+        List<Quad> quads = generateGreedy();
+
+        assertEquals(4, countQuads(quads, Side.TOP));
+        assertEquals(generateFaces(), unitFaces(quads));
+    }
+
+    @Test
+    public void testQuadsCoverTheFacesOfTheSingleShapeGenerator() {
+        Random random = new Random(7);
+        for (int y = 0; y < MESH_HEIGHT; y++) {
+            for (int z = 0; z < 12; z++) {
+                for (int x = 0; x < 12; x++) {
+                    int value = random.nextInt(10);
+                    if (value < 4) {
+                        fill(value < 3 ? stone : dirt, x, y, z, 1, 1, 1);
+                    }
+                }
+            }
+        }
+        sunlight = pos -> pos.y > MESH_HEIGHT / 2 ? 15 : 10;
+
+        List<Quad> quads = generateGreedy();
+
+        Multiset<String> faces = unitFaces(quads);
+        assertEquals(generateFaces(), faces);
+        assertTrue(quads.size() < faces.size());
+    }
+
+    private List<Quad> generateGreedy() {
+        GreedyMesher mesher = new GreedyMesher(TILE_SIZE);
+        mesher.generate(createChunkView(), MESH_HEIGHT, 0);
+
+        IntBuffer vertices = mesher.getVertices();
+        List<Quad> quads = Lists.newArrayList();
+        for (int quad = 0; quad < mesher.getVertexCount() / 4; quad++) {
+            Vector3f min = new Vector3f(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+            Vector3f max = new Vector3f(-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE);
+            Vector3f normal = new Vector3f();
+            for (int i = 0; i < 4; i++) {
+                int vertex = (quad * 4 + i) * VERTEX_SIZE;
+                Vector3f position = new Vector3f(Float.intBitsToFloat(vertices.get(vertex)),
+                        Float.intBitsToFloat(vertices.get(vertex + 1)), Float.intBitsToFloat(vertices.get(vertex + 2)));
+                min.set(Math.min(min.x, position.x), Math.min(min.y, position.y), Math.min(min.z, position.z));
+                max.set(Math.max(max.x, position.x), Math.max(max.y, position.y), Math.max(max.z, position.z));
+                normal.set(Float.intBitsToFloat(vertices.get(vertex + 11)), Float.intBitsToFloat(vertices.get(vertex + 12)),
+                        Float.intBitsToFloat(vertices.get(vertex + 13)));
+            }
+            quads.add(new Quad(Side.inDirection(normal.x, normal.y, normal.z), min, max));
+        }
+        return quads;
+    }
+
+    /**
+     * @return the faces of all blocks in the mesh, as generated without greedy meshing
+     */
+    private Multiset<String> generateFaces() {
+        ChunkView chunkView = createChunkView();
+        ChunkMesh mesh = new ChunkMesh(null);
+        for (int y = 0; y < MESH_HEIGHT; y++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                    Block block = chunkView.getBlock(x, y, z);
+                    if (block.getMeshGenerator() != null) {
+                        block.getMeshGenerator().generateChunkMesh(chunkView, mesh, x, y, z);
+                    }
+                }
+            }
+        }
+
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+        Multiset<String> faces = HashMultiset.create();
+        for (int face = 0; face < elements.vertexCount / 4; face++) {
+            Vector3f center = new Vector3f();
+            for (int i = 0; i < 4; i++) {
+                int vertex = (face * 4 + i) * 3;
+                center.add(elements.vertices.get(vertex), elements.vertices.get(vertex + 1), elements.vertices.get(vertex + 2));
+            }
+            center.scale(0.25f);
+            int normal = face * 4 * 3;
+            Side side = Side.inDirection(elements.normals.get(normal), elements.normals.get(normal + 1), elements.normals.get(normal + 2));
+            faces.add(faceKey(side, center));
+        }
+        return faces;
+    }
+
+    /**
+     * @return the faces of single blocks covered by the quads
+     */
+    private static Multiset<String> unitFaces(List<Quad> quads) {
+        Multiset<String> faces = HashMultiset.create();
+        for (Quad quad : quads) {
+            Vector3i direction = quad.side.getVector3i();
+            for (float x = quad.min.x + 0.5f; x < quad.max.x || (direction.x != 0 && x == quad.min.x + 0.5f); x++) {
+                for (float y = quad.min.y + 0.5f; y < quad.max.y || (direction.y != 0 && y == quad.min.y + 0.5f); y++) {
+                    for (float z = quad.min.z + 0.5f; z < quad.max.z || (direction.z != 0 && z == quad.min.z + 0.5f); z++) {
+                        faces.add(faceKey(quad.side, new Vector3f(direction.x != 0 ? quad.min.x : x,
+                                direction.y != 0 ? quad.min.y : y, direction.z != 0 ? quad.min.z : z)));
+                    }
+                }
+            }
+        }
+        return faces;
+    }
+
+    private static String faceKey(Side side, Vector3f center) {
+        return side + " " + Math.round(center.x * 2) + " " + Math.round(center.y * 2) + " " + Math.round(center.z * 2);
+    }
+
+    private static int countQuads(List<Quad> quads, Side side) {
+        int count = 0;
+        for (Quad quad : quads) {
+            if (quad.side == side) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void fill(Block block, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        for (int y = minY; y < minY + sizeY; y++) {
+            for (int z = minZ; z < minZ + sizeZ; z++) {
+                for (int x = minX; x < minX + sizeX; x++) {
+                    blocks.put(new Vector3i(x, y, z), block);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a view of the blocks of the test, lit by the sunlight function. Invocations are not recorded, as every
+     * block of the mesh gets looked at several times.
+     */
+    private ChunkView createChunkView() {
+        return mock(ChunkView.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            String method = invocation.getMethod().getName();
+            if (args.length != 3 || !(method.equals("getBlock") || method.equals("getSunlight") || method.equals("getLight"))) {
+                return Answers.RETURNS_DEFAULTS.answer(invocation);
+            }
+            Vector3i pos = args[0] instanceof Float
+                    ? new Vector3i(TeraMath.floorToInt((Float) args[0] + 0.5f), TeraMath.floorToInt((Float) args[1] + 0.5f),
+                    TeraMath.floorToInt((Float) args[2] + 0.5f))
+                    : new Vector3i((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+            switch (method) {
+                case "getBlock":
+                    return blocks.getOrDefault(pos, air);
+                case "getSunlight":
+                    return (byte) sunlight.applyAsInt(pos);
+                default:
+                    return (byte) 0;
+            }
+        }));
+    }
+
+    private static Block createAir() {
+        Block block = new Block();
+        block.setTranslucent(true);
+        block.setShadowCasting(false);
+        return block;
+    }
+
+    /**
+     * @param tile      the tile of the atlas the faces show
+     * @param wholeTile whether the faces show the whole tile or just a part of it
+     */
+    private static Block createCube(short id, int tile, boolean wholeTile) {
+        Block block = new Block();
+        block.setId(id);
+        Map<BlockPart, BlockMeshPart> parts = Maps.newEnumMap(BlockPart.class);
+        for (Side side : Side.values()) {
+            parts.put(BlockPart.fromSide(side), createFace(side, tile, wholeTile));
+            block.setFullSide(side, true);
+        }
+        block.setPrimaryAppearance(new BlockAppearance(parts, Maps.newEnumMap(BlockPart.class)));
+        block.setMeshGenerator(new BlockMeshGeneratorSingleShape(block));
+        return block;
+    }
+
+    private static BlockMeshPart createFace(Side side, int tile, boolean wholeTile) {
+        Vector3i direction = side.getVector3i();
+        int axis = direction.x != 0 ? 0 : (direction.y != 0 ? 1 : 2);
+        float[][] corners = {{-0.5f, -0.5f}, {0.5f, -0.5f}, {0.5f, 0.5f}, {-0.5f, 0.5f}};
+        float texMin = TILE_SIZE / GreedyMesher.TEXTURE_REPEAT_SCALE;
+        float texExtent = wholeTile ? TILE_SIZE * (GreedyMesher.TEXTURE_REPEAT_SCALE - 2) / GreedyMesher.TEXTURE_REPEAT_SCALE : TILE_SIZE / 2;
+        Vector3f[] vertices = new Vector3f[4];
+        Vector3f[] normals = new Vector3f[4];
+        Vector2f[] texCoords = new Vector2f[4];
+        for (int i = 0; i < 4; i++) {
+            float[] position = new float[3];
+            position[axis] = 0.5f * (direction.x + direction.y + direction.z);
+            position[(axis + 1) % 3] = corners[i][0];
+            position[(axis + 2) % 3] = corners[i][1];
+            vertices[i] = new Vector3f(position[0], position[1], position[2]);
+            normals[i] = new Vector3f(direction.x, direction.y, direction.z);
+            texCoords[i] = new Vector2f(tile * TILE_SIZE + texMin + (corners[i][0] + 0.5f) * texExtent,
+                    texMin + (corners[i][1] + 0.5f) * texExtent);
+        }
+        return new BlockMeshPart(vertices, normals, texCoords, new int[]{0, 1, 2, 0, 2, 3});
+    }
+
+    private static final class Quad {
+        private final Side side;
+        private final Vector3f min;
+        private final Vector3f max;
+
+        private Quad(Side side, Vector3f min, Vector3f max) {
+            this.side = side;
+            this.min = min;
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.procedural.AbstractNoise;
+import org.terasology.utilities.procedural.BrownianNoise;
+import org.terasology.utilities.procedural.Noise;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.utilities.procedural.SimplexNoise;
+import org.terasology.utilities.procedural.SubSampledNoise;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the batch evaluation of {@link Noise} implementations gives exactly the same results as the evaluation of
+ * single positions.
+ */
+@RunWith(Parameterized.class)
+public class BatchNoiseTest {
+
+    private Noise noiseGen;
+
+    public BatchNoiseTest(Noise noiseGen) {
+        this.noiseGen = noiseGen;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Noise[]> data() {
+        return Arrays.asList(new Noise[][]{
+                {new SimplexNoise(0xCAFE)},
+                {new PerlinNoise(0xCAFE)},
+                {new BrownianNoise(new SimplexNoise(0xCAFE), 4)}
+        });
+    }
+
+    @Test
+    public void testGrid2D() {
+        float[] xs = createPositions(-13.7f, 0.173f, 37);
+        float[] ys = createPositions(4.1f, 0.291f, 29);
+        float[] values = new float[xs.length * ys.length];
+        noiseGen.noise(values, xs, ys);
+
+        for (int y = 0; y < ys.length; y++) {
+            for (int x = 0; x < xs.length; x++) {
+                assertExactlyEquals(noiseGen.noise(xs[x], ys[y]), values[x + xs.length * y]);
+            }
+        }
+    }
+
+    @Test
+    public void testGrid3D() {
+        float[] xs = createPositions(-3.7f, 0.173f, 17);
+        float[] ys = createPositions(4.1f, 0.291f, 13);
+        float[] zs = createPositions(9.3f, 0.117f, 11);
+        float[] values = new float[xs.length * ys.length * zs.length];
+        noiseGen.noise(values, xs, ys, zs);
+
+        for (int z = 0; z < zs.length; z++) {
+            for (int y = 0; y < ys.length; y++) {
+                for (int x = 0; x < xs.length; x++) {
+                    assertExactlyEquals(noiseGen.noise(xs[x], ys[y], zs[z]), values[x + xs.length * (y + ys.length * z)]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRegion() {
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-5, 10, 3), new Vector3i(8, 4, 6));
+        float[] values = noiseGen.noise(region, 0.1f, 0.05f, 0.2f);
+
+        int index = 0;
+        for (int z = region.minZ(); z <= region.maxZ(); z++) {
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                for (int x = region.minX(); x <= region.maxX(); x++) {
+                    assertExactlyEquals(noiseGen.noise(0.1f * x, 0.05f * y, 0.2f * z), values[index++]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRect() {
+        Rect2i rect = Rect2i.createFromMinAndSize(7, -9, 12, 5);
+        float[] values = noiseGen.noise(rect, 0.1f, 0.05f);
+
+        int index = 0;
+        for (int y = rect.minY(); y < rect.minY() + rect.sizeY(); y++) {
+            for (int x = rect.minX(); x < rect.minX() + rect.sizeX(); x++) {
+                assertExactlyEquals(noiseGen.noise(0.1f * x, 0.05f * y), values[index++]);
+            }
+        }
+    }
+
+    @Test
+    public void testSubSampledRegion() {
+        SubSampledNoise batch = new SubSampledNoise(noiseGen, new Vector3f(0.013f, 0.021f, 0.017f), 4);
+        SubSampledNoise single = new SubSampledNoise(new SinglePositionNoise(noiseGen), new Vector3f(0.013f, 0.021f, 0.017f), 4);
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-37, 5, 11), new Vector3i(32, 16, 32));
+
+        float[] expected = single.noise(region);
+        float[] values = batch.noise(region);
+        assertEquals(expected.length, values.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertExactlyEquals(expected[i], values[i]);
+        }
+    }
+
+    @Test
+    public void testSubSampledRect() {
+        SubSampledNoise batch = new SubSampledNoise(noiseGen, new Vector2f(0.013f, 0.021f), 4);
+        SubSampledNoise single = new SubSampledNoise(new SinglePositionNoise(noiseGen), new Vector2f(0.013f, 0.021f), 4);
+        Rect2i rect = Rect2i.createFromMinAndSize(-37, 11, 32, 32);
+
+        float[] expected = single.noise(rect);
+        float[] values = batch.noise(rect);
+        assertEquals(expected.length, values.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertExactlyEquals(expected[i], values[i]);
+        }
+    }
+
+    private static float[] createPositions(float min, float step, int count) {
+        float[] positions = new float[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = min + i * step;
+        }
+        return positions;
+    }
+
+    private static void assertExactlyEquals(float expected, float actual) {
+        assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+
+    /**
+     * Evaluates grids one position at a time, like the default implementation of {@link Noise}.
+     */
+    private static final class SinglePositionNoise extends AbstractNoise {
+        private final Noise source;
+
+        private SinglePositionNoise(Noise source) {
+            this.source = source;
+        }
+
+        @Override
+        public float noise(float x, float y) {
+            return source.noise(x, y);
+        }
+
+        @Override
+        public float noise(float x, float y, float z) {
+            return source.noise(x, y, z);
+        }
+    }
+}
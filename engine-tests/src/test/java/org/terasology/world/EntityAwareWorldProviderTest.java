@@ -43,6 +43,7 @@
 import org.terasology.entitySystem.stubs.RetainedOnBlockChangeComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.NetworkComponent;
 import org.terasology.testUtil.WorldProviderCoreStub;
@@ -241,6 +242,47 @@ public void testPrefabUpdatedWhenBlockChanged() {
         assertEquals(blockWithDifferentString.getPrefab().get().getName(), worldProvider.getBlockEntityAt(new Vector3i(0, 0, 0)).getParentPrefab().getName());
     }
 
+    @Test
+    public void testPrefabUpdatedWhenRegionEdited() {
+        worldProvider.setBlock(Vector3i.zero(), blockWithString);
+        EntityRef blockEntity = worldProvider.getBlockEntityAt(new Vector3i(0, 0, 0));
+
+        int changed = worldProvider.setBlocks(Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(2, 2, 2)),
+                BlockRegionEdit.fill(blockWithDifferentString));
+
+        assertEquals(27, changed);
+        assertEquals(blockWithDifferentString, worldProvider.getBlock(2, 1, 0));
+        assertEquals(blockEntity, worldProvider.getBlockEntityAt(new Vector3i(0, 0, 0)));
+        assertEquals(blockWithDifferentString.getPrefab().get().getName(), blockEntity.getParentPrefab().getName());
+    }
+
+    @Test
+    public void testBlockEntitiesCreatedWhenRegionEdited() {
+        worldProvider.setBlocks(Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(1, 0, 0)),
+                BlockRegionEdit.fill(keepActiveBlock));
+        worldProvider.setBlocks(Region3i.createFromMinMax(new Vector3i(0, 1, 0), new Vector3i(1, 1, 0)),
+                BlockRegionEdit.fill(plainBlock));
+        worldProvider.update(1.0f);
+
+        EntityRef blockEntity = worldProvider.getExistingBlockEntityAt(new Vector3i(1, 0, 0));
+        assertTrue(blockEntity.isActive());
+        assertEquals(keepActiveBlock, blockEntity.getComponent(BlockComponent.class).block);
+        assertTrue(blockEntity.hasComponent(StringComponent.class));
+        assertFalse(worldProvider.getExistingBlockEntityAt(new Vector3i(1, 1, 0)).exists());
+    }
+
+    @Test
+    public void testRegionEditReplacesOnlyMatchingBlocks() {
+        worldProvider.setBlock(new Vector3i(1, 1, 1), blockWithString);
+
+        int changed = worldProvider.setBlocks(Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(2, 2, 2)),
+                BlockRegionEdit.replace(airBlock, plainBlock));
+
+        assertEquals(26, changed);
+        assertEquals(blockWithString, worldProvider.getBlock(1, 1, 1));
+        assertEquals(plainBlock, worldProvider.getBlock(0, 2, 1));
+    }
+
     @Test
     public void testEntityNotRemovedIfForceBlockActiveComponentAdded() {
         EntityRef blockEntity = worldProvider.getBlockEntityAt(new Vector3i(0, 0, 0));
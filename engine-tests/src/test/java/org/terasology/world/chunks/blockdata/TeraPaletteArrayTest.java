@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.blockdata;
+
+import org.junit.Test;
+import org.terasology.world.chunks.deflate.TeraPaletteDeflator;
+import org.terasology.world.chunks.deflate.TeraStandardDeflator;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class TeraPaletteArrayTest {
+    private static final int SIZE_X = 16;
+    private static final int SIZE_Y = 8;
+    private static final int SIZE_Z = 16;
+
+    @Test
+    public void testIndicesGetRepackedWhenPaletteGrows() {
+        TeraPaletteArray array = new TeraPaletteArray(SIZE_X, SIZE_Y, SIZE_Z);
+        assertEquals(1, array.getBitsPerIndex());
+
+        fill(array, 3);
+        assertEquals(4, array.getPaletteSize());
+        assertEquals(2, array.getBitsPerIndex());
+
+        fill(array, 300);
+        assertEquals(301, array.getPaletteSize());
+        assertEquals(16, array.getBitsPerIndex());
+        assertValues(array, 300);
+    }
+
+    @Test
+    public void testSetReturnsOldValue() {
+        TeraPaletteArray array = new TeraPaletteArray(SIZE_X, SIZE_Y, SIZE_Z);
+
+        assertEquals(0, array.set(1, 2, 3, -5));
+        assertEquals(-5, array.set(1, 2, 3, 7));
+        assertFalse(array.set(1, 2, 3, 9, -5));
+        assertTrue(array.set(1, 2, 3, 9, 7));
+        assertEquals(9, array.get(1, 2, 3));
+        assertEquals(0, array.get(3, 2, 1));
+    }
+
+    @Test
+    public void testDeflateRemovesUnusedValues() {
+        TeraPaletteArray array = new TeraPaletteArray(SIZE_X, SIZE_Y, SIZE_Z);
+        fill(array, 20);
+        fill(array, 3);
+
+        TeraArray deflated = new TeraStandardDeflator().deflate(array);
+        assertEquals(TeraPaletteArray.class, deflated.getClass());
+        assertEquals(4, ((TeraPaletteArray) deflated).getPaletteSize());
+        assertEquals(2, ((TeraPaletteArray) deflated).getBitsPerIndex());
+        assertValues(deflated, 3);
+    }
+
+    @Test
+    public void testDenseArrayWithFewValuesGetsPaletteArray() {
+        TeraDenseArray16Bit dense = new TeraDenseArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        fill(dense, 10);
+
+        TeraArray deflated = new TeraPaletteDeflator().deflate(dense);
+        assertEquals(TeraPaletteArray.class, deflated.getClass());
+        assertTrue(deflated.getEstimatedMemoryConsumptionInBytes() < dense.getEstimatedMemoryConsumptionInBytes());
+        assertValues(deflated, 10);
+    }
+
+    @Test
+    public void testReadsDuringRepackingSeeConsistentValues() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            TeraPaletteArray array = new TeraPaletteArray(SIZE_X, SIZE_Y, SIZE_Z);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    while (writing.get()) {
+                        assertEquals(0, array.get(0, 0, 0));
+                        int value = array.get(SIZE_X - 1, SIZE_Y - 1, SIZE_Z - 1);
+                        assertTrue(value >= 0 && value <= 300);
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            for (int value = 1; value <= 300; value++) {
+                array.set(SIZE_X - 1, SIZE_Y - 1, SIZE_Z - 1, value);
+                array.set(value % SIZE_X, 1, 0, value);
+            }
+            writing.set(false);
+            reader.join();
+            assertNull(failure.get());
+        }
+    }
+
+    @Test
+    public void testSerialization() {
+        TeraPaletteArray array = new TeraPaletteArray(SIZE_X, SIZE_Y, SIZE_Z);
+        fill(array, 20);
+
+        TeraPaletteArray.SerializationHandler handler = new TeraPaletteArray.Factory().createSerializationHandler();
+        ByteBuffer buffer = handler.serialize(array);
+        buffer.rewind();
+        assertValues(handler.deserialize(buffer), 20);
+    }
+
+    /**
+     * Sets the values 0 to maxValue in a repeating pattern.
+     */
+    private static void fill(TeraArray array, int maxValue) {
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    array.set(x, y, z, expectedValue(x, y, z, maxValue));
+                }
+            }
+        }
+    }
+
+    private static void assertValues(TeraArray array, int maxValue) {
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    assertEquals(expectedValue(x, y, z, maxValue), array.get(x, y, z));
+                }
+            }
+        }
+    }
+
+    private static int expectedValue(int x, int y, int z, int maxValue) {
+        return (x + y * SIZE_Z * SIZE_X + z * SIZE_X) % (maxValue + 1);
+    }
+}
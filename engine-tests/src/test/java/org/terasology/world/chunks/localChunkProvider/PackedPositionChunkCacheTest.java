@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class PackedPositionChunkCacheTest {
+
+    @Test
+    public void testPositionsArePackedLosslessly() {
+        Vector3i pos = new Vector3i(-1048576, 1048575, -1);
+        assertEquals(pos, PackedPositionChunkCache.unpack(PackedPositionChunkCache.pack(pos.x, pos.y, pos.z)));
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        ChunkCache cache = new PackedPositionChunkCache();
+        Chunk chunk = mock(Chunk.class);
+        Vector3i pos = new Vector3i(-3, 2, 7);
+
+        cache.put(pos, chunk);
+        assertSame(chunk, cache.get(pos));
+        assertSame(chunk, cache.get(-3, 2, 7));
+        assertNull(cache.get(3, 2, 7));
+
+        cache.removeChunkAt(pos);
+        assertFalse(cache.containsChunkAt(pos));
+        assertTrue(cache.getAllChunks().isEmpty());
+    }
+
+    @Test
+    public void testManyChunks() {
+        ChunkCache cache = new PackedPositionChunkCache();
+        Region3i region = Region3i.createFromCenterExtents(new Vector3i(), new Vector3i(10, 5, 10));
+        for (Vector3i pos : region) {
+            cache.put(pos, mock(Chunk.class));
+        }
+        for (Vector3i pos : Region3i.createFromCenterExtents(new Vector3i(), new Vector3i(10, 0, 10))) {
+            cache.removeChunkAt(pos);
+        }
+
+        assertEquals(region.size().x * (region.size().y - 1) * region.size().z, cache.getAllChunks().size());
+        for (Vector3i pos : region) {
+            assertEquals(pos.y != 0, cache.containsChunkAt(pos));
+        }
+    }
+
+    @Test
+    public void testRegionLookupMatchesSingleLookups() {
+        ChunkCache cache = new PackedPositionChunkCache();
+        ChunkCache referenceCache = new ConcurrentMapChunkCache();
+        for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(-2, -2, -2), new Vector3i(4, 3, 4))) {
+            Chunk chunk = mock(Chunk.class);
+            cache.put(pos, chunk);
+            referenceCache.put(pos, chunk);
+        }
+
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-3, -2, -1), new Vector3i(5, 4, 2));
+        assertArrayEquals(referenceCache.getChunks(region), cache.getChunks(region));
+        assertArrayEquals(referenceCache.getNeighbourhood(new Vector3i()), cache.getNeighbourhood(new Vector3i()));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        ChunkCache cache = new PackedPositionChunkCache();
+        cache.put(new Vector3i(1, 2, 3), mock(Chunk.class));
+        cache.put(new Vector3i(-1, -2, -3), mock(Chunk.class));
+
+        Iterator<Vector3i> iterator = cache.iterateChunkPositions();
+        while (iterator.hasNext()) {
+            if (iterator.next().x < 0) {
+                iterator.remove();
+            }
+        }
+
+        assertTrue(cache.containsChunkAt(new Vector3i(1, 2, 3)));
+        assertFalse(cache.containsChunkAt(new Vector3i(-1, -2, -3)));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkGenerationPipelineTest {
+
+    private ChunkGenerationPipeline pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void testStagesKeepTheThreadsOfTheSharedPool() {
+        int total = ChunkGenerationPipeline.DEFAULT_TOTAL_THREADS;
+        assertEquals(total, ChunkGenerationStage.STORAGE_LOAD.getThreadCount(total));
+        assertEquals(total, ChunkGenerationStage.GENERATION.getThreadCount(total));
+        assertEquals(total / 2, ChunkGenerationStage.LIGHTING.getThreadCount(total));
+    }
+
+    @Test
+    public void testEveryStageHasAThread() {
+        for (ChunkGenerationStage stage : ChunkGenerationStage.values()) {
+            assertEquals(1, stage.getThreadCount(1));
+        }
+    }
+
+    @Test
+    public void testOnlyUsedStagesAreCreated() {
+        pipeline = new ChunkGenerationPipeline((a, b) -> 0, EnumSet.of(ChunkGenerationStage.LIGHTING), 2);
+        assertEquals(EnumSet.of(ChunkGenerationStage.LIGHTING), pipeline.getStages());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTaskForUnusedStageIsRejected() {
+        pipeline = new ChunkGenerationPipeline((a, b) -> 0, EnumSet.of(ChunkGenerationStage.LIGHTING), 2);
+        pipeline.doTask(ChunkGenerationStage.GENERATION, new TestChunkTask(new Vector3i(), new CountDownLatch(1)));
+    }
+
+    @Test
+    public void testTasksAreCountedPerStage() throws InterruptedException {
+        pipeline = new ChunkGenerationPipeline((a, b) -> 0, EnumSet.allOf(ChunkGenerationStage.class), 2);
+        CountDownLatch lit = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            Vector3i pos = new Vector3i(i, 0, 0);
+            pipeline.doTask(ChunkGenerationStage.STORAGE_LOAD, new AbstractChunkTask(pos) {
+                @Override
+                public String getName() {
+                    return "Load";
+                }
+
+                @Override
+                public void run() {
+                    pipeline.doTask(ChunkGenerationStage.LIGHTING, new TestChunkTask(getPosition(), lit));
+                }
+            });
+        }
+
+        assertTrue(lit.await(10, TimeUnit.SECONDS));
+        // shutting down waits for the running tasks, so their completion has been counted afterwards
+        pipeline.shutdown();
+        assertEquals(3, pipeline.getCompletedTaskCount(ChunkGenerationStage.STORAGE_LOAD));
+        assertEquals(0, pipeline.getCompletedTaskCount(ChunkGenerationStage.GENERATION));
+        assertEquals(3, pipeline.getCompletedTaskCount(ChunkGenerationStage.LIGHTING));
+        assertEquals(0, pipeline.getQueueDepth(ChunkGenerationStage.LIGHTING));
+        pipeline = null;
+    }
+
+    private static class TestChunkTask extends AbstractChunkTask {
+        private final CountDownLatch latch;
+
+        TestChunkTask(Vector3i position, CountDownLatch latch) {
+            super(position);
+            this.latch = latch;
+        }
+
+        @Override
+        public String getName() {
+            return "Test";
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.entitySystem.Component;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.generation.facets.base.BaseFacet2D;
+import org.terasology.world.generation.facets.base.BaseFacet3D;
+import org.terasology.world.generator.plugin.WorldGeneratorPluginLibrary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ */
+public class ColumnFacetCacheTest {
+
+    private Context context = new ContextImpl();
+
+    @Test
+    public void testColumnFacetsAreSharedByStackedChunks() {
+        ColumnProvider columnProvider = new ColumnProvider();
+        WorldImpl world = buildWorld(columnProvider, new ChunkProvider(), 16);
+
+        Region lower = world.getWorldData(chunkRegion(0, 0, 0));
+        Region upper = world.getWorldData(chunkRegion(0, 1, 0));
+
+        assertEquals(new Vector3i(0, ChunkConstants.SIZE_Y, 0), upper.getFacet(ChunkFacet.class).getWorldRegion().min());
+        assertSame(lower.getFacet(ColumnFacet.class), upper.getFacet(ColumnFacet.class));
+        assertEquals(1, columnProvider.calls);
+        assertEquals(1, world.getColumnFacetCacheStats().hitCount());
+        assertEquals(1, world.getColumnFacetCacheStats().missCount());
+    }
+
+    @Test
+    public void testNeighbouringColumnsAreGeneratedSeparately() {
+        ColumnProvider columnProvider = new ColumnProvider();
+        WorldImpl world = buildWorld(columnProvider, new ChunkProvider(), 16);
+
+        world.getWorldData(chunkRegion(0, 0, 0)).getFacet(ChunkFacet.class);
+        world.getWorldData(chunkRegion(1, 0, 0)).getFacet(ChunkFacet.class);
+
+        assertEquals(2, columnProvider.calls);
+    }
+
+    @Test
+    public void testColumnsAreRegeneratedAfterConfigurationChange() {
+        ConfigurableColumnProvider columnProvider = new ConfigurableColumnProvider();
+        WorldBuilder worldBuilder = new WorldBuilder(context.get(WorldGeneratorPluginLibrary.class));
+        worldBuilder.setSeed(12);
+        worldBuilder.addProvider(columnProvider);
+        worldBuilder.setColumnFacetCacheSize(16);
+        World world = worldBuilder.build();
+        FacetedWorldConfigurator configurator = worldBuilder.createConfigurator();
+
+        world.getWorldData(chunkRegion(0, 0, 0)).getFacet(ColumnFacet.class);
+        configurator.setProperty(columnProvider.getConfigurationName(), new ColumnConfiguration());
+        world.getWorldData(chunkRegion(0, 1, 0)).getFacet(ColumnFacet.class);
+
+        assertEquals(2, columnProvider.calls);
+    }
+
+    @Test
+    public void testColumnFacetsDerivedFrom3DFacetsAreNotShared() {
+        ColumnProvider columnProvider = new ColumnProvider();
+        DerivedColumnProvider derivedProvider = new DerivedColumnProvider();
+        WorldBuilder worldBuilder = new WorldBuilder(context.get(WorldGeneratorPluginLibrary.class));
+        worldBuilder.setSeed(12);
+        worldBuilder.addProvider(columnProvider);
+        worldBuilder.addProvider(new ChunkProvider());
+        worldBuilder.addProvider(derivedProvider);
+        worldBuilder.setColumnFacetCacheSize(16);
+        World world = worldBuilder.build();
+
+        world.getWorldData(chunkRegion(0, 0, 0)).getFacet(DerivedColumnFacet.class);
+        world.getWorldData(chunkRegion(0, 1, 0)).getFacet(DerivedColumnFacet.class);
+
+        assertEquals(1, columnProvider.calls);
+        assertEquals(2, derivedProvider.calls);
+    }
+
+    @Test
+    public void testDisabledCacheGeneratesEveryRegion() {
+        ColumnProvider columnProvider = new ColumnProvider();
+        WorldImpl world = buildWorld(columnProvider, new ChunkProvider(), 0);
+
+        world.getWorldData(chunkRegion(0, 0, 0)).getFacet(ChunkFacet.class);
+        world.getWorldData(chunkRegion(0, 1, 0)).getFacet(ChunkFacet.class);
+
+        assertEquals(2, columnProvider.calls);
+        assertEquals(0, world.getColumnFacetCacheStats().requestCount());
+    }
+
+    private WorldImpl buildWorld(ColumnProvider columnProvider, ChunkProvider chunkProvider, int cacheSize) {
+        WorldBuilder worldBuilder = new WorldBuilder(context.get(WorldGeneratorPluginLibrary.class));
+        worldBuilder.setSeed(12);
+        worldBuilder.addProvider(columnProvider);
+        worldBuilder.addProvider(chunkProvider);
+        worldBuilder.setColumnFacetCacheSize(cacheSize);
+        return (WorldImpl) worldBuilder.build();
+    }
+
+    private static Region3i chunkRegion(int x, int y, int z) {
+        return Region3i.createFromMinAndSize(new Vector3i(x * ChunkConstants.SIZE_X, y * ChunkConstants.SIZE_Y, z * ChunkConstants.SIZE_Z),
+                ChunkConstants.CHUNK_SIZE);
+    }
+
+    public static class ColumnFacet extends BaseFacet2D {
+        public ColumnFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class DerivedColumnFacet extends BaseFacet2D {
+        public DerivedColumnFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class ChunkFacet extends BaseFacet3D {
+        public ChunkFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    @Produces(ColumnFacet.class)
+    public static class ColumnProvider implements FacetProvider {
+        protected int calls;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            calls++;
+            region.setRegionFacet(ColumnFacet.class, new ColumnFacet(region.getRegion(), region.getBorderForFacet(ColumnFacet.class)));
+        }
+    }
+
+    public static class ColumnConfiguration implements Component {
+    }
+
+    @Produces(ColumnFacet.class)
+    public static class ConfigurableColumnProvider extends ColumnProvider implements ConfigurableFacetProvider {
+        private Component configuration = new ColumnConfiguration();
+
+        @Override
+        public String getConfigurationName() {
+            return "Column";
+        }
+
+        @Override
+        public Component getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public void setConfiguration(Component configuration) {
+            this.configuration = configuration;
+        }
+    }
+
+    @Produces(ChunkFacet.class)
+    @Requires(@Facet(ColumnFacet.class))
+    public static class ChunkProvider implements FacetProvider {
+
+        @Override
+        public void process(GeneratingRegion region) {
+            region.setRegionFacet(ChunkFacet.class, new ChunkFacet(region.getRegion(), region.getBorderForFacet(ChunkFacet.class)));
+        }
+    }
+
+    @Produces(DerivedColumnFacet.class)
+    @Requires(@Facet(ChunkFacet.class))
+    public static class DerivedColumnProvider implements FacetProvider {
+        private int calls;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            calls++;
+            region.setRegionFacet(DerivedColumnFacet.class,
+                    new DerivedColumnFacet(region.getRegion(), region.getBorderForFacet(DerivedColumnFacet.class)));
+        }
+    }
+}
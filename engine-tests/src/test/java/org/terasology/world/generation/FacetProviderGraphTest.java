@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.generation.facets.base.BaseFacet3D;
+import org.terasology.world.generator.plugin.WorldGeneratorPluginLibrary;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class FacetProviderGraphTest {
+
+    private Context context = new ContextImpl();
+    private ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIndependentProvidersRunConcurrently() {
+        CountDownLatch latch = new CountDownLatch(2);
+        LeftProvider left = new LeftProvider(latch);
+        RightProvider right = new RightProvider(latch);
+        WorldImpl world = buildWorld(left, right);
+
+        Region region = world.getWorldData(Region3i.createFromCenterExtents(new Vector3i(), 1));
+        CombinedFacet combined = region.getFacet(CombinedFacet.class);
+
+        assertTrue(left.sawOtherProvider);
+        assertTrue(right.sawOtherProvider);
+        assertNotNull(combined);
+        assertTrue(combined.leftPresent);
+        assertTrue(combined.rightPresent);
+    }
+
+    @Test
+    public void testProviderTimesAreRecorded() {
+        WorldImpl world = buildWorld(new LeftProvider(new CountDownLatch(0)), new RightProvider(new CountDownLatch(0)));
+
+        world.getWorldData(Region3i.createFromCenterExtents(new Vector3i(), 1)).getFacet(CombinedFacet.class);
+
+        assertEquals(3, world.getMeanProviderTimes().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testProviderFailuresArePropagated() {
+        WorldBuilder worldBuilder = new WorldBuilder(context.get(WorldGeneratorPluginLibrary.class));
+        worldBuilder.setSeed(12);
+        worldBuilder.addProvider(new LeftProvider(new CountDownLatch(0)));
+        worldBuilder.addProvider(new FailingProvider());
+        worldBuilder.addProvider(new CombinedProvider());
+        worldBuilder.setProviderExecutor(executor);
+
+        worldBuilder.build().getWorldData(Region3i.createFromCenterExtents(new Vector3i(), 1)).getFacet(CombinedFacet.class);
+    }
+
+    private WorldImpl buildWorld(LeftProvider left, RightProvider right) {
+        WorldBuilder worldBuilder = new WorldBuilder(context.get(WorldGeneratorPluginLibrary.class));
+        worldBuilder.setSeed(12);
+        worldBuilder.addProvider(left);
+        worldBuilder.addProvider(right);
+        worldBuilder.addProvider(new CombinedProvider());
+        worldBuilder.setProviderExecutor(executor);
+        return (WorldImpl) worldBuilder.build();
+    }
+
+    private static boolean awaitOtherProvider(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static class LeftFacet extends BaseFacet3D {
+        public LeftFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class RightFacet extends BaseFacet3D {
+        public RightFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class CombinedFacet extends BaseFacet3D {
+        public boolean leftPresent;
+        public boolean rightPresent;
+
+        public CombinedFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    @Produces(LeftFacet.class)
+    public static class LeftProvider implements FacetProvider {
+        private final CountDownLatch latch;
+        private boolean sawOtherProvider;
+
+        public LeftProvider(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void process(GeneratingRegion region) {
+            sawOtherProvider = awaitOtherProvider(latch);
+            region.setRegionFacet(LeftFacet.class, new LeftFacet(region.getRegion(), region.getBorderForFacet(LeftFacet.class)));
+        }
+    }
+
+    @Produces(RightFacet.class)
+    public static class RightProvider implements FacetProvider {
+        private final CountDownLatch latch;
+        private boolean sawOtherProvider;
+
+        public RightProvider(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void process(GeneratingRegion region) {
+            sawOtherProvider = awaitOtherProvider(latch);
+            region.setRegionFacet(RightFacet.class, new RightFacet(region.getRegion(), region.getBorderForFacet(RightFacet.class)));
+        }
+    }
+
+    @Produces(RightFacet.class)
+    public static class FailingProvider implements FacetProvider {
+
+        @Override
+        public void process(GeneratingRegion region) {
+            throw new IllegalStateException("Failed to produce the facet");
+        }
+    }
+
+    @Produces(CombinedFacet.class)
+    @Requires({@Facet(LeftFacet.class), @Facet(RightFacet.class)})
+    public static class CombinedProvider implements FacetProvider {
+
+        @Override
+        public void process(GeneratingRegion region) {
+            CombinedFacet facet = new CombinedFacet(region.getRegion(), region.getBorderForFacet(CombinedFacet.class));
+            facet.leftPresent = region.getRegionFacet(LeftFacet.class) != null;
+            facet.rightPresent = region.getRegionFacet(RightFacet.class) != null;
+            region.setRegionFacet(CombinedFacet.class, facet);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ */
+public class ChunkIslandPropagatorTest {
+
+    private final Block block = mock(Block.class);
+
+    @Test
+    public void testCloseColumnsFormOneIsland() {
+        List<BlockChange> changes = Lists.newArrayList(
+                change(0, 0, 0),
+                change(0, 5 * ChunkConstants.SIZE_Y, 0),
+                change(2 * ChunkConstants.SIZE_X, 0, 0),
+                change(4 * ChunkConstants.SIZE_X, 0, 2 * ChunkConstants.SIZE_Z));
+
+        List<List<BlockChange>> islands = ChunkIslandPropagator.splitIntoIslands(changes);
+
+        assertEquals(1, islands.size());
+        assertEquals(4, islands.get(0).size());
+    }
+
+    @Test
+    public void testDistantColumnsFormSeparateIslands() {
+        BlockChange first = change(0, 0, 0);
+        BlockChange second = change(ChunkIslandPropagator.ISLAND_DISTANCE * ChunkConstants.SIZE_X, 0, 0);
+        BlockChange third = change(-1, 0, -ChunkIslandPropagator.ISLAND_DISTANCE * ChunkConstants.SIZE_Z - 1);
+        BlockChange fourth = change(1, 0, -ChunkIslandPropagator.ISLAND_DISTANCE * ChunkConstants.SIZE_Z - 1);
+
+        List<List<BlockChange>> islands = ChunkIslandPropagator.splitIntoIslands(Lists.newArrayList(first, second, third, fourth));
+
+        assertEquals(3, islands.size());
+        assertEquals(Lists.newArrayList(third, fourth), islands.get(0));
+        assertTrue(islands.contains(Collections.singletonList(first)));
+        assertTrue(islands.contains(Collections.singletonList(second)));
+    }
+
+    @Test
+    public void testAllIslandsAreProcessedByEveryPropagator() {
+        List<BlockChange> changes = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            changes.add(change(i * ChunkIslandPropagator.ISLAND_DISTANCE * ChunkConstants.SIZE_X, 0, 0));
+        }
+        List<List<BatchPropagator>> chains = Collections.synchronizedList(Lists.newArrayList());
+        ChunkIslandPropagator propagator = new ChunkIslandPropagator(() -> {
+            List<BatchPropagator> chain = Lists.newArrayList(mock(BatchPropagator.class), mock(BatchPropagator.class));
+            chains.add(chain);
+            return chain;
+        }, 4);
+
+        propagator.process(changes);
+        propagator.shutdown();
+
+        int processedIslands = 0;
+        for (List<BatchPropagator> chain : chains) {
+            int calls = mockingDetails(chain.get(0)).getInvocations().size();
+            verify(chain.get(1), times(calls)).process(anyCollection());
+            processedIslands += calls;
+        }
+        assertEquals(100, processedIslands);
+    }
+
+    private BlockChange change(int x, int y, int z) {
+        return new BlockChange(new Vector3i(x, y, z), block, block);
+    }
+}
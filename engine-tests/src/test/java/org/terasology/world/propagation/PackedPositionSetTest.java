@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class PackedPositionSetTest {
+
+    @Test
+    public void testPositionsArePackedLosslessly() {
+        Vector3i pos = new Vector3i(-1048576, 1048575, -1);
+        assertEquals(pos, PackedPositionSet.unpack(PackedPositionSet.pack(pos), new Vector3i()));
+    }
+
+    @Test
+    public void testAddRemove() {
+        PackedPositionSet set = new PackedPositionSet();
+        long pos = PackedPositionSet.pack(3, -2, 1);
+
+        assertTrue(set.add(pos));
+        assertFalse(set.add(pos));
+        assertTrue(set.contains(pos));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove(pos));
+        assertFalse(set.remove(pos));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testIteratesInInsertionOrder() {
+        PackedPositionSet set = new PackedPositionSet();
+        set.add(PackedPositionSet.pack(5, 0, 0));
+        set.add(PackedPositionSet.pack(1, 0, 0));
+        set.add(PackedPositionSet.pack(3, 0, 0));
+        set.remove(PackedPositionSet.pack(5, 0, 0));
+        set.add(PackedPositionSet.pack(5, 0, 0));
+
+        TLongList positions = new TLongArrayList();
+        set.forEach(positions::add);
+        assertEquals(new TLongArrayList(new long[]{PackedPositionSet.pack(1, 0, 0), PackedPositionSet.pack(3, 0, 0),
+                PackedPositionSet.pack(5, 0, 0)}), positions);
+    }
+
+    @Test
+    public void testMatchesLinkedHashSet() {
+        PackedPositionSet set = new PackedPositionSet();
+        Set<Long> reference = new LinkedHashSet<>();
+        Random random = new Random(42);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 20000; i++) {
+                long pos = PackedPositionSet.pack(random.nextInt(40) - 20, random.nextInt(40) - 20, random.nextInt(40) - 20);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(reference.remove(pos), set.remove(pos));
+                } else {
+                    assertEquals(reference.add(pos), set.add(pos));
+                }
+            }
+            assertEquals(reference.size(), set.size());
+
+            TLongList positions = new TLongArrayList();
+            set.forEach(positions::add);
+            TLongList expected = new TLongArrayList();
+            reference.forEach(expected::add);
+            assertEquals(expected, positions);
+
+            set.clear();
+            reference.clear();
+            assertTrue(set.isEmpty());
+            assertFalse(set.contains(PackedPositionSet.pack(0, 0, 0)));
+        }
+    }
+}
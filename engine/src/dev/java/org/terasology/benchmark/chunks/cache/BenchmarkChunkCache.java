@@ -16,15 +16,34 @@
 package org.terasology.benchmark.chunks.cache;
 
 import org.terasology.benchmark.Benchmark;
-
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.blockdata.ExtraBlockDataManager;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.localChunkProvider.ChunkCache;
+
+/**
+ * BenchmarkChunkCache measures how fast a chunk cache looks up the 3x3x3 neighbourhoods of all cached chunks, either
+ * one chunk at a time or with one neighbourhood lookup.
+ *
+ */
 public class BenchmarkChunkCache implements Benchmark {
 
-    public BenchmarkChunkCache() {
+    private static final Region3i CACHED_REGION = Region3i.createFromCenterExtents(new Vector3i(), new Vector3i(16, 4, 16));
+
+    private final ChunkCache cache;
+    private final boolean neighbourhoodLookups;
+    private int foundChunks;
+
+    public BenchmarkChunkCache(ChunkCache cache, boolean neighbourhoodLookups) {
+        this.cache = cache;
+        this.neighbourhoodLookups = neighbourhoodLookups;
     }
 
     @Override
     public String getTitle() {
-        return null;
+        return cache.getClass().getSimpleName() + (neighbourhoodLookups ? " neighbourhood lookups" : " single lookups");
     }
 
     @Override
@@ -39,16 +58,35 @@ public int[] getRepetitions() {
 
     @Override
     public void setup() {
-
+        // The cache doesn't look at the chunks, so one chunk is enough to fill all positions
+        Chunk chunk = new ChunkImpl(new Vector3i(), null, new ExtraBlockDataManager());
+        for (Vector3i pos : CACHED_REGION) {
+            cache.put(pos, chunk);
+        }
     }
 
     @Override
     public void prerun() {
-
+        foundChunks = 0;
     }
 
     @Override
     public void run() {
+        for (Vector3i pos : CACHED_REGION) {
+            if (neighbourhoodLookups) {
+                for (Chunk neighbour : cache.getNeighbourhood(pos)) {
+                    if (neighbour != null) {
+                        foundChunks++;
+                    }
+                }
+            } else {
+                for (Vector3i neighbourPos : Region3i.createFromCenterExtents(pos, 1)) {
+                    if (cache.get(neighbourPos) != null) {
+                        foundChunks++;
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -58,7 +96,7 @@ public void postrun() {
 
     @Override
     public void finish(boolean aborted) {
-
+        cache.clear();
     }
 
 }
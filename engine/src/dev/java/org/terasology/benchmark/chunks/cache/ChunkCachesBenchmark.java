@@ -15,6 +15,19 @@
  */
 package org.terasology.benchmark.chunks.cache;
 
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.world.chunks.localChunkProvider.ConcurrentMapChunkCache;
+import org.terasology.world.chunks.localChunkProvider.PackedPositionChunkCache;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * ChunkCachesBenchmark compares the lookup performance of the chunk cache implementations.
+ *
+ */
 public final class ChunkCachesBenchmark {
 
     private ChunkCachesBenchmark() {
@@ -22,6 +35,15 @@ private ChunkCachesBenchmark() {
 
     public static void main(String[] args) {
 
+        final List<Benchmark> benchmarks = new LinkedList<>();
+
+        benchmarks.add(new BenchmarkChunkCache(new ConcurrentMapChunkCache(), false));
+        benchmarks.add(new BenchmarkChunkCache(new ConcurrentMapChunkCache(), true));
+        benchmarks.add(new BenchmarkChunkCache(new PackedPositionChunkCache(), false));
+        benchmarks.add(new BenchmarkChunkCache(new PackedPositionChunkCache(), true));
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+
     }
 
 }
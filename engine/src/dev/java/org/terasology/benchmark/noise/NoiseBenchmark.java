@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.utilities.procedural.BrownianNoise;
+import org.terasology.utilities.procedural.Noise;
+import org.terasology.utilities.procedural.SimplexNoise;
+
+import java.util.List;
+
+/**
+ * NoiseBenchmark compares the batch evaluation of noise with the evaluation of single positions, for plain simplex
+ * noise and for the brownian noise facet providers usually use.
+ *
+ */
+public final class NoiseBenchmark {
+
+    private NoiseBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        for (boolean threeDimensional : new boolean[]{false, true}) {
+            for (boolean batch : new boolean[]{false, true}) {
+                benchmarks.add(new NoiseGridBenchmark("Simplex", new SimplexNoise(42), threeDimensional, batch));
+            }
+            for (boolean batch : new boolean[]{false, true}) {
+                Noise brownian = new BrownianNoise(new SimplexNoise(42), 8);
+                benchmarks.add(new NoiseGridBenchmark("Brownian simplex (8 octaves)", brownian, threeDimensional, batch));
+            }
+        }
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.procedural.Noise;
+
+/**
+ * Fills a chunk sized grid with noise, either with the batch evaluation or one position at a time like facet providers
+ * used to.
+ *
+ */
+class NoiseGridBenchmark extends AbstractBenchmark {
+    private static final int SIZE_X = 32;
+    private static final int SIZE_Y = 64;
+    private static final int SIZE_Z = 32;
+    private static final float STEP = 0.01f;
+
+    private final Noise noise;
+    private final boolean threeDimensional;
+    private final boolean batch;
+    private final float[] values = new float[SIZE_X * SIZE_Y * SIZE_Z];
+    private final float[] xs = new float[SIZE_X];
+    private final float[] ys = createPositions(SIZE_Y);
+    private final float[] zs = createPositions(SIZE_Z);
+    private int offset;
+
+    /**
+     * @param threeDimensional whether to fill a 32x64x32 grid instead of a 32x32 grid
+     * @param batch            whether to use the batch evaluation instead of evaluating one position at a time
+     */
+    NoiseGridBenchmark(String name, Noise noise, boolean threeDimensional, boolean batch) {
+        super(name + (threeDimensional ? " 3D" : " 2D") + (batch ? " batch" : " single positions"), 100, new int[]{100, 500});
+        this.noise = noise;
+        this.threeDimensional = threeDimensional;
+        this.batch = batch;
+    }
+
+    @Override
+    public void run() {
+        // Move on every run, like the facet providers of neighbouring chunks
+        int minX = offset++ * SIZE_X;
+        for (int x = 0; x < SIZE_X; x++) {
+            xs[x] = STEP * (minX + x);
+        }
+        if (threeDimensional) {
+            fill3D();
+        } else {
+            fill2D();
+        }
+    }
+
+    private void fill2D() {
+        if (batch) {
+            noise.noise(values, xs, zs);
+        } else {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    values[x + SIZE_X * z] = noise.noise(xs[x], zs[z]);
+                }
+            }
+        }
+    }
+
+    private void fill3D() {
+        if (batch) {
+            noise.noise(values, xs, ys, zs);
+        } else {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int y = 0; y < SIZE_Y; y++) {
+                    for (int x = 0; x < SIZE_X; x++) {
+                        values[x + SIZE_X * (y + SIZE_Y * z)] = noise.noise(xs[x], ys[y], zs[z]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static float[] createPositions(int size) {
+        float[] positions = new float[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = STEP * i;
+        }
+        return positions;
+    }
+}
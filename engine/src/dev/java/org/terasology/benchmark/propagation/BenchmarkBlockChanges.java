@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.ChunkIslandPropagator;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * BenchmarkBlockChanges measures how long the light, sunlight regeneration and sunlight propagators take to process a
+ * large batch of block changes and then the changes which undo them again.
+ *
+ */
+class BenchmarkBlockChanges implements Benchmark {
+
+    private final String title;
+    private final Function<BenchmarkWorld, List<BlockChange>> changeFactory;
+    private final int threads;
+
+    private BenchmarkWorld world;
+    private ChunkIslandPropagator propagator;
+    private List<BlockChange> changes;
+    private List<BlockChange> reverseChanges;
+
+    /**
+     * @param changeFactory creates the changes to process for the given world
+     * @param threads       the number of threads to propagate islands of changes on
+     */
+    BenchmarkBlockChanges(String title, Function<BenchmarkWorld, List<BlockChange>> changeFactory, int threads) {
+        this.title = title;
+        this.changeFactory = changeFactory;
+        this.threads = threads;
+    }
+
+    /**
+     * @return changes replacing the stone in a sphere with air
+     */
+    static List<BlockChange> explosion(BenchmarkWorld world, Vector3i center, int radius) {
+        List<BlockChange> changes = Lists.newArrayList();
+        for (int y = -radius; y <= radius; y++) {
+            for (int z = -radius; z <= radius; z++) {
+                for (int x = -radius; x <= radius; x++) {
+                    Vector3i pos = new Vector3i(center.x + x, center.y + y, center.z + z);
+                    if (x * x + y * y + z * z <= radius * radius && world.getBlock(pos) == world.getStone()) {
+                        changes.add(new BlockChange(pos, world.getStone(), world.getAir()));
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return changes filling a horizontal layer of air with stone
+     */
+    static List<BlockChange> layer(BenchmarkWorld world, int y, int minX, int minZ, int sizeX, int sizeZ) {
+        List<BlockChange> changes = Lists.newArrayList();
+        for (int z = minZ; z < minZ + sizeZ; z++) {
+            for (int x = minX; x < minX + sizeX; x++) {
+                Vector3i pos = new Vector3i(x, y, z);
+                if (world.getBlock(pos) == world.getAir()) {
+                    changes.add(new BlockChange(pos, world.getAir(), world.getStone()));
+                }
+            }
+        }
+        return changes;
+    }
+
+    @Override
+    public String getTitle() {
+        return title + " (" + threads + (threads == 1 ? " thread)" : " threads)");
+    }
+
+    @Override
+    public int getWarmupRepetitions() {
+        return 1;
+    }
+
+    @Override
+    public int[] getRepetitions() {
+        return new int[]{1, 5};
+    }
+
+    @Override
+    public void setup() {
+        world = new BenchmarkWorld();
+        propagator = new ChunkIslandPropagator(world::createPropagators, threads);
+        changes = changeFactory.apply(world);
+        reverseChanges = Lists.newArrayListWithCapacity(changes.size());
+        for (BlockChange change : changes) {
+            reverseChanges.add(new BlockChange(change.getPosition(), change.getTo(), change.getFrom()));
+        }
+    }
+
+    @Override
+    public void prerun() {
+    }
+
+    @Override
+    public void run() {
+        apply(changes);
+        apply(reverseChanges);
+    }
+
+    private void apply(List<BlockChange> blockChanges) {
+        for (BlockChange change : blockChanges) {
+            world.setBlock(change.getPosition(), change.getTo());
+        }
+        propagator.process(blockChanges);
+    }
+
+    @Override
+    public void postrun() {
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        propagator.shutdown();
+        world = null;
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import com.google.common.collect.Lists;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.propagation.BatchPropagator;
+import org.terasology.world.propagation.PropagationRules;
+import org.terasology.world.propagation.PropagatorWorldView;
+import org.terasology.world.propagation.StandardBatchPropagator;
+import org.terasology.world.propagation.SunlightRegenBatchPropagator;
+import org.terasology.world.propagation.light.LightPropagationRules;
+import org.terasology.world.propagation.light.SunlightPropagationRules;
+import org.terasology.world.propagation.light.SunlightRegenPropagationRules;
+
+import java.util.List;
+
+/**
+ * An array backed world for the propagation benchmarks: stone up to {@link #GROUND}, air above it and torches on the
+ * ground, lit like a freshly generated world.
+ * <br><br>
+ * Different blocks can be changed concurrently, so the world can be used by parallel propagators.
+ */
+class BenchmarkWorld {
+    static final int SIZE_X = 256;
+    static final int SIZE_Y = 128;
+    static final int SIZE_Z = 256;
+    static final int GROUND = 64;
+
+    private static final int TORCH_SPACING = 16;
+
+    private final Block air = new Block();
+    private final Block stone = new Block();
+    private final Block torch = new Block();
+
+    private final Block[] blocks = new Block[SIZE_X * SIZE_Y * SIZE_Z];
+    private final ValueView lightView = new ValueView();
+    private final ValueView sunlightView = new ValueView();
+    private final ValueView regenView = new ValueView();
+
+    BenchmarkWorld() {
+        air.setTranslucent(true);
+        torch.setTranslucent(true);
+        torch.setLuminance((byte) 15);
+        for (Side side : Side.getAllSides()) {
+            stone.setFullSide(side, true);
+        }
+
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    blocks[index(x, y, z)] = y < GROUND ? stone : air;
+                }
+            }
+        }
+        for (int z = TORCH_SPACING / 2; z < SIZE_Z; z += TORCH_SPACING) {
+            for (int x = TORCH_SPACING / 2; x < SIZE_X; x += TORCH_SPACING) {
+                blocks[index(x, GROUND, z)] = torch;
+            }
+        }
+        generateLighting();
+    }
+
+    Block getAir() {
+        return air;
+    }
+
+    Block getStone() {
+        return stone;
+    }
+
+    Block getBlock(Vector3i pos) {
+        return blocks[index(pos.x, pos.y, pos.z)];
+    }
+
+    void setBlock(Vector3i pos, Block block) {
+        blocks[index(pos.x, pos.y, pos.z)] = block;
+    }
+
+    /**
+     * @return the propagators in the order the world provider runs them
+     */
+    List<BatchPropagator> createPropagators() {
+        List<BatchPropagator> propagators = Lists.newArrayList();
+        propagators.add(new StandardBatchPropagator(new LightPropagationRules(), lightView));
+        PropagationRules sunlightRules = new SunlightPropagationRules(regenView);
+        BatchPropagator sunlightPropagator = new StandardBatchPropagator(sunlightRules, sunlightView);
+        propagators.add(new SunlightRegenBatchPropagator(new SunlightRegenPropagationRules(), regenView, sunlightPropagator, sunlightView));
+        propagators.add(sunlightPropagator);
+        return propagators;
+    }
+
+    /**
+     * Lights the world the same way chunks are lit after generation.
+     */
+    private void generateLighting() {
+        SunlightRegenPropagationRules regenRules = new SunlightRegenPropagationRules();
+        for (int z = 0; z < SIZE_Z; z++) {
+            for (int x = 0; x < SIZE_X; x++) {
+                byte regen = 0;
+                Block lastBlock = blocks[index(x, SIZE_Y - 1, z)];
+                for (int y = SIZE_Y - 2; y >= 0; y--) {
+                    Block block = blocks[index(x, y, z)];
+                    if (!(regenRules.canSpreadOutOf(lastBlock, Side.BOTTOM) && regenRules.canSpreadInto(block, Side.TOP))) {
+                        break;
+                    }
+                    regen = regenRules.propagateValue(regen, Side.BOTTOM, lastBlock);
+                    regenView.values[index(x, y, z)] = regen;
+                    lastBlock = block;
+                }
+            }
+        }
+
+        PropagationRules sunlightRules = new SunlightPropagationRules(regenView);
+        BatchPropagator sunlightPropagator = new StandardBatchPropagator(sunlightRules, sunlightView);
+        BatchPropagator lightPropagator = new StandardBatchPropagator(new LightPropagationRules(), lightView);
+        Vector3i pos = new Vector3i();
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    pos.set(x, y, z);
+                    Block block = blocks[index(x, y, z)];
+                    byte sunlight = sunlightRules.getFixedValue(block, pos);
+                    if (sunlight > 0) {
+                        sunlightView.setValueAt(pos, sunlight);
+                        sunlightPropagator.propagateFrom(pos, sunlight);
+                    }
+                    if (block.getLuminance() > 0) {
+                        lightView.setValueAt(pos, block.getLuminance());
+                        lightPropagator.propagateFrom(pos, block);
+                    }
+                }
+            }
+        }
+        sunlightPropagator.process();
+        lightPropagator.process();
+    }
+
+    private static boolean isInBounds(Vector3i pos) {
+        return pos.x >= 0 && pos.y >= 0 && pos.z >= 0 && pos.x < SIZE_X && pos.y < SIZE_Y && pos.z < SIZE_Z;
+    }
+
+    private static int index(int x, int y, int z) {
+        return x + SIZE_X * (z + SIZE_Z * y);
+    }
+
+    private class ValueView implements PropagatorWorldView {
+        private final byte[] values = new byte[blocks.length];
+
+        @Override
+        public byte getValueAt(Vector3i pos) {
+            if (!isInBounds(pos)) {
+                return UNAVAILABLE;
+            }
+            return values[index(pos.x, pos.y, pos.z)];
+        }
+
+        @Override
+        public void setValueAt(Vector3i pos, byte value) {
+            values[index(pos.x, pos.y, pos.z)] = value;
+        }
+
+        @Override
+        public Block getBlockAt(Vector3i pos) {
+            if (!isInBounds(pos)) {
+                return null;
+            }
+            return blocks[index(pos.x, pos.y, pos.z)];
+        }
+    }
+}
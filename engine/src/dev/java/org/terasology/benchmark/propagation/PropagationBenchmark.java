@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.propagation.BlockChange;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * PropagationBenchmark measures the light propagation of large edits: one big explosion, several smaller explosions far
+ * apart from each other and a layer of blocks placed over the whole world, each on one thread and in parallel.
+ *
+ */
+public final class PropagationBenchmark {
+
+    private PropagationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final int threads = Runtime.getRuntime().availableProcessors();
+
+        // About 50000 blocks each, the explosions are mostly below the ground
+        final Function<BenchmarkWorld, List<BlockChange>> explosion = world -> BenchmarkBlockChanges.explosion(world,
+                new Vector3i(BenchmarkWorld.SIZE_X / 2, BenchmarkWorld.GROUND - 12, BenchmarkWorld.SIZE_Z / 2), 24);
+        final Function<BenchmarkWorld, List<BlockChange>> scatteredExplosions = world -> {
+            List<BlockChange> changes = Lists.newArrayList();
+            // Three chunk columns apart, so every explosion is a separate island
+            for (int z = 48; z < BenchmarkWorld.SIZE_Z; z += 96) {
+                for (int x = 48; x < BenchmarkWorld.SIZE_X; x += 96) {
+                    changes.addAll(BenchmarkBlockChanges.explosion(world, new Vector3i(x, BenchmarkWorld.GROUND - 6, z), 12));
+                }
+            }
+            return changes;
+        };
+        final Function<BenchmarkWorld, List<BlockChange>> layer = world -> BenchmarkBlockChanges.layer(world,
+                BenchmarkWorld.GROUND + 36, 16, 16, BenchmarkWorld.SIZE_X - 32, BenchmarkWorld.SIZE_Z - 32);
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        for (int benchmarkThreads : new int[]{1, threads}) {
+            benchmarks.add(new BenchmarkBlockChanges("Explosion", explosion, benchmarkThreads));
+            benchmarks.add(new BenchmarkBlockChanges("Scattered explosions", scatteredExplosions, benchmarkThreads));
+            benchmarks.add(new BenchmarkBlockChanges("Layer", layer, benchmarkThreads));
+        }
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.serialization;
+
+import org.terasology.entitySystem.Component;
+import org.terasology.math.geom.Vector3f;
+
+/**
+ * A component with the kind of fields most components have: numbers, flags, a name and a vector.
+ */
+public class BenchmarkComponent implements Component {
+    public float speed;
+    public float height;
+    public int count;
+    public long created;
+    public boolean active;
+    public String name;
+    public Vector3f offset = new Vector3f();
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.serialization;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.reflections.Reflections;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.entitySystem.metadata.ReplicatedFieldMetadata;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedDataSerializer;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a batch of components and deserializes them again, either with the {@link ComponentSerializer} or the way
+ * it used to work: through the {@link Serializer} of the component, with a {@link PersistedData} per field and a map
+ * of the fields to deserialize.
+ */
+class BenchmarkComponentSerialization extends AbstractBenchmark {
+
+    private static final int COMPONENTS = 10000;
+
+    private final boolean compiled;
+
+    private ComponentLibrary componentLibrary;
+    private TypeHandlerLibrary typeHandlerLibrary;
+    private ComponentSerializer componentSerializer;
+    private ProtobufPersistedDataSerializer serializationContext;
+    private List<BenchmarkComponent> components;
+    private BenchmarkComponent target;
+
+    /**
+     * @param compiled whether to use the compiled serializers of the {@link ComponentSerializer}
+     */
+    BenchmarkComponentSerialization(boolean compiled) {
+        super("Serialize and deserialize " + COMPONENTS + " components " + (compiled ? "with compiled serializers" : "with type handler lookups"),
+                10, new int[]{100});
+        this.compiled = compiled;
+    }
+
+    @Override
+    public void setup() {
+        Context context = new ContextImpl();
+        ReflectFactory reflectFactory = new ReflectionReflectFactory();
+        context.put(ReflectFactory.class, reflectFactory);
+        context.put(CopyStrategyLibrary.class, new CopyStrategyLibrary(reflectFactory));
+        componentLibrary = new ComponentLibrary(context);
+        componentLibrary.register(new SimpleUri("benchmark", "benchmark"), BenchmarkComponent.class);
+        typeHandlerLibrary = TypeHandlerLibrary.withReflections(new Reflections(getClass().getClassLoader()));
+        componentSerializer = new ComponentSerializer(componentLibrary, typeHandlerLibrary);
+        componentSerializer.setIdMapping(ImmutableMap.<Class<? extends Component>, Integer>of(BenchmarkComponent.class, 1));
+        serializationContext = new ProtobufPersistedDataSerializer();
+
+        FastRandom random = new FastRandom(0L);
+        components = Lists.newArrayListWithCapacity(COMPONENTS);
+        for (int i = 0; i < COMPONENTS; i++) {
+            BenchmarkComponent component = new BenchmarkComponent();
+            component.speed = random.nextFloat();
+            component.height = random.nextFloat();
+            component.count = random.nextInt();
+            component.created = random.nextLong();
+            component.active = random.nextBoolean();
+            component.name = "component" + i;
+            component.offset.set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            components.add(component);
+        }
+        target = new BenchmarkComponent();
+    }
+
+    @Override
+    public void run() {
+        for (BenchmarkComponent component : components) {
+            if (compiled) {
+                componentSerializer.deserializeOnto(target, componentSerializer.serialize(component));
+            } else {
+                deserializeWithLookups(target, serializeWithLookups(component));
+            }
+        }
+    }
+
+    private EntityData.Component serializeWithLookups(Component component) {
+        ComponentMetadata<?> metadata = componentLibrary.getMetadata(component.getClass());
+        EntityData.Component.Builder componentMessage = EntityData.Component.newBuilder().setTypeIndex(1);
+        Serializer serializer = typeHandlerLibrary.getSerializerFor(metadata);
+        for (ReplicatedFieldMetadata<?, ?> field : metadata.getFields()) {
+            PersistedData result = serializer.serialize(field, component, serializationContext);
+            if (!result.isNull()) {
+                EntityData.Value itemValue = ((ProtobufPersistedData) result).getValue();
+                componentMessage.addField(EntityData.NameValue.newBuilder().setName(field.getName()).setValue(itemValue));
+            }
+        }
+        return componentMessage.build();
+    }
+
+    private void deserializeWithLookups(Component target, EntityData.Component componentData) {
+        ComponentMetadata<?> metadata = componentLibrary.getMetadata(target.getClass());
+        Serializer serializer = typeHandlerLibrary.getSerializerFor(metadata);
+        Map<FieldMetadata<?, ?>, PersistedData> dataMap = Maps.newHashMapWithExpectedSize(componentData.getFieldCount());
+        for (EntityData.NameValue field : componentData.getFieldList()) {
+            FieldMetadata<?, ?> fieldInfo = metadata.getField(field.getName());
+            if (fieldInfo != null) {
+                dataMap.put(fieldInfo, new ProtobufPersistedData(field.getValue()));
+            }
+        }
+        serializer.deserializeOnto(target, dataMap);
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        components = null;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.config;
+
+/**
+ * Opt-in engine features which are not enabled by default yet.
+ * <br><br>
+ * A feature is enabled in the "experimentalFeatures" map of the system config, keyed by its {@link #getId() id}. The
+ * system property "org.terasology.experimental.&lt;id&gt;" overrides the config, so a feature can be turned on or off
+ * for a single run.
+ *
+ * @see SystemConfig#isExperimentalFeatureEnabled(ExperimentalFeature)
+ */
+public enum ExperimentalFeature {
+    /**
+     * Entity pools store components grouped by archetype instead of one map per component.
+     */
+    ARCHETYPE_ENTITY_STORAGE("archetypeEntityStorage"),
+    /**
+     * Saved chunks are written to memory mapped region files instead of chunk zips.
+     */
+    REGION_CHUNK_STORAGE("regionChunkStorage"),
+    /**
+     * Saves only write the chunks and global entities that changed since the last save.
+     */
+    INCREMENTAL_SAVES("incrementalSaves"),
+    /**
+     * The block data of loaded chunks is stored as palette indices, if that uses less memory.
+     */
+    PALETTE_BLOCK_STORAGE("paletteBlockStorage"),
+    /**
+     * Loaded chunks are kept in a lock free table keyed by packed chunk positions, which also answers region lookups.
+     */
+    PACKED_POSITION_CHUNK_CACHE("packedPositionChunkCache"),
+    /**
+     * Block changes in chunk columns far enough apart have their light propagated in parallel.
+     */
+    PARALLEL_LIGHT_PROPAGATION("parallelLightPropagation"),
+    /**
+     * The facets which only depend on x and z are generated once per chunk column and shared by all chunks in it.
+     */
+    FACET_CACHE("facetCache"),
+    /**
+     * Facet providers which don't depend on each other generate the facets of a chunk in parallel.
+     */
+    PARALLEL_FACET_PROVIDERS("parallelFacetProviders"),
+    /**
+     * Behavior trees of entities far away from all players are ticked less often.
+     */
+    BEHAVIOR_LOD("behaviorLod"),
+    /**
+     * The behavior trees of different entities are ticked in parallel, if all actions of a tree are marked as thread
+     * safe. Other trees are still ticked on the main thread, after the parallel ones.
+     */
+    PARALLEL_BEHAVIOR_TICKS("parallelBehaviorTicks"),
+    /**
+     * Recorded events are streamed to binary segment files while recording instead of being kept in memory.
+     */
+    STREAMING_EVENT_RECORDING("streamingEventRecording");
+
+    public static final String PROPERTY_PREFIX = "org.terasology.experimental.";
+
+    private final String id;
+
+    ExperimentalFeature(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the key of the feature in the config
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the name of the system property overriding the config for this feature
+     */
+    public String getPropertyName() {
+        return PROPERTY_PREFIX + id;
+    }
+}
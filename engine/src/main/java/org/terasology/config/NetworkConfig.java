@@ -49,6 +49,11 @@ public class NetworkConfig {
      */
     private String masterServer = "meta.terasology.org";
 
+    /**
+     * Whether entity updates get sent within the upstream bandwidth, nearest entities first
+     */
+    private boolean prioritizedReplicationEnabled;
+
     public void clear() {
         servers.clear();
     }
@@ -96,4 +101,12 @@ public String getMasterServer() {
     public void setMasterServer(String masterServer) {
         this.masterServer = masterServer;
     }
+
+    public boolean isPrioritizedReplicationEnabled() {
+        return prioritizedReplicationEnabled;
+    }
+
+    public void setPrioritizedReplicationEnabled(boolean prioritizedReplicationEnabled) {
+        this.prioritizedReplicationEnabled = prioritizedReplicationEnabled;
+    }
 }
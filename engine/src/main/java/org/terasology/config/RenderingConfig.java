@@ -68,6 +68,9 @@ public class RenderingConfig extends AbstractSubscribable {
     public static final String RENDER_NEAREST = "RenderNearest";
     public static final String PARTICLE_EFFECT_LIMIT = "ParticleEffectLimit";
     public static final String MESH_LIMIT = "MeshLimit";
+    public static final String GREEDY_MESHING = "GreedyMeshing";
+    public static final String OCCLUSION_CULLING = "OcclusionCulling";
+    public static final String MESH_CACHE = "MeshCache";
     public static final String V_SYNC = "VSync";
     public static final String FRAME_LIMIT = "FrameLimit";
     public static final String FBO_SCALE = "FboScale";
@@ -116,6 +119,9 @@ public class RenderingConfig extends AbstractSubscribable {
     private int particleEffectLimit;
     private int frameLimit;
     private int meshLimit;
+    private boolean greedyMeshing;
+    private boolean occlusionCulling;
+    private boolean meshCache;
     private boolean inscattering;
     private boolean localReflections;
     private boolean vSync;
@@ -576,6 +582,37 @@ public void setMeshLimit(int meshLimit) {
         this.meshLimit = meshLimit;
         propertyChangeSupport.firePropertyChange(MESH_LIMIT, oldLimit, this.meshLimit);
     }
+
+    public boolean isGreedyMeshing() {
+        return greedyMeshing;
+    }
+
+    public void setGreedyMeshing(boolean greedyMeshing) {
+        boolean oldValue = this.greedyMeshing;
+        this.greedyMeshing = greedyMeshing;
+        propertyChangeSupport.firePropertyChange(GREEDY_MESHING, oldValue, this.greedyMeshing);
+    }
+
+    public boolean isOcclusionCulling() {
+        return occlusionCulling;
+    }
+
+    public void setOcclusionCulling(boolean occlusionCulling) {
+        boolean oldValue = this.occlusionCulling;
+        this.occlusionCulling = occlusionCulling;
+        propertyChangeSupport.firePropertyChange(OCCLUSION_CULLING, oldValue, this.occlusionCulling);
+    }
+
+    public boolean isMeshCache() {
+        return meshCache;
+    }
+
+    public void setMeshCache(boolean meshCache) {
+        boolean oldValue = this.meshCache;
+        this.meshCache = meshCache;
+        propertyChangeSupport.firePropertyChange(MESH_CACHE, oldValue, this.meshCache);
+    }
+
     public boolean isVSync() {
         return this.vSync;
     }
@@ -16,8 +16,11 @@
 
 package org.terasology.config;
 
+import com.google.common.collect.Maps;
+
 import java.util.Locale;
 import java.util.Locale.Category;
+import java.util.Map;
 
 public class SystemConfig {
     public static final String SAVED_GAMES_ENABLED_PROPERTY = "org.terasology.savedGamesEnabled";
@@ -31,6 +34,7 @@ public class SystemConfig {
     private boolean monitoringEnabled;
     private boolean writeSaveGamesEnabled;
     private long chunkGenerationFailTimeoutInMs;
+    private Map<String, Boolean> experimentalFeatures = Maps.newHashMap();
     private String locale;
 
     public long getDayNightLengthInMs() {
@@ -101,6 +105,22 @@ public void setChunkGenerationFailTimeoutInMs(long chunkGenerationFailTimeoutInM
         this.chunkGenerationFailTimeoutInMs = chunkGenerationFailTimeoutInMs;
     }
 
+    /**
+     * @return whether the given feature is enabled, by its system property if that is set and by the config otherwise
+     */
+    public boolean isExperimentalFeatureEnabled(ExperimentalFeature feature) {
+        String property = System.getProperty(feature.getPropertyName());
+        if (property != null) {
+            return Boolean.parseBoolean(property);
+        }
+        Boolean enabled = experimentalFeatures.get(feature.getId());
+        return enabled != null && enabled;
+    }
+
+    public void setExperimentalFeatureEnabled(ExperimentalFeature feature, boolean enabled) {
+        experimentalFeatures.put(feature.getId(), enabled);
+    }
+
     public Locale getLocale() {
         if (locale == null) {
             setLocale(Locale.getDefault(Category.DISPLAY));
@@ -58,7 +58,7 @@ public class ComponentSystemManager {
     private static final Logger logger = LoggerFactory.getLogger(ComponentSystemManager.class);
 
     private Map<String, ComponentSystem> namedLookup = Maps.newHashMap();
-    private List<UpdateSubscriberSystem> updateSubscribers = Lists.newArrayList();
+    private UpdateScheduler updateScheduler;
     private List<RenderSystem> renderSubscribers = Lists.newArrayList();
     private List<ComponentSystem> store = Lists.newArrayList();
 
@@ -69,6 +69,8 @@ public class ComponentSystemManager {
 
     public ComponentSystemManager(Context context) {
         this.context = context;
+        this.updateScheduler = new UpdateScheduler(() -> context.get(EntityManager.class).getEventSystem(),
+                Runtime.getRuntime().availableProcessors());
     }
 
     public void loadSystems(ModuleEnvironment environment, NetworkMode netMode) {
@@ -120,7 +122,7 @@ private boolean areOptionalRequirementsContained(RegisterSystem registerSystem,
     public void register(ComponentSystem object) {
         store.add(object);
         if (object instanceof UpdateSubscriberSystem) {
-            updateSubscribers.add((UpdateSubscriberSystem) object);
+            updateScheduler.add((UpdateSubscriberSystem) object);
         }
         if (object instanceof RenderSystem) {
             renderSubscribers.add((RenderSystem) object);
@@ -176,7 +178,17 @@ public Iterable<ComponentSystem> iterateAll() {
     }
 
     public Iterable<UpdateSubscriberSystem> iterateUpdateSubscribers() {
-        return updateSubscribers;
+        return updateScheduler.getSystems();
+    }
+
+    /**
+     * Updates all {@link UpdateSubscriberSystem}s, running those marked with
+     * {@link org.terasology.entitySystem.systems.ParallelUpdate} concurrently where possible.
+     *
+     * @param delta The time (in seconds) since the last engine update.
+     */
+    public void updateSubscribers(float delta) {
+        updateScheduler.update(delta);
     }
 
     public Iterable<RenderSystem> iterateRenderSubscribers() {
@@ -187,7 +199,8 @@ public void shutdown() {
         for (ComponentSystem system : iterateAll()) {
             system.shutdown();
         }
-        updateSubscribers.clear();
+        updateScheduler.clear();
+        updateScheduler.shutdown();
         renderSubscribers.clear();
     }
 }
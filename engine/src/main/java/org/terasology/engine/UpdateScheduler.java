@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.event.PendingEvent;
+import org.terasology.entitySystem.event.internal.EventSystem;
+import org.terasology.entitySystem.event.internal.ThreadEventBuffer;
+import org.terasology.entitySystem.systems.ParallelUpdate;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.monitoring.PerformanceMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Updates {@link UpdateSubscriberSystem}s, running systems annotated with {@link ParallelUpdate} concurrently when
+ * the components they access don't conflict.
+ * <br><br>
+ * Systems are split into batches, preserving registration order: a batch is extended with the next system as long as
+ * that system is annotated and doesn't conflict with any system already in the batch. The systems of a batch run on a
+ * work-stealing pool while the main thread waits; the events they send are then delivered on the main thread, in
+ * registration order of the systems that sent them. Systems that are not annotated always form a batch of their own
+ * and are updated on the main thread.
+ */
+public class UpdateScheduler {
+
+    private final List<UpdateSubscriberSystem> systems = Lists.newArrayList();
+    private final Supplier<EventSystem> eventSystem;
+    private final int parallelism;
+
+    private ForkJoinPool pool;
+    private List<Batch> batches;
+
+    /**
+     * @param eventSystem provides the event system used to deliver the events sent during parallel updates
+     * @param parallelism the maximum number of systems to update at the same time
+     */
+    public UpdateScheduler(Supplier<EventSystem> eventSystem, int parallelism) {
+        this.eventSystem = eventSystem;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void add(UpdateSubscriberSystem system) {
+        systems.add(system);
+        batches = null;
+    }
+
+    public Iterable<UpdateSubscriberSystem> getSystems() {
+        return Collections.unmodifiableList(systems);
+    }
+
+    public void clear() {
+        systems.clear();
+        batches = null;
+    }
+
+    public void update(float delta) {
+        if (batches == null) {
+            batches = createBatches();
+        }
+        for (Batch batch : batches) {
+            if (batch.systems.size() == 1 || parallelism == 1) {
+                for (UpdateSubscriberSystem system : batch.systems) {
+                    PerformanceMonitor.startActivity(system.getClass().getSimpleName());
+                    system.update(delta);
+                    PerformanceMonitor.endActivity();
+                }
+            } else {
+                PerformanceMonitor.startActivity(batch.name);
+                updateInParallel(batch, delta);
+                PerformanceMonitor.endActivity();
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads. The scheduler can still be used afterwards, new threads are started when needed.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private void updateInParallel(Batch batch, float delta) {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        List<ForkJoinTask<List<PendingEvent>>> tasks = Lists.newArrayListWithCapacity(batch.systems.size());
+        for (UpdateSubscriberSystem system : batch.systems) {
+            tasks.add(pool.submit(() -> updateCollectingEvents(system, delta)));
+        }
+
+        EventSystem events = eventSystem.get();
+        for (ForkJoinTask<List<PendingEvent>> task : tasks) {
+            for (PendingEvent event : task.join()) {
+                if (event.getComponent() != null) {
+                    events.send(event.getEntity(), event.getEvent(), event.getComponent());
+                } else {
+                    events.send(event.getEntity(), event.getEvent());
+                }
+            }
+        }
+    }
+
+    private static List<PendingEvent> updateCollectingEvents(UpdateSubscriberSystem system, float delta) {
+        List<PendingEvent> sentEvents;
+        ThreadEventBuffer.begin();
+        try {
+            system.update(delta);
+        } finally {
+            sentEvents = ThreadEventBuffer.end();
+        }
+        return sentEvents;
+    }
+
+    private List<Batch> createBatches() {
+        List<Batch> result = Lists.newArrayList();
+        Batch current = null;
+        for (UpdateSubscriberSystem system : systems) {
+            ParallelUpdate access = system.getClass().getAnnotation(ParallelUpdate.class);
+            if (access == null || current == null || !current.canAdd(access)) {
+                current = new Batch();
+                result.add(current);
+            }
+            current.add(system, access);
+            if (access == null) {
+                current = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A group of systems that can be updated at the same time.
+     */
+    private static final class Batch {
+        private final List<UpdateSubscriberSystem> systems = Lists.newArrayList();
+        private final Set<Class<? extends Component>> reads = Sets.newHashSet();
+        private final Set<Class<? extends Component>> writes = Sets.newHashSet();
+        private String name = "";
+
+        boolean canAdd(ParallelUpdate access) {
+            Set<Class<? extends Component>> otherReads = ImmutableSet.copyOf(access.reads());
+            Set<Class<? extends Component>> otherWrites = ImmutableSet.copyOf(access.writes());
+            return Collections.disjoint(writes, otherReads)
+                    && Collections.disjoint(writes, otherWrites)
+                    && Collections.disjoint(reads, otherWrites);
+        }
+
+        void add(UpdateSubscriberSystem system, ParallelUpdate access) {
+            systems.add(system);
+            if (access != null) {
+                reads.addAll(Arrays.asList(access.reads()));
+                writes.addAll(Arrays.asList(access.writes()));
+            }
+            name = name.isEmpty() ? system.getClass().getSimpleName() : name + " | " + system.getClass().getSimpleName();
+        }
+    }
+}
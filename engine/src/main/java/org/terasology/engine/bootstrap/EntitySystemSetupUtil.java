@@ -17,12 +17,15 @@
 package org.terasology.engine.bootstrap;
 
 import org.terasology.audio.events.PlaySoundEvent;
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.context.Context;
 import org.terasology.engine.SimpleUri;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.ArchetypeEntityPool;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.entity.internal.PojoEntityManager;
 import org.terasology.entitySystem.event.Event;
@@ -113,7 +116,13 @@ public static void addEntityManagementRelatedClasses(Context context) {
         NetworkSystem networkSystem = context.get(NetworkSystem.class);
 
         // Entity Manager
-        PojoEntityManager entityManager = new PojoEntityManager();
+        Config config = context.get(Config.class);
+        PojoEntityManager entityManager;
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.ARCHETYPE_ENTITY_STORAGE)) {
+            entityManager = new PojoEntityManager(ArchetypeEntityPool::new);
+        } else {
+            entityManager = new PojoEntityManager();
+        }
         context.put(EntityManager.class, entityManager);
         context.put(EngineEntityManager.class, entityManager);
 
@@ -137,6 +146,9 @@ public static void addEntityManagementRelatedClasses(Context context) {
         DirectionAndOriginPosRecorderList directionAndOriginPosRecorderList = context.get(DirectionAndOriginPosRecorderList.class);
         RecordedEventStore recordedEventStore = new RecordedEventStore();
         RecordAndReplaySerializer recordAndReplaySerializer = new RecordAndReplaySerializer(entityManager, recordedEventStore, recordAndReplayUtils, characterStateEventPositionMap, directionAndOriginPosRecorderList, moduleManager, context.get(TypeRegistry.class));
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.STREAMING_EVENT_RECORDING)) {
+            recordAndReplaySerializer.enableEventStreaming();
+        }
         context.put(RecordAndReplaySerializer.class, recordAndReplaySerializer);
 
 
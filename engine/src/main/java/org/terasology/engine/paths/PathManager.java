@@ -49,6 +49,7 @@ public final class PathManager {
     private static final String NATIVES_DIR = "natives";
     private static final String CONFIGS_DIR = "configs";
     private static final String SANDBOX_DIR = "sandbox";
+    private static final String MESH_CACHE_DIR = "meshCache";
     private static final String REGEX = "[^A-Za-z0-9-_ ]";
 
     private static PathManager instance;
@@ -60,6 +61,7 @@ public final class PathManager {
     private Path shaderLogPath;
     private Path currentWorldPath;
     private Path sandboxPath;
+    private Path meshCachePath;
 
     private ImmutableList<Path> modPaths = ImmutableList.of();
     private Path screenshotPath;
@@ -308,6 +310,16 @@ private void updateDirs() throws IOException {
         }
         sandboxPath = homePath.resolve(SANDBOX_DIR);
         Files.createDirectories(sandboxPath);
+        meshCachePath = homePath.resolve(MESH_CACHE_DIR);
+        Files.createDirectories(meshCachePath);
+    }
+
+    /**
+     *
+     * @return Path in which tessellated chunk meshes are cached.
+     */
+    public Path getMeshCachePath() {
+        return meshCachePath;
     }
 
     public Path getHomeModPath() {
@@ -325,4 +337,8 @@ public Path getRecordingPath(String title) {
     public Path getSandboxPath(String title) {
         return getSandboxPath().resolve(title.replaceAll(REGEX, ""));
     }
+
+    public Path getMeshCachePath(String title) {
+        return getMeshCachePath().resolve(title.replaceAll(REGEX, ""));
+    }
 }
@@ -108,7 +108,7 @@ public EntityRef build() {
         }
         long finalId = id.orElse(entityManager.createEntity());
 
-        components.values().forEach(c -> entityManager.getComponentStore().put(finalId, c));
+        entityManager.getComponentStore().putAll(finalId, components.values());
 
         entityManager.assignToPool(finalId, pool);
 
@@ -22,6 +22,8 @@
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.entitySystem.sectors.SectorSimulationComponent;
 import org.terasology.game.GameManifest;
+import org.terasology.math.AABB;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.world.internal.WorldInfo;
 
 import java.util.List;
@@ -96,6 +98,25 @@ public interface EntityManager extends EntityPool {
      */
     ComponentLibrary getComponentLibrary();
 
+    /**
+     * Finds the entities near a point using a spatial index of the entity locations, without iterating all entities.
+     *
+     * @param position         The center of the sphere to search
+     * @param radius           The radius of the sphere to search
+     * @param componentClasses The components the entities must have
+     * @return The entities whose world position is within the sphere and which have all of the given components
+     */
+    List<EntityRef> getEntitiesWithin(Vector3f position, float radius, Class<? extends Component>... componentClasses);
+
+    /**
+     * Finds the entities in an area using a spatial index of the entity locations, without iterating all entities.
+     *
+     * @param area             The area to search
+     * @param componentClasses The components the entities must have
+     * @return The entities whose world position is within the area and which have all of the given components
+     */
+    List<EntityRef> getEntitiesIn(AABB area, Class<? extends Component>... componentClasses);
+
     boolean moveToPool(long id, EngineEntityPool pool);
 
 }
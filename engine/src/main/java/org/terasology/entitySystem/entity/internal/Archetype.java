@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.terasology.entitySystem.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A group of entities that all have exactly the same set of component classes.
+ * <br><br>
+ * The entity ids and the components of each class are stored in parallel, contiguous arrays: row {@code i} of every
+ * column belongs to the entity {@code getEntityId(i)}. Rows are kept dense, removing an entity moves the last row into
+ * the freed slot.
+ * <br><br>
+ * Archetypes are owned and mutated by an {@link ArchetypeComponentTable}. The arrays returned by {@link #getEntityIds()}
+ * and {@link #getColumn(Class)} are live views and are only valid up to {@link #size()} until the next change to the table.
+ */
+public final class Archetype {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Set<Class<? extends Component>> componentTypes;
+    private final Class<? extends Component>[] columnTypes;
+    private final Map<Class<?>, Integer> columnIndices;
+
+    private final Map<Class<?>, Archetype> addTransitions = Maps.newHashMap();
+    private final Map<Class<?>, Archetype> removeTransitions = Maps.newHashMap();
+
+    private long[] entityIds = new long[INITIAL_CAPACITY];
+    private Component[][] columns;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    Archetype(Set<Class<? extends Component>> componentTypes) {
+        this.componentTypes = ImmutableSet.copyOf(componentTypes);
+        this.columnTypes = this.componentTypes.toArray(new Class[this.componentTypes.size()]);
+        this.columnIndices = Maps.newIdentityHashMap();
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnIndices.put(columnTypes[i], i);
+        }
+        this.columns = new Component[columnTypes.length][INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return The component classes every entity of this archetype has.
+     */
+    public Set<Class<? extends Component>> getComponentTypes() {
+        return componentTypes;
+    }
+
+    /**
+     * @return Whether entities of this archetype have all of the given component classes
+     */
+    public boolean containsAll(Class<? extends Component>[] types) {
+        for (Class<? extends Component> type : types) {
+            if (!columnIndices.containsKey(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of entities in this archetype
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getEntityId(int row) {
+        return entityIds[row];
+    }
+
+    /**
+     * @return The ids of the entities in this archetype. Only the first {@link #size()} elements are valid.
+     */
+    public long[] getEntityIds() {
+        return entityIds;
+    }
+
+    /**
+     * @return The column of components of the given class, in the same order as {@link #getEntityIds()}, or null if
+     *         entities of this archetype don't have the component. Only the first {@link #size()} elements are valid.
+     */
+    public Component[] getColumn(Class<? extends Component> componentClass) {
+        int column = columnIndex(componentClass);
+        return (column < 0) ? null : columns[column];
+    }
+
+    public <T extends Component> T getComponent(int row, Class<T> componentClass) {
+        int column = columnIndex(componentClass);
+        return (column < 0) ? null : componentClass.cast(columns[column][row]);
+    }
+
+    int columnIndex(Class<?> componentClass) {
+        Integer index = columnIndices.get(componentClass);
+        return (index == null) ? -1 : index;
+    }
+
+    int columnCount() {
+        return columnTypes.length;
+    }
+
+    Component getComponentAt(int row, int column) {
+        return columns[column][row];
+    }
+
+    Component setComponentAt(int row, int column, Component component) {
+        Component old = columns[column][row];
+        columns[column][row] = component;
+        return old;
+    }
+
+    Archetype getAddTransition(Class<?> componentClass) {
+        return addTransitions.get(componentClass);
+    }
+
+    void setAddTransition(Class<?> componentClass, Archetype target) {
+        addTransitions.put(componentClass, target);
+    }
+
+    Archetype getRemoveTransition(Class<?> componentClass) {
+        return removeTransitions.get(componentClass);
+    }
+
+    void setRemoveTransition(Class<?> componentClass, Archetype target) {
+        removeTransitions.put(componentClass, target);
+    }
+
+    /**
+     * Appends a new row for the entity. The components must be supplied in column order, see {@link #columnIndex}.
+     *
+     * @return the row of the entity
+     */
+    int add(long entityId, Component[] rowComponents) {
+        ensureCapacity(size + 1);
+        entityIds[size] = entityId;
+        for (int column = 0; column < columns.length; column++) {
+            columns[column][size] = rowComponents[column];
+        }
+        return size++;
+    }
+
+    /**
+     * Copies the row of the entity into another archetype, adding or dropping components as needed.
+     *
+     * @param row the row of the entity in this archetype
+     * @param target the archetype to copy the entity to
+     * @param extra a component that is not part of this archetype, or null
+     * @return the row of the entity in the target archetype
+     */
+    int copyRowTo(int row, Archetype target, Component extra) {
+        Component[] rowComponents = new Component[target.columnCount()];
+        for (int column = 0; column < columns.length; column++) {
+            int targetColumn = target.columnIndex(columnTypes[column]);
+            if (targetColumn >= 0) {
+                rowComponents[targetColumn] = columns[column][row];
+            }
+        }
+        if (extra != null) {
+            rowComponents[target.columnIndex(extra.getClass())] = extra;
+        }
+        return target.add(entityIds[row], rowComponents);
+    }
+
+    /**
+     * Removes the row, moving the last row into its place.
+     *
+     * @return the id of the entity that now occupies the row, or {@link PojoEntityManager#NULL_ID} if the removed row
+     *         was the last one
+     */
+    long removeRow(int row) {
+        int last = --size;
+        long movedId = PojoEntityManager.NULL_ID;
+        if (row != last) {
+            entityIds[row] = entityIds[last];
+            movedId = entityIds[row];
+        }
+        for (Component[] column : columns) {
+            column[row] = column[last];
+            column[last] = null;
+        }
+        return movedId;
+    }
+
+    void clear() {
+        for (Component[] column : columns) {
+            Arrays.fill(column, 0, size, null);
+        }
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > entityIds.length) {
+            int newCapacity = Math.max(capacity, entityIds.length * 2);
+            entityIds = Arrays.copyOf(entityIds, newCapacity);
+            for (int column = 0; column < columns.length; column++) {
+                columns[column] = Arrays.copyOf(columns[column], newCapacity);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Archetype" + componentTypes + " (" + size + " entities)";
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.entitySystem.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A component table that groups entities by their exact set of component classes (their {@link Archetype}).
+ * <br><br>
+ * Components of the same class within an archetype are stored in contiguous arrays, so iterating over all entities with
+ * a given set of components walks a handful of arrays instead of probing a map per entity per component. Use
+ * {@link #getArchetypesWith(Class[])} for chunked, multi-component iteration.
+ * <br><br>
+ * Adding or removing a component moves the entity to another archetype, which is more expensive than with the
+ * map-per-component {@link ComponentTable}. Prefer {@link #putAll(long, Iterable)} when creating entities.
+ */
+public class ArchetypeComponentTable extends ComponentTable {
+
+    private final Map<Set<Class<? extends Component>>, Archetype> archetypes = Maps.newConcurrentMap();
+    private final List<Archetype> allArchetypes = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, List<Archetype>> archetypesByComponent = Maps.newConcurrentMap();
+
+    private final TLongObjectMap<Archetype> entityArchetypes = new TLongObjectHashMap<>();
+    private final TLongIntMap entityRows = new TLongIntHashMap();
+
+    @Override
+    public <T extends Component> T get(long entityId, Class<T> componentClass) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype != null) {
+            int column = archetype.columnIndex(componentClass);
+            if (column >= 0) {
+                return componentClass.cast(archetype.getComponentAt(entityRows.get(entityId), column));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Component put(long entityId, Component component) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype == null) {
+            Archetype target = getArchetype(Collections.<Class<? extends Component>>singleton(component.getClass()));
+            place(entityId, target, target.add(entityId, new Component[]{component}));
+            return null;
+        }
+
+        int row = entityRows.get(entityId);
+        int column = archetype.columnIndex(component.getClass());
+        if (column >= 0) {
+            return archetype.setComponentAt(row, column, component);
+        }
+
+        Archetype target = archetype.getAddTransition(component.getClass());
+        if (target == null) {
+            Set<Class<? extends Component>> types = Sets.newHashSet(archetype.getComponentTypes());
+            types.add(component.getClass());
+            target = getArchetype(types);
+            archetype.setAddTransition(component.getClass(), target);
+        }
+        int targetRow = archetype.copyRowTo(row, target, component);
+        removeRow(archetype, row);
+        place(entityId, target, targetRow);
+        return null;
+    }
+
+    /**
+     * Puts all of the given components for the entity, moving the entity to its final archetype only once.
+     */
+    @Override
+    public void putAll(long entityId, Iterable<Component> components) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        Map<Class<? extends Component>, Component> rowComponents = Maps.newHashMap();
+        if (archetype != null) {
+            int row = entityRows.get(entityId);
+            for (Class<? extends Component> type : archetype.getComponentTypes()) {
+                rowComponents.put(type, archetype.getComponent(row, type));
+            }
+        }
+        for (Component component : components) {
+            rowComponents.put(component.getClass(), component);
+        }
+        if (rowComponents.isEmpty()) {
+            return;
+        }
+
+        Archetype target = getArchetype(rowComponents.keySet());
+        if (target == archetype) {
+            int row = entityRows.get(entityId);
+            for (Component component : components) {
+                archetype.setComponentAt(row, archetype.columnIndex(component.getClass()), component);
+            }
+            return;
+        }
+
+        Component[] row = new Component[target.columnCount()];
+        for (Component component : rowComponents.values()) {
+            row[target.columnIndex(component.getClass())] = component;
+        }
+        if (archetype != null) {
+            removeRow(archetype, entityRows.get(entityId));
+        }
+        place(entityId, target, target.add(entityId, row));
+    }
+
+    /**
+     * @return removes the component with the specified class from the entity and returns it.
+     *         Returns null if no component could be removed.
+     */
+    @Override
+    public <T extends Component> Component remove(long entityId, Class<T> componentClass) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype == null) {
+            return null;
+        }
+        int column = archetype.columnIndex(componentClass);
+        if (column < 0) {
+            return null;
+        }
+
+        int row = entityRows.get(entityId);
+        Component removed = archetype.getComponentAt(row, column);
+        if (archetype.columnCount() == 1) {
+            removeRow(archetype, row);
+            entityArchetypes.remove(entityId);
+            entityRows.remove(entityId);
+            return removed;
+        }
+
+        Archetype target = archetype.getRemoveTransition(componentClass);
+        if (target == null) {
+            Set<Class<? extends Component>> types = Sets.newHashSet(archetype.getComponentTypes());
+            types.remove(componentClass);
+            target = getArchetype(types);
+            archetype.setRemoveTransition(componentClass, target);
+        }
+        int targetRow = archetype.copyRowTo(row, target, null);
+        removeRow(archetype, row);
+        place(entityId, target, targetRow);
+        return removed;
+    }
+
+    @Override
+    public List<Component> removeAndReturnComponentsOf(long entityId) {
+        List<Component> components = getComponentsInNewList(entityId);
+        remove(entityId);
+        return components;
+    }
+
+    @Override
+    public void remove(long entityId) {
+        Archetype archetype = entityArchetypes.remove(entityId);
+        if (archetype != null) {
+            removeRow(archetype, entityRows.remove(entityId));
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Archetype archetype : allArchetypes) {
+            archetype.clear();
+        }
+        entityArchetypes.clear();
+        entityRows.clear();
+    }
+
+    @Override
+    public int getComponentCount(Class<? extends Component> componentClass) {
+        int count = 0;
+        for (Archetype archetype : getArchetypesContaining(componentClass)) {
+            count += archetype.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of entities that have all of the given components
+     */
+    public int getEntityCount(Class<? extends Component>[] componentClasses) {
+        int count = 0;
+        for (Archetype archetype : getArchetypesWith(componentClasses)) {
+            count += archetype.size();
+        }
+        return count;
+    }
+
+    @Override
+    public List<Component> getComponentsInNewList(long entityId) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype == null) {
+            return Lists.newArrayList();
+        }
+        int row = entityRows.get(entityId);
+        List<Component> components = Lists.newArrayListWithCapacity(archetype.columnCount());
+        for (int column = 0; column < archetype.columnCount(); column++) {
+            components.add(archetype.getComponentAt(row, column));
+        }
+        return components;
+    }
+
+    @Override
+    public <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> componentClass) {
+        List<Archetype> containing = archetypesByComponent.get(componentClass);
+        if (containing == null) {
+            return null;
+        }
+        return new ArchetypeComponentIterator<>(containing, componentClass);
+    }
+
+    /**
+     * Produces an iterator over all entities, over a snapshot of the entity ids taken when this method is called.
+     *
+     * @return An iterator over all entity ids.
+     */
+    @Override
+    public TLongIterator entityIdIterator() {
+        return snapshotEntityIds(allArchetypes).iterator();
+    }
+
+    @Override
+    public int numEntities() {
+        return entityArchetypes.size();
+    }
+
+    /**
+     * Provides chunked iteration over all entities with the given components: each returned archetype holds a dense
+     * array of entity ids and one dense array per component class.
+     * <br><br>
+     * The arrays must not be used after components have been added to or removed from any entity of the table.
+     *
+     * @return the non-empty archetypes whose entities have all of the given components
+     */
+    public Iterable<Archetype> getArchetypesWith(Class<? extends Component>[] componentClasses) {
+        if (componentClasses.length == 0) {
+            return Iterables.filter(allArchetypes, archetype -> archetype.size() > 0);
+        }
+        return Iterables.filter(getArchetypesContaining(componentClasses[0]),
+                archetype -> archetype.size() > 0 && archetype.containsAll(componentClasses));
+    }
+
+    /**
+     * Copies the ids of all entities with the given components. The returned list is not affected by later changes to
+     * the table, so it can be used to safely iterate while adding and removing components.
+     */
+    public TLongList getEntityIdsWith(Class<? extends Component>[] componentClasses) {
+        return snapshotEntityIds(getArchetypesWith(componentClasses));
+    }
+
+    private TLongList snapshotEntityIds(Iterable<Archetype> source) {
+        TLongList ids = new TLongArrayList();
+        for (Archetype archetype : source) {
+            ids.add(archetype.getEntityIds(), 0, archetype.size());
+        }
+        return ids;
+    }
+
+    private List<Archetype> getArchetypesContaining(Class<?> componentClass) {
+        List<Archetype> containing = archetypesByComponent.get(componentClass);
+        return (containing == null) ? Collections.emptyList() : containing;
+    }
+
+    private Archetype getArchetype(Set<Class<? extends Component>> types) {
+        Archetype archetype = archetypes.get(types);
+        if (archetype == null) {
+            archetype = new Archetype(types);
+            archetypes.put(archetype.getComponentTypes(), archetype);
+            allArchetypes.add(archetype);
+            for (Class<? extends Component> type : archetype.getComponentTypes()) {
+                archetypesByComponent.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(archetype);
+            }
+        }
+        return archetype;
+    }
+
+    private void place(long entityId, Archetype archetype, int row) {
+        entityArchetypes.put(entityId, archetype);
+        entityRows.put(entityId, row);
+    }
+
+    private void removeRow(Archetype archetype, int row) {
+        long movedId = archetype.removeRow(row);
+        if (movedId != PojoEntityManager.NULL_ID) {
+            entityRows.put(movedId, row);
+        }
+    }
+
+    /**
+     * Iterates over the components of a single class across all archetypes that contain it.
+     */
+    private static class ArchetypeComponentIterator<T extends Component> implements TLongObjectIterator<T> {
+        private final List<Archetype> archetypes;
+        private final Class<T> componentClass;
+
+        private int archetypeIndex;
+        private int row = -1;
+        private Archetype current;
+        private Component[] column;
+
+        ArchetypeComponentIterator(List<Archetype> archetypes, Class<T> componentClass) {
+            this.archetypes = archetypes;
+            this.componentClass = componentClass;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (current != null && row + 1 < current.size()) {
+                return true;
+            }
+            for (int i = archetypeIndex; i < archetypes.size(); i++) {
+                if (archetypes.get(i).size() > 0 && archetypes.get(i) != current) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void advance() {
+            if (current != null && row + 1 < current.size()) {
+                row++;
+                return;
+            }
+            while (archetypeIndex < archetypes.size()) {
+                Archetype next = archetypes.get(archetypeIndex++);
+                if (next != current && next.size() > 0) {
+                    current = next;
+                    column = next.getColumn(componentClass);
+                    row = 0;
+                    return;
+                }
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public long key() {
+            return current.getEntityId(row);
+        }
+
+        @Override
+        public T value() {
+            return componentClass.cast(column[row]);
+        }
+
+        @Override
+        public T setValue(T val) {
+            T old = value();
+            column[row] = val;
+            return old;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
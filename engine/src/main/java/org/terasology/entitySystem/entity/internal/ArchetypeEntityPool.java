@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+
+/**
+ * An entity pool that stores its components grouped by archetype, see {@link ArchetypeComponentTable}.
+ * <br><br>
+ * Behaves like a {@link PojoEntityPool}, but queries over multiple components only visit the entities that have all of
+ * them, and {@link #getArchetypesWith(Class[])} allows iterating over the component arrays directly.
+ */
+public class ArchetypeEntityPool extends PojoEntityPool {
+
+    private final ArchetypeComponentTable archetypeStore;
+
+    public ArchetypeEntityPool(PojoEntityManager entityManager) {
+        this(entityManager, new ArchetypeComponentTable());
+    }
+
+    private ArchetypeEntityPool(PojoEntityManager entityManager, ArchetypeComponentTable componentStore) {
+        super(entityManager, componentStore);
+        this.archetypeStore = componentStore;
+    }
+
+    /**
+     * Iterates over a snapshot of the matching entity ids, so components may be added and removed while iterating.
+     */
+    @Override
+    protected Iterable<EntityRef> findEntitiesWith(Class<? extends Component>[] componentClasses) {
+        return () -> new EntityIterator(archetypeStore.getEntityIdsWith(componentClasses).iterator(), this);
+    }
+
+    @Override
+    public int getCountOfEntitiesWith(Class<? extends Component>[] componentClasses) {
+        if (componentClasses.length == 0) {
+            return archetypeStore.numEntities();
+        }
+        return archetypeStore.getEntityCount(componentClasses);
+    }
+
+    /**
+     * @return the archetypes of this pool whose entities have all of the given components
+     * @see ArchetypeComponentTable#getArchetypesWith(Class[])
+     */
+    @SafeVarargs
+    public final Iterable<Archetype> getArchetypesWith(Class<? extends Component>... componentClasses) {
+        return archetypeStore.getArchetypesWith(componentClasses);
+    }
+}
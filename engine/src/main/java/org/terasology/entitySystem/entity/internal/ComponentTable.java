@@ -52,6 +52,15 @@ public Component put(long entityId, Component component) {
         return entityMap.put(entityId, component);
     }
 
+    /**
+     * Puts all of the given components for the entity, replacing existing components of the same class.
+     */
+    public void putAll(long entityId, Iterable<Component> components) {
+        for (Component component : components) {
+            put(entityId, component);
+        }
+    }
+
     /**
      *
      * @return removes the component with the specified class from the entity and returns it.
@@ -41,6 +41,7 @@
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.entitySystem.sectors.SectorSimulationComponent;
 import org.terasology.game.GameManifest;
+import org.terasology.math.AABB;
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
@@ -54,6 +55,7 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import static org.terasology.entitySystem.entity.internal.EntityScope.SECTOR;
 
@@ -65,14 +67,16 @@ public class PojoEntityManager implements EngineEntityManager {
     private long nextEntityId = 1;
     private TLongSet loadedIds = new TLongHashSet();
 
-    private EngineEntityPool globalPool = new PojoEntityPool(this);
-    private PojoSectorManager sectorManager = new PojoSectorManager(this);
+    private final Function<PojoEntityManager, EngineEntityPool> poolFactory;
+    private EngineEntityPool globalPool;
+    private PojoSectorManager sectorManager;
     private Map<Long, EngineEntityPool> poolMap = new MapMaker().initialCapacity(1000).makeMap();
     private List<EngineEntityPool> worldPools = Lists.newArrayList();
     private Map<EngineEntityPool, Long> poolCounts = new HashMap<EngineEntityPool, Long>();
 
     private Set<EntityChangeSubscriber> subscribers = Sets.newLinkedHashSet();
     private Set<EntityDestroySubscriber> destroySubscribers = Sets.newLinkedHashSet();
+    private final SpatialEntityIndex spatialIndex = new SpatialEntityIndex(this);
     private EventSystem eventSystem;
     private PrefabManager prefabManager;
     private ComponentLibrary componentLibrary;
@@ -83,6 +87,23 @@ public class PojoEntityManager implements EngineEntityManager {
 
     private TypeHandlerLibrary typeSerializerLibrary;
 
+    public PojoEntityManager() {
+        this(PojoEntityPool::new);
+    }
+
+    /**
+     * Creates an entity manager whose pools are created by the given factory, e.g. {@code ArchetypeEntityPool::new}
+     * to store components grouped by archetype.
+     *
+     * @param poolFactory creates the global, world and sector pools of this entity manager
+     */
+    public PojoEntityManager(Function<PojoEntityManager, EngineEntityPool> poolFactory) {
+        this.poolFactory = poolFactory;
+        this.globalPool = createPool();
+        this.sectorManager = new PojoSectorManager(this);
+        subscribers.add(spatialIndex);
+    }
+
     @Override
     public RefStrategy getEntityRefStrategy() {
         return refStrategy;
@@ -129,6 +150,7 @@ public void clear() {
         sectorManager.clear();
         nextEntityId = 1;
         loadedIds.clear();
+        spatialIndex.clear();
     }
 
     @Override
@@ -157,7 +179,7 @@ public void createWorldPools(GameManifest game) {
         Map<String, WorldInfo> worldInfoMap = gameManifest.getWorldInfoMap();
         worldManager = new WorldManager(gameManifest.getWorldInfo(TerasologyConstants.MAIN_WORLD));
         for (Map.Entry<String, WorldInfo> worldInfoEntry : worldInfoMap.entrySet()) {
-            EngineEntityPool pool = new PojoEntityPool(this);
+            EngineEntityPool pool = createPool();
             //pool.create();
             worldPools.add(pool);
             worldManager.addWorldPool(worldInfoEntry.getValue(), pool);
@@ -272,6 +294,18 @@ public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... c
                 getCurrentWorldPool().getEntitiesWith(componentClasses), sectorManager.getEntitiesWith(componentClasses));
     }
 
+    @SafeVarargs
+    @Override
+    public final List<EntityRef> getEntitiesWithin(Vector3f position, float radius, Class<? extends Component>... componentClasses) {
+        return spatialIndex.getEntitiesWithin(position, radius, componentClasses);
+    }
+
+    @SafeVarargs
+    @Override
+    public final List<EntityRef> getEntitiesIn(AABB area, Class<? extends Component>... componentClasses) {
+        return spatialIndex.getEntitiesIn(area, componentClasses);
+    }
+
     @Override
     public int getActiveEntityCount() {
         if (isWorldPoolGlobalPool()) {
@@ -611,6 +645,13 @@ public void saveComponent(long entityId, Component component) {
      * Implementation
      */
 
+    /**
+     * @return a new, empty pool of the kind this entity manager was set up with
+     */
+    protected EngineEntityPool createPool() {
+        return poolFactory.apply(this);
+    }
+
     public Optional<EngineEntityPool> getPool(long id) {
         Optional<EngineEntityPool> pool = Optional.ofNullable(poolMap.get(id));
         if (!pool.isPresent()) {
@@ -44,10 +44,21 @@ public class PojoEntityPool implements EngineEntityPool {
     private static final Logger logger = LoggerFactory.getLogger(PojoEntityPool.class);
 
     private Map<Long, BaseEntityRef> entityStore = new MapMaker().weakValues().concurrencyLevel(4).initialCapacity(1000).makeMap();
-    private ComponentTable componentStore = new ComponentTable();
+    private ComponentTable componentStore;
 
     public PojoEntityPool(PojoEntityManager entityManager) {
+        this(entityManager, new ComponentTable());
+    }
+
+    /**
+     * Creates a pool that keeps its components in the given table.
+     *
+     * @param entityManager the entity manager the pool belongs to
+     * @param componentStore the table to store components in
+     */
+    protected PojoEntityPool(PojoEntityManager entityManager, ComponentTable componentStore) {
         this.entityManager = entityManager;
+        this.componentStore = componentStore;
     }
 
     @Override
@@ -297,6 +308,13 @@ public EntityRef getEntity(long entityId) {
     @SafeVarargs
     @Override
     public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... componentClasses) {
+        return findEntitiesWith(componentClasses);
+    }
+
+    /**
+     * @return the entities of this pool which have all of the given components
+     */
+    protected Iterable<EntityRef> findEntitiesWith(Class<? extends Component>[] componentClasses) {
         return () -> entityStore.keySet().stream()
                 //Keep entities which have all of the required components
                 .filter(id -> Arrays.stream(componentClasses)
@@ -342,7 +360,7 @@ public Optional<BaseEntityRef> remove(long id) {
     @Override
     public void insertRef(BaseEntityRef ref, Iterable<Component> components) {
         entityStore.put(ref.getId(), ref);
-        components.forEach(comp -> componentStore.put(ref.getId(), comp));
+        componentStore.putAll(ref.getId(), components);
         entityManager.assignToPool(ref.getId(), this);
     }
 
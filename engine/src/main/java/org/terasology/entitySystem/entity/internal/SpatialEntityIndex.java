@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.Lists;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.map.TLongLongMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.AABB;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the entities with a {@link LocationComponent} in a grid of cubic cells by their world position, so the
+ * entities near a point or in an area can be found without iterating all entities.
+ * <br><br>
+ * The index is updated from the component changes the entity manager notifies it about. Children follow their parent:
+ * whenever the location of an entity changes, its children are moved too. Entities without a valid world position are
+ * not indexed.
+ */
+public class SpatialEntityIndex implements EntityChangeSubscriber {
+    /**
+     * The edge length of the cells, in blocks
+     */
+    public static final int CELL_SIZE = 16;
+
+    private static final int COORDINATE_BITS = 21;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+
+    private final EntityManager entityManager;
+    private final TLongObjectMap<TLongSet> cells = new TLongObjectHashMap<>();
+    private final TLongLongMap entityCells = new TLongLongHashMap();
+    private final TLongObjectMap<Vector3f> positions = new TLongObjectHashMap<>();
+
+    public SpatialEntityIndex(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @return the indexed entities within the radius around the position, which have all of the given components
+     */
+    @SafeVarargs
+    public final List<EntityRef> getEntitiesWithin(Vector3f position, float radius, Class<? extends Component>... componentClasses) {
+        float radiusSquared = radius * radius;
+        List<EntityRef> result = Lists.newArrayList();
+        collect(position.x - radius, position.y - radius, position.z - radius,
+                position.x + radius, position.y + radius, position.z + radius, componentClasses, result,
+                pos -> pos.distanceSquared(position) <= radiusSquared);
+        return result;
+    }
+
+    /**
+     * @return the indexed entities in the area, which have all of the given components
+     */
+    @SafeVarargs
+    public final List<EntityRef> getEntitiesIn(AABB area, Class<? extends Component>... componentClasses) {
+        List<EntityRef> result = Lists.newArrayList();
+        collect(area.minX(), area.minY(), area.minZ(), area.maxX(), area.maxY(), area.maxZ(), componentClasses, result,
+                area::contains);
+        return result;
+    }
+
+    /**
+     * @return the number of indexed entities
+     */
+    public int size() {
+        return positions.size();
+    }
+
+    public void clear() {
+        cells.clear();
+        entityCells.clear();
+        positions.clear();
+    }
+
+    @Override
+    public void onEntityComponentAdded(EntityRef entity, Class<? extends Component> component) {
+        if (component == LocationComponent.class) {
+            update(entity);
+        }
+    }
+
+    @Override
+    public void onEntityComponentChange(EntityRef entity, Class<? extends Component> component) {
+        if (component == LocationComponent.class) {
+            update(entity);
+        }
+    }
+
+    @Override
+    public void onEntityComponentRemoved(EntityRef entity, Class<? extends Component> component) {
+        if (component == LocationComponent.class) {
+            remove(entity.getId());
+        }
+    }
+
+    @Override
+    public void onReactivation(EntityRef entity, Collection<Component> components) {
+        update(entity);
+    }
+
+    @Override
+    public void onBeforeDeactivation(EntityRef entity, Collection<Component> components) {
+        remove(entity.getId());
+    }
+
+    private void update(EntityRef entity) {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (location == null) {
+            remove(entity.getId());
+            return;
+        }
+        Vector3f position = location.getWorldPosition();
+        if (Float.isFinite(position.x) && Float.isFinite(position.y) && Float.isFinite(position.z)) {
+            put(entity.getId(), position);
+        } else {
+            remove(entity.getId());
+        }
+        for (EntityRef child : location.getChildren()) {
+            if (child.exists()) {
+                update(child);
+            }
+        }
+    }
+
+    private void put(long id, Vector3f position) {
+        long cell = cellKey(cellOf(position.x), cellOf(position.y), cellOf(position.z));
+        positions.put(id, position);
+        if (entityCells.containsKey(id)) {
+            long oldCell = entityCells.get(id);
+            if (oldCell == cell) {
+                return;
+            }
+            removeFromCell(id, oldCell);
+        }
+        entityCells.put(id, cell);
+        TLongSet entities = cells.get(cell);
+        if (entities == null) {
+            entities = new TLongHashSet();
+            cells.put(cell, entities);
+        }
+        entities.add(id);
+    }
+
+    private void remove(long id) {
+        if (entityCells.containsKey(id)) {
+            removeFromCell(id, entityCells.remove(id));
+            positions.remove(id);
+        }
+    }
+
+    private void removeFromCell(long id, long cell) {
+        TLongSet entities = cells.get(cell);
+        if (entities != null) {
+            entities.remove(id);
+            if (entities.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+
+    private void collect(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                         Class<? extends Component>[] componentClasses, List<EntityRef> result, PositionFilter filter) {
+        int minCellX = cellOf(minX);
+        int minCellY = cellOf(minY);
+        int minCellZ = cellOf(minZ);
+        int maxCellX = cellOf(maxX);
+        int maxCellY = cellOf(maxY);
+        int maxCellZ = cellOf(maxZ);
+        long cellCount = (long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) * (maxCellZ - minCellZ + 1);
+
+        if (cellCount > cells.size()) {
+            // the area covers more cells than there are occupied ones
+            cells.forEachValue(entities -> {
+                collect(entities, componentClasses, result, filter);
+                return true;
+            });
+            return;
+        }
+        for (int y = minCellY; y <= maxCellY; y++) {
+            for (int z = minCellZ; z <= maxCellZ; z++) {
+                for (int x = minCellX; x <= maxCellX; x++) {
+                    TLongSet entities = cells.get(cellKey(x, y, z));
+                    if (entities != null) {
+                        collect(entities, componentClasses, result, filter);
+                    }
+                }
+            }
+        }
+    }
+
+    private void collect(TLongSet entities, Class<? extends Component>[] componentClasses, List<EntityRef> result, PositionFilter filter) {
+        TLongIterator iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            long id = iterator.next();
+            if (filter.accept(positions.get(id))) {
+                EntityRef entity = entityManager.getEntity(id);
+                if (hasComponents(entity, componentClasses)) {
+                    result.add(entity);
+                }
+            }
+        }
+    }
+
+    private static boolean hasComponents(EntityRef entity, Class<? extends Component>[] componentClasses) {
+        for (Class<? extends Component> componentClass : componentClasses) {
+            if (!entity.hasComponent(componentClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int cellOf(float coordinate) {
+        return Math.floorDiv((int) Math.floor(coordinate), CELL_SIZE);
+    }
+
+    private static long cellKey(int x, int y, int z) {
+        return (x & COORDINATE_MASK) << (2 * COORDINATE_BITS) | (y & COORDINATE_MASK) << COORDINATE_BITS | (z & COORDINATE_MASK);
+    }
+
+    @FunctionalInterface
+    private interface PositionFilter {
+        boolean accept(Vector3f position);
+    }
+}
@@ -27,6 +27,8 @@
 import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.reflections.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,6 +81,10 @@ public class EventSystemImpl implements EventSystem {
     private SetMultimap<Class<? extends Event>, EventHandlerInfo> generalHandlers = HashMultimap.create();
     private Comparator<EventHandlerInfo> priorityComparator = new EventHandlerPriorityComparator();
 
+    // Dispatch plans, computed on first use and dropped whenever the registered handlers change
+    private Map<Class<? extends Event>, DispatchTable> dispatchTables = Maps.newHashMap();
+    private Map<Class<? extends Event>, Map<Class<? extends Component>, EventHandlerInfo[]>> componentDispatchPlans = Maps.newHashMap();
+
     // Event metadata
     private BiMap<SimpleUri, Class<? extends Event>> eventIdMap = HashBiMap.create();
     private SetMultimap<Class<? extends Event>, Class<? extends Event>> childEvents = HashMultimap.create();
@@ -124,6 +130,7 @@ public void registerEvent(SimpleUri uri, Class<? extends Event> eventType) {
         if (shouldAddToLibrary(eventType)) {
             eventLibrary.register(uri, eventType);
         }
+        invalidateDispatchPlans();
     }
 
     /**
@@ -200,9 +207,11 @@ public void unregisterEventHandler(ComponentSystem handler) {
                 eventHandlerIterator.remove();
             }
         }
+        invalidateDispatchPlans();
     }
 
     private void addEventHandler(Class<? extends Event> type, EventHandlerInfo handler, Collection<Class<? extends Component>> components) {
+        invalidateDispatchPlans();
         if (components.isEmpty()) {
             generalHandlers.put(type, handler);
             for (Class<? extends Event> childType : childEvents.get(type)) {
@@ -260,21 +269,29 @@ public <T extends Event> void unregisterEventReceiver(EventReceiver<T> eventRece
                 }
             }
         }
+        invalidateDispatchPlans();
+    }
+
+    private void invalidateDispatchPlans() {
+        dispatchTables.clear();
+        componentDispatchPlans.clear();
     }
 
     @Override
     public void send(EntityRef entity, Event event) {
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event));
+            queuePendingEvent(new PendingEvent(entity, event));
         } else {
             if (recordAndReplayCurrentStatus.getStatus() == RecordAndReplayStatus.RECORDING) {
                 eventCatcher.addEvent(new PendingEvent(entity, event));
             }
             networkReplicate(entity, event);
 
-            Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
-            List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
-            selectedHandlers.sort(priorityComparator);
+            EventHandlerInfo[] selectedHandlers = getDispatchTable(event.getClass()).getPlan(entity);
+            if (selectedHandlers == null) {
+                // Too many component types with handlers for this event to cache plans by component signature
+                selectedHandlers = selectEventHandlers(event.getClass(), entity);
+            }
 
             if (event instanceof ConsumableEvent) {
                 sendConsumableEvent(entity, event, selectedHandlers);
@@ -284,7 +301,27 @@ public void send(EntityRef entity, Event event) {
         }
     }
 
-    private void sendStandardEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
+    private void queuePendingEvent(PendingEvent event) {
+        if (!ThreadEventBuffer.offer(event)) {
+            pendingEvents.offer(event);
+        }
+    }
+
+    private DispatchTable getDispatchTable(Class<? extends Event> eventType) {
+        DispatchTable table = dispatchTables.get(eventType);
+        if (table == null) {
+            Set<EventHandlerInfo> candidates = Sets.newLinkedHashSet(generalHandlers.get(eventType));
+            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
+            if (handlers != null) {
+                candidates.addAll(handlers.values());
+            }
+            table = new DispatchTable(candidates, priorityComparator);
+            dispatchTables.put(eventType, table);
+        }
+        return table;
+    }
+
+    private void sendStandardEvent(EntityRef entity, Event event, EventHandlerInfo[] selectedHandlers) {
         for (EventHandlerInfo handler : selectedHandlers) {
             // Check isValid at each stage in case components were removed.
             if (handler.isValidFor(entity)) {
@@ -293,7 +330,7 @@ private void sendStandardEvent(EntityRef entity, Event event, List<EventHandlerI
         }
     }
 
-    private void sendConsumableEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
+    private void sendConsumableEvent(EntityRef entity, Event event, EventHandlerInfo[] selectedHandlers) {
         ConsumableEvent consumableEvent = (ConsumableEvent) event;
         for (EventHandlerInfo handler : selectedHandlers) {
             // Check isValid at each stage in case components were removed.
@@ -368,25 +405,45 @@ private void broadcastEvent(EntityRef entity, Event event, EventMetadata metadat
     @Override
     public void send(EntityRef entity, Event event, Component component) {
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event, component));
+            queuePendingEvent(new PendingEvent(entity, event, component));
         } else {
             if (recordAndReplayCurrentStatus.getStatus() == RecordAndReplayStatus.RECORDING) {
                 eventCatcher.addEvent(new PendingEvent(entity, event, component));
             }
-            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(event.getClass());
-            if (handlers != null) {
-                List<EventHandlerInfo> eventHandlers = Lists.newArrayList(handlers.get(component.getClass()));
-                eventHandlers.sort(priorityComparator);
-                for (EventHandlerInfo eventHandler : eventHandlers) {
-                    if (eventHandler.isValidFor(entity)) {
-                        eventHandler.invoke(entity, event);
-                    }
+            for (EventHandlerInfo eventHandler : getComponentDispatchPlan(event.getClass(), component.getClass())) {
+                if (eventHandler.isValidFor(entity)) {
+                    eventHandler.invoke(entity, event);
                 }
             }
         }
     }
 
-    private Set<EventHandlerInfo> selectEventHandlers(Class<? extends Event> eventType, EntityRef entity) {
+    private EventHandlerInfo[] getComponentDispatchPlan(Class<? extends Event> eventType, Class<? extends Component> componentType) {
+        Map<Class<? extends Component>, EventHandlerInfo[]> plans = componentDispatchPlans.computeIfAbsent(eventType, k -> Maps.newHashMap());
+        EventHandlerInfo[] plan = plans.get(componentType);
+        if (plan == null) {
+            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
+            if (handlers != null) {
+                plan = sortedByPriority(handlers.get(componentType), priorityComparator);
+            } else {
+                plan = new EventHandlerInfo[0];
+            }
+            plans.put(componentType, plan);
+        }
+        return plan;
+    }
+
+    private static EventHandlerInfo[] sortedByPriority(Collection<EventHandlerInfo> handlers, Comparator<EventHandlerInfo> comparator) {
+        EventHandlerInfo[] result = handlers.toArray(new EventHandlerInfo[handlers.size()]);
+        Arrays.sort(result, comparator);
+        return result;
+    }
+
+    private EventHandlerInfo[] selectEventHandlers(Class<? extends Event> eventType, EntityRef entity) {
+        return sortedByPriority(selectEventHandlerSet(eventType, entity), priorityComparator);
+    }
+
+    private Set<EventHandlerInfo> selectEventHandlerSet(Class<? extends Event> eventType, EntityRef entity) {
         Set<EventHandlerInfo> result = Sets.newHashSet();
         result.addAll(generalHandlers.get(eventType));
         SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
@@ -414,9 +471,74 @@ public int compare(EventHandlerInfo o1, EventHandlerInfo o2) {
         }
     }
 
+    /**
+     * The handlers of a single event type, with their dispatch plans cached by which of the relevant components an
+     * entity has. A plan is an immutable array of the handlers that apply, sorted by priority.
+     */
+    private static final class DispatchTable {
+        private static final int MAX_RELEVANT_COMPONENTS = Long.SIZE;
+
+        private final Comparator<EventHandlerInfo> priorityComparator;
+        private final List<EventHandlerInfo> candidates;
+        private final List<Class<? extends Component>> relevantComponents = Lists.newArrayList();
+        private final long[] requiredMasks;
+        private final TLongObjectMap<EventHandlerInfo[]> plans = new TLongObjectHashMap<>();
+
+        DispatchTable(Collection<EventHandlerInfo> candidates, Comparator<EventHandlerInfo> priorityComparator) {
+            this.priorityComparator = priorityComparator;
+            this.candidates = ImmutableList.copyOf(candidates);
+            this.requiredMasks = new long[this.candidates.size()];
+            for (int i = 0; i < requiredMasks.length; i++) {
+                for (Class<? extends Component> component : this.candidates.get(i).getFilterComponents()) {
+                    int index = relevantComponents.indexOf(component);
+                    if (index < 0) {
+                        index = relevantComponents.size();
+                        relevantComponents.add(component);
+                    }
+                    if (index < MAX_RELEVANT_COMPONENTS) {
+                        requiredMasks[i] |= 1L << index;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the handlers that apply to the entity, sorted by priority, or null if this event has too many
+         *         relevant component types for plans to be cached
+         */
+        EventHandlerInfo[] getPlan(EntityRef entity) {
+            if (relevantComponents.size() > MAX_RELEVANT_COMPONENTS) {
+                return null;
+            }
+            long signature = 0;
+            for (int i = 0; i < relevantComponents.size(); i++) {
+                if (entity.hasComponent(relevantComponents.get(i))) {
+                    signature |= 1L << i;
+                }
+            }
+            EventHandlerInfo[] plan = plans.get(signature);
+            if (plan == null) {
+                List<EventHandlerInfo> selected = Lists.newArrayList();
+                for (int i = 0; i < requiredMasks.length; i++) {
+                    if ((requiredMasks[i] & signature) == requiredMasks[i]) {
+                        selected.add(candidates.get(i));
+                    }
+                }
+                plan = sortedByPriority(selected, priorityComparator);
+                plans.put(signature, plan);
+            }
+            return plan;
+        }
+    }
+
     private interface EventHandlerInfo {
         boolean isValidFor(EntityRef entity);
 
+        /**
+         * @return the components an entity must have for this handler to receive events
+         */
+        Collection<Class<? extends Component>> getFilterComponents();
+
         void invoke(EntityRef entity, Event event);
 
         int getPriority();
@@ -443,6 +565,11 @@ private static class ReflectedEventHandlerInfo implements EventHandlerInfo {
             this.priority = priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public boolean isValidFor(EntityRef entity) {
             for (Class<? extends Component> component : filterComponents) {
@@ -505,6 +632,11 @@ private static class ByteCodeEventHandlerInfo implements EventHandlerInfo {
             this.priority = priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public boolean isValidFor(EntityRef entity) {
             for (Class<? extends Component> component : filterComponents) {
@@ -561,6 +693,11 @@ public ComponentSystem getHandler() {
             this.components = Arrays.copyOf(components, components.length);
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return Arrays.asList(components);
+        }
+
         @Override
         public boolean isValidFor(EntityRef entity) {
             for (Class<? extends Component> component : components) {
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import com.google.common.collect.Lists;
+import org.terasology.entitySystem.event.PendingEvent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the events sent from the current thread, instead of queueing them with the other pending events.
+ * <br><br>
+ * This is used to deliver events sent by work running on other threads in a deterministic order: the work is wrapped
+ * in {@link #begin()} and {@link #end()}, and the returned events are sent from the main thread afterwards.
+ */
+public final class ThreadEventBuffer {
+    private static final ThreadLocal<List<PendingEvent>> BUFFER = new ThreadLocal<>();
+
+    private ThreadEventBuffer() {
+    }
+
+    /**
+     * Starts collecting the events sent from the current thread.
+     */
+    public static void begin() {
+        BUFFER.set(Lists.newArrayList());
+    }
+
+    /**
+     * Stops collecting events on the current thread.
+     *
+     * @return the events sent from the current thread since {@link #begin()}, in the order they were sent
+     */
+    public static List<PendingEvent> end() {
+        List<PendingEvent> events = BUFFER.get();
+        BUFFER.remove();
+        return (events == null) ? Collections.emptyList() : events;
+    }
+
+    /**
+     * Adds the event to the buffer of the current thread, if it is collecting events.
+     *
+     * @return whether the event was collected
+     */
+    public static boolean offer(PendingEvent event) {
+        List<PendingEvent> events = BUFFER.get();
+        if (events == null) {
+            return false;
+        }
+        events.add(event);
+        return true;
+    }
+}
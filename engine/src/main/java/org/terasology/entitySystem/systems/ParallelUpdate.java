@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.systems;
+
+import org.terasology.entitySystem.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link UpdateSubscriberSystem} as safe to update in parallel with other systems, declaring the components
+ * its {@link UpdateSubscriberSystem#update(float)} reads and writes:
+ * <br>
+ * <code>@ParallelUpdate(reads = LocationComponent.class, writes = HealthComponent.class)</code>
+ * <br><br>
+ * Systems whose declared components don't conflict (neither writes a component the other reads or writes) may be
+ * updated at the same time on worker threads. Systems without this annotation are always updated alone, on the main
+ * thread, in registration order.
+ * <br><br>
+ * While updating in parallel, a system may only read and modify the components it declared. It must not create or
+ * destroy entities, nor add, save or remove components - it should send events for that instead. Events sent during a
+ * parallel update are delivered on the main thread once all systems of the batch have finished, in system
+ * registration order.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ParallelUpdate {
+
+    Class<? extends Component>[] reads() default {};
+
+    Class<? extends Component>[] writes() default {};
+}
@@ -32,4 +32,10 @@
     String name();
 
     boolean isDecorator() default false;
+
+    /**
+     * Whether the action may be run for different actors in parallel, which is the case if it only reads components
+     * and keeps its state in the actor. Events it sends are delivered on the main thread after the tick.
+     */
+    boolean isThreadSafe() default false;
 }
@@ -21,11 +21,16 @@
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.audio.StaticSound;
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.engine.paths.PathManager;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnAddedComponent;
+import org.terasology.entitySystem.event.PendingEvent;
+import org.terasology.entitySystem.event.internal.EventSystem;
+import org.terasology.entitySystem.event.internal.ThreadEventBuffer;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
@@ -37,6 +42,9 @@
 import org.terasology.logic.behavior.asset.BehaviorTreeFormat;
 import org.terasology.logic.behavior.core.Actor;
 import org.terasology.logic.behavior.core.BehaviorNode;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.players.PlayerCharacterComponent;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.naming.Name;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
@@ -49,6 +57,8 @@
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Behavior tree system
@@ -57,6 +67,12 @@
  * is loaded and an interpreter is started.
  * <p/>
  * Modifications made to a behavior tree will reflect to all entities using this tree.
+ * <p/>
+ * With behavior LOD enabled, entities far away from all players are ticked less often, with the time passed since
+ * their last tick. The ticks are staggered by entity id, so they are spread evenly over the frames, and the distance is
+ * only checked when an entity is due. Trees whose actions are all marked as thread safe can also be ticked in parallel;
+ * the events sent by them are then delivered on the main thread afterwards, in the order the entities were ticked, and
+ * the other trees are ticked after that.
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(BehaviorSystem.class)
@@ -64,14 +80,25 @@ public class BehaviorSystem extends BaseComponentSystem implements UpdateSubscri
 
     public static final Name BEHAVIORS = new Name("Behaviors");
     private static final Logger logger = LoggerFactory.getLogger(BehaviorSystem.class);
+    /**
+     * The distances to the nearest player up to which entities are ticked every 1, 2, 4 and otherwise 8 frames
+     */
+    private static final float[] LOD_DISTANCES = {32, 64, 128};
+    private static final int PARALLEL_CHUNK_SIZE = 64;
+
     @In
     private EntityManager entityManager;
     @In
     private PrefabManager prefabManager;
     @In
     private AssetManager assetManager;
+    @In
+    private Config config;
+    @In
+    private EventSystem eventSystem;
 
     private List<BehaviorTree> trees = Lists.newArrayList();
+    private long frame;
 
     @Override
     public void initialise() {
@@ -99,11 +126,114 @@ public void onBehaviorActivated(OnActivatedComponent event, EntityRef entityRef,
 
     @Override
     public void update(float delta) {
-        Iterable<EntityRef> entities = entityManager.getEntitiesWith(BehaviorComponent.class);
-        for (EntityRef entity : entities) {
+        frame++;
+        boolean lodEnabled = config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.BEHAVIOR_LOD);
+        List<Vector3f> playerPositions = lodEnabled ? getPlayerPositions() : null;
+
+        boolean parallelTicksEnabled = config != null
+                && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.PARALLEL_BEHAVIOR_TICKS);
+        List<Interpreter> interpreters = Lists.newArrayList();
+        List<Interpreter> threadSafeInterpreters = Lists.newArrayList();
+        for (EntityRef entity : entityManager.getEntitiesWith(BehaviorComponent.class)) {
             BehaviorComponent behaviorComponent = entity.getComponent(BehaviorComponent.class);
-            behaviorComponent.interpreter.tick(delta);
+            Interpreter interpreter = behaviorComponent.interpreter;
+            interpreter.skippedDelta += delta;
+            if (!lodEnabled) {
+                interpreter.tickInterval = 1;
+            } else if ((entity.getId() + frame) % interpreter.tickInterval == 0) {
+                // the position is only looked at when the entity is due anyway
+                interpreter.tickInterval = getTickInterval(entity, playerPositions);
+            } else {
+                continue;
+            }
+            if (parallelTicksEnabled && interpreter.isThreadSafe()) {
+                threadSafeInterpreters.add(interpreter);
+            } else {
+                interpreters.add(interpreter);
+            }
+        }
+
+        if (threadSafeInterpreters.size() > PARALLEL_CHUNK_SIZE) {
+            tickInParallel(threadSafeInterpreters);
+        } else {
+            interpreters.addAll(0, threadSafeInterpreters);
+        }
+        for (Interpreter interpreter : interpreters) {
+            tick(interpreter);
+        }
+    }
+
+    private void tickInParallel(List<Interpreter> interpreters) {
+        List<ForkJoinTask<List<PendingEvent>>> tasks = Lists.newArrayList();
+        for (int start = 0; start < interpreters.size(); start += PARALLEL_CHUNK_SIZE) {
+            List<Interpreter> chunk = interpreters.subList(start, Math.min(start + PARALLEL_CHUNK_SIZE, interpreters.size()));
+            tasks.add(ForkJoinPool.commonPool().submit(() -> tickCollectingEvents(chunk)));
+        }
+        for (ForkJoinTask<List<PendingEvent>> task : tasks) {
+            for (PendingEvent event : task.join()) {
+                if (event.getComponent() != null) {
+                    eventSystem.send(event.getEntity(), event.getEvent(), event.getComponent());
+                } else {
+                    eventSystem.send(event.getEntity(), event.getEvent());
+                }
+            }
+        }
+    }
+
+    private static List<PendingEvent> tickCollectingEvents(List<Interpreter> interpreters) {
+        List<PendingEvent> sentEvents;
+        ThreadEventBuffer.begin();
+        try {
+            for (Interpreter interpreter : interpreters) {
+                tick(interpreter);
+            }
+        } finally {
+            sentEvents = ThreadEventBuffer.end();
+        }
+        return sentEvents;
+    }
+
+    private static void tick(Interpreter interpreter) {
+        float delta = interpreter.skippedDelta;
+        interpreter.skippedDelta = 0;
+        interpreter.tick(delta);
+    }
+
+    private List<Vector3f> getPlayerPositions() {
+        List<Vector3f> positions = Lists.newArrayList();
+        for (EntityRef player : entityManager.getEntitiesWith(PlayerCharacterComponent.class, LocationComponent.class)) {
+            Vector3f position = player.getComponent(LocationComponent.class).getWorldPosition();
+            if (!Float.isNaN(position.x)) {
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * @return every how many frames the entity should be ticked, depending on the distance to the nearest player
+     */
+    private static int getTickInterval(EntityRef entity, List<Vector3f> playerPositions) {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (location == null || playerPositions.isEmpty()) {
+            return 1;
+        }
+        Vector3f position = location.getWorldPosition();
+        if (Float.isNaN(position.x)) {
+            return 1;
+        }
+        float minDistanceSquared = Float.MAX_VALUE;
+        for (Vector3f playerPosition : playerPositions) {
+            minDistanceSquared = Math.min(minDistanceSquared, position.distanceSquared(playerPosition));
+        }
+        int interval = 1;
+        for (float distance : LOD_DISTANCES) {
+            if (minDistanceSquared <= distance * distance) {
+                return interval;
+            }
+            interval *= 2;
         }
+        return interval;
     }
 
     public BehaviorTree createTree(String name, BehaviorNode root) {
@@ -160,6 +290,7 @@ public void treeModified(BehaviorTree tree) {
                 behaviorComponent.interpreter.reset();
             }
         }
+        tree.invalidateCompiledTree();
         save(tree);
     }
 
@@ -18,12 +18,16 @@
 import org.terasology.logic.behavior.asset.BehaviorTree;
 import org.terasology.logic.behavior.core.Actor;
 import org.terasology.logic.behavior.core.BehaviorTreeRunner;
+import org.terasology.logic.behavior.core.CompiledBehaviorTreeRunner;
 import org.terasology.logic.common.DisplayNameComponent;
 import org.terasology.module.sandbox.API;
 
 /**
  * An interpreter evaluates a behavior tree. Uses BehaviorTreeRunner to actually evaluate the tree. The runner
  * is kept up to date when there are modifications at the tree.
+ * <br><br>
+ * Trees are run by a {@link CompiledBehaviorTreeRunner}, unless a debugger callback is set, which needs the nodes of
+ * the {@link DefaultBehaviorTreeRunner}.
  *
  */
 @API
@@ -34,6 +38,15 @@ public class Interpreter {
     private BehaviorTree tree;
     private DefaultBehaviorTreeRunner.Callback callback;
 
+    /**
+     * The time passed since the last tick, while ticks are skipped by the {@link BehaviorSystem}
+     */
+    float skippedDelta;
+    /**
+     * Every how many frames the {@link BehaviorSystem} ticks this interpreter, updated whenever it is ticked
+     */
+    int tickInterval = 1;
+
     public Interpreter(Actor actor) {
         this.actor = actor;
     }
@@ -65,9 +78,11 @@ public void reset() {
     public void tick(float delta) {
         actor.setDelta(delta);
         if (treeRunner == null && tree != null) {
-            treeRunner = new DefaultBehaviorTreeRunner(tree, actor, callback);
-            //        Assembler assembler = new Assembler("Test", tree.getRoot());
-            //        treeRunner = assembler.createInstance(actor);
+            if (callback != null) {
+                treeRunner = new DefaultBehaviorTreeRunner(tree, actor, callback);
+            } else {
+                treeRunner = new CompiledBehaviorTreeRunner(tree, actor);
+            }
         }
         if (treeRunner != null) {
             treeRunner.step();
@@ -86,6 +101,13 @@ public BehaviorTree getTree() {
         return tree;
     }
 
+    /**
+     * @return true if the tree may be ticked in parallel to the trees of other actors
+     */
+    boolean isThreadSafe() {
+        return callback == null && tree != null && tree.isThreadSafe();
+    }
+
     @Override
     public String toString() {
         if (actor.hasComponent(DisplayNameComponent.class)) {
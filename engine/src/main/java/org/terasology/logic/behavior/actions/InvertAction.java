@@ -25,7 +25,7 @@
  * Inverts the child's return value. Doesn't change RUNNING.
  */
 @API
-@BehaviorAction(name = "invert", isDecorator = true)
+@BehaviorAction(name = "invert", isDecorator = true, isThreadSafe = true)
 public class InvertAction extends BaseAction {
     @Override
     public BehaviorState modify(Actor actor, BehaviorState state) {
@@ -25,7 +25,7 @@
  * Node, that loops its child forever
  */
 @API
-@BehaviorAction(name = "loop", isDecorator = true)
+@BehaviorAction(name = "loop", isDecorator = true, isThreadSafe = true)
 public class LoopAction extends BaseAction {
 
     @Override
@@ -27,7 +27,7 @@
  * then returns with SUCCESS.
  */
 @API
-@BehaviorAction(name = "sleep")
+@BehaviorAction(name = "sleep", isThreadSafe = true)
 public class SleepAction extends BaseAction {
 
     @Range(min = 0, max = 20)
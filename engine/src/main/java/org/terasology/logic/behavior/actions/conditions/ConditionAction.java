@@ -39,7 +39,7 @@
  * <p>
  * Returns SUCCESS if all conditions checked against are true; FAILURE if not.
  */
-@BehaviorAction(name = "condition")
+@BehaviorAction(name = "condition", isThreadSafe = true)
 public class ConditionAction extends BaseAction {
     private static final Logger logger = LoggerFactory.getLogger(ConditionAction.class);
 
@@ -31,7 +31,7 @@
  * If all conditions checked against are true, runs child and passes on its state;
  * If a condition doesn't hold, returns FAILURE and doesn't run the child.
  */
-@BehaviorAction(name = "guard", isDecorator = true)
+@BehaviorAction(name = "guard", isDecorator = true, isThreadSafe = true)
 public class GuardAction extends ConditionAction {
 
     private static final Logger logger = LoggerFactory.getLogger(org.terasology.logic.behavior.actions.conditions.GuardAction.class);
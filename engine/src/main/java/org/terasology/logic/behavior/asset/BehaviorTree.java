@@ -19,6 +19,7 @@
 import org.terasology.assets.AssetType;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.logic.behavior.core.BehaviorNode;
+import org.terasology.logic.behavior.core.CompiledBehaviorTree;
 import org.terasology.module.sandbox.API;
 
 /**
@@ -29,6 +30,7 @@
 @API
 public class BehaviorTree extends Asset<BehaviorTreeData> {
     private BehaviorTreeData data;
+    private volatile CompiledBehaviorTree compiledTree;
 
     /**
      * The constructor for an asset. It is suggested that implementing classes provide a constructor taking both the urn, and an initial AssetData to load.
@@ -49,6 +51,38 @@ public BehaviorTreeData getData() {
         return data;
     }
 
+    /**
+     * @return the tree compiled for the {@link org.terasology.logic.behavior.core.CompiledBehaviorTreeRunner}, compiled
+     * on first use and shared by all actors running this tree
+     */
+    public CompiledBehaviorTree getCompiledTree() {
+        CompiledBehaviorTree result = compiledTree;
+        if (result == null) {
+            synchronized (this) {
+                result = compiledTree;
+                if (result == null) {
+                    result = CompiledBehaviorTree.compile(getRoot());
+                    compiledTree = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if all actions of the tree are marked as thread safe, so actors can run it in parallel
+     */
+    public boolean isThreadSafe() {
+        return getCompiledTree().isThreadSafe();
+    }
+
+    /**
+     * Drops the compiled tree, needs to be called after the nodes of the tree were modified.
+     */
+    public void invalidateCompiledTree() {
+        compiledTree = null;
+    }
+
     @Override
     public String toString() {
         return getUrn().toString();
@@ -57,6 +91,7 @@ public String toString() {
     @Override
     protected void doReload(BehaviorTreeData newData) {
         this.data = newData;
+        this.compiledTree = null;
     }
 
     }
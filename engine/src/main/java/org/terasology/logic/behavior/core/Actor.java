@@ -16,6 +16,8 @@
 package org.terasology.logic.behavior.core;
 
 import com.google.common.collect.Maps;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.ComponentFieldUri;
@@ -30,6 +32,8 @@
 
 import java.lang.reflect.Field;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The actor is a decorated entity, which can act on a behavior tree using an Interpreter.
@@ -40,13 +44,19 @@
 @API
 public class Actor {
     private static Logger logger = LoggerFactory.getLogger(Actor.class);
+
+    /**
+     * The fields resolved by {@link #getComponentField(ComponentFieldUri)}, valid for {@link #resolvedLibrary} only
+     */
+    private static final ConcurrentMap<ComponentFieldUri, ResolvedField> resolvedFields = new ConcurrentHashMap<>();
+    private static volatile ComponentLibrary resolvedLibrary;
+
     // Stores system-wide information (allows inter-node communication)
     public final Map<String, Object> blackboard;
     private final EntityRef entity;
 
     // Stores information uniquely for each node that requires it
-    // TODO can we use a faster data structure? this gets accessed a lot
-    private final Map<Integer, Object> dataMap = Maps.newHashMap();
+    private final TIntObjectMap<Object> dataMap = new TIntObjectHashMap<>();
 
     private float delta;
 
@@ -90,27 +100,45 @@ public <T extends Component> T getComponent(Class<T> type) {
     }
 
     public Object getComponentField(ComponentFieldUri uri) {
-        ComponentLibrary componentLibrary = CoreRegistry.get(EntitySystemLibrary.class).getComponentLibrary();
-        ComponentMetadata<? extends Component> metadata = componentLibrary.getMetadata(uri.getComponentUri());
-        if (metadata == null) {
+        ResolvedField resolved = resolveField(uri);
+        if (resolved == null) {
             return null;
         }
-        Component component = entity.getComponent(metadata.getType());
+        Component component = entity.getComponent(resolved.type);
         if (component == null) {
             return null;
         }
-        FieldMetadata<?, ?> fieldMetadata = metadata.getField(uri.getFieldName());
-        if (fieldMetadata == null) {
-            return null;
-        }
-        Field field = fieldMetadata.getField();
         try {
-            return field.get(component);
+            return resolved.field.get(component);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Looks up the metadata of a component field once per component library, as the lookup is much slower than
+     * reading the field itself.
+     *
+     * @return the field, or null if there is no such component or field
+     */
+    private static ResolvedField resolveField(ComponentFieldUri uri) {
+        ComponentLibrary componentLibrary = CoreRegistry.get(EntitySystemLibrary.class).getComponentLibrary();
+        if (componentLibrary != resolvedLibrary) {
+            synchronized (resolvedFields) {
+                if (componentLibrary != resolvedLibrary) {
+                    resolvedFields.clear();
+                    resolvedLibrary = componentLibrary;
+                }
+            }
+        }
+        ResolvedField resolved = resolvedFields.get(uri);
+        if (resolved == null) {
+            resolved = ResolvedField.resolve(componentLibrary, uri);
+            resolvedFields.put(uri, resolved);
+        }
+        return resolved.field != null ? resolved : null;
+    }
+
     /**
      * @param component The class of the component
      * @return true if the entity has the a component of the given class
@@ -127,4 +155,27 @@ public EntityRef getEntity() {
         return entity;
     }
 
+    private static final class ResolvedField {
+        private static final ResolvedField MISSING = new ResolvedField(null, null);
+
+        private final Class<? extends Component> type;
+        private final Field field;
+
+        private ResolvedField(Class<? extends Component> type, Field field) {
+            this.type = type;
+            this.field = field;
+        }
+
+        static ResolvedField resolve(ComponentLibrary componentLibrary, ComponentFieldUri uri) {
+            ComponentMetadata<? extends Component> metadata = componentLibrary.getMetadata(uri.getComponentUri());
+            if (metadata == null) {
+                return MISSING;
+            }
+            FieldMetadata<?, ?> fieldMetadata = metadata.getField(uri.getFieldName());
+            if (fieldMetadata == null) {
+                return MISSING;
+            }
+            return new ResolvedField(metadata.getType(), fieldMetadata.getField());
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior.core;
+
+import gnu.trove.list.TByteList;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import org.terasology.logic.behavior.BehaviorAction;
+import org.terasology.module.sandbox.API;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A behavior tree flattened into arrays of instructions, so it can be run by many actors without copying its nodes.
+ * <br><br>
+ * Every node of the tree becomes one instruction, identified by its index in pre-order. The instruction stores the
+ * kind of node, the action of action and decorator nodes and the indices of its children. All state which the nodes
+ * would otherwise keep in their fields lives in the {@link CompiledBehaviorTreeRunner} of each actor.
+ * <br><br>
+ * The core composite, action, decorator and leaf nodes are compiled. Any other node, including subclasses of the core
+ * nodes, is kept as is and run through a copy per runner, just like {@link org.terasology.logic.behavior.DefaultBehaviorTreeRunner}
+ * would do.
+ */
+@API
+public final class CompiledBehaviorTree {
+    static final byte SEQUENCE = 0;
+    static final byte SELECTOR = 1;
+    static final byte DYNAMIC_SELECTOR = 2;
+    static final byte PARALLEL = 3;
+    static final byte ACTION = 4;
+    static final byte DECORATOR = 5;
+    static final byte SUCCESS = 6;
+    static final byte FAILURE = 7;
+    static final byte RUNNING = 8;
+    static final byte NODE = 9;
+
+    final byte[] opcodes;
+    final Action[] actions;
+    final BehaviorNode[] nodes;
+    /**
+     * The children of instruction i are childIndices[childOffsets[i]] to childIndices[childOffsets[i + 1] - 1]
+     */
+    final int[] childOffsets;
+    final int[] childIndices;
+    private final boolean threadSafe;
+
+    private CompiledBehaviorTree(byte[] opcodes, Action[] actions, BehaviorNode[] nodes, int[] childOffsets, int[] childIndices) {
+        this.opcodes = opcodes;
+        this.actions = actions;
+        this.nodes = nodes;
+        this.childOffsets = childOffsets;
+        this.childIndices = childIndices;
+        this.threadSafe = isThreadSafe(opcodes, actions);
+    }
+
+    /**
+     * @param root the root of the tree to compile, later changes to the tree are not reflected by the compiled tree
+     */
+    public static CompiledBehaviorTree compile(BehaviorNode root) {
+        Compiler compiler = new Compiler();
+        compiler.compile(root);
+        return compiler.build();
+    }
+
+    /**
+     * @return the number of instructions
+     */
+    public int size() {
+        return opcodes.length;
+    }
+
+    /**
+     * @return true if the tree only consists of compiled nodes and all its actions are marked as
+     * {@link BehaviorAction#isThreadSafe() thread safe}, so runners of different actors can be stepped in parallel
+     */
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    private static boolean isThreadSafe(byte[] opcodes, Action[] actions) {
+        for (int i = 0; i < opcodes.length; i++) {
+            if (opcodes[i] == NODE) {
+                return false;
+            }
+            if (actions[i] != null) {
+                BehaviorAction annotation = actions[i].getClass().getAnnotation(BehaviorAction.class);
+                if (annotation == null || !annotation.isThreadSafe()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    int getChildCount(int instruction) {
+        return childOffsets[instruction + 1] - childOffsets[instruction];
+    }
+
+    int getChild(int instruction, int index) {
+        return childIndices[childOffsets[instruction] + index];
+    }
+
+    private static final class Compiler {
+        private final TByteList opcodes = new TByteArrayList();
+        private final List<Action> actions = new ArrayList<>();
+        private final List<BehaviorNode> nodes = new ArrayList<>();
+        private final List<TIntList> children = new ArrayList<>();
+
+        int compile(BehaviorNode node) {
+            // delegates which don't change the behavior of the node, like those of the default runner
+            while (node.getClass() == DelegateNode.class) {
+                node = ((DelegateNode) node).delegate;
+            }
+
+            int instruction = opcodes.size();
+            byte opcode = opcodeOf(node);
+            opcodes.add(opcode);
+            actions.add(node instanceof ActionNode ? ((ActionNode) node).getAction() : null);
+            nodes.add(node);
+            TIntList nodeChildren = new TIntArrayList();
+            children.add(nodeChildren);
+
+            if (opcode != NODE) {
+                for (int i = 0; i < node.getChildrenCount(); i++) {
+                    BehaviorNode child = node.getChild(i);
+                    if (child != null) {
+                        nodeChildren.add(compile(child));
+                    }
+                }
+            }
+            return instruction;
+        }
+
+        private static byte opcodeOf(BehaviorNode node) {
+            Class<?> type = node.getClass();
+            if (type == SequenceNode.class) {
+                return SEQUENCE;
+            } else if (type == SelectorNode.class) {
+                return SELECTOR;
+            } else if (type == DynamicSelectorNode.class) {
+                return DYNAMIC_SELECTOR;
+            } else if (type == ParallelNode.class) {
+                return PARALLEL;
+            } else if (type == ActionNode.class) {
+                return ACTION;
+            } else if (type == DecoratorNode.class) {
+                return DECORATOR;
+            } else if (type == SuccessNode.class) {
+                return SUCCESS;
+            } else if (type == FailureNode.class) {
+                return FAILURE;
+            } else if (type == RunningNode.class) {
+                return RUNNING;
+            }
+            return NODE;
+        }
+
+        CompiledBehaviorTree build() {
+            int[] childOffsets = new int[opcodes.size() + 1];
+            TIntList childIndices = new TIntArrayList();
+            for (int i = 0; i < children.size(); i++) {
+                childOffsets[i] = childIndices.size();
+                childIndices.addAll(children.get(i));
+            }
+            childOffsets[children.size()] = childIndices.size();
+            return new CompiledBehaviorTree(opcodes.toArray(), actions.toArray(new Action[actions.size()]),
+                    nodes.toArray(new BehaviorNode[nodes.size()]), childOffsets, childIndices.toArray());
+        }
+    }
+}
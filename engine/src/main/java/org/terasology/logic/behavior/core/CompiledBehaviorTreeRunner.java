@@ -0,0 +1,325 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.logic.behavior.asset.BehaviorTree;
+import org.terasology.module.sandbox.API;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.ACTION;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.DECORATOR;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.DYNAMIC_SELECTOR;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.FAILURE;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.NODE;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.PARALLEL;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.RUNNING;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.SELECTOR;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.SEQUENCE;
+import static org.terasology.logic.behavior.core.CompiledBehaviorTree.SUCCESS;
+
+/**
+ * Runs a {@link CompiledBehaviorTree} for one actor, behaving like the nodes of the tree would.
+ * <br><br>
+ * The state of the nodes is kept in a few arrays indexed by instruction, allocated once per runner, so stepping the
+ * tree doesn't allocate anything on its own.
+ */
+@API
+public class CompiledBehaviorTreeRunner implements BehaviorTreeRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CompiledBehaviorTreeRunner.class);
+
+    private final BehaviorTree tree;
+    private final CompiledBehaviorTree program;
+    private Actor actor;
+    private BehaviorState state = BehaviorState.UNDEFINED;
+
+    /**
+     * The position of the current child of sequences and selectors, the child count if there is none
+     */
+    private final int[] cursors;
+    /**
+     * The instructions below dynamic selectors which have been constructed
+     */
+    private final BitSet constructed;
+    /**
+     * The last state of the child of decorators
+     */
+    private final BehaviorState[] lastStates;
+    /**
+     * The copies of the nodes which are not compiled, created on first use
+     */
+    private final BehaviorNode[] nodeCopies;
+
+    public CompiledBehaviorTreeRunner(BehaviorTree tree, Actor actor) {
+        this(tree, tree.getCompiledTree(), actor);
+    }
+
+    public CompiledBehaviorTreeRunner(CompiledBehaviorTree program, Actor actor) {
+        this(null, program, actor);
+    }
+
+    private CompiledBehaviorTreeRunner(BehaviorTree tree, CompiledBehaviorTree program, Actor actor) {
+        this.tree = tree;
+        this.program = program;
+        this.actor = actor;
+        int size = program.size();
+        cursors = new int[size];
+        for (int i = 0; i < size; i++) {
+            cursors[i] = program.getChildCount(i);
+        }
+        constructed = new BitSet(size);
+        lastStates = new BehaviorState[size];
+        Arrays.fill(lastStates, BehaviorState.UNDEFINED);
+        nodeCopies = new BehaviorNode[size];
+    }
+
+    @Override
+    public BehaviorTree getTree() {
+        return tree;
+    }
+
+    @Override
+    public BehaviorState step() {
+        if (program.size() == 0) {
+            return state;
+        }
+        if (state != BehaviorState.RUNNING) {
+            construct(0);
+        }
+
+        state = execute(0);
+        if (state != BehaviorState.RUNNING) {
+            destruct(0);
+        }
+
+        return state;
+    }
+
+    @Override
+    public Actor getActor() {
+        return actor;
+    }
+
+    @Override
+    public void setActor(Actor actor) {
+        this.actor = actor;
+    }
+
+    private void construct(int instruction) {
+        switch (program.opcodes[instruction]) {
+            case SEQUENCE:
+            case SELECTOR:
+                cursors[instruction] = 0;
+                if (program.getChildCount(instruction) > 0) {
+                    construct(program.getChild(instruction, 0));
+                }
+                break;
+            case DYNAMIC_SELECTOR:
+                for (int i = 0; i < program.getChildCount(instruction); i++) {
+                    constructed.clear(program.getChild(instruction, i));
+                }
+                break;
+            case PARALLEL:
+                for (int i = 0; i < program.getChildCount(instruction); i++) {
+                    construct(program.getChild(instruction, i));
+                }
+                break;
+            case ACTION:
+            case DECORATOR:
+                Action action = program.actions[instruction];
+                if (action != null) {
+                    try {
+                        action.construct(actor);
+                    } catch (Exception e) {
+                        logger.info("Exception while running construct() of action {} from entity {}:", action, actor.getEntity());
+                    }
+                }
+                break;
+            case NODE:
+                getNode(instruction).construct(actor);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private BehaviorState execute(int instruction) {
+        switch (program.opcodes[instruction]) {
+            case SEQUENCE:
+                return executeSequence(instruction, BehaviorState.FAILURE, BehaviorState.SUCCESS);
+            case SELECTOR:
+                return executeSequence(instruction, BehaviorState.SUCCESS, BehaviorState.FAILURE);
+            case DYNAMIC_SELECTOR:
+                return executeDynamicSelector(instruction);
+            case PARALLEL:
+                return executeParallel(instruction);
+            case ACTION:
+                return executeAction(instruction);
+            case DECORATOR:
+                return executeDecorator(instruction);
+            case SUCCESS:
+                return BehaviorState.SUCCESS;
+            case FAILURE:
+                return BehaviorState.FAILURE;
+            case RUNNING:
+                return BehaviorState.RUNNING;
+            default:
+                return getNode(instruction).execute(actor);
+        }
+    }
+
+    private void destruct(int instruction) {
+        switch (program.opcodes[instruction]) {
+            case PARALLEL:
+                for (int i = 0; i < program.getChildCount(instruction); i++) {
+                    destruct(program.getChild(instruction, i));
+                }
+                break;
+            case ACTION:
+            case DECORATOR:
+                Action action = program.actions[instruction];
+                if (action != null) {
+                    action.destruct(actor);
+                }
+                break;
+            case NODE:
+                getNode(instruction).destruct(actor);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Runs the children in order until one of them finishes with the stopping state, like {@link SequenceNode} and
+     * {@link SelectorNode}.
+     */
+    private BehaviorState executeSequence(int instruction, BehaviorState stopState, BehaviorState completeState) {
+        int childCount = program.getChildCount(instruction);
+        while (cursors[instruction] < childCount) {
+            int child = program.getChild(instruction, cursors[instruction]);
+            BehaviorState result = execute(child);
+            if (result == BehaviorState.RUNNING) {
+                return BehaviorState.RUNNING;
+            }
+            destruct(child);
+            if (result == stopState) {
+                return stopState;
+            }
+            cursors[instruction]++;
+            if (cursors[instruction] < childCount) {
+                construct(program.getChild(instruction, cursors[instruction]));
+            }
+        }
+        return completeState;
+    }
+
+    private BehaviorState executeDynamicSelector(int instruction) {
+        for (int i = 0; i < program.getChildCount(instruction); i++) {
+            int child = program.getChild(instruction, i);
+            if (!constructed.get(child)) {
+                construct(child);
+                constructed.set(child);
+            }
+            BehaviorState result = execute(child);
+            if (result == BehaviorState.RUNNING) {
+                return BehaviorState.RUNNING;
+            }
+            destruct(child);
+            constructed.clear(child);
+            if (result == BehaviorState.SUCCESS) {
+                return BehaviorState.SUCCESS;
+            }
+        }
+        return BehaviorState.FAILURE;
+    }
+
+    private BehaviorState executeParallel(int instruction) {
+        int successCounter = 0;
+        for (int i = 0; i < program.getChildCount(instruction); i++) {
+            BehaviorState result = execute(program.getChild(instruction, i));
+            if (result == BehaviorState.FAILURE) {
+                return BehaviorState.FAILURE;
+            }
+            if (result == BehaviorState.SUCCESS) {
+                successCounter++;
+            }
+        }
+        return successCounter > 0 ? BehaviorState.SUCCESS : BehaviorState.RUNNING;
+    }
+
+    private BehaviorState executeAction(int instruction) {
+        Action action = program.actions[instruction];
+        if (action != null) {
+            try {
+                return action.modify(actor, BehaviorState.UNDEFINED);
+            } catch (Exception e) {
+                logger.info("Exception while running action {} from entity {}: ", action, actor.getEntity(), e);
+                return BehaviorState.FAILURE;
+            }
+        }
+        return BehaviorState.UNDEFINED;
+    }
+
+    private BehaviorState executeDecorator(int instruction) {
+        Action action = program.actions[instruction];
+        if (action == null) {
+            runDecoratedChild(instruction);
+            return lastStates[instruction];
+        }
+        if (!action.prune(actor)) {
+            runDecoratedChild(instruction);
+        }
+        BehaviorState modifiedState;
+        try {
+            modifiedState = action.modify(actor, lastStates[instruction]);
+        } catch (Exception e) {
+            logger.info("Exception while running action {} from entity {}: {}", action, actor.getEntity(), e.getStackTrace());
+            return BehaviorState.FAILURE;
+        }
+        if (modifiedState != BehaviorState.RUNNING && lastStates[instruction] == BehaviorState.RUNNING
+                && program.getChildCount(instruction) > 0) {
+            destruct(program.getChild(instruction, 0));
+        }
+        return modifiedState;
+    }
+
+    private void runDecoratedChild(int instruction) {
+        if (program.getChildCount(instruction) == 0) {
+            return;
+        }
+        int child = program.getChild(instruction, 0);
+        if (lastStates[instruction] != BehaviorState.RUNNING) {
+            construct(child);
+        }
+        lastStates[instruction] = execute(child);
+        if (lastStates[instruction] != BehaviorState.RUNNING) {
+            destruct(child);
+        }
+    }
+
+    private BehaviorNode getNode(int instruction) {
+        BehaviorNode node = nodeCopies[instruction];
+        if (node == null) {
+            node = program.nodes[instruction].deepCopy();
+            nodeCopies[instruction] = node;
+        }
+        return node;
+    }
+}
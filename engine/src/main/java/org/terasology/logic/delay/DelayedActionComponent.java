@@ -18,6 +18,7 @@
 import org.terasology.entitySystem.Component;
 import org.terasology.world.block.ForceBlockActive;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -74,6 +75,18 @@ public boolean containsActionId(String actionId) {
         return actionIdsWakeUp.containsKey(actionId);
     }
 
+    /**
+     * @return the wake up times of the actions, by action id
+     */
+    public Map<String, Long> getActionIdsWakeUp() {
+        return Collections.unmodifiableMap(actionIdsWakeUp);
+    }
+
+    public void clear() {
+        actionIdsWakeUp.clear();
+        lowestWakeUp = Long.MAX_VALUE;
+    }
+
     private long findSmallestWakeUp() {
         long result = Long.MAX_VALUE;
         for (long value : actionIdsWakeUp.values()) {
@@ -15,12 +15,10 @@
  */
 package org.terasology.logic.delay;
 
-import com.google.common.collect.Ordering;
-import com.google.common.collect.SortedSetMultimap;
-import com.google.common.collect.TreeMultimap;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.terasology.engine.Time;
+import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
@@ -32,233 +30,269 @@
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Provides support for scheduling events that will trigger at some point in the future.
+ * <br><br>
+ * Scheduled actions are kept in a {@link TimingWheel}, so adding and cancelling them takes constant time and all
+ * actions due in a tick are fired in one batch. The {@link DelayedActionComponent} and
+ * {@link PeriodicActionComponent} of an entity only serve to persist its actions: they are added with the first
+ * action, so that block entities with pending actions stay active, but their contents are only written when the game
+ * is saved or the entity is deactivated. Scheduling, firing and cancelling actions therefore takes constant time and
+ * doesn't cause any component change events; components of entities without actions left are removed on save.
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(value = DelayManager.class)
 public class DelayedActionSystem extends BaseComponentSystem implements UpdateSubscriberSystem, DelayManager {
-    private static final Logger logger = LoggerFactory.getLogger(DelayedActionSystem.class);
 
     @In
     private Time time;
 
-    private SortedSetMultimap<Long, EntityRef> delayedOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
-    private SortedSetMultimap<Long, EntityRef> periodicOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
+    @In
+    private EntityManager entityManager;
+
+    private TimingWheel<ScheduledAction> timingWheel;
+    private final Map<EntityRef, Map<String, TimingWheel.Timer<ScheduledAction>>> delayedActions = Maps.newHashMap();
+    private final Map<EntityRef, Map<String, TimingWheel.Timer<ScheduledAction>>> periodicActions = Maps.newHashMap();
+    private final List<ScheduledAction> firedActions = Lists.newArrayList();
 
     // ONLY use this for testing. DO NOT use this during regular usage.
     void setTime(Time t) {
         time = t;
     }
 
+    // ONLY use this for testing. DO NOT use this during regular usage.
+    void setEntityManager(EntityManager manager) {
+        entityManager = manager;
+    }
+
     @Override
     public void update(float delta) {
         final long currentWorldTime = time.getGameTimeInMs();
-        invokeDelayedOperations(currentWorldTime);
-        invokePeriodicOperations(currentWorldTime);
-    }
-
-    private void invokeDelayedOperations(long currentWorldTime) {
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = delayedOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
-            }
-            operationsToInvoke.addAll(delayedOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
-        }
-
-        operationsToInvoke.stream().filter(EntityRef::exists).forEach(delayedEntity -> {
-            final DelayedActionComponent delayedActions = delayedEntity.getComponent(DelayedActionComponent.class);
-
-            // If there is a DelayedActionComponent, proceed. Else report an error to the log.
-            if (delayedActions != null) {
-                final Set<String> actionIds = delayedActions.removeActionsUpTo(currentWorldTime);
-                saveOrRemoveComponent(delayedEntity, delayedActions);
-
-                if (!delayedActions.isEmpty()) {
-                    delayedOperationsSortedByTime.put(delayedActions.getLowestWakeUp(), delayedEntity);
+        getTimingWheel().advance(currentWorldTime, firedActions);
+        try {
+            for (ScheduledAction action : firedActions) {
+                if (!isScheduled(action.periodic ? periodicActions : delayedActions, action)) {
+                    // cancelled or replaced by the receiver of an event fired earlier in this batch
+                    continue;
+                }
+                if (action.periodic) {
+                    // reschedule before sending the event, so that the receiver can still cancel the action
+                    schedule(periodicActions, action, currentWorldTime + action.period);
+                } else {
+                    unschedule(delayedActions, action.entity, action.actionId);
                 }
 
-                for (String actionId : actionIds) {
-                    delayedEntity.send(new DelayedActionTriggeredEvent(actionId));
+                if (!action.entity.exists()) {
+                    cancelAll(delayedActions, action.entity);
+                    cancelAll(periodicActions, action.entity);
+                } else if (action.periodic) {
+                    action.entity.send(new PeriodicActionTriggeredEvent(action.actionId));
+                } else {
+                    action.entity.send(new DelayedActionTriggeredEvent(action.actionId));
                 }
-            } else {
-                logger.error("ERROR: This entity is missing a DelayedActionComponent: {}. " +
-                        "So skipping delayed actions for this entity.", delayedEntity);
             }
-        });
+        } finally {
+            firedActions.clear();
+        }
     }
 
-    private void invokePeriodicOperations(long currentWorldTime) {
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = periodicOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
+    @Override
+    public void preSave() {
+        List<EntityRef> finishedEntities = Lists.newArrayList();
+        for (EntityRef entity : entityManager.getEntitiesWith(DelayedActionComponent.class)) {
+            if (delayedActions.containsKey(entity)) {
+                DelayedActionComponent delayedActionComponent = entity.getComponent(DelayedActionComponent.class);
+                if (storeDelayedActions(entity, delayedActionComponent)) {
+                    entity.saveComponent(delayedActionComponent);
+                }
+            } else {
+                finishedEntities.add(entity);
             }
-            operationsToInvoke.addAll(periodicOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
         }
-
-        operationsToInvoke.stream().filter(EntityRef::exists).forEach(periodicEntity -> {
-            final PeriodicActionComponent periodicActionComponent = periodicEntity.getComponent(PeriodicActionComponent.class);
-
-            // If there is a PeriodicActionComponent, proceed. Else report an error to the log.
-            if (periodicActionComponent != null) {
-                final Set<String> actionIds = periodicActionComponent.getTriggeredActionsAndReschedule(currentWorldTime);
-                saveOrRemoveComponent(periodicEntity, periodicActionComponent);
-
-                if (!periodicActionComponent.isEmpty()) {
-                    periodicOperationsSortedByTime.put(periodicActionComponent.getLowestWakeUp(), periodicEntity);
-                }
-
-                for (String actionId : actionIds) {
-                    periodicEntity.send(new PeriodicActionTriggeredEvent(actionId));
+        finishedEntities.forEach(entity -> entity.removeComponent(DelayedActionComponent.class));
+
+        finishedEntities.clear();
+        for (EntityRef entity : entityManager.getEntitiesWith(PeriodicActionComponent.class)) {
+            if (periodicActions.containsKey(entity)) {
+                PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
+                if (storePeriodicActions(entity, periodicActionComponent)) {
+                    entity.saveComponent(periodicActionComponent);
                 }
             } else {
-                logger.error("ERROR: This entity is missing a DelayedActionComponent: {}. " +
-                        "So skipping delayed actions for this entity", periodicEntity);
+                finishedEntities.add(entity);
             }
-        });
+        }
+        finishedEntities.forEach(entity -> entity.removeComponent(PeriodicActionComponent.class));
     }
 
     @ReceiveEvent
     public void delayedComponentActivated(OnActivatedComponent event, EntityRef entity, DelayedActionComponent delayedActionComponent) {
-        delayedOperationsSortedByTime.put(delayedActionComponent.getLowestWakeUp(), entity);
+        delayedActionComponent.getActionIdsWakeUp().forEach((actionId, wakeUp) -> {
+            if (!hasDelayedAction(entity, actionId)) {
+                schedule(delayedActions, new ScheduledAction(entity, actionId), wakeUp);
+            }
+        });
     }
 
     @ReceiveEvent
     public void periodicComponentActivated(OnActivatedComponent event, EntityRef entity, PeriodicActionComponent periodicActionComponent) {
-        periodicOperationsSortedByTime.put(periodicActionComponent.getLowestWakeUp(), entity);
+        periodicActionComponent.getActionIdsWakeUp().forEach((actionId, wakeUp) -> {
+            if (!hasPeriodicAction(entity, actionId)) {
+                schedule(periodicActions, new ScheduledAction(entity, actionId, periodicActionComponent.getPeriod(actionId)), wakeUp);
+            }
+        });
     }
 
     @ReceiveEvent
     public void delayedComponentDeactivated(BeforeDeactivateComponent event, EntityRef entity, DelayedActionComponent delayedActionComponent) {
-        delayedOperationsSortedByTime.remove(delayedActionComponent.getLowestWakeUp(), entity);
+        storeDelayedActions(entity, delayedActionComponent);
+        cancelAll(delayedActions, entity);
     }
 
     @ReceiveEvent
     public void periodicComponentDeactivated(BeforeDeactivateComponent event, EntityRef entity, PeriodicActionComponent periodicActionComponent) {
-        delayedOperationsSortedByTime.remove(periodicActionComponent.getLowestWakeUp(), entity);
+        storePeriodicActions(entity, periodicActionComponent);
+        cancelAll(periodicActions, entity);
     }
 
     @Override
     public void addDelayedAction(EntityRef entity, String actionId, long delay) {
         long scheduleTime = time.getGameTimeInMs() + delay;
-
-        DelayedActionComponent delayedActionComponent = entity.getComponent(DelayedActionComponent.class);
-        if (delayedActionComponent != null) {
-            final long oldWakeUp = delayedActionComponent.getLowestWakeUp();
-            delayedActionComponent.addActionId(actionId, scheduleTime);
-            entity.saveComponent(delayedActionComponent);
-            final long newWakeUp = delayedActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-                delayedOperationsSortedByTime.put(newWakeUp, entity);
-            } else {
-                // Even if the oldWakeUp time is greater than or equal to the new one, the next action should still be added
-                // to the delayedOperationsSortedByTime mapping.
-                delayedOperationsSortedByTime.put(scheduleTime, entity);
-            }
-        } else {
-            delayedActionComponent = new DelayedActionComponent();
-            delayedActionComponent.addActionId(actionId, scheduleTime);
-            entity.addComponent(delayedActionComponent);
+        schedule(delayedActions, new ScheduledAction(entity, actionId), scheduleTime);
+        if (!entity.hasComponent(DelayedActionComponent.class)) {
+            entity.addComponent(new DelayedActionComponent());
         }
     }
 
     @Override
     public void addPeriodicAction(EntityRef entity, String actionId, long initialDelay, long period) {
         long scheduleTime = time.getGameTimeInMs() + initialDelay;
-
-        PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
-        if (periodicActionComponent != null) {
-            final long oldWakeUp = periodicActionComponent.getLowestWakeUp();
-            periodicActionComponent.addScheduledActionId(actionId, scheduleTime, period);
-            entity.saveComponent(periodicActionComponent);
-            final long newWakeUp = periodicActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-                periodicOperationsSortedByTime.put(newWakeUp, entity);
-            } else {
-                // Even if the oldWakeUp time is greater than or equal to the new one, the next action should still be added
-                // to the delayedOperationsSortedByTime mapping.
-                periodicOperationsSortedByTime.put(scheduleTime, entity);
-            }
-        } else {
-            periodicActionComponent = new PeriodicActionComponent();
-            periodicActionComponent.addScheduledActionId(actionId, scheduleTime, period);
-            entity.addComponent(periodicActionComponent);
+        schedule(periodicActions, new ScheduledAction(entity, actionId, period), scheduleTime);
+        if (!entity.hasComponent(PeriodicActionComponent.class)) {
+            entity.addComponent(new PeriodicActionComponent());
         }
     }
 
     @Override
     public void cancelDelayedAction(EntityRef entity, String actionId) {
-        DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
-        long oldWakeUp = delayedComponent.getLowestWakeUp();
-        delayedComponent.removeActionId(actionId);
-        long newWakeUp = delayedComponent.getLowestWakeUp();
-        if (!delayedComponent.isEmpty() && oldWakeUp < newWakeUp) {
-            delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-            delayedOperationsSortedByTime.put(newWakeUp, entity);
-        } else if (delayedComponent.isEmpty()) {
-            delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-        }
-        saveOrRemoveComponent(entity, delayedComponent);
+        unschedule(delayedActions, entity, actionId);
     }
 
     @Override
     public void cancelPeriodicAction(EntityRef entity, String actionId) {
-        PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
-        long oldWakeUp = periodicActionComponent.getLowestWakeUp();
-        periodicActionComponent.removeScheduledActionId(actionId);
-        long newWakeUp = periodicActionComponent.getLowestWakeUp();
-        if (!periodicActionComponent.isEmpty() && oldWakeUp < newWakeUp) {
-            periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-            periodicOperationsSortedByTime.put(newWakeUp, entity);
-        } else if (periodicActionComponent.isEmpty()) {
-            periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-        }
-        saveOrRemoveComponent(entity, periodicActionComponent);
+        unschedule(periodicActions, entity, actionId);
     }
 
     @Override
     public boolean hasDelayedAction(EntityRef entity, String actionId) {
-        DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
-        return delayedComponent != null && delayedComponent.containsActionId(actionId);
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = delayedActions.get(entity);
+        return entityActions != null && entityActions.containsKey(actionId);
     }
 
     @Override
     public boolean hasPeriodicAction(EntityRef entity, String actionId) {
-        PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
-        return periodicActionComponent != null && periodicActionComponent.containsActionId(actionId);
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = periodicActions.get(entity);
+        return entityActions != null && entityActions.containsKey(actionId);
     }
 
-    private void saveOrRemoveComponent(EntityRef delayedEntity, DelayedActionComponent delayedActionComponent) {
-        if (delayedActionComponent.isEmpty()) {
-            delayedEntity.removeComponent(DelayedActionComponent.class);
-        } else {
-            delayedEntity.saveComponent(delayedActionComponent);
+    private TimingWheel<ScheduledAction> getTimingWheel() {
+        if (timingWheel == null) {
+            timingWheel = new TimingWheel<>(time.getGameTimeInMs());
         }
+        return timingWheel;
     }
 
-    private void saveOrRemoveComponent(EntityRef periodicEntity, PeriodicActionComponent periodicActionComponent) {
-        if (periodicActionComponent.isEmpty()) {
-            periodicEntity.removeComponent(PeriodicActionComponent.class);
-        } else {
-            periodicEntity.saveComponent(periodicActionComponent);
+    private static boolean isScheduled(Map<EntityRef, Map<String, TimingWheel.Timer<ScheduledAction>>> actions, ScheduledAction action) {
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = actions.get(action.entity);
+        if (entityActions == null) {
+            return false;
         }
+        TimingWheel.Timer<ScheduledAction> timer = entityActions.get(action.actionId);
+        return timer != null && timer.getValue() == action;
+    }
+
+    private void schedule(Map<EntityRef, Map<String, TimingWheel.Timer<ScheduledAction>>> actions, ScheduledAction action, long wakeUp) {
+        TimingWheel.Timer<ScheduledAction> timer = getTimingWheel().schedule(wakeUp, action);
+        TimingWheel.Timer<ScheduledAction> replaced = actions.computeIfAbsent(action.entity, entity -> Maps.newHashMap()).put(action.actionId, timer);
+        if (replaced != null) {
+            getTimingWheel().cancel(replaced);
+        }
+    }
+
+    private void unschedule(Map<EntityRef, Map<String, TimingWheel.Timer<ScheduledAction>>> actions, EntityRef entity, String actionId) {
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = actions.get(entity);
+        if (entityActions != null) {
+            TimingWheel.Timer<ScheduledAction> timer = entityActions.remove(actionId);
+            if (timer != null) {
+                getTimingWheel().cancel(timer);
+            }
+            if (entityActions.isEmpty()) {
+                actions.remove(entity);
+            }
+        }
+    }
+
+    private void cancelAll(Map<EntityRef, Map<String, TimingWheel.Timer<ScheduledAction>>> actions, EntityRef entity) {
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = actions.remove(entity);
+        if (entityActions != null) {
+            entityActions.values().forEach(getTimingWheel()::cancel);
+        }
+    }
+
+    /**
+     * Copies the scheduled delayed actions of the entity into its component, without saving it.
+     *
+     * @return true if the stored actions changed
+     */
+    private boolean storeDelayedActions(EntityRef entity, DelayedActionComponent delayedActionComponent) {
+        Map<String, Long> actionIdsWakeUp = Maps.newHashMap();
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = delayedActions.get(entity);
+        if (entityActions != null) {
+            entityActions.forEach((actionId, timer) -> actionIdsWakeUp.put(actionId, timer.getDeadline()));
+        }
+        if (actionIdsWakeUp.equals(delayedActionComponent.getActionIdsWakeUp())) {
+            return false;
+        }
+
+        delayedActionComponent.clear();
+        actionIdsWakeUp.forEach(delayedActionComponent::addActionId);
+        return true;
+    }
+
+    /**
+     * Copies the scheduled periodic actions of the entity into its component, without saving it.
+     *
+     * @return true if the stored actions changed
+     */
+    private boolean storePeriodicActions(EntityRef entity, PeriodicActionComponent periodicActionComponent) {
+        Map<String, TimingWheel.Timer<ScheduledAction>> entityActions = periodicActions.get(entity);
+        if (entityActions == null) {
+            entityActions = Collections.emptyMap();
+        }
+        Map<String, Long> actionIdsWakeUp = periodicActionComponent.getActionIdsWakeUp();
+        boolean changed = !entityActions.keySet().equals(actionIdsWakeUp.keySet());
+        if (!changed) {
+            for (Map.Entry<String, TimingWheel.Timer<ScheduledAction>> entry : entityActions.entrySet()) {
+                TimingWheel.Timer<ScheduledAction> timer = entry.getValue();
+                if (timer.getDeadline() != actionIdsWakeUp.get(entry.getKey())
+                        || timer.getValue().period != periodicActionComponent.getPeriod(entry.getKey())) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+
+        periodicActionComponent.clear();
+        entityActions.forEach((actionId, timer) ->
+                periodicActionComponent.addScheduledActionId(actionId, timer.getDeadline(), timer.getValue().period));
+        return true;
     }
 
     // Deprecated methods
@@ -276,4 +310,25 @@ public void cancelDelayedAction(CancelDelayedActionEvent event, EntityRef entity
     public void addDelayedAction(AddDelayedActionEvent event, EntityRef entity) {
         addDelayedAction(entity, event.getActionId(), event.getDelay());
     }
+
+    private static final class ScheduledAction {
+        private final EntityRef entity;
+        private final String actionId;
+        private final boolean periodic;
+        private final long period;
+
+        ScheduledAction(EntityRef entity, String actionId) {
+            this.entity = entity;
+            this.actionId = actionId;
+            this.periodic = false;
+            this.period = 0;
+        }
+
+        ScheduledAction(EntityRef entity, String actionId, long period) {
+            this.entity = entity;
+            this.actionId = actionId;
+            this.periodic = true;
+            this.period = period;
+        }
+    }
 }
@@ -18,6 +18,7 @@
 import org.terasology.entitySystem.Component;
 import org.terasology.world.block.ForceBlockActive;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -90,4 +91,21 @@ public boolean isEmpty() {
     public boolean containsActionId(String actionId) {
         return actionIdsWakeUp.containsKey(actionId);
     }
+
+    /**
+     * @return the next wake up times of the actions, by action id
+     */
+    public Map<String, Long> getActionIdsWakeUp() {
+        return Collections.unmodifiableMap(actionIdsWakeUp);
+    }
+
+    public long getPeriod(String actionId) {
+        return actionIdsPeriod.get(actionId);
+    }
+
+    public void clear() {
+        actionIdsWakeUp.clear();
+        actionIdsPeriod.clear();
+        lowestWakeUp = Long.MAX_VALUE;
+    }
 }
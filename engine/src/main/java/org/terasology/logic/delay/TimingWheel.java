@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.delay;
+
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel, scheduling values for millisecond deadlines with constant time insertion and
+ * cancellation.
+ * <br><br>
+ * Each level of the wheel has 64 slots, the slots of the lowest level are one millisecond wide and the slots of every
+ * further level are 64 times wider than those of the level below. A timer is kept in the lowest level whose current
+ * rotation contains its deadline and moves down a level whenever the current time reaches the start of its slot.
+ * Deadlines too far ahead for the highest level wait in an overflow list until the highest level starts a new
+ * rotation. Occupied slots are tracked in a bit mask per level, so advancing over long stretches without timers
+ * skips straight to the next occupied slot instead of visiting every millisecond.
+ *
+ * @param <T> the type of the scheduled values
+ */
+class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+    private static final int TOP_LEVEL_BITS = SLOT_BITS * LEVELS;
+
+    private final Bucket<T>[][] buckets;
+    private final long[] occupiedSlots = new long[LEVELS];
+    private final Bucket<T> expired = new Bucket<>(-1, -1);
+    private final Bucket<T> overflow = new Bucket<>(-1, -1);
+
+    private long currentTime;
+    private int size;
+
+    /**
+     * @param startTime the time the wheel starts at, timers due at or before it fire with the first advance
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long startTime) {
+        this.currentTime = startTime;
+        buckets = new Bucket[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                buckets[level][slot] = new Bucket<>(level, slot);
+            }
+        }
+    }
+
+    /**
+     * @param deadline the time at which to fire the value
+     * @param value    the value to return from {@link #advance(long, List)} once the deadline has passed
+     * @return a handle to cancel the timer with
+     */
+    Timer<T> schedule(long deadline, T value) {
+        Timer<T> timer = new Timer<>(deadline, value);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * @param timer a timer of this wheel
+     * @return whether the timer was still pending
+     */
+    boolean cancel(Timer<T> timer) {
+        if (timer.bucket == null) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time, collecting the values of all timers due at or before it in order of their
+     * deadlines.
+     *
+     * @param time  the new current time, times before the current time are ignored
+     * @param fired the list to add the values of the due timers to
+     */
+    void advance(long time, List<T> fired) {
+        collect(expired, fired);
+        while (size > 0) {
+            long next = nextEventTime();
+            if (next > time) {
+                break;
+            }
+            currentTime = next;
+            if (isRotationStart(currentTime, TOP_LEVEL_BITS)) {
+                cascade(overflow);
+            }
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if (isRotationStart(currentTime, SLOT_BITS * level)) {
+                    cascade(bucket(level, currentTime));
+                }
+            }
+            collect(expired, fired);
+            collect(bucket(0, currentTime), fired);
+        }
+        currentTime = Math.max(currentTime, time);
+    }
+
+    /**
+     * @return the number of pending timers
+     */
+    int size() {
+        return size;
+    }
+
+    long getCurrentTime() {
+        return currentTime;
+    }
+
+    private long nextEventTime() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            int currentSlot = (int) (currentTime >> shift) & (SLOTS - 1);
+            long laterSlots = currentSlot == SLOTS - 1 ? 0 : occupiedSlots[level] & (-1L << (currentSlot + 1));
+            if (laterSlots != 0) {
+                long rotationStart = (currentTime >> (shift + SLOT_BITS)) << (shift + SLOT_BITS);
+                next = Math.min(next, rotationStart | ((long) Long.numberOfTrailingZeros(laterSlots) << shift));
+            }
+        }
+        if (overflow.head != null) {
+            next = Math.min(next, ((currentTime >> TOP_LEVEL_BITS) + 1) << TOP_LEVEL_BITS);
+        }
+        return next;
+    }
+
+    private static boolean isRotationStart(long time, int bits) {
+        return (time & ((1L << bits) - 1)) == 0;
+    }
+
+    private Bucket<T> bucket(int level, long time) {
+        return buckets[level][(int) (time >> (SLOT_BITS * level)) & (SLOTS - 1)];
+    }
+
+    private void insert(Timer<T> timer) {
+        long deadline = timer.deadline;
+        if (deadline <= currentTime) {
+            link(expired, timer);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int rotationBits = SLOT_BITS * (level + 1);
+            if ((deadline >> rotationBits) == (currentTime >> rotationBits)) {
+                link(bucket(level, deadline), timer);
+                return;
+            }
+        }
+        link(overflow, timer);
+    }
+
+    private void cascade(Bucket<T> from) {
+        // detach the whole list first, as timers may be inserted into the same bucket again
+        Timer<T> timer = from.head;
+        from.head = null;
+        from.tail = null;
+        if (from.level >= 0) {
+            occupiedSlots[from.level] &= ~(1L << from.slot);
+        }
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    private void collect(Bucket<T> from, List<T> fired) {
+        Timer<T> timer = from.head;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            unlink(timer);
+            size--;
+            fired.add(timer.value);
+            timer = next;
+        }
+    }
+
+    private void link(Bucket<T> bucket, Timer<T> timer) {
+        timer.bucket = bucket;
+        timer.prev = bucket.tail;
+        timer.next = null;
+        if (bucket.tail == null) {
+            bucket.head = timer;
+            if (bucket.level >= 0) {
+                occupiedSlots[bucket.level] |= 1L << bucket.slot;
+            }
+        } else {
+            bucket.tail.next = timer;
+        }
+        bucket.tail = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        Bucket<T> bucket = timer.bucket;
+        if (timer.prev == null) {
+            bucket.head = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next == null) {
+            bucket.tail = timer.prev;
+        } else {
+            timer.next.prev = timer.prev;
+        }
+        if (bucket.head == null && bucket.level >= 0) {
+            occupiedSlots[bucket.level] &= ~(1L << bucket.slot);
+        }
+        timer.bucket = null;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    /**
+     * A scheduled value, linked into the bucket of the slot it currently waits in.
+     */
+    static final class Timer<T> {
+        private final long deadline;
+        private final T value;
+
+        private Bucket<T> bucket;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+
+        T getValue() {
+            return value;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private final int level;
+        private final int slot;
+
+        private Timer<T> head;
+        private Timer<T> tail;
+
+        Bucket(int level, int slot) {
+            this.level = level;
+            this.slot = slot;
+        }
+    }
+}
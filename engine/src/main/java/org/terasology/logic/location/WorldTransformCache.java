@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.location;
+
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the world transforms of entities with a {@link LocationComponent}, sharing the transforms of parents between
+ * all of their children.
+ * <br><br>
+ * {@link LocationComponent#getWorldPosition()} and its siblings walk up the whole parent chain on every call. The cache
+ * instead resolves every entity of a hierarchy once, from the already resolved transform of its parent, which makes
+ * resolving all entities linear in their number rather than in the sum of their depths.
+ * <br><br>
+ * The local transforms of location components may be modified in place without any notification, so the cache can't
+ * tell when a transform becomes stale. It is meant to be used for one batch of work at a time, like rendering a frame,
+ * and needs to be {@link #clear() cleared} before each batch. The resolved transforms are kept in reused objects, so a
+ * batch doesn't allocate once the cache has grown to the size of the batch.
+ */
+public class WorldTransformCache {
+    private static final int NOT_RESOLVED = -1;
+
+    private final TLongIntMap slots = new TLongIntHashMap(256, 0.5f, 0, NOT_RESOLVED);
+    private final List<Vector3f> positions = new ArrayList<>();
+    private final List<Quat4f> rotations = new ArrayList<>();
+    private float[] scales = new float[256];
+    private int size;
+
+    /**
+     * Forgets all resolved transforms, to be called whenever locations may have changed.
+     */
+    public void clear() {
+        slots.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the world position of the entity, or null if it has no location
+     */
+    public Vector3f getWorldPosition(EntityRef entity, Vector3f output) {
+        int slot = resolve(entity);
+        if (slot == NOT_RESOLVED) {
+            return null;
+        }
+        output.set(positions.get(slot));
+        return output;
+    }
+
+    /**
+     * @return the world rotation of the entity, or null if it has no location
+     */
+    public Quat4f getWorldRotation(EntityRef entity, Quat4f output) {
+        int slot = resolve(entity);
+        if (slot == NOT_RESOLVED) {
+            return null;
+        }
+        output.set(rotations.get(slot));
+        return output;
+    }
+
+    /**
+     * @return the world scale of the entity, or NaN if it has no location
+     */
+    public float getWorldScale(EntityRef entity) {
+        int slot = resolve(entity);
+        return slot != NOT_RESOLVED ? scales[slot] : Float.NaN;
+    }
+
+    /**
+     * @return the slot holding the world transform of the entity, {@link #NOT_RESOLVED} if it has no location
+     */
+    private int resolve(EntityRef entity) {
+        long id = entity.getId();
+        int slot = slots.get(id);
+        if (slot != NOT_RESOLVED) {
+            return slot;
+        }
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (location == null) {
+            return NOT_RESOLVED;
+        }
+        int parentSlot = resolve(location.getParent());
+
+        slot = allocate();
+        Vector3f position = positions.get(slot);
+        Quat4f rotation = rotations.get(slot);
+        position.set(location.position);
+        rotation.set(location.rotation);
+        float scale = location.scale;
+        if (parentSlot != NOT_RESOLVED) {
+            Quat4f parentRotation = rotations.get(parentSlot);
+            position.scale(scales[parentSlot]);
+            parentRotation.rotate(position, position);
+            position.add(positions.get(parentSlot));
+            rotation.mul(parentRotation, rotation);
+            scale *= scales[parentSlot];
+        }
+        scales[slot] = scale;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private int allocate() {
+        if (size == positions.size()) {
+            positions.add(new Vector3f());
+            rotations.add(new Quat4f(0, 0, 0, 1));
+        }
+        if (size == scales.length) {
+            float[] newScales = new float[scales.length * 2];
+            System.arraycopy(scales, 0, newScales, 0, scales.length);
+            scales = newScales;
+        }
+        return size++;
+    }
+}
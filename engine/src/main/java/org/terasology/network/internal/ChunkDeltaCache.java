@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnknownFieldSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.protobuf.NetData;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the last transferred version of recently sent chunks, so that a chunk that gets sent again can be
+ * transferred as difference to that version.
+ * <br><br>
+ * The server and the client each keep one cache per connection. Both add every transferred chunk in the same order
+ * and evict the same chunks, so the server knows which versions the client holds without the client reporting them.
+ * Delta encoded chunks are regular chunk stores whose block and extra data hold the XOR of the new and the previous
+ * values, which leaves the unchanged parts as long runs of zeros. They are marked with a checksum of the version they
+ * are relative to, stored as an unknown field, so that clients not supporting deltas never receive them.
+ * <br><br>
+ * If a client receives a delta it can't apply, it asks the server to send the chunk again. The server then stops
+ * sending deltas to that client, as its cache no longer matches the one of the client.
+ */
+class ChunkDeltaCache {
+    /**
+     * The number of chunk versions kept. Must be the same on client and server.
+     */
+    static final int CAPACITY = 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkDeltaCache.class);
+
+    /**
+     * Field of the {@link NetData.JoinMessage} with which clients announce that they can receive delta encoded chunks.
+     */
+    private static final int DELTA_SUPPORT_FIELD = 5000;
+    /**
+     * Field of a delta encoded {@link EntityData.ChunkStore} with the checksum of the version it is relative to.
+     */
+    private static final int DELTA_BASE_CHECKSUM_FIELD = 5000;
+    /**
+     * Field of a {@link NetData.NetMessage} with the positions of the chunks a client asks the server to send again.
+     */
+    private static final int RESEND_REQUEST_FIELD = 5000;
+    private static final int CHUNK_VOLUME = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z;
+
+    private final Map<Vector3i, EntityData.ChunkStore> chunks = new LinkedHashMap<Vector3i, EntityData.ChunkStore>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Vector3i, EntityData.ChunkStore> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /**
+     * Buffers for expanding the run length encoded data, reused for every chunk.
+     */
+    private final int[] values = new int[CHUNK_VOLUME];
+    private final int[] baseValues = new int[CHUNK_VOLUME];
+
+    static void announceSupport(NetData.JoinMessage.Builder joinMessage) {
+        joinMessage.mergeUnknownFields(UnknownFieldSet.newBuilder()
+                .addField(DELTA_SUPPORT_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(1).build())
+                .build());
+    }
+
+    static boolean isSupportAnnounced(NetData.JoinMessage joinMessage) {
+        return joinMessage.getUnknownFields().hasField(DELTA_SUPPORT_FIELD);
+    }
+
+    static void requestResend(NetData.NetMessage.Builder message, Iterable<Vector3i> chunkPositions) {
+        UnknownFieldSet.Field.Builder field = UnknownFieldSet.Field.newBuilder();
+        for (Vector3i pos : chunkPositions) {
+            field.addLengthDelimited(NetMessageUtil.convert(pos).toByteString());
+        }
+        message.mergeUnknownFields(UnknownFieldSet.newBuilder().addField(RESEND_REQUEST_FIELD, field.build()).build());
+    }
+
+    /**
+     * @return the positions of the chunks the client asked to be sent again
+     */
+    static List<Vector3i> getResendRequests(NetData.NetMessage message) {
+        List<ByteString> requests = message.getUnknownFields().getField(RESEND_REQUEST_FIELD).getLengthDelimitedList();
+        List<Vector3i> chunkPositions = Lists.newArrayListWithCapacity(requests.size());
+        for (ByteString request : requests) {
+            try {
+                chunkPositions.add(NetMessageUtil.convert(NetData.Vector3iData.parseFrom(request)));
+            } catch (InvalidProtocolBufferException e) {
+                logger.error("Received invalid chunk resend request", e);
+            }
+        }
+        return chunkPositions;
+    }
+
+    /**
+     * Used by the server for the chunks it sends.
+     *
+     * @return the chunk as delta to the version the client holds, or the chunk itself if that is not smaller
+     */
+    EntityData.ChunkStore encode(EntityData.ChunkStore chunk) {
+        Vector3i pos = new Vector3i(chunk.getX(), chunk.getY(), chunk.getZ());
+        EntityData.ChunkStore base = chunks.remove(pos);
+        chunks.put(pos, chunk);
+        if (base == null || base.getExtraDataCount() != chunk.getExtraDataCount()) {
+            return chunk;
+        }
+
+        EntityData.ChunkStore.Builder delta = EntityData.ChunkStore.newBuilder()
+                .setX(chunk.getX()).setY(chunk.getY()).setZ(chunk.getZ());
+        delta.setBlockData(xor(chunk.getBlockData(), base.getBlockData()));
+        int baseChecksum = Arrays.hashCode(baseValues);
+        for (int i = 0; i < chunk.getExtraDataCount(); i++) {
+            delta.addExtraData(xor(chunk.getExtraData(i), base.getExtraData(i)));
+            baseChecksum = 31 * baseChecksum + Arrays.hashCode(baseValues);
+        }
+        delta.mergeUnknownFields(UnknownFieldSet.newBuilder()
+                .addField(DELTA_BASE_CHECKSUM_FIELD, UnknownFieldSet.Field.newBuilder().addFixed32(baseChecksum).build())
+                .build());
+        EntityData.ChunkStore deltaChunk = delta.build();
+        return deltaChunk.getSerializedSize() < chunk.getSerializedSize() ? deltaChunk : chunk;
+    }
+
+    /**
+     * Used by the client for the chunks it receives.
+     *
+     * @return the complete chunk, or null if the chunk is relative to a version that is not known
+     */
+    EntityData.ChunkStore decode(EntityData.ChunkStore received) {
+        Vector3i pos = new Vector3i(received.getX(), received.getY(), received.getZ());
+        EntityData.ChunkStore base = chunks.remove(pos);
+        UnknownFieldSet.Field checksumField = received.getUnknownFields().getField(DELTA_BASE_CHECKSUM_FIELD);
+        if (checksumField.getFixed32List().isEmpty()) {
+            chunks.put(pos, received);
+            return received;
+        }
+        if (base == null || base.getExtraDataCount() != received.getExtraDataCount()) {
+            logger.warn("Received chunk {} relative to an unknown version", pos);
+            return null;
+        }
+
+        EntityData.ChunkStore.Builder chunk = received.toBuilder().setUnknownFields(UnknownFieldSet.getDefaultInstance());
+        chunk.setBlockData(xor(received.getBlockData(), base.getBlockData()));
+        int baseChecksum = Arrays.hashCode(baseValues);
+        chunk.clearExtraData();
+        for (int i = 0; i < received.getExtraDataCount(); i++) {
+            chunk.addExtraData(xor(received.getExtraData(i), base.getExtraData(i)));
+            baseChecksum = 31 * baseChecksum + Arrays.hashCode(baseValues);
+        }
+        if (baseChecksum != checksumField.getFixed32List().get(0)) {
+            logger.warn("Received chunk {} relative to a different version than the one held", pos);
+            return null;
+        }
+        EntityData.ChunkStore result = chunk.build();
+        chunks.put(pos, result);
+        return result;
+    }
+
+    /**
+     * Expands both run length encodings, leaving the expanded base in {@link #baseValues}.
+     *
+     * @return the run length encoded XOR of the values
+     */
+    private EntityData.RunLengthEncoding16 xor(EntityData.RunLengthEncoding16 data, EntityData.RunLengthEncoding16 base) {
+        expand(data, values);
+        expand(base, baseValues);
+        for (int i = 0; i < values.length; i++) {
+            values[i] ^= baseValues[i];
+        }
+        return runLengthEncode(values);
+    }
+
+    private static void expand(EntityData.RunLengthEncoding16 data, int[] values) {
+        int index = 0;
+        for (int run = 0; run < data.getRunLengthsCount() && run < data.getValuesCount(); run++) {
+            int end = Math.min(index + data.getRunLengths(run), values.length);
+            Arrays.fill(values, index, end, data.getValues(run));
+            index = end;
+        }
+        Arrays.fill(values, index, values.length, 0);
+    }
+
+    /**
+     * Same encoding as used by the chunk serializer: a trailing run of zeros is left out.
+     */
+    private static EntityData.RunLengthEncoding16 runLengthEncode(int[] values) {
+        EntityData.RunLengthEncoding16.Builder builder = EntityData.RunLengthEncoding16.newBuilder();
+        int lastValue = values[0];
+        int counter = 0;
+        for (int value : values) {
+            if (value != lastValue) {
+                builder.addRunLengths(counter);
+                builder.addValues(lastValue);
+                lastValue = value;
+                counter = 1;
+            } else {
+                counter++;
+            }
+        }
+        if (lastValue != 0) {
+            builder.addRunLengths(counter);
+            builder.addValues(lastValue);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import gnu.trove.set.TIntSet;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Decides which of the changed entities get sent to a client in a network tick, so that the updates stay within the
+ * bandwidth available to the client.
+ * <br><br>
+ * Every tick an entity waits for its update to be sent, its priority grows by its weight, e.g. based on its distance
+ * to the player. Entities are sent in order of priority until the budget of the tick is used up. Far away entities
+ * get updated less often, but never starve. Entities with an infinite weight get sent regardless of the budget.
+ */
+class EntityReplicationScheduler {
+    /**
+     * How many ticks of unused budget can be saved up, which limits the size of bursts.
+     */
+    private static final int MAX_SAVED_TICKS = 4;
+
+    private final TIntFloatMap priorities = new TIntFloatHashMap();
+    private int budget;
+
+    /**
+     * Adds the budget of the tick and raises the priority of all entities waiting to be sent.
+     *
+     * @param waitingEntities the net ids of the entities with unsent changes
+     * @param weight          the weight of an entity by net id
+     * @param bytesPerTick    the budget added in this tick
+     * @return the waiting entities, highest priority first
+     */
+    int[] beginTick(TIntSet waitingEntities, IntToDoubleFunction weight, int bytesPerTick) {
+        budget = Math.min(budget + bytesPerTick, MAX_SAVED_TICKS * bytesPerTick);
+        int[] netIds = waitingEntities.toArray();
+        long[] orderedEntities = new long[netIds.length];
+        for (int i = 0; i < netIds.length; i++) {
+            float entityWeight = (float) weight.applyAsDouble(netIds[i]);
+            float priority = priorities.adjustOrPutValue(netIds[i], entityWeight, entityWeight);
+            // Sort by descending priority: non negative floats compare like their bits
+            orderedEntities[i] = ((long) ~Float.floatToIntBits(priority) << 32) | (netIds[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(orderedEntities);
+        for (int i = 0; i < netIds.length; i++) {
+            netIds[i] = (int) orderedEntities[i];
+        }
+        return netIds;
+    }
+
+    boolean canSend(int netId) {
+        return budget > 0 || priorities.get(netId) == Float.POSITIVE_INFINITY;
+    }
+
+    void sent(int netId, int bytes) {
+        budget -= bytes;
+        priorities.remove(netId);
+    }
+
+    /**
+     * Forgets an entity that is no longer relevant for the client.
+     */
+    void remove(int netId) {
+        priorities.remove(netId);
+    }
+}
@@ -24,6 +24,9 @@
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TByteObjectMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import org.jboss.netty.channel.Channel;
@@ -42,6 +45,7 @@
 import org.terasology.logic.common.DisplayNameComponent;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
@@ -64,9 +68,12 @@
 import org.terasology.world.block.BlockComponent;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.propagation.BlockChange;
 
 import java.math.RoundingMode;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -81,6 +88,10 @@
 public class NetClient extends AbstractClient implements WorldChangeListener {
     private static final Logger logger = LoggerFactory.getLogger(NetClient.class);
     private static final float NET_TICK_RATE = 0.05f;
+    /**
+     * The distance in blocks at which the updates of an entity get half the weight of the updates of close entities.
+     */
+    private static final float REPLICATION_HALF_WEIGHT_DISTANCE = 16.0f;
 
     private Time time;
     private NetworkSystemImpl networkSystem;
@@ -101,6 +112,11 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private SetMultimap<Integer, Class<? extends Component>> dirtyComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> addedComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> removedComponents = LinkedHashMultimap.create();
+    /**
+     * Orders the entity updates and limits them to the bandwidth of the client, null if all updates get sent each tick.
+     */
+    private EntityReplicationScheduler replicationScheduler;
+    private TIntObjectMap<Map<Class<? extends Component>, TByteObjectMap<EntityData.Value>>> sentFieldValues = new TIntObjectHashMap<>();
 
     private String preferredName = "Player";
     private long lastReceivedTime;
@@ -119,6 +135,14 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
 
     private Map<Vector3i, Chunk> readyChunks = Maps.newLinkedHashMap();
     private Set<Vector3i> invalidatedChunks = Sets.newLinkedHashSet();
+    /**
+     * The chunk versions the client holds, null if the client does not support delta encoded chunks.
+     */
+    private ChunkDeltaCache sentChunks;
+    /**
+     * The block changes to send as one packed delta per chunk, null if the client does not support them.
+     */
+    private PackedBlockChanges queuedOutgoingPackedBlockChanges;
 
 
     // Incoming messages
@@ -143,6 +167,9 @@ public NetClient(Channel channel, NetworkSystemImpl networkSystem, PublicIdentit
         this.networkSystem = networkSystem;
         this.time = CoreRegistry.get(Time.class);
         this.identity = identity;
+        if (networkSystem.isPrioritizedReplicationEnabled()) {
+            this.replicationScheduler = new EntityReplicationScheduler();
+        }
         WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
         if (worldProvider != null) {
             worldProvider.registerListener(this);
@@ -192,6 +219,20 @@ public void setColor(Color color) {
 
     }
 
+    /**
+     * Makes chunks that get sent again to the client be sent as difference to the version the client holds.
+     */
+    void enableChunkDeltas() {
+        sentChunks = new ChunkDeltaCache();
+    }
+
+    /**
+     * Makes block changes be sent as one packed delta per chunk.
+     */
+    void enablePackedBlockChanges() {
+        queuedOutgoingPackedBlockChanges = new PackedBlockChanges();
+    }
+
     /**
      * @param preferredName the name the player would like to use.
      */
@@ -265,7 +306,8 @@ private void sendNewChunks(NetData.NetMessage.Builder message) {
                 }
                 Chunk chunk = readyChunks.remove(pos);
                 relevantChunks.add(pos);
-                message.addChunkInfo(chunk.encode());
+                EntityData.ChunkStore chunkStore = chunk.encode().build();
+                message.addChunkInfo(sentChunks != null ? sentChunks.encode(chunkStore) : chunkStore);
             }
         } else {
             chunkSendCounter = 1.0f;
@@ -285,6 +327,7 @@ private void sendChunkInvalidations(NetData.NetMessage.Builder message) {
 
     public void setNetInitial(int netId) {
         netInitial.add(netId);
+        sentFieldValues.remove(netId);
     }
 
     public void setNetRemoved(int netId) {
@@ -296,6 +339,10 @@ public void setNetRemoved(int netId) {
         removedComponents.keySet().remove(netId);
         netDirty.remove(netId);
         netRelevant.remove(netId);
+        sentFieldValues.remove(netId);
+        if (replicationScheduler != null) {
+            replicationScheduler.remove(netId);
+        }
     }
 
     public void setComponentAdded(int networkId, Class<? extends Component> component) {
@@ -393,7 +440,9 @@ public void onChunkIrrelevant(Vector3i pos) {
     @Override
     public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
         Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
-        if (relevantChunks.contains(chunkPos)) {
+        if (relevantChunks.contains(chunkPos) && queuedOutgoingPackedBlockChanges != null) {
+            queuedOutgoingPackedBlockChanges.add(chunkPos, pos, newBlock);
+        } else if (relevantChunks.contains(chunkPos)) {
             queuedOutgoingBlockChanges.add(NetData.BlockChangeMessage.newBuilder()
                     .setPos(NetMessageUtil.convert(pos))
                     .setNewBlock(newBlock.getId())
@@ -401,6 +450,24 @@ public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
         }
     }
 
+    @Override
+    public void onBlocksChanged(Vector3i chunkPos, Collection<BlockChange> changes) {
+        if (relevantChunks.contains(chunkPos) && queuedOutgoingPackedBlockChanges != null) {
+            for (BlockChange change : changes) {
+                queuedOutgoingPackedBlockChanges.add(chunkPos, change.getPosition(), change.getTo());
+            }
+        } else if (relevantChunks.contains(chunkPos)) {
+            List<NetData.BlockChangeMessage> messages = Lists.newArrayListWithCapacity(changes.size());
+            for (BlockChange change : changes) {
+                messages.add(NetData.BlockChangeMessage.newBuilder()
+                        .setPos(NetMessageUtil.convert(change.getPosition()))
+                        .setNewBlock(change.getTo().getId())
+                        .build());
+            }
+            queuedOutgoingBlockChanges.addAll(messages);
+        }
+    }
+
     @Override
     public void onExtraDataChanged(int i, Vector3i pos, int newData, int oldData) {
         Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
@@ -422,14 +489,40 @@ private void processReceivedMessages() {
             }
             processEntityUpdates(message);
             processEvents(message);
+            processChunkResendRequests(message);
 
         }
     }
 
+    /**
+     * Sends the chunks the client could not apply as delta again, as complete chunks. The caches of the client and
+     * the server no longer match, so no further deltas get sent to the client.
+     */
+    private void processChunkResendRequests(NetData.NetMessage message) {
+        List<Vector3i> requests = ChunkDeltaCache.getResendRequests(message);
+        if (requests.isEmpty()) {
+            return;
+        }
+        if (sentChunks != null) {
+            logger.warn("Client {} failed to apply a chunk delta, sending complete chunks from now on", getName());
+            sentChunks = null;
+        }
+        ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
+        for (Vector3i pos : requests) {
+            Chunk chunk = chunkProvider != null ? chunkProvider.getChunk(pos) : null;
+            if (chunk != null && relevantChunks.remove(pos)) {
+                readyChunks.put(pos, chunk);
+            }
+        }
+    }
+
     private void sendEvents(NetData.NetMessage.Builder message) {
         List<NetData.BlockChangeMessage> blockChanges = Lists.newArrayListWithExpectedSize(queuedOutgoingBlockChanges.size());
         queuedOutgoingBlockChanges.drainTo(blockChanges);
         message.addAllBlockChange(blockChanges);
+        if (queuedOutgoingPackedBlockChanges != null) {
+            queuedOutgoingPackedBlockChanges.write(message);
+        }
         
         List<NetData.ExtraDataChangeMessage> extraDataChanges = Lists.newArrayListWithExpectedSize(queuedOutgoingExtraDataChanges.size());
         queuedOutgoingExtraDataChanges.drainTo(extraDataChanges);
@@ -450,6 +543,10 @@ private void processEntityUpdates(NetData.NetMessage message) {
     }
 
     private void sendDirtyEntities(NetData.NetMessage.Builder message) {
+        if (replicationScheduler != null) {
+            sendScheduledDirtyEntities(message);
+            return;
+        }
         TIntIterator dirtyIterator = netDirty.iterator();
         while (dirtyIterator.hasNext()) {
             int netId = dirtyIterator.next();
@@ -470,6 +567,68 @@ private void sendDirtyEntities(NetData.NetMessage.Builder message) {
         dirtyComponents.clear();
     }
 
+    /**
+     * Sends the updates of the dirty entities in order of their priority, as long as the bandwidth budget allows.
+     * Entities that don't get sent keep their changes for a later tick. Fields whose value has already been sent are
+     * left out.
+     */
+    private void sendScheduledDirtyEntities(NetData.NetMessage.Builder message) {
+        Vector3f playerPosition = null;
+        LocationComponent playerLocation = getEntity().getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
+        if (playerLocation != null) {
+            playerPosition = playerLocation.getWorldPosition();
+        }
+        final Vector3f center = playerPosition;
+        int bytesPerTick = (int) (networkSystem.getBandwidthPerClient() * 1000 / 8 * NET_TICK_RATE);
+
+        for (int netId : replicationScheduler.beginTick(netDirty, id -> getReplicationWeight(id, center), bytesPerTick)) {
+            if (!replicationScheduler.canSend(netId)) {
+                break;
+            }
+            EntityRef entity = networkSystem.getEntity(netId);
+            if (!entity.exists()) {
+                logger.error("Sending non-existent entity update for netId {}", netId);
+            }
+            boolean isOwner = networkSystem.getOwner(entity) == this;
+            Map<Class<? extends Component>, TByteObjectMap<EntityData.Value>> entityFieldValues = sentFieldValues.get(netId);
+            if (entityFieldValues == null) {
+                entityFieldValues = Maps.newHashMap();
+                sentFieldValues.put(netId, entityFieldValues);
+            }
+            EntityData.PackedEntity entityData = entitySerializer.serialize(entity, addedComponents.get(netId), dirtyComponents.get(netId),
+                    removedComponents.get(netId), new ServerComponentFieldCheck(isOwner, false), entityFieldValues);
+            int size = 0;
+            if (entityData != null) {
+                NetData.UpdateEntityMessage update = NetData.UpdateEntityMessage.newBuilder().setEntity(entityData).setNetId(netId).build();
+                message.addUpdateEntity(update);
+                size = update.getSerializedSize();
+            }
+            replicationScheduler.sent(netId, size);
+            netDirty.remove(netId);
+            addedComponents.removeAll(netId);
+            removedComponents.removeAll(netId);
+            dirtyComponents.removeAll(netId);
+        }
+    }
+
+    /**
+     * Updates of entities owned by the client always get sent, the updates of other entities get a lower weight the
+     * further away they are from the player.
+     */
+    private double getReplicationWeight(int netId, Vector3f playerPosition) {
+        EntityRef entity = networkSystem.getEntity(netId);
+        if (networkSystem.getOwner(entity) == this) {
+            return Double.POSITIVE_INFINITY;
+        }
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (location == null || playerPosition == null) {
+            return 1.0;
+        }
+        float relativeDistanceSquared = location.getWorldPosition().distanceSquared(playerPosition)
+                / (REPLICATION_HALF_WEIGHT_DISTANCE * REPLICATION_HALF_WEIGHT_DISTANCE);
+        return 1.0 / (1.0 + relativeDistanceSquared);
+    }
+
     private void sendRemovedEntities(NetData.NetMessage.Builder message) {
         TIntIterator initialIterator = netRemoved.iterator();
         while (initialIterator.hasNext()) {
@@ -367,6 +367,10 @@ NetClient getNetOwner(EntityRef entity) {
         return null;
     }
 
+    public boolean isPrioritizedReplicationEnabled() {
+        return config.isPrioritizedReplicationEnabled();
+    }
+
     public int getBandwidthPerClient() {
         if (netClientList.size() > 0) {
             return config.getUpstreamBandwidth() / netClientList.size();
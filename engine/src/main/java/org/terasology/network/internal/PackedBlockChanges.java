@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Maps;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.NetData;
+import org.terasology.world.BlockRegionEdit;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Collects the block changes sent to a client and transfers them as one packed delta per chunk, instead of one
+ * {@link NetData.BlockChangeMessage} per block.
+ * <br><br>
+ * The deltas are stored as unknown fields of the {@link NetData.NetMessage}, so that clients not supporting them never
+ * receive them. A delta holds the position of the chunk, followed by runs of consecutive blocks of the chunk which
+ * changed to the same block. Each run is written as the number of blocks skipped since the previous run, the length of
+ * the run and the id of the block. Later changes of a block replace earlier ones which weren't sent yet.
+ */
+class PackedBlockChanges {
+    private static final Logger logger = LoggerFactory.getLogger(PackedBlockChanges.class);
+
+    /**
+     * Field of the {@link NetData.JoinMessage} with which clients announce that they can receive packed block changes.
+     */
+    private static final int SUPPORT_FIELD = 5001;
+    /**
+     * Field of a {@link NetData.NetMessage} with the packed block changes of one chunk per entry.
+     */
+    private static final int CHANGES_FIELD = 5001;
+
+    private final Map<Vector3i, TIntIntMap> changesPerChunk = Maps.newLinkedHashMap();
+
+    static void announceSupport(NetData.JoinMessage.Builder joinMessage) {
+        joinMessage.mergeUnknownFields(UnknownFieldSet.newBuilder()
+                .addField(SUPPORT_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(1).build())
+                .build());
+    }
+
+    static boolean isSupportAnnounced(NetData.JoinMessage joinMessage) {
+        return joinMessage.getUnknownFields().hasField(SUPPORT_FIELD);
+    }
+
+    synchronized void add(Vector3i chunkPos, Vector3i worldPos, Block block) {
+        TIntIntMap changes = changesPerChunk.get(chunkPos);
+        if (changes == null) {
+            changes = new TIntIntHashMap();
+            changesPerChunk.put(new Vector3i(chunkPos), changes);
+        }
+        Vector3i blockPos = ChunkMath.calcBlockPos(worldPos);
+        changes.put(getIndex(blockPos.x, blockPos.y, blockPos.z), block.getId());
+    }
+
+    /**
+     * Adds the changes collected since the last call to the message.
+     */
+    synchronized void write(NetData.NetMessage.Builder message) {
+        if (changesPerChunk.isEmpty()) {
+            return;
+        }
+        UnknownFieldSet.Field.Builder field = UnknownFieldSet.Field.newBuilder();
+        for (Map.Entry<Vector3i, TIntIntMap> entry : changesPerChunk.entrySet()) {
+            field.addLengthDelimited(encode(entry.getKey(), entry.getValue()));
+        }
+        changesPerChunk.clear();
+        message.mergeUnknownFields(UnknownFieldSet.newBuilder().addField(CHANGES_FIELD, field.build()).build());
+    }
+
+    /**
+     * @return the changed blocks of every chunk in the message, by the index of the block within the chunk
+     */
+    static Map<Vector3i, TIntIntMap> read(NetData.NetMessage message) {
+        Map<Vector3i, TIntIntMap> result = Maps.newLinkedHashMap();
+        for (ByteString delta : message.getUnknownFields().getField(CHANGES_FIELD).getLengthDelimitedList()) {
+            try {
+                CodedInputStream input = delta.newCodedInput();
+                Vector3i chunkPos = new Vector3i(input.readSInt32(), input.readSInt32(), input.readSInt32());
+                TIntIntMap changes = result.get(chunkPos);
+                if (changes == null) {
+                    changes = new TIntIntHashMap();
+                    result.put(chunkPos, changes);
+                }
+                int index = 0;
+                while (!input.isAtEnd()) {
+                    index += input.readUInt32();
+                    int end = index + input.readUInt32();
+                    int blockId = input.readUInt32();
+                    if (end > ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z) {
+                        throw new IOException("Block changes exceed the chunk");
+                    }
+                    for (; index < end; index++) {
+                        changes.put(index, blockId);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Received invalid block changes", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the smallest region of the chunk enclosing all the changed blocks
+     */
+    static Region3i getRegion(Vector3i chunkPos, TIntIntMap changes) {
+        Vector3i min = new Vector3i(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        Vector3i max = new Vector3i(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        for (int index : changes.keys()) {
+            Vector3i pos = new Vector3i(index % ChunkConstants.SIZE_X, index / (ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z),
+                    (index / ChunkConstants.SIZE_X) % ChunkConstants.SIZE_Z);
+            min.min(pos);
+            max.max(pos);
+        }
+        Vector3i offset = new Vector3i(chunkPos.x * ChunkConstants.SIZE_X, chunkPos.y * ChunkConstants.SIZE_Y,
+                chunkPos.z * ChunkConstants.SIZE_Z);
+        min.add(offset);
+        max.add(offset);
+        return Region3i.createFromMinMax(min, max);
+    }
+
+    /**
+     * @return an edit placing the changed blocks of the chunk, to be applied to the region returned by
+     * {@link #getRegion(Vector3i, TIntIntMap)}
+     */
+    static BlockRegionEdit createEdit(Vector3i chunkPos, TIntIntMap changes, BlockManager blockManager) {
+        final int offsetX = chunkPos.x * ChunkConstants.SIZE_X;
+        final int offsetY = chunkPos.y * ChunkConstants.SIZE_Y;
+        final int offsetZ = chunkPos.z * ChunkConstants.SIZE_Z;
+        return (x, y, z, current) -> {
+            int index = getIndex(x - offsetX, y - offsetY, z - offsetZ);
+            return changes.containsKey(index) ? blockManager.getBlock((short) changes.get(index)) : null;
+        };
+    }
+
+    private static ByteString encode(Vector3i chunkPos, TIntIntMap changes) {
+        int[] indices = changes.keys();
+        Arrays.sort(indices);
+        ByteString.Output output = ByteString.newOutput();
+        CodedOutputStream coded = CodedOutputStream.newInstance(output);
+        try {
+            coded.writeSInt32NoTag(chunkPos.x);
+            coded.writeSInt32NoTag(chunkPos.y);
+            coded.writeSInt32NoTag(chunkPos.z);
+            int previousEnd = 0;
+            int i = 0;
+            while (i < indices.length) {
+                int blockId = changes.get(indices[i]);
+                int runEnd = i + 1;
+                while (runEnd < indices.length && indices[runEnd] == indices[runEnd - 1] + 1 && changes.get(indices[runEnd]) == blockId) {
+                    runEnd++;
+                }
+                coded.writeUInt32NoTag(indices[i] - previousEnd);
+                coded.writeUInt32NoTag(runEnd - i);
+                coded.writeUInt32NoTag(blockId);
+                previousEnd = indices[runEnd - 1] + 1;
+                i = runEnd;
+            }
+            coded.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode block changes in memory", e);
+        }
+        return output.toByteString();
+    }
+
+    private static int getIndex(int x, int y, int z) {
+        return x + ChunkConstants.SIZE_X * (z + ChunkConstants.SIZE_Z * y);
+    }
+}
@@ -132,6 +132,12 @@ private void receivedConnect(NetData.JoinMessage message) {
         client.setPreferredName(message.getName());
         client.setColor(new Color(message.getColor().getRgba()));
         client.setViewDistanceMode(ViewDistance.forIndex(message.getViewDistanceLevel()));
+        if (ChunkDeltaCache.isSupportAnnounced(message)) {
+            client.enableChunkDeltas();
+        }
+        if (PackedBlockChanges.isSupportAnnounced(message)) {
+            client.enablePackedBlockChanges();
+        }
         channelHandlerContext.getPipeline().remove(this);
         serverHandler.connectionComplete(client);
     }
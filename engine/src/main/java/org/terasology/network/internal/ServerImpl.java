@@ -24,6 +24,7 @@
 import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TIntIntMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import org.jboss.netty.channel.Channel;
@@ -36,6 +37,7 @@
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.event.Event;
 import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
@@ -95,9 +97,12 @@ public class ServerImpl implements Server {
     private BlockEntityRegistry blockEntityRegistry;
     private RemoteChunkProvider remoteWorldProvider;
     private BlockingQueue<Chunk> chunkQueue = Queues.newLinkedBlockingQueue();
+    private final ChunkDeltaCache receivedChunks = new ChunkDeltaCache();
+    private final List<Vector3i> chunkResendRequests = Lists.newArrayList();
     private TIntSet netDirty = new TIntHashSet();
     private SetMultimap<Integer, Class<? extends Component>> changedComponents = HashMultimap.create();
     private ListMultimap<Vector3i, NetData.BlockChangeMessage> awaitingChunkReadyBlockUpdates = ArrayListMultimap.create();
+    private Map<Vector3i, TIntIntMap> awaitingChunkReadyPackedBlockChanges = Maps.newHashMap();
     private ListMultimap<Vector3i, NetData.ExtraDataChangeMessage> awaitingChunkReadyExtraDataUpdates = ArrayListMultimap.create();
 
     private EngineTime time;
@@ -175,11 +180,13 @@ public void update(boolean netTick) {
                 message.setTime(time.getGameTimeInMs());
                 sendEntities(message);
                 sendEvents(message);
+                sendChunkResendRequests(message);
                 send(message.build());
-            } else if (!queuedOutgoingEvents.isEmpty()) {
+            } else if (!queuedOutgoingEvents.isEmpty() || !chunkResendRequests.isEmpty()) {
                 NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
                 message.setTime(time.getGameTimeInMs());
                 sendEvents(message);
+                sendChunkResendRequests(message);
                 send(message.build());
             }
 
@@ -192,6 +199,13 @@ private void sendEvents(NetData.NetMessage.Builder message) {
         queuedOutgoingEvents.clear();
     }
 
+    private void sendChunkResendRequests(NetData.NetMessage.Builder message) {
+        if (!chunkResendRequests.isEmpty()) {
+            ChunkDeltaCache.requestResend(message, chunkResendRequests);
+            chunkResendRequests.clear();
+        }
+    }
+
     private void processReceivedChunks() {
         if (remoteWorldProvider != null) {
             List<Chunk> chunks = Lists.newArrayListWithExpectedSize(chunkQueue.size());
@@ -266,6 +280,7 @@ private void processMessages() {
             processReceivedChunks(message);
             processInvalidatedChunks(message);
             processBlockChanges(message);
+            processPackedBlockChanges(message);
             processExtraDataChanges(message);
             processRemoveEntities(message);
             message.getCreateEntityList().forEach(this::createEntityMessage);
@@ -310,6 +325,26 @@ private void processBlockChanges(NetData.NetMessage message) {
         }
     }
 
+    /**
+     * Apply the packed block changes from the message to the local world, one chunk at a time.
+     */
+    private void processPackedBlockChanges(NetData.NetMessage message) {
+        WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
+        for (Map.Entry<Vector3i, TIntIntMap> entry : PackedBlockChanges.read(message).entrySet()) {
+            Region3i region = PackedBlockChanges.getRegion(entry.getKey(), entry.getValue());
+            if (worldProvider.isRegionRelevant(region)) {
+                worldProvider.setBlocks(region, PackedBlockChanges.createEdit(entry.getKey(), entry.getValue(), blockManager));
+            } else {
+                TIntIntMap awaiting = awaitingChunkReadyPackedBlockChanges.get(entry.getKey());
+                if (awaiting == null) {
+                    awaitingChunkReadyPackedBlockChanges.put(entry.getKey(), entry.getValue());
+                } else {
+                    awaiting.putAll(entry.getValue());
+                }
+            }
+        }
+    }
+
     /**
      * Apply the extra-data changes from the message to the local world.
      */
@@ -330,14 +365,22 @@ private void processInvalidatedChunks(NetData.NetMessage message) {
             Vector3i chunkPos = NetMessageUtil.convert(chunk.getPos());
             remoteWorldProvider.invalidateChunks(chunkPos);
             awaitingChunkReadyBlockUpdates.removeAll(chunkPos);
+            awaitingChunkReadyPackedBlockChanges.remove(chunkPos);
             awaitingChunkReadyExtraDataUpdates.removeAll(chunkPos);
         }
     }
 
     private void processReceivedChunks(NetData.NetMessage message) {
-        for (EntityData.ChunkStore chunkInfo : message.getChunkInfoList()) {
-            Chunk chunk = ChunkSerializer.decode(chunkInfo, blockManager, extraDataManager);
-            chunkQueue.offer(chunk);
+        for (EntityData.ChunkStore receivedChunkInfo : message.getChunkInfoList()) {
+            EntityData.ChunkStore chunkInfo = receivedChunks.decode(receivedChunkInfo);
+            if (chunkInfo != null) {
+                Chunk chunk = ChunkSerializer.decode(chunkInfo, blockManager, extraDataManager);
+                chunkQueue.offer(chunk);
+            } else {
+                Vector3i chunkPos = new Vector3i(receivedChunkInfo.getX(), receivedChunkInfo.getY(), receivedChunkInfo.getZ());
+                logger.info("Requesting chunk {} again", chunkPos);
+                chunkResendRequests.add(chunkPos);
+            }
         }
     }
 
@@ -420,6 +463,12 @@ public void onChunkReady(Vector3i chunkPos) {
             worldProvider.setBlock(pos, newBlock);
         }
 
+        TIntIntMap packedBlockChanges = awaitingChunkReadyPackedBlockChanges.remove(chunkPos);
+        if (packedBlockChanges != null) {
+            worldProvider.setBlocks(PackedBlockChanges.getRegion(chunkPos, packedBlockChanges),
+                    PackedBlockChanges.createEdit(chunkPos, packedBlockChanges, blockManager));
+        }
+
         List<NetData.ExtraDataChangeMessage> updateExtraDataMessages = awaitingChunkReadyExtraDataUpdates.removeAll(chunkPos);
         for (NetData.ExtraDataChangeMessage message : updateExtraDataMessages) {
             Vector3i pos = NetMessageUtil.convert(message.getPos());
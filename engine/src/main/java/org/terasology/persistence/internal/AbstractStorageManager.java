@@ -19,6 +19,8 @@
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.entity.internal.OwnershipHelper;
@@ -32,6 +34,7 @@
 import org.terasology.persistence.StorageManager;
 import org.terasology.persistence.serializers.PrefabSerializer;
 import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.blockdata.ExtraBlockDataManager;
@@ -65,8 +68,10 @@ public abstract class AbstractStorageManager implements StorageManager {
     private final EngineEntityManager entityManager;
     private final PrefabSerializer prefabSerializer;
     private final OwnershipHelper helper;
+    private final ChunkRegionStore chunkRegionStore;
 
     private boolean storeChunksInZips = true;
+    private boolean storeChunksInRegions;
 
     public AbstractStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
                                   BlockManager blockManager, ExtraBlockDataManager extraDataManager, boolean storeChunksInZips) {
@@ -79,6 +84,10 @@ public AbstractStorageManager(Path savePath, ModuleEnvironment environment, Engi
 
         this.storagePathProvider = new StoragePathProvider(savePath);
         this.helper = new OwnershipHelper(entityManager.getComponentLibrary());
+        this.chunkRegionStore = new ChunkRegionStore(storagePathProvider);
+        Config config = CoreRegistry.get(Config.class);
+        this.storeChunksInRegions = config != null
+                && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.REGION_CHUNK_STORAGE);
     }
 
     @Override
@@ -87,6 +96,12 @@ public void loadGlobalStore() throws IOException {
         if (Files.isRegularFile(globalDataFile)) {
             try (InputStream in = new BufferedInputStream(Files.newInputStream(globalDataFile))) {
                 EntityData.GlobalStore store = EntityData.GlobalStore.parseFrom(in);
+                Path journalFile = storagePathProvider.getGlobalEntityStoreJournalPath();
+                if (Files.isRegularFile(journalFile)) {
+                    try (InputStream journalIn = new BufferedInputStream(Files.newInputStream(journalFile))) {
+                        store = GlobalStoreJournal.apply(store, journalIn);
+                    }
+                }
                 GlobalStoreLoader loader = new GlobalStoreLoader(environment, entityManager, prefabSerializer);
                 loader.load(store);
             }
@@ -150,7 +165,42 @@ void setStoreChunksInZips(boolean storeChunksInZips) {
         this.storeChunksInZips = storeChunksInZips;
     }
 
+    public boolean isStoreChunksInRegions() {
+        return storeChunksInRegions;
+    }
+
+    /**
+     * For tests only
+     */
+    void setStoreChunksInRegions(boolean storeChunksInRegions) {
+        this.storeChunksInRegions = storeChunksInRegions;
+    }
+
+    /**
+     * Loads the chunk from the region files. Chunks that have not been saved since region files got enabled are
+     * loaded from the chunk zips or chunk files instead.
+     */
+    private byte[] loadChunkFromRegion(Vector3i chunkPos) {
+        try {
+            byte[] chunkData = chunkRegionStore.load(chunkPos);
+            if (chunkData != null) {
+                return chunkData;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load chunk {} from region file", chunkPos, e);
+            return null;
+        }
+        return loadLegacyCompressedChunk(chunkPos);
+    }
+
     protected byte[] loadCompressedChunk(Vector3i chunkPos) {
+        if (isStoreChunksInRegions()) {
+            return loadChunkFromRegion(chunkPos);
+        }
+        return loadLegacyCompressedChunk(chunkPos);
+    }
+
+    private byte[] loadLegacyCompressedChunk(Vector3i chunkPos) {
         if (isStoreChunksInZips()) {
             return loadChunkZip(chunkPos);
         } else {
@@ -217,6 +267,10 @@ protected StoragePathProvider getStoragePathProvider() {
         return storagePathProvider;
     }
 
+    ChunkRegionStore getChunkRegionStore() {
+        return chunkRegionStore;
+    }
+
     protected ModuleEnvironment getEnvironment() {
         return environment;
     }
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A memory mapped file that stores the compressed chunks of a cube of {@link #REGION_DIM} chunks per axis.
+ * <br><br>
+ * The file starts with an offset table with one entry per chunk position: the index of the first sector holding the
+ * chunk and the length of the chunk data in bytes (0 if the chunk has not been stored). Chunk data occupies whole
+ * 4 KiB sectors.
+ * <br><br>
+ * Stored chunks are never overwritten in place: new data goes to the first free run of sectors, growing the file when
+ * there is none, and the offset table only gets updated by {@link #flush()}, after the data has been forced to the
+ * storage device. The sectors of the replaced data are only reused after that, so a crash while writing leaves the
+ * previously flushed version of every chunk intact.
+ * <br><br>
+ * All methods are synchronized, a single instance can be shared by loading and saving threads.
+ */
+final class ChunkRegionFile implements Closeable {
+    /**
+     * The number of chunks per axis covered by a region file.
+     */
+    static final int REGION_DIM = 16;
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkRegionFile.class);
+
+    private static final int ENTRY_COUNT = REGION_DIM * REGION_DIM * REGION_DIM;
+    private static final int ENTRY_SIZE = 2 * Integer.BYTES;
+    private static final int SECTOR_SIZE = 4096;
+    private static final int HEADER_SECTORS = (ENTRY_COUNT * ENTRY_SIZE + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    /**
+     * The minimum number of sectors by which the mapping grows, so that appending chunks doesn't remap every time.
+     */
+    private static final int GROWTH_SECTORS = 256;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final int[] sectorOffsets = new int[ENTRY_COUNT];
+    private final int[] lengths = new int[ENTRY_COUNT];
+    private final BitSet usedSectors = new BitSet();
+    /**
+     * The sectors written since the last flush, which the offset table in the file does not reference yet.
+     */
+    private final BitSet unflushedSectors = new BitSet();
+    /**
+     * The sectors of replaced data which the offset table in the file still references until the next flush.
+     */
+    private final BitSet releasedSectors = new BitSet();
+    private final BitSet changedEntries = new BitSet();
+
+    private MappedByteBuffer buffer;
+    private int mappedSectors;
+
+    private ChunkRegionFile(Path path, FileChannel channel, boolean readOnly) {
+        this.path = path;
+        this.channel = channel;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Opens the region file at the given path. If the file is opened for writing, it gets created when it doesn't
+     * exist yet.
+     */
+    static ChunkRegionFile open(Path path, boolean readOnly) throws IOException {
+        FileChannel channel = readOnly
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            ChunkRegionFile regionFile = new ChunkRegionFile(path, channel, readOnly);
+            regionFile.readHeader();
+            return regionFile;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the position of the region that contains the given chunk
+     */
+    static Vector3i getRegionPosition(Vector3i chunkPos) {
+        return new Vector3i(Math.floorDiv(chunkPos.x, REGION_DIM), Math.floorDiv(chunkPos.y, REGION_DIM),
+                Math.floorDiv(chunkPos.z, REGION_DIM));
+    }
+
+    private static int getEntryIndex(Vector3i chunkPos) {
+        int x = Math.floorMod(chunkPos.x, REGION_DIM);
+        int y = Math.floorMod(chunkPos.y, REGION_DIM);
+        int z = Math.floorMod(chunkPos.z, REGION_DIM);
+        return (x * REGION_DIM + y) * REGION_DIM + z;
+    }
+
+    private static int sectorsFor(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return the stored data of the chunk, or null if the chunk has not been stored in this region
+     */
+    synchronized byte[] read(Vector3i chunkPos) throws IOException {
+        ensureOpen();
+        int index = getEntryIndex(chunkPos);
+        int length = lengths[index];
+        if (length == 0) {
+            return null;
+        }
+        byte[] data = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(sectorOffsets[index] * SECTOR_SIZE);
+        view.get(data);
+        return data;
+    }
+
+    /**
+     * Stores the data of the chunk, replacing the previously stored data once {@link #flush()} is called. The data is
+     * written to free sectors, so the previous data stays intact until then.
+     */
+    synchronized void write(Vector3i chunkPos, byte[] data) throws IOException {
+        ensureOpen();
+        if (readOnly) {
+            throw new IOException("Region file " + path + " has been opened read only");
+        }
+        int index = getEntryIndex(chunkPos);
+        int neededSectors = sectorsFor(data.length);
+        int offset = 0;
+        if (neededSectors > 0) {
+            offset = findFreeSectors(neededSectors);
+            ensureMapped(offset + neededSectors);
+            usedSectors.set(offset, offset + neededSectors);
+            unflushedSectors.set(offset, offset + neededSectors);
+
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset * SECTOR_SIZE);
+            view.put(data);
+        }
+        releaseSectors(sectorOffsets[index], sectorsFor(lengths[index]));
+        sectorOffsets[index] = offset;
+        lengths[index] = data.length;
+        changedEntries.set(index);
+    }
+
+    /**
+     * Writes outstanding changes to the storage device: first the data of the chunks written since the last flush,
+     * then the offset table entries pointing at it.
+     */
+    synchronized void flush() {
+        if (readOnly || buffer == null || changedEntries.isEmpty()) {
+            return;
+        }
+        buffer.force();
+        for (int index = changedEntries.nextSetBit(0); index >= 0; index = changedEntries.nextSetBit(index + 1)) {
+            buffer.putInt(index * ENTRY_SIZE, sectorOffsets[index]);
+            buffer.putInt(index * ENTRY_SIZE + Integer.BYTES, lengths[index]);
+        }
+        buffer.force();
+        changedEntries.clear();
+        usedSectors.andNot(releasedSectors);
+        releasedSectors.clear();
+        unflushedSectors.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        buffer = null;
+        channel.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffer == null) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        usedSectors.set(0, HEADER_SECTORS);
+        long size = channel.size();
+        if (size < (long) HEADER_SECTORS * SECTOR_SIZE) {
+            if (readOnly) {
+                throw new IOException("Region file " + path + " is truncated");
+            }
+            remap(HEADER_SECTORS);
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Region file " + path + " is too large to be mapped");
+        }
+        remap((int) (size / SECTOR_SIZE));
+        for (int index = 0; index < ENTRY_COUNT; index++) {
+            int offset = buffer.getInt(index * ENTRY_SIZE);
+            int length = buffer.getInt(index * ENTRY_SIZE + Integer.BYTES);
+            if (length == 0) {
+                continue;
+            }
+            int sectors = sectorsFor(length);
+            if (length < 0 || offset < HEADER_SECTORS || offset + sectors > mappedSectors
+                    || overlapsUsedSectors(offset, sectors)) {
+                logger.warn("Ignoring invalid chunk entry {} in region file {}", index, path);
+                continue;
+            }
+            sectorOffsets[index] = offset;
+            lengths[index] = length;
+            usedSectors.set(offset, offset + sectors);
+        }
+    }
+
+    /**
+     * Frees the sectors of replaced data. Sectors the offset table in the file still references are only freed by the
+     * next flush.
+     */
+    private void releaseSectors(int offset, int count) {
+        for (int sector = offset; sector < offset + count; sector++) {
+            if (unflushedSectors.get(sector)) {
+                unflushedSectors.clear(sector);
+                usedSectors.clear(sector);
+            } else {
+                releasedSectors.set(sector);
+            }
+        }
+    }
+
+    private boolean overlapsUsedSectors(int offset, int count) {
+        int nextUsed = usedSectors.nextSetBit(offset);
+        return nextUsed >= 0 && nextUsed < offset + count;
+    }
+
+    private int findFreeSectors(int count) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (start < mappedSectors) {
+            int end = usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= count) {
+                return start;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+        return Math.max(start, HEADER_SECTORS);
+    }
+
+    private void ensureMapped(int sectors) throws IOException {
+        if (sectors > mappedSectors) {
+            remap(Math.max(sectors, mappedSectors + GROWTH_SECTORS));
+        }
+    }
+
+    private void remap(int sectors) throws IOException {
+        long size = (long) sectors * SECTOR_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Region file " + path + " would exceed the maximum mappable size");
+        }
+        if (buffer != null) {
+            buffer.force();
+        }
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        buffer = channel.map(mode, 0, size);
+        mappedSectors = sectors;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Stores compressed chunks in {@link ChunkRegionFile}s inside the world directory.
+ * <br><br>
+ * Unlike the chunk zips, region files don't get rewritten as a whole: saving a chunk only writes the chunk itself,
+ * no matter how many other chunks the region contains. Stored chunks only get replaced by {@link #flush()}.
+ * <br><br>
+ * Region files are opened on first use and kept open (and mapped) until {@link #close()} gets called. They are opened
+ * read only until a chunk gets written to them, which replaces the read only instance. Loads which still hold a
+ * replaced or closed instance read through the current one instead.
+ */
+class ChunkRegionStore {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkRegionStore.class);
+
+    private final StoragePathProvider storagePathProvider;
+    private final Map<Vector3i, ChunkRegionFile> regionFiles = Maps.newHashMap();
+
+    ChunkRegionStore(StoragePathProvider storagePathProvider) {
+        this.storagePathProvider = storagePathProvider;
+    }
+
+    /**
+     * @return the stored data of the chunk, or null if it has not been stored in a region file
+     */
+    byte[] load(Vector3i chunkPos) throws IOException {
+        Vector3i regionPos = ChunkRegionFile.getRegionPosition(chunkPos);
+        ChunkRegionFile regionFile = getRegionFile(regionPos, false);
+        while (regionFile != null) {
+            try {
+                return regionFile.read(chunkPos);
+            } catch (ClosedChannelException e) {
+                // the saving thread reopened the file for writing or the store got closed since we got the file
+                ChunkRegionFile currentRegionFile = getRegionFile(regionPos, false);
+                if (currentRegionFile == regionFile) {
+                    throw e;
+                }
+                regionFile = currentRegionFile;
+            }
+        }
+        return null;
+    }
+
+    void store(Vector3i chunkPos, byte[] compressedChunk) throws IOException {
+        getRegionFile(ChunkRegionFile.getRegionPosition(chunkPos), true).write(chunkPos, compressedChunk);
+    }
+
+    /**
+     * Writes all changes to the storage device and makes the chunks stored since the last flush replace the previously
+     * stored ones, see {@link ChunkRegionFile#flush()}.
+     */
+    synchronized void flush() {
+        regionFiles.values().forEach(ChunkRegionFile::flush);
+    }
+
+    /**
+     * Flushes and closes all open region files. The store can still be used afterwards.
+     */
+    synchronized void close() {
+        for (ChunkRegionFile regionFile : regionFiles.values()) {
+            try {
+                regionFile.close();
+            } catch (IOException e) {
+                logger.error("Failed to close chunk region file", e);
+            }
+        }
+        regionFiles.clear();
+    }
+
+    private synchronized ChunkRegionFile getRegionFile(Vector3i regionPos, boolean forWriting) throws IOException {
+        ChunkRegionFile regionFile = regionFiles.get(regionPos);
+        if (regionFile != null && (!forWriting || !regionFile.isReadOnly())) {
+            return regionFile;
+        }
+
+        Path path = storagePathProvider.getChunkRegionPath(regionPos);
+        if (forWriting) {
+            if (regionFile != null) {
+                regionFile.close();
+            }
+            Files.createDirectories(path.getParent());
+        } else if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        regionFile = ChunkRegionFile.open(path, !forWriting);
+        regionFiles.put(regionPos, regionFile);
+        return regionFile;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.terasology.persistence.internal;
 
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.persistence.ChunkStore;
@@ -58,4 +60,15 @@ public Chunk getChunk() {
     public void restoreEntities() {
         new EntityRestorer(entityManager).restore(entityStore);
     }
+
+    /**
+     * @return the ids of the entities stored with the chunk
+     */
+    TLongSet getStoredEntityIds() {
+        TLongSet ids = new TLongHashSet(entityStore.getEntityCount());
+        for (EntityData.Entity entity : entityStore.getEntityList()) {
+            ids.add(entity.getId());
+        }
+        return ids;
+    }
 }
@@ -15,6 +15,8 @@
  */
 package org.terasology.persistence.internal;
 
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.protobuf.EntityData;
@@ -33,12 +35,15 @@
  */
 public class CompressedChunkBuilder {
     private EntityData.EntityStore entityStore;
+    private EntityStoreEncoder entityStoreEncoder;
     private ChunkImpl chunk;
     private boolean viaSnapshot;
     private byte[] result;
     private Set<EntityRef> storedEntities;
 
     /**
+     * The entities are only captured here, they get encoded together with the chunk by {@link #buildEncodedChunk()}.
+     * So they may be deactivated once this returns, but their components must no longer be changed.
      *
      * @param entitiesToSave all persistent entities within the given chunk
      * @param chunkUnloaded if true the chunk data will be used directly.  If deactivate is false then the chunk will be
@@ -48,10 +53,10 @@ public class CompressedChunkBuilder {
     public CompressedChunkBuilder(EngineEntityManager entityManager, ChunkImpl chunk,
                                   Collection<EntityRef> entitiesToSave,
                                   boolean chunkUnloaded) {
-        EntityStorer storer = new EntityStorer(entityManager);
-        entitiesToSave.stream().filter(EntityRef::isPersistent).forEach(storer::store);
-        storedEntities = storer.getStoredEntities();
-        this.entityStore = storer.finaliseStore();
+        EntityStoreEncoder encoder = new EntityStoreEncoder(entityManager);
+        entitiesToSave.stream().filter(EntityRef::isPersistent).forEach(encoder::store);
+        storedEntities = encoder.getStoredEntities();
+        this.entityStoreEncoder = encoder;
 
         this.chunk = chunk;
         this.viaSnapshot = !chunkUnloaded;
@@ -81,17 +86,23 @@ public synchronized byte[] buildEncodedChunk() {
             } else {
                 encoded = chunk.encode();
             }
-            encoded.setStore(entityStore);
-            EntityData.ChunkStore store = encoded.build();
-            result = compressChunkStore(store);
+            result = compressChunkStore(encoded.build());
+            // The captured entities are no longer needed
+            entityStoreEncoder = null;
         }
         return result;
     }
 
-    private byte[] compressChunkStore(EntityData.ChunkStore store) {
+    private byte[] compressChunkStore(EntityData.ChunkStore chunkWithoutEntities) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
-            store.writeTo(gzipOut);
+            CodedOutputStream output = CodedOutputStream.newInstance(gzipOut);
+            if (entityStoreEncoder != null) {
+                writeChunkStore(output, chunkWithoutEntities, entityStoreEncoder.encode());
+            } else {
+                writeChunkStore(output, chunkWithoutEntities, entityStore);
+            }
+            output.flush();
         } catch (IOException e) {
             // as no real IO is involved this should not happen
             throw new RuntimeException(e);
@@ -99,6 +110,29 @@ private byte[] compressChunkStore(EntityData.ChunkStore store) {
         return baos.toByteArray();
     }
 
+    /**
+     * Writes the chunk followed by the entity store as its store field, which is the same as writing a chunk store
+     * with the entity store set, but spares copying the chunk builder and building the combined message. Like the
+     * rest of {@link #buildEncodedChunk()} this runs on the thread saving the chunk.
+     */
+    static void writeChunkStore(CodedOutputStream output, EntityData.ChunkStore chunkWithoutEntities,
+                                EntityData.EntityStore entityStore) throws IOException {
+        chunkWithoutEntities.writeTo(output);
+        output.writeMessage(EntityData.ChunkStore.STORE_FIELD_NUMBER, entityStore);
+    }
+
+    /**
+     * Like {@link #writeChunkStore(CodedOutputStream, EntityData.ChunkStore, EntityData.EntityStore)}, for an entity
+     * store that is already encoded.
+     */
+    static void writeChunkStore(CodedOutputStream output, EntityData.ChunkStore chunkWithoutEntities,
+                                byte[] encodedEntityStore) throws IOException {
+        chunkWithoutEntities.writeTo(output);
+        output.writeTag(EntityData.ChunkStore.STORE_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(encodedEntityStore.length);
+        output.writeRawBytes(encodedEntityStore);
+    }
+
     public Set<EntityRef> getStoredEntities() {
         return storedEntities;
     }
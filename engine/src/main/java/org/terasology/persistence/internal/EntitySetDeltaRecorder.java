@@ -42,6 +42,10 @@ class EntitySetDeltaRecorder {
     private TLongObjectMap<EntityDelta> entityDeltas = new TLongObjectHashMap<>();
     private TLongSet destroyedEntities = new TLongHashSet();
     private TLongSet deactivatedEntities = new TLongHashSet();
+    /**
+     * Entities whose only recorded change is that they got restored from storage.
+     */
+    private TLongSet restoredEntities = new TLongHashSet();
     /**
      * The used keys are unique, so that it is a collection of {@link DelayedEntityRef}s that cleans itself up
      * when the{@link DelayedEntityRef}s get no longer referenced
@@ -64,6 +68,7 @@ public void onEntityComponentAdded(EntityRef entity, Class<? extends Component>
 
     public void onEntityComponentChange(EntityRef entity, Class<? extends Component> componentClass) {
         if (entity.isPersistent()) {
+            restoredEntities.remove(entity.getId());
             EntityDelta entityDelta = getOrCreateEntityDeltaFor(entity);
             Component component = entity.getComponent(componentClass);
             Component componentSnapshot = componentLibrary.copy(component);
@@ -73,6 +78,7 @@ public void onEntityComponentChange(EntityRef entity, Class<? extends Component>
 
     public void onEntityComponentRemoved(EntityRef entity, Class<? extends Component> component) {
         if (entity.isPersistent()) {
+            restoredEntities.remove(entity.getId());
             EntityDelta entityDelta = getOrCreateEntityDeltaFor(entity);
             entityDelta.removeComponent(component);
         }
@@ -91,6 +97,7 @@ private EntityDelta getOrCreateEntityDeltaFor(EntityRef entity) {
     public void onEntityDestroyed(EntityRef entity) {
         if (entity.isPersistent()) {
             entityDeltas.remove(entity.getId());
+            restoredEntities.remove(entity.getId());
             destroyedEntities.add(entity.getId());
         }
     }
@@ -107,6 +114,15 @@ public TLongSet getDeactivatedEntities() {
         return deactivatedEntities;
     }
 
+    /**
+     * @return true if the entity got modified, destroyed or deactivated since the recording started. Getting restored
+     *         from storage does not count as modification.
+     */
+    public boolean isModified(long entityId) {
+        return destroyedEntities.contains(entityId) || deactivatedEntities.contains(entityId)
+                || (entityDeltas.containsKey(entityId) && !restoredEntities.contains(entityId));
+    }
+
     public void onReactivation(EntityRef entity, Collection<Component> components) {
         if (entity.isPersistent()) {
             EntityDelta entityDelta = getOrCreateEntityDeltaFor(entity);
@@ -117,6 +133,18 @@ public void onReactivation(EntityRef entity, Collection<Component> components) {
         }
     }
 
+    /**
+     * Marks the entities as unmodified, as they have just been created from the data that got stored for them.
+     */
+    public void onEntitiesRestored(TLongSet entityIds) {
+        entityIds.forEach(entityId -> {
+            if (entityDeltas.containsKey(entityId)) {
+                restoredEntities.add(entityId);
+            }
+            return true;
+        });
+    }
+
     public void onBeforeDeactivation(EntityRef entity, Collection<Component> components) {
         if (entity.isPersistent()) {
             deactivatedEntities.add(entity.getId());
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.entity.internal.EntityScope;
+import org.terasology.entitySystem.entity.internal.OwnershipHelper;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.entitySystem.prefab.Prefab;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.protobuf.EntityData;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes entities into an EntityData.EntityStore the way {@link EntityStorer} stores them, but in two steps: the
+ * entities are captured by {@link #store(EntityRef)} and written to bytes by {@link #encode()}.
+ * <br><br>
+ * Capturing only keeps the components of the entities, so the entities may be deactivated afterwards. Components that
+ * might hold entity references are encoded while capturing though, as those references serialize differently once the
+ * referenced entities are gone. The rest gets written straight to the bytes when encoding, which may happen on another
+ * thread as long as the captured components are no longer modified.
+ */
+final class EntityStoreEncoder {
+
+    private final ComponentLibrary componentLibrary;
+    private final ComponentSerializer componentSerializer;
+    private final OwnershipHelper helper;
+    private final List<String> componentClasses = Lists.newArrayList();
+    private final List<CapturedEntity> capturedEntities = Lists.newArrayList();
+    private final Set<EntityRef> storedEntities = Sets.newHashSet();
+
+    EntityStoreEncoder(EngineEntityManager entityManager) {
+        this.componentLibrary = entityManager.getComponentLibrary();
+        this.componentSerializer = new ComponentSerializer(componentLibrary, entityManager.getTypeSerializerLibrary());
+        this.helper = new OwnershipHelper(componentLibrary);
+
+        Map<Class<? extends Component>, Integer> componentIds = Maps.newHashMap();
+        for (ComponentMetadata<?> componentMetadata : componentLibrary.iterateComponentMetadata()) {
+            componentClasses.add(componentMetadata.getUri().toString());
+            componentIds.put(componentMetadata.getType(), componentIds.size());
+        }
+        componentSerializer.setIdMapping(componentIds);
+    }
+
+    public void store(EntityRef entity) {
+        if (entity.isActive()) {
+            for (EntityRef ownedEntity : helper.listOwnedEntities(entity)) {
+                if (!ownedEntity.isAlwaysRelevant() && ownedEntity.isPersistent()) {
+                    store(ownedEntity);
+                }
+            }
+            capturedEntities.add(new CapturedEntity(entity));
+            storedEntities.add(entity);
+        }
+    }
+
+    /**
+     * @return the encoded EntityData.EntityStore with all captured entities
+     */
+    public byte[] encode() {
+        List<byte[]> entities = Lists.newArrayListWithCapacity(capturedEntities.size());
+        int size = 0;
+        for (CapturedEntity entity : capturedEntities) {
+            byte[] encodedEntity = entity.encode();
+            entities.add(encodedEntity);
+            size += computeLengthDelimitedSize(EntityData.EntityStore.ENTITY_FIELD_NUMBER, encodedEntity.length);
+        }
+        for (String componentClass : componentClasses) {
+            size += CodedOutputStream.computeStringSize(EntityData.EntityStore.COMPONENT_CLASS_FIELD_NUMBER, componentClass);
+        }
+
+        byte[] encoded = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+        try {
+            for (byte[] encodedEntity : entities) {
+                writeLengthDelimited(output, EntityData.EntityStore.ENTITY_FIELD_NUMBER, encodedEntity);
+            }
+            for (String componentClass : componentClasses) {
+                output.writeString(EntityData.EntityStore.COMPONENT_CLASS_FIELD_NUMBER, componentClass);
+            }
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // the array is sized up front, so this only happens if a size was computed wrongly
+            throw new IllegalStateException("Failed to encode entity store", e);
+        }
+        return encoded;
+    }
+
+    /**
+     *
+     * @return all entities stored directly or indirectly (owned entities) via the store methods.
+     */
+    public Set<EntityRef> getStoredEntities() {
+        return storedEntities;
+    }
+
+    private static int computeLengthDelimitedSize(int fieldNumber, int length) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeRawVarint32Size(length) + length;
+    }
+
+    private static void writeLengthDelimited(CodedOutputStream output, int fieldNumber, byte[] bytes) throws IOException {
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(bytes.length);
+        output.writeRawBytes(bytes);
+    }
+
+    /**
+     * The state of an entity as the EntitySerializer would see it, with the entity serialized as a delta against its
+     * prefab if it has one.
+     */
+    private final class CapturedEntity {
+        private final long id;
+        private final String parentPrefab;
+        private final Boolean alwaysRelevant;
+        private final Long owner;
+        private final EntityData.Entity.Scope scope;
+        private final List<CapturedComponent> components;
+        private final List<String> removedComponents = Lists.newArrayList();
+
+        private CapturedEntity(EntityRef entity) {
+            this.id = entity.getId();
+            Prefab prefab = entity.getParentPrefab();
+            if (prefab != null) {
+                this.parentPrefab = prefab.getName();
+                boolean differsFromPrefab = entity.isAlwaysRelevant() != prefab.isAlwaysRelevant();
+                this.alwaysRelevant = differsFromPrefab ? entity.isAlwaysRelevant() : null;
+            } else {
+                this.parentPrefab = null;
+                this.alwaysRelevant = entity.isAlwaysRelevant();
+            }
+            EntityRef ownerEntity = entity.getOwner();
+            this.owner = ownerEntity.exists() ? ownerEntity.getId() : null;
+            this.scope = toScope(entity.getScope());
+
+            this.components = Lists.newArrayList();
+            Set<Class<? extends Component>> presentClasses = Sets.newHashSet();
+            for (Component component : entity.iterateComponents()) {
+                presentClasses.add(component.getClass());
+                Component prefabComponent = prefab != null ? prefab.getComponent(component.getClass()) : null;
+                components.add(new CapturedComponent(prefabComponent, component));
+            }
+            if (prefab != null) {
+                for (Component prefabComponent : prefab.iterateComponents()) {
+                    if (!presentClasses.contains(prefabComponent.getClass())) {
+                        // TODO: Use component ids here
+                        removedComponents.add(componentLibrary.getMetadata(prefabComponent.getClass()).getUri().toString());
+                    }
+                }
+            }
+        }
+
+        private EntityData.Entity.Scope toScope(EntityScope entityScope) {
+            if (entityScope == null) {
+                return null;
+            }
+            switch (entityScope) {
+                case GLOBAL:
+                    return EntityData.Entity.Scope.GLOBAL;
+                case SECTOR:
+                    return EntityData.Entity.Scope.SECTOR;
+                case CHUNK:
+                    return EntityData.Entity.Scope.CHUNK;
+                default:
+                    return null;
+            }
+        }
+
+        private byte[] encode() {
+            List<byte[]> encodedComponents = Lists.newArrayListWithCapacity(components.size());
+            int size = CodedOutputStream.computeInt64Size(EntityData.Entity.ID_FIELD_NUMBER, id);
+            for (CapturedComponent component : components) {
+                byte[] encodedComponent = component.encode();
+                if (encodedComponent != null) {
+                    encodedComponents.add(encodedComponent);
+                    size += computeLengthDelimitedSize(EntityData.Entity.COMPONENT_FIELD_NUMBER, encodedComponent.length);
+                }
+            }
+            if (parentPrefab != null) {
+                size += CodedOutputStream.computeStringSize(EntityData.Entity.PARENT_PREFAB_FIELD_NUMBER, parentPrefab);
+            }
+            if (alwaysRelevant != null) {
+                size += CodedOutputStream.computeBoolSize(EntityData.Entity.ALWAYSRELEVANT_FIELD_NUMBER, alwaysRelevant);
+            }
+            if (owner != null) {
+                size += CodedOutputStream.computeInt64Size(EntityData.Entity.OWNER_FIELD_NUMBER, owner);
+            }
+            if (scope != null) {
+                size += CodedOutputStream.computeEnumSize(EntityData.Entity.SCOPE_FIELD_NUMBER, scope.getNumber());
+            }
+            for (String removedComponent : removedComponents) {
+                size += CodedOutputStream.computeStringSize(EntityData.Entity.REMOVED_COMPONENT_FIELD_NUMBER, removedComponent);
+            }
+
+            byte[] encoded = new byte[size];
+            CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+            try {
+                // In field number order, as the message would be written
+                output.writeInt64(EntityData.Entity.ID_FIELD_NUMBER, id);
+                for (byte[] encodedComponent : encodedComponents) {
+                    writeLengthDelimited(output, EntityData.Entity.COMPONENT_FIELD_NUMBER, encodedComponent);
+                }
+                if (parentPrefab != null) {
+                    output.writeString(EntityData.Entity.PARENT_PREFAB_FIELD_NUMBER, parentPrefab);
+                }
+                if (alwaysRelevant != null) {
+                    output.writeBool(EntityData.Entity.ALWAYSRELEVANT_FIELD_NUMBER, alwaysRelevant);
+                }
+                if (owner != null) {
+                    output.writeInt64(EntityData.Entity.OWNER_FIELD_NUMBER, owner);
+                }
+                if (scope != null) {
+                    output.writeEnum(EntityData.Entity.SCOPE_FIELD_NUMBER, scope.getNumber());
+                }
+                for (String removedComponent : removedComponents) {
+                    output.writeString(EntityData.Entity.REMOVED_COMPONENT_FIELD_NUMBER, removedComponent);
+                }
+                output.checkNoSpaceLeft();
+            } catch (IOException e) {
+                // the array is sized up front, so this only happens if a size was computed wrongly
+                throw new IllegalStateException("Failed to encode entity " + id, e);
+            }
+            return encoded;
+        }
+    }
+
+    /**
+     * A component of a captured entity, together with the prefab component it gets serialized as a delta against.
+     */
+    private final class CapturedComponent {
+        private final Component base;
+        private final Component component;
+        private final byte[] encoded;
+
+        private CapturedComponent(Component base, Component component) {
+            if (componentSerializer.isReferencingEntities(component)) {
+                this.base = null;
+                this.component = null;
+                this.encoded = encode(base, component);
+            } else {
+                this.base = base;
+                this.component = component;
+                this.encoded = null;
+            }
+        }
+
+        /**
+         * @return the encoded component, or null if there is nothing to store
+         */
+        private byte[] encode() {
+            if (component != null) {
+                return encode(base, component);
+            }
+            return encoded;
+        }
+
+        private byte[] encode(Component prefabComponent, Component entityComponent) {
+            if (prefabComponent == null) {
+                return componentSerializer.encode(entityComponent);
+            }
+            return componentSerializer.encode(prefabComponent, entityComponent);
+        }
+    }
+}
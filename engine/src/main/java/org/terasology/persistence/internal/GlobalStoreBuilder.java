@@ -42,6 +42,15 @@ final class GlobalStoreBuilder {
     }
     
     public EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<EntityRef> entities) {
+        return build(entityManager, entities, entityManager.getAllEntities());
+    }
+
+    /**
+     * @param entities                 the entities to store
+     * @param entitiesRequiringPrefabs the entities whose parent prefabs get stored
+     */
+    public EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<EntityRef> entities,
+                                        Iterable<EntityRef> entitiesRequiringPrefabs) {
         EntityData.GlobalStore.Builder store = EntityData.GlobalStore.newBuilder();
 
         Map<Class<? extends Component>, Integer> componentIdTable = Maps.newHashMap();
@@ -55,7 +64,7 @@ public EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<
          * be thread save.
          */
         Set<Prefab> prefabsRequiredForEntityStorage = new HashSet<>();
-        for (EntityRef entityRef : entityManager.getAllEntities()) {
+        for (EntityRef entityRef : entitiesRequiringPrefabs) {
             Prefab prefab = entityRef.getParentPrefab();
             if (prefab != null) {
                 prefabsRequiredForEntityStorage.add(prefab);
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.protobuf.EntityData;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the journal of changes made to the global entity store since it was last written completely.
+ * <br><br>
+ * Each journal entry consists of the ids of the entities that got removed from the global store (because they got
+ * destroyed or are now stored with a chunk or player) followed by a {@link EntityData.GlobalStore} with the entities
+ * that got added or changed. Entries are applied in order on top of the last complete global store.
+ */
+final class GlobalStoreJournal {
+    private static final Logger logger = LoggerFactory.getLogger(GlobalStoreJournal.class);
+
+    private GlobalStoreJournal() {
+    }
+
+    static void writeEntry(OutputStream out, TLongSet removedEntityIds, EntityData.GlobalStore changes) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(removedEntityIds.size());
+        for (long entityId : removedEntityIds.toArray()) {
+            dataOut.writeLong(entityId);
+        }
+        dataOut.flush();
+        changes.writeDelimitedTo(out);
+    }
+
+    /**
+     * Applies all entries of the journal to the given global store.
+     *
+     * @return a global store equal to one written at the time the last journal entry got written
+     */
+    static EntityData.GlobalStore apply(EntityData.GlobalStore store, InputStream journal) throws IOException {
+        DataInputStream in = new DataInputStream(journal);
+        Merger merger = new Merger(store);
+        while (true) {
+            int removedCount;
+            try {
+                removedCount = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            for (int i = 0; i < removedCount; i++) {
+                merger.removeEntity(in.readLong());
+            }
+            EntityData.GlobalStore changes = EntityData.GlobalStore.parseDelimitedFrom(in);
+            if (changes == null) {
+                logger.warn("Global store journal ends with an incomplete entry");
+                break;
+            }
+            merger.merge(changes);
+        }
+        return merger.build();
+    }
+
+    /**
+     * Combines global stores that may use different component class tables.
+     */
+    private static final class Merger {
+        private final List<String> componentClasses;
+        private final Map<String, Integer> componentIndices = Maps.newHashMap();
+        private final Map<String, EntityData.Prefab> prefabs = Maps.newLinkedHashMap();
+        private final Map<Long, EntityData.Entity> entities = Maps.newLinkedHashMap();
+        private long nextEntityId;
+
+        Merger(EntityData.GlobalStore store) {
+            componentClasses = Lists.newArrayList(store.getComponentClassList());
+            for (int i = 0; i < componentClasses.size(); i++) {
+                componentIndices.put(componentClasses.get(i), i);
+            }
+            for (EntityData.Prefab prefab : store.getPrefabList()) {
+                prefabs.put(prefab.getName(), prefab);
+            }
+            for (EntityData.Entity entity : store.getEntityList()) {
+                entities.put(entity.getId(), entity);
+            }
+            nextEntityId = store.getNextEntityId();
+        }
+
+        void removeEntity(long entityId) {
+            entities.remove(entityId);
+        }
+
+        void merge(EntityData.GlobalStore changes) {
+            int[] indexMapping = new int[changes.getComponentClassCount()];
+            for (int i = 0; i < indexMapping.length; i++) {
+                String componentClass = changes.getComponentClass(i);
+                Integer index = componentIndices.get(componentClass);
+                if (index == null) {
+                    index = componentClasses.size();
+                    componentClasses.add(componentClass);
+                    componentIndices.put(componentClass, index);
+                }
+                indexMapping[i] = index;
+            }
+
+            for (EntityData.Prefab prefab : changes.getPrefabList()) {
+                EntityData.Prefab.Builder remapped = prefab.toBuilder().clearComponent();
+                for (EntityData.Component component : prefab.getComponentList()) {
+                    remapped.addComponent(remap(component, indexMapping));
+                }
+                prefabs.put(prefab.getName(), remapped.build());
+            }
+            for (EntityData.Entity entity : changes.getEntityList()) {
+                EntityData.Entity.Builder remapped = entity.toBuilder().clearComponent().clearRemovedComponentIndex();
+                for (EntityData.Component component : entity.getComponentList()) {
+                    remapped.addComponent(remap(component, indexMapping));
+                }
+                for (int removedIndex : entity.getRemovedComponentIndexList()) {
+                    remapped.addRemovedComponentIndex(indexMapping[removedIndex]);
+                }
+                entities.put(entity.getId(), remapped.build());
+            }
+            nextEntityId = Math.max(nextEntityId, changes.getNextEntityId());
+        }
+
+        private static EntityData.Component remap(EntityData.Component component, int[] indexMapping) {
+            if (!component.hasTypeIndex()) {
+                return component;
+            }
+            return component.toBuilder().setTypeIndex(indexMapping[component.getTypeIndex()]).build();
+        }
+
+        EntityData.GlobalStore build() {
+            return EntityData.GlobalStore.newBuilder()
+                    .addAllComponentClass(componentClasses)
+                    .addAllPrefab(prefabs.values())
+                    .addAllEntity(entities.values())
+                    .setNextEntityId(nextEntityId)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Remembers in which state loaded chunks have last been written to disk, so that incremental saves can skip the
+ * chunks that did not change since.
+ * <br><br>
+ * A chunk needs saving if its {@link ChunkImpl#getModificationCount()} changed, if one of the entities that got stored
+ * with it or that is now located in it got modified, or if an entity moved into it.
+ * <br><br>
+ * Incremental saves rely on the changes recorded since the previous save. When a save fails, those changes are not on
+ * disk, so the next save has to write everything again, see {@link #requireFullSave()}.
+ */
+class IncrementalSaveTracker {
+    private final Map<Vector3i, SavedChunk> savedChunks = Maps.newConcurrentMap();
+    private volatile boolean fullSaveRequired;
+
+    /**
+     * Forgets all stored chunks and makes the next save write the complete global store.
+     */
+    void requireFullSave() {
+        fullSaveRequired = true;
+        savedChunks.clear();
+    }
+
+    boolean isFullSaveRequired() {
+        return fullSaveRequired;
+    }
+
+    void fullSaveCompleted() {
+        fullSaveRequired = false;
+    }
+
+    /**
+     * Records that the chunk and the entities with the given ids are stored on disk in their current state.
+     *
+     * @param modificationCount the modification count of the chunk at the point the stored data got taken from it
+     */
+    void chunkStored(Vector3i chunkPos, ChunkImpl chunk, long modificationCount, TLongSet storedEntityIds) {
+        savedChunks.put(chunkPos, new SavedChunk(chunk, modificationCount, storedEntityIds));
+    }
+
+    /**
+     * @param locatedEntities the entities that would be stored with the chunk, not including owned entities
+     * @param delta           the changes made to entities since the last save
+     */
+    boolean needsSaving(Vector3i chunkPos, ChunkImpl chunk, long modificationCount,
+                        Collection<EntityRef> locatedEntities, EntitySetDeltaRecorder delta) {
+        SavedChunk saved = savedChunks.get(chunkPos);
+        if (saved == null || saved.chunk != chunk || saved.modificationCount != modificationCount) {
+            return true;
+        }
+        for (EntityRef entity : locatedEntities) {
+            if (!saved.entityIds.contains(entity.getId())) {
+                return true;
+            }
+        }
+        return !saved.entityIds.forEach(entityId -> !delta.isModified(entityId));
+    }
+
+    /**
+     * @return the ids of the entities that are stored on disk with the chunk
+     */
+    TLongSet getStoredEntityIds(Vector3i chunkPos) {
+        return savedChunks.get(chunkPos).entityIds;
+    }
+
+    /**
+     * Forgets the chunks that have been unloaded. Their last state gets saved when they are unloaded and they are
+     * not the same chunk instance when loaded again.
+     */
+    void removeDisposedChunks() {
+        savedChunks.values().removeIf(saved -> saved.chunk.isDisposed());
+    }
+
+    private static final class SavedChunk {
+        private final ChunkImpl chunk;
+        private final long modificationCount;
+        private final TLongSet entityIds;
+
+        SavedChunk(ChunkImpl chunk, long modificationCount, TLongSet entityIds) {
+            this.chunk = chunk;
+            this.modificationCount = modificationCount;
+            this.entityIds = entityIds;
+        }
+    }
+}
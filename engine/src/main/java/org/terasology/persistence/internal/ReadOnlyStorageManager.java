@@ -46,7 +46,7 @@ public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, Engi
 
     @Override
     public void finishSavingAndShutdown() {
-        // don't care
+        getChunkRegionStore().close();
     }
 
     @Override
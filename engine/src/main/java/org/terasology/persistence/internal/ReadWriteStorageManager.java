@@ -17,9 +17,12 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.config.UniverseConfig;
 import org.terasology.engine.ComponentSystemManager;
 import org.terasology.engine.Time;
@@ -44,6 +47,7 @@
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
 import org.terasology.protobuf.EntityData;
 import org.terasology.recording.RecordAndReplayCurrentStatus;
@@ -97,6 +101,10 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
     private final Lock worldDirectoryWriteLock = worldDirectoryLock.writeLock();
     private SaveTransaction saveTransaction;
     private Config config;
+    /**
+     * Tracks what got stored by previous saves, null if every save writes everything.
+     */
+    private IncrementalSaveTracker incrementalSaveTracker;
 
     /**
      * Time of the next save in the format that {@link System#currentTimeMillis()} returns.
@@ -141,6 +149,9 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
         this.saveTransactionHelper = new SaveTransactionHelper(getStoragePathProvider());
         this.saveThreadManager = TaskMaster.createFIFOTaskMaster("Saving", 1);
         this.config = CoreRegistry.get(Config.class);
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.INCREMENTAL_SAVES)) {
+            this.incrementalSaveTracker = new IncrementalSaveTracker();
+        }
         this.entityRefReplacingComponentLibrary = privateEntityManager.getComponentLibrary()
                 .createCopyUsingCopyStrategy(EntityRef.class, new DelayedEntityRefCopyStrategy(this));
         this.entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
@@ -164,6 +175,16 @@ public void finishSavingAndShutdown() {
         }
         saveThreadManager.shutdown(new ShutdownTask(), true);
         checkSaveTransactionAndClearUpIfItIsDone();
+        closeChunkRegionFiles();
+    }
+
+    private void closeChunkRegionFiles() {
+        worldDirectoryWriteLock.lock();
+        try {
+            getChunkRegionStore().close();
+        } finally {
+            worldDirectoryWriteLock.unlock();
+        }
     }
 
     private void checkSaveTransactionAndClearUpIfItIsDone() {
@@ -264,7 +285,8 @@ private void waitForCompletionOfPreviousSave() {
 
     private SaveTransaction createSaveTransaction() {
         SaveTransactionBuilder saveTransactionBuilder = new SaveTransactionBuilder(privateEntityManager,
-                entitySetDeltaRecorder, isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock,
+                entitySetDeltaRecorder, isStoreChunksInZips(), isStoreChunksInRegions() ? getChunkRegionStore() : null,
+                incrementalSaveTracker, getStoragePathProvider(), worldDirectoryWriteLock,
                 recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
 
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
@@ -327,10 +349,12 @@ private PlayerStoreBuilder createPlayerStore(Client client, EntityRef character)
     public void deactivateChunk(Chunk chunk) {
         Collection<EntityRef> entitiesOfChunk = getEntitiesOfChunk(chunk);
         ChunkImpl chunkImpl = (ChunkImpl) chunk; // storage manager only works with ChunkImpl
-        unloadedAndUnsavedChunkMap.put(chunk.getPosition(), new CompressedChunkBuilder(getEntityManager(), chunkImpl,
-                entitiesOfChunk, true));
+        CompressedChunkBuilder compressedChunkBuilder = new CompressedChunkBuilder(getEntityManager(), chunkImpl,
+                entitiesOfChunk, true);
 
         entitiesOfChunk.forEach(this::deactivateOrDestroyEntityRecursive);
+        // The builder encodes the components it captured when it gets used, which must not happen while they change
+        unloadedAndUnsavedChunkMap.put(chunk.getPosition(), compressedChunkBuilder);
     }
 
     @Override
@@ -352,6 +376,29 @@ protected byte[] loadCompressedChunk(Vector3i chunkPos) {
         }
     }
 
+    @Override
+    public void loadGlobalStore() throws IOException {
+        super.loadGlobalStore();
+        if (incrementalSaveTracker != null) {
+            // The global store clears the entity manager, so all entities now match the stored ones
+            TLongSet restoredEntityIds = new TLongHashSet();
+            for (EntityRef entity : getEntityManager().getAllEntities()) {
+                restoredEntityIds.add(entity.getId());
+            }
+            entitySetDeltaRecorder.onEntitiesRestored(restoredEntityIds);
+        }
+    }
+
+    @Override
+    public ChunkStore loadChunkStore(Vector3i chunkPos) {
+        ChunkStore store = super.loadChunkStore(chunkPos);
+        if (store == null || incrementalSaveTracker == null || unloadedAndUnsavedChunkMap.containsKey(chunkPos)
+                || unloadedAndSavingChunkMap.containsKey(chunkPos)) {
+            return store;
+        }
+        return new TrackedChunkStore((ChunkStoreInternal) store);
+    }
+
     @Override
     public void onEntityDestroyed(EntityRef entity) {
         entitySetDeltaRecorder.onEntityDestroyed(entity);
@@ -501,6 +548,7 @@ public void deleteWorld() {
         unloadedAndSavingChunkMap.clear();
         unloadedAndUnsavedPlayerMap.clear();
         unloadedAndSavingPlayerMap.clear();
+        closeChunkRegionFiles();
 
         try {
             FilesUtil.recursiveDelete(getStoragePathProvider().getWorldPath());
@@ -542,4 +590,45 @@ public DelayedEntityRef createDelayedEntityRef(long id) {
         entitySetDeltaRecorder.registerDelayedEntityRef(delayedEntityRef);
         return delayedEntityRef;
     }
+
+    /**
+     * For tests only
+     */
+    void setIncrementalSavesEnabled(boolean incrementalSavesEnabled) {
+        this.incrementalSaveTracker = incrementalSavesEnabled ? new IncrementalSaveTracker() : null;
+    }
+
+    /**
+     * A chunk store loaded from disk. Once its entities got restored the chunk matches what is on disk, so that
+     * incremental saves can skip it until it changes.
+     */
+    private final class TrackedChunkStore implements ChunkStore {
+        private final ChunkStoreInternal store;
+
+        TrackedChunkStore(ChunkStoreInternal store) {
+            this.store = store;
+        }
+
+        @Override
+        public Vector3i getChunkPosition() {
+            return store.getChunkPosition();
+        }
+
+        @Override
+        public Chunk getChunk() {
+            return store.getChunk();
+        }
+
+        @Override
+        public void restoreEntities() {
+            store.restoreEntities();
+            TLongSet storedEntityIds = store.getStoredEntityIds();
+            entitySetDeltaRecorder.onEntitiesRestored(storedEntityIds);
+            IncrementalSaveTracker tracker = incrementalSaveTracker;
+            if (tracker != null) {
+                ChunkImpl chunk = (ChunkImpl) store.getChunk();
+                tracker.chunkStored(getChunkPosition(), chunk, chunk.getModificationCount(), storedEntityIds);
+            }
+        }
+    }
 }
@@ -18,6 +18,8 @@
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.paths.PathManager;
@@ -69,7 +71,13 @@
 public class SaveTransaction extends AbstractTask {
     private static final Logger logger = LoggerFactory.getLogger(SaveTransaction.class);
 
-    private static final ImmutableMap<String, String> CREATE_ZIP_OPTIONS = ImmutableMap.of("create", "true", "encoding", "UTF-8");
+    private static final ImmutableMap<String, String> CREATE_ZIP_OPTIONS =
+            ImmutableMap.of("create", "true", "encoding", "UTF-8");
+    /**
+     * The journal of the global store gets compacted once it is larger than this or half the size of the global store.
+     */
+    private static final long MIN_JOURNAL_SIZE_BEFORE_COMPACTION = 64 * 1024;
+
     private final GameManifest gameManifest;
     private final Lock worldDirectoryWriteLock;
     private final EngineEntityManager privateEntityManager;
@@ -85,12 +93,24 @@ public class SaveTransaction extends AbstractTask {
 
     // processed data:
     private EntityData.GlobalStore globalStore;
+    private EntityData.GlobalStore globalStoreChanges;
+    private TLongSet entitiesRemovedFromGlobalStore;
+    private final List<Runnable> incrementalSaveTrackerUpdates = Lists.newArrayList();
     private Map<String, EntityData.PlayerStore> allPlayers;
     private Map<Vector3i, CompressedChunkBuilder> allChunks;
+    private Map<Vector3i, byte[]> encodedRegionChunks;
 
 
     // Save parameters:
     private final boolean storeChunksInZips;
+    /**
+     * If set, chunks get written into the region files of the store instead of the save transaction directory.
+     */
+    private final ChunkRegionStore chunkRegionStore;
+    /**
+     * If set, only changed chunks get written and changes to the global store get appended to its journal.
+     */
+    private final IncrementalSaveTracker incrementalSaveTracker;
 
     // utility classes for saving:
     private final StoragePathProvider storagePathProvider;
@@ -106,7 +126,8 @@ public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaR
                            Map<String, EntityData.PlayerStore> unloadedPlayers,
                            Map<String, PlayerStoreBuilder> loadedPlayers, GlobalStoreBuilder globalStoreBuilder,
                            Map<Vector3i, CompressedChunkBuilder> unloadedChunks, Map<Vector3i, ChunkImpl> loadedChunks,
-                           GameManifest gameManifest, boolean storeChunksInZips,
+                           GameManifest gameManifest, boolean storeChunksInZips, ChunkRegionStore chunkRegionStore,
+                           IncrementalSaveTracker incrementalSaveTracker,
                            StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock,
                            RecordAndReplaySerializer recordAndReplaySerializer,
                            RecordAndReplayUtils recordAndReplayUtils,
@@ -120,6 +141,8 @@ public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaR
         this.globalStoreBuilder = globalStoreBuilder;
         this.gameManifest = gameManifest;
         this.storeChunksInZips = storeChunksInZips;
+        this.chunkRegionStore = chunkRegionStore;
+        this.incrementalSaveTracker = incrementalSaveTracker;
         this.storagePathProvider = storagePathProvider;
         this.saveTransactionHelper = new SaveTransactionHelper(storagePathProvider);
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
@@ -155,11 +178,15 @@ public void run() {
             saveGameManifest();
             perpareChangesForMerge();
             mergeChanges();
+            updateIncrementalSaveTracker();
             result = SaveTransactionResult.createSuccessResult();
             logger.info("Save game finished");
             saveRecordingData();
         } catch (IOException | RuntimeException t) {
             logger.error("Save game creation failed", t);
+            if (incrementalSaveTracker != null) {
+                incrementalSaveTracker.requireFullSave();
+            }
             result = SaveTransactionResult.createFailureResult(t);
         }
     }
@@ -176,7 +203,8 @@ private void saveRecordingData() {
                 recordAndReplayCurrentStatus.setStatus(RecordAndReplayStatus.NOT_ACTIVATED);
                 recordAndReplayUtils.reset();
             } else {
-                String recordingPath = PathManager.getInstance().getRecordingPath(recordAndReplayUtils.getGameTitle()).toString();
+                String recordingPath =
+                        PathManager.getInstance().getRecordingPath(recordAndReplayUtils.getGameTitle()).toString();
                 recordAndReplaySerializer.serializeRecordedEvents(recordingPath);
             }
         }
@@ -197,60 +225,135 @@ private boolean isReplay() {
         return isReplay;
     }
 
-    private void prepareChunksPlayersAndGlobalStore() {
+    private void prepareChunksPlayersAndGlobalStore() throws IOException {
+        /*
+         * Persistent entities that get written with a player or chunk by this save.
+         */
+        Set<EntityRef> entitiesStoredElsewhere = new HashSet<>();
         /*
-         * Currently loaded persistent entities without owner that have not been saved yet.
+         * Ids of the entities that are stored with chunks that don't get written by this save.
          */
-        Set<EntityRef> unsavedEntities = new HashSet<>();
-        for (EntityRef entity : privateEntityManager.getAllEntities()) {
-            if (entity.isPersistent()) {
-                unsavedEntities.add(entity);
+        TLongSet entitiesOfUnchangedChunks = new TLongHashSet();
+        preparePlayerStores(entitiesStoredElsewhere);
+        prepareCompressedChunkBuilders(entitiesStoredElsewhere, entitiesOfUnchangedChunks);
+        if (isGlobalStoreJournalUsable()) {
+            prepareGlobalStoreChanges(entitiesStoredElsewhere, entitiesOfUnchangedChunks);
+        } else {
+            List<EntityRef> unsavedEntities = Lists.newArrayList();
+            for (EntityRef entity : privateEntityManager.getAllEntities()) {
+                if (entity.isPersistent() && !entitiesStoredElsewhere.contains(entity)
+                        && !entitiesOfUnchangedChunks.contains(entity.getId())) {
+                    unsavedEntities.add(entity);
+                }
             }
+            this.globalStore = globalStoreBuilder.build(privateEntityManager, unsavedEntities);
         }
-        preparePlayerStores(unsavedEntities);
-        prepareCompressedChunkBuilders(unsavedEntities);
-        this.globalStore = globalStoreBuilder.build(privateEntityManager, unsavedEntities);
     }
 
+    /**
+     * The journal can only be used when the global store exists and the journal did not grow too large. It must not
+     * be used after a failed save either, as the changes made before that save are not on disk.
+     */
+    private boolean isGlobalStoreJournalUsable() throws IOException {
+        if (incrementalSaveTracker == null || incrementalSaveTracker.isFullSaveRequired()) {
+            return false;
+        }
+        Path globalStorePath = storagePathProvider.getGlobalEntityStorePath();
+        if (!Files.isRegularFile(globalStorePath)) {
+            return false;
+        }
+        Path journalPath = storagePathProvider.getGlobalEntityStoreJournalPath();
+        long journalSize = Files.isRegularFile(journalPath) ? Files.size(journalPath) : 0;
+        return journalSize < Math.max(MIN_JOURNAL_SIZE_BEFORE_COMPACTION, Files.size(globalStorePath) / 2);
+    }
 
     /**
-     * @param unsavedEntities currently loaded persistent entities without owner that have not been saved yet.
-     *                        This method removes entities it saves.
+     * Collects the persistent entities that changed since the last save and don't get stored elsewhere, and the ids
+     * of the entities that must be removed from the global store.
      */
-    private void prepareCompressedChunkBuilders(Set<EntityRef> unsavedEntities) {
+    private void prepareGlobalStoreChanges(Set<EntityRef> entitiesStoredElsewhere, TLongSet entitiesOfUnchangedChunks) {
+        List<EntityRef> changedEntities = Lists.newArrayList();
+        deltaToSave.getEntityDeltas().forEachEntry((entityId, delta) -> {
+            if (privateEntityManager.isActiveEntity(entityId) && !entitiesOfUnchangedChunks.contains(entityId)) {
+                EntityRef entity = privateEntityManager.getEntity(entityId);
+                if (entity.isPersistent() && !entitiesStoredElsewhere.contains(entity)) {
+                    changedEntities.add(entity);
+                }
+            }
+            return true;
+        });
+
+        entitiesRemovedFromGlobalStore = new TLongHashSet();
+        entitiesRemovedFromGlobalStore.addAll(deltaToSave.getDestroyedEntities());
+        entitiesRemovedFromGlobalStore.addAll(deltaToSave.getDeactivatedEntities());
+        for (EntityRef entity : entitiesStoredElsewhere) {
+            entitiesRemovedFromGlobalStore.add(entity.getId());
+        }
+
+        // Prefabs are shared by all stores, so include those of the entities written elsewhere too
+        List<EntityRef> entitiesRequiringPrefabs = Lists.newArrayList(changedEntities);
+        entitiesRequiringPrefabs.addAll(entitiesStoredElsewhere);
+        this.globalStoreChanges = globalStoreBuilder.build(privateEntityManager, changedEntities,
+                entitiesRequiringPrefabs);
+    }
+
+    /**
+     * @param entitiesStoredElsewhere entities that get written with a player or chunk. This method adds the entities
+     *                                it saves.
+     * @param entitiesOfUnchangedChunks ids of entities stored with chunks that don't get written. This method adds
+     *                                  the entities of the chunks it skips.
+     */
+    private void prepareCompressedChunkBuilders(Set<EntityRef> entitiesStoredElsewhere,
+                                                TLongSet entitiesOfUnchangedChunks) {
         Map<Vector3i, Collection<EntityRef>> chunkPosToEntitiesMap = createChunkPosToUnsavedOwnerLessEntitiesMap();
 
         allChunks = Maps.newHashMap();
         allChunks.putAll(unloadedChunks);
         for (Map.Entry<Vector3i, ChunkImpl> chunkEntry : loadedChunks.entrySet()) {
-            Collection<EntityRef> entitiesToStore = chunkPosToEntitiesMap.get(chunkEntry.getKey());
+            Vector3i chunkPos = chunkEntry.getKey();
+            Collection<EntityRef> entitiesToStore = chunkPosToEntitiesMap.get(chunkPos);
             if (entitiesToStore == null) {
                 entitiesToStore = Collections.emptySet();
             }
             ChunkImpl chunk = chunkEntry.getValue();
-            unsavedEntities.removeAll(entitiesToStore);
+            // Taken before the chunk data, so that changes made while the builder copies the chunk are not missed
+            long modificationCount = chunk.getModificationCount();
+            if (incrementalSaveTracker != null && !incrementalSaveTracker.needsSaving(chunkPos, chunk,
+                    modificationCount, entitiesToStore, deltaToSave)) {
+                entitiesOfUnchangedChunks.addAll(incrementalSaveTracker.getStoredEntityIds(chunkPos));
+                continue;
+            }
+            entitiesStoredElsewhere.addAll(entitiesToStore);
             CompressedChunkBuilder compressedChunkBuilder = new CompressedChunkBuilder(privateEntityManager, chunk,
                     entitiesToStore, false);
-            unsavedEntities.removeAll(compressedChunkBuilder.getStoredEntities());
-            allChunks.put(chunkEntry.getKey(), compressedChunkBuilder);
+            entitiesStoredElsewhere.addAll(compressedChunkBuilder.getStoredEntities());
+            allChunks.put(chunkPos, compressedChunkBuilder);
+            if (incrementalSaveTracker != null) {
+                TLongSet storedEntityIds = new TLongHashSet();
+                for (EntityRef entity : compressedChunkBuilder.getStoredEntities()) {
+                    storedEntityIds.add(entity.getId());
+                }
+                incrementalSaveTrackerUpdates.add(() ->
+                        incrementalSaveTracker.chunkStored(chunkPos, chunk, modificationCount, storedEntityIds));
+            }
         }
     }
 
     /**
-     * @param unsavedEntities currently loaded persistent entities without owner that have not been saved yet.
-     *                        This method removes entities it saves.
+     * @param entitiesStoredElsewhere entities that get written with a player or chunk. This method adds the entities
+     *                                it saves.
      */
-    private void preparePlayerStores(Set<EntityRef> unsavedEntities) {
+    private void preparePlayerStores(Set<EntityRef> entitiesStoredElsewhere) {
         allPlayers = Maps.newHashMap();
         allPlayers.putAll(unloadedPlayers);
         for (Map.Entry<String, PlayerStoreBuilder> playerEntry : loadedPlayers.entrySet()) {
             PlayerStoreBuilder playerStoreBuilder = playerEntry.getValue();
             EntityData.PlayerStore playerStore = playerStoreBuilder.build(privateEntityManager);
-            unsavedEntities.removeAll(playerStoreBuilder.getStoredEntities());
+            entitiesStoredElsewhere.addAll(playerStoreBuilder.getStoredEntities());
             Long characterEntityId = playerStoreBuilder.getCharacterEntityId();
             if (characterEntityId != null) {
                 EntityRef character = privateEntityManager.getEntity(characterEntityId);
-                unsavedEntities.remove(character);
+                entitiesStoredElsewhere.add(character);
             }
             allPlayers.put(playerEntry.getKey(), playerStore);
         }
@@ -393,16 +496,39 @@ private void writePlayerStores() throws IOException {
     }
 
     private void writeGlobalStore() throws IOException {
+        Path journalPath = storagePathProvider.getGlobalEntityStoreJournalPath();
+        Path journalTempPath = storagePathProvider.getGlobalEntityStoreJournalTempPath();
+        if (globalStore == null) {
+            // The journal gets replaced as a whole, so that merging the changes stays repeatable
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(journalTempPath))) {
+                if (Files.isRegularFile(journalPath)) {
+                    Files.copy(journalPath, out);
+                }
+                GlobalStoreJournal.writeEntry(out, entitiesRemovedFromGlobalStore, globalStoreChanges);
+            }
+            return;
+        }
+
         Path path = storagePathProvider.getGlobalEntityStoreTempPath();
         try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
             globalStore.writeTo(out);
         }
+        if (Files.exists(journalPath)) {
+            // An empty journal replaces the old one when the changes get merged
+            Files.createFile(journalTempPath);
+        }
     }
 
     private void writeChunkStores() throws IOException {
         Path chunksPath = storagePathProvider.getWorldTempPath();
         Files.createDirectories(chunksPath);
-        if (storeChunksInZips) {
+        if (chunkRegionStore != null) {
+            // Encode now, so that the world directory only needs to be locked while the bytes get copied
+            encodedRegionChunks = Maps.newHashMapWithExpectedSize(allChunks.size());
+            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
+                encodedRegionChunks.put(entry.getKey(), entry.getValue().buildEncodedChunk());
+            }
+        } else if (storeChunksInZips) {
             Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
             for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
                 Vector3i chunkPos = entry.getKey();
@@ -474,9 +600,41 @@ private void saveGameManifest() {
         }
     }
 
+    /**
+     * Writes the chunks directly into the region files of the world. Only the changed chunks get written, the rest of
+     * the region files stays untouched.
+     * <br><br>
+     * This happens before the other changes get merged, so entities which moved from the global store into a chunk
+     * can't get lost when the save gets interrupted in between. Each region file only replaces its chunks once their
+     * new data has been forced to the storage device, so an interrupted save leaves every region with either all or
+     * none of its chunks from this save.
+     */
+    private void writeChunkRegions() throws IOException {
+        if (encodedRegionChunks == null) {
+            return;
+        }
+        for (Map.Entry<Vector3i, byte[]> entry : encodedRegionChunks.entrySet()) {
+            chunkRegionStore.store(entry.getKey(), entry.getValue());
+        }
+        chunkRegionStore.flush();
+        encodedRegionChunks = null;
+    }
+
+    private void updateIncrementalSaveTracker() {
+        if (incrementalSaveTracker == null) {
+            return;
+        }
+        incrementalSaveTrackerUpdates.forEach(Runnable::run);
+        incrementalSaveTracker.removeDisposedChunks();
+        if (globalStore != null) {
+            incrementalSaveTracker.fullSaveCompleted();
+        }
+    }
+
     private void mergeChanges() throws IOException {
         worldDirectoryWriteLock.lock();
         try {
+            writeChunkRegions();
             saveTransactionHelper.mergeChanges();
         } finally {
             worldDirectoryWriteLock.unlock();
@@ -29,6 +29,7 @@ public class StoragePathProvider {
     private static final String PREVIEWS_PATH = "previews";
     private static final String PLAYER_STORE_EXTENSION = ".player";
     private static final String GLOBAL_ENTITY_STORE = "global.dat";
+    private static final String GLOBAL_ENTITY_STORE_JOURNAL = "global.journal";
     private static final String UNFINISHED_SAVE_TRANSACTION = "unfinished-save-transaction";
     private static final String UNMERGED_CHANGED = "unmerged-changes";
     private static final int CHUNK_ZIP_DIM = 32;
@@ -105,6 +106,14 @@ public Path getGlobalEntityStoreTempPath() {
         return unfinishedSaveTransactionPath.resolve(GLOBAL_ENTITY_STORE);
     }
 
+    public Path getGlobalEntityStoreJournalPath() {
+        return storagePathDirectory.resolve(GLOBAL_ENTITY_STORE_JOURNAL);
+    }
+
+    public Path getGlobalEntityStoreJournalTempPath() {
+        return unfinishedSaveTransactionPath.resolve(GLOBAL_ENTITY_STORE_JOURNAL);
+    }
+
     public String getChunkFilename(Vector3i pos) {
         return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
     }
@@ -114,6 +123,10 @@ private String getChunkZipFilename(Vector3i pos) {
         return String.format("%d.%d.%d.chunks.zip", pos.x, pos.y, pos.z);
     }
 
+    public Path getChunkRegionPath(Vector3i regionPos) {
+        return worldPath.resolve(String.format("%d.%d.%d.chunks.region", regionPos.x, regionPos.y, regionPos.z));
+    }
+
     public Vector3i getChunkZipPosition(Vector3i chunkPos) {
         Vector3i result = new Vector3i(chunkPos);
         result.div(CHUNK_ZIP_DIM);
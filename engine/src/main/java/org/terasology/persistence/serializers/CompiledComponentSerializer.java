@@ -0,0 +1,371 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Primitives;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.metadata.ComponentFieldMetadata;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.PersistedDataSerializer;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.persistence.typeHandling.TypeHandler;
+import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
+import org.terasology.persistence.typeHandling.coreTypes.BooleanTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.DoubleTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.FloatTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.IntTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.LongTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.StringTypeHandler;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufEncodedPersistedData;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufEncodedPersistedDataSerializer;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.MappedContainer;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The serialization plan of a single component type, resolved once from its metadata and type handlers.
+ * <br><br>
+ * Every field knows its type handler up front, so serializing a component does not look anything up per field. Fields
+ * handled by the standard handlers for booleans, numbers and strings are written to and read from the protobuf values
+ * directly, without an intermediate {@link PersistedData}. All other fields still go through their type handler. The
+ * values produced are identical to those of {@link Serializer}.
+ */
+final class CompiledComponentSerializer {
+
+    private final ComponentMetadata<?> metadata;
+    private final Serializer serializer;
+    private final CompiledField[] fields;
+    private final Map<String, CompiledField> fieldsByName;
+    private final CompiledField[] fieldsById = new CompiledField[256];
+    private final boolean referencingEntities;
+
+    private CompiledComponentSerializer(ComponentMetadata<?> metadata, Serializer serializer) {
+        this.metadata = metadata;
+        this.serializer = serializer;
+        this.fields = new CompiledField[metadata.getFieldCount()];
+        this.fieldsByName = Maps.newHashMapWithExpectedSize(fields.length);
+        int index = 0;
+        boolean anyFieldReferencingEntities = false;
+        for (ComponentFieldMetadata<?, ?> field : metadata.getFields()) {
+            CompiledField compiledField = new CompiledField(field, serializer.getHandlerFor(field));
+            fields[index++] = compiledField;
+            fieldsByName.put(field.getName().toLowerCase(Locale.ENGLISH), compiledField);
+            if (compiledField.isSerializable() && mayReferenceEntities(field.getField().getGenericType())) {
+                anyFieldReferencingEntities = true;
+            }
+        }
+        this.referencingEntities = anyFieldReferencingEntities;
+    }
+
+    static CompiledComponentSerializer compile(ComponentMetadata<?> metadata, TypeHandlerLibrary typeHandlerLibrary) {
+        return new CompiledComponentSerializer(metadata, typeHandlerLibrary.getSerializerFor(metadata));
+    }
+
+    ComponentMetadata<?> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Entity references are serialized by looking the referenced entity up, so the serialized form of such a component
+     * depends on the state of the entity manager and not just on the component.
+     *
+     * @return whether a serialized field of the component might hold an entity reference
+     */
+    boolean isReferencingEntities() {
+        return referencingEntities;
+    }
+
+    /**
+     * Types that cannot be seen through, like interfaces or mapped containers, are assumed to hold references. Other
+     * classes are assumed to be serialized from their own state by their type handler.
+     */
+    private static boolean mayReferenceEntities(Type type) {
+        if (type instanceof Class) {
+            Class<?> rawType = (Class<?>) type;
+            if (rawType.isArray()) {
+                return mayReferenceEntities(rawType.getComponentType());
+            }
+            if (rawType.isPrimitive() || Primitives.isWrapperType(rawType) || rawType == String.class || rawType.isEnum()) {
+                return false;
+            }
+            return EntityRef.class.isAssignableFrom(rawType) || rawType == Object.class || rawType.isInterface()
+                    || Modifier.isAbstract(rawType.getModifiers()) || rawType.isAnnotationPresent(MappedContainer.class);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type rawType = parameterizedType.getRawType();
+            if (rawType instanceof Class && (Collection.class.isAssignableFrom((Class<?>) rawType)
+                    || Map.class.isAssignableFrom((Class<?>) rawType))) {
+                for (Type typeArgument : parameterizedType.getActualTypeArguments()) {
+                    if (mayReferenceEntities(typeArgument)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return mayReferenceEntities(rawType);
+        } else if (type instanceof GenericArrayType) {
+            return mayReferenceEntities(((GenericArrayType) type).getGenericComponentType());
+        }
+        // Type variables and wildcards
+        return true;
+    }
+
+    /**
+     * @return the fields of the component, in the order of {@link ComponentMetadata#getFields()}
+     */
+    CompiledField[] getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the field with the given name, or null if the component has no such field
+     */
+    CompiledField getField(String name) {
+        return fieldsByName.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Field ids are assigned when a network connection is set up, so the id table is checked against the metadata on
+     * each access rather than built once.
+     *
+     * @return the field with the given id, or null if the component has no such field
+     */
+    CompiledField getField(int id) {
+        if (id < Byte.MIN_VALUE || id > Byte.MAX_VALUE) {
+            return null;
+        }
+        int slot = id & 0xFF;
+        CompiledField field = fieldsById[slot];
+        if (field != null && field.getMetadata().getId() == id) {
+            return field;
+        }
+        ComponentFieldMetadata<?, ?> fieldMetadata = metadata.getField(id);
+        if (fieldMetadata == null) {
+            return null;
+        }
+        for (CompiledField candidate : fields) {
+            if (candidate.getMetadata() == fieldMetadata) {
+                fieldsById[slot] = candidate;
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deserializes a field value onto the target, logging an error if it cannot be deserialized.
+     */
+    void deserializeOnto(Object target, CompiledField field, EntityData.Value value) {
+        if (!field.deserializeDirectly(target, value)) {
+            serializer.deserializeOnto(target, field.getMetadata(), new ProtobufPersistedData(value));
+        }
+    }
+
+    private enum FieldKind {
+        BOOLEAN,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        STRING,
+        HANDLER,
+        UNSERIALIZABLE
+    }
+
+    /**
+     * A field of the component together with the way its values are serialized.
+     */
+    static final class CompiledField {
+        private final ComponentFieldMetadata<?, ?> metadata;
+        private final TypeHandler handler;
+        private final FieldKind kind;
+
+        private CompiledField(ComponentFieldMetadata<?, ?> metadata, TypeHandler<?> handler) {
+            this.metadata = metadata;
+            this.handler = handler;
+            this.kind = kindOf(handler);
+        }
+
+        private static FieldKind kindOf(TypeHandler<?> handler) {
+            if (handler == null) {
+                return FieldKind.UNSERIALIZABLE;
+            }
+            // Only the standard handlers are known to produce plain values, replacements may do anything
+            Class<?> handlerType = handler.getClass();
+            if (handlerType == BooleanTypeHandler.class) {
+                return FieldKind.BOOLEAN;
+            } else if (handlerType == IntTypeHandler.class) {
+                return FieldKind.INT;
+            } else if (handlerType == LongTypeHandler.class) {
+                return FieldKind.LONG;
+            } else if (handlerType == FloatTypeHandler.class) {
+                return FieldKind.FLOAT;
+            } else if (handlerType == DoubleTypeHandler.class) {
+                return FieldKind.DOUBLE;
+            } else if (handlerType == StringTypeHandler.class) {
+                return FieldKind.STRING;
+            }
+            return FieldKind.HANDLER;
+        }
+
+        ComponentFieldMetadata<?, ?> getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return whether the field has a type handler, fields without one are never serialized
+         */
+        boolean isSerializable() {
+            return kind != FieldKind.UNSERIALIZABLE;
+        }
+
+        /**
+         * @return the serialized value of the field in the given component, or null if it serializes to nothing
+         */
+        EntityData.Value serialize(Object component, PersistedDataSerializer context) {
+            return serializeValue(metadata.getValue(component), context);
+        }
+
+        /**
+         * @param rawValue a value of this field
+         * @return the serialized value, or null if it serializes to nothing
+         */
+        @SuppressWarnings("unchecked")
+        EntityData.Value serializeValue(Object rawValue, PersistedDataSerializer context) {
+            if (rawValue == null) {
+                return null;
+            }
+            switch (kind) {
+                case BOOLEAN:
+                    return EntityData.Value.newBuilder().addBoolean((Boolean) rawValue).build();
+                case INT:
+                    return EntityData.Value.newBuilder().addInteger((Integer) rawValue).build();
+                case LONG:
+                    return EntityData.Value.newBuilder().addLong((Long) rawValue).build();
+                case FLOAT:
+                    return EntityData.Value.newBuilder().addFloat((Float) rawValue).build();
+                case DOUBLE:
+                    return EntityData.Value.newBuilder().addDouble((Double) rawValue).build();
+                case STRING:
+                    return EntityData.Value.newBuilder().addString((String) rawValue).build();
+                case HANDLER:
+                    PersistedData data = handler.serialize(rawValue, context);
+                    if (data.isNull()) {
+                        return null;
+                    }
+                    return ((ProtobufPersistedData) data).getValue();
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Like {@link #serializeValue(Object, PersistedDataSerializer)}, but produces the value in its encoded form.
+         *
+         * @param rawValue a value of this field
+         * @return the encoded value, or null if it serializes to nothing
+         */
+        @SuppressWarnings("unchecked")
+        ProtobufEncodedPersistedData encodeValue(Object rawValue, ProtobufEncodedPersistedDataSerializer context) {
+            if (rawValue == null) {
+                return null;
+            }
+            PersistedData data;
+            switch (kind) {
+                case BOOLEAN:
+                    data = context.serialize((boolean) (Boolean) rawValue);
+                    break;
+                case INT:
+                    data = context.serialize((int) (Integer) rawValue);
+                    break;
+                case LONG:
+                    data = context.serialize((long) (Long) rawValue);
+                    break;
+                case FLOAT:
+                    data = context.serialize((float) (Float) rawValue);
+                    break;
+                case DOUBLE:
+                    data = context.serialize((double) (Double) rawValue);
+                    break;
+                case STRING:
+                    data = context.serialize((String) rawValue);
+                    break;
+                case HANDLER:
+                    data = handler.serialize(rawValue, context);
+                    if (data.isNull()) {
+                        return null;
+                    }
+                    break;
+                default:
+                    return null;
+            }
+            return ProtobufEncodedPersistedDataSerializer.toEncoded(data);
+        }
+
+        /**
+         * Sets the field from the value if it holds exactly what the standard handler of the field would read from it.
+         *
+         * @return whether the value was deserialized
+         */
+        private boolean deserializeDirectly(Object target, EntityData.Value value) {
+            switch (kind) {
+                case BOOLEAN:
+                    if (value.getBooleanCount() == 1) {
+                        metadata.setValue(target, value.getBoolean(0));
+                        return true;
+                    }
+                    return false;
+                case INT:
+                    if (value.getIntegerCount() == 1) {
+                        metadata.setValue(target, value.getInteger(0));
+                        return true;
+                    }
+                    return false;
+                case FLOAT:
+                    if (value.getFloatCount() == 1) {
+                        metadata.setValue(target, value.getFloat(0));
+                        return true;
+                    }
+                    return false;
+                case DOUBLE:
+                    if (value.getDoubleCount() == 1) {
+                        metadata.setValue(target, value.getDouble(0));
+                        return true;
+                    }
+                    return false;
+                case STRING:
+                    if (value.getStringCount() == 1) {
+                        metadata.setValue(target, value.getString(0));
+                        return true;
+                    }
+                    return false;
+                default:
+                    // Longs are left to their handler, which narrows them while reading
+                    return false;
+            }
+        }
+    }
+}
@@ -20,7 +20,10 @@
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.Component;
@@ -28,14 +31,14 @@
 import org.terasology.entitySystem.metadata.ComponentMetadata;
 import org.terasology.entitySystem.metadata.ReplicatedFieldMetadata;
 import org.terasology.module.Module;
-import org.terasology.persistence.typeHandling.PersistedData;
-import org.terasology.persistence.typeHandling.Serializer;
 import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
-import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufEncodedPersistedData;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufEncodedPersistedDataSerializer;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedDataSerializer;
 import org.terasology.protobuf.EntityData;
-import org.terasology.reflection.metadata.FieldMetadata;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -57,6 +60,8 @@ public class ComponentSerializer {
     private boolean usingFieldIds;
     private TypeHandlerLibrary typeHandlerLibrary;
     private ProtobufPersistedDataSerializer serializationContext;
+    private ProtobufEncodedPersistedDataSerializer encodingContext = new ProtobufEncodedPersistedDataSerializer();
+    private Map<Class<? extends Component>, CompiledComponentSerializer> compiledSerializers = Maps.newConcurrentMap();
 
     /**
      * Creates the component serializer.
@@ -177,24 +182,24 @@ public Component deserializeOnto(Component target, EntityData.Component componen
     }
 
 
-    private <T extends Component> Component deserializeOnto(Component targetComponent, EntityData.Component componentData,
-                                                            ComponentMetadata<T> componentMetadata, FieldSerializeCheck<Component> fieldCheck) {
-        Serializer serializer = typeHandlerLibrary.getSerializerFor(componentMetadata);
-        Map<FieldMetadata<?, ?>, PersistedData> dataMap = Maps.newHashMapWithExpectedSize(componentData.getFieldCount());
+    private Component deserializeOnto(Component targetComponent, EntityData.Component componentData,
+                                      ComponentMetadata<?> componentMetadata, FieldSerializeCheck<Component> fieldCheck) {
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
         for (EntityData.NameValue field : componentData.getFieldList()) {
-            FieldMetadata<?, ?> fieldInfo = null;
+            CompiledComponentSerializer.CompiledField fieldInfo = null;
             if (field.hasNameIndex()) {
-                fieldInfo = componentMetadata.getField(field.getNameIndex());
+                fieldInfo = serializer.getField(field.getNameIndex());
             } else if (field.hasName()) {
-                fieldInfo = componentMetadata.getField(field.getName());
+                fieldInfo = serializer.getField(field.getName());
             }
             if (fieldInfo != null) {
-                dataMap.put(fieldInfo, new ProtobufPersistedData(field.getValue()));
+                if (fieldCheck.shouldDeserialize(componentMetadata, fieldInfo.getMetadata())) {
+                    serializer.deserializeOnto(targetComponent, fieldInfo, field.getValue());
+                }
             } else if (field.hasName()) {
                 logger.warn("Cannot deserialize unknown field '{}' onto '{}'", field.getName(), componentMetadata.getUri());
             }
         }
-        serializer.deserializeOnto(targetComponent, dataMap, fieldCheck);
         return targetComponent;
     }
 
@@ -225,12 +230,12 @@ public EntityData.Component serialize(Component component, FieldSerializeCheck<C
         EntityData.Component.Builder componentMessage = EntityData.Component.newBuilder();
         serializeComponentType(componentMetadata, componentMessage);
 
-        Serializer serializer = typeHandlerLibrary.getSerializerFor(componentMetadata);
-        for (ReplicatedFieldMetadata<?, ?> field : componentMetadata.getFields()) {
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
+        for (CompiledComponentSerializer.CompiledField compiledField : serializer.getFields()) {
+            ReplicatedFieldMetadata<?, ?> field = compiledField.getMetadata();
             if (check.shouldSerializeField(field, component)) {
-                PersistedData result = serializer.serialize(field, component, serializationContext);
-                if (!result.isNull()) {
-                    EntityData.Value itemValue = ((ProtobufPersistedData) result).getValue();
+                EntityData.Value itemValue = compiledField.serialize(component, serializationContext);
+                if (itemValue != null) {
                     if (usingFieldIds) {
                         componentMessage.addField(EntityData.NameValue.newBuilder().setNameIndex(field.getId()).setValue(itemValue));
                     } else {
@@ -243,6 +248,16 @@ public EntityData.Component serialize(Component component, FieldSerializeCheck<C
         return componentMessage.build();
     }
 
+    private CompiledComponentSerializer getCompiledSerializer(ComponentMetadata<?> componentMetadata) {
+        CompiledComponentSerializer serializer = compiledSerializers.get(componentMetadata.getType());
+        // The metadata is replaced when the component library is reloaded
+        if (serializer == null || serializer.getMetadata() != componentMetadata) {
+            serializer = CompiledComponentSerializer.compile(componentMetadata, typeHandlerLibrary);
+            compiledSerializers.put(componentMetadata.getType(), serializer);
+        }
+        return serializer;
+    }
+
     private void serializeComponentType(ComponentMetadata<?> componentMetadata, EntityData.Component.Builder componentMessage) {
         Integer compId = idTable.get(componentMetadata.getType());
         if (compId != null) {
@@ -281,17 +296,17 @@ public EntityData.Component serialize(Component base, Component delta, FieldSeri
         EntityData.Component.Builder componentMessage = EntityData.Component.newBuilder();
         serializeComponentType(componentMetadata, componentMessage);
 
-        Serializer serializer = typeHandlerLibrary.getSerializerFor(componentMetadata);
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
         boolean changed = false;
-        for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
-            if (check.shouldSerializeField(field, delta) && serializer.getHandlerFor(field) != null) {
+        for (CompiledComponentSerializer.CompiledField compiledField : serializer.getFields()) {
+            ReplicatedFieldMetadata<?, ?> field = compiledField.getMetadata();
+            if (check.shouldSerializeField(field, delta) && compiledField.isSerializable()) {
                 Object origValue = field.getValue(base);
                 Object deltaValue = field.getValue(delta);
 
                 if (!Objects.equal(origValue, deltaValue)) {
-                    PersistedData value = serializer.serializeValue(field, deltaValue, serializationContext);
-                    if (!value.isNull()) {
-                        EntityData.Value dataValue = ((ProtobufPersistedData) value).getValue();
+                    EntityData.Value dataValue = compiledField.serializeValue(deltaValue, serializationContext);
+                    if (dataValue != null) {
                         if (usingFieldIds) {
                             componentMessage.addField(EntityData.NameValue.newBuilder().setNameIndex(field.getId()).setValue(dataValue).build());
                         } else {
@@ -310,6 +325,136 @@ public EntityData.Component serialize(Component base, Component delta, FieldSeri
         return null;
     }
 
+    /**
+     * Encodes a component. The result is the encoded form of what {@link #serialize(Component)} returns, but no
+     * protobuf messages are built to get there.
+     *
+     * @param component
+     * @return The encoded component, or null if it could not be serialized.
+     */
+    public byte[] encode(Component component) {
+        ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
+        if (componentMetadata == null) {
+            logger.error("Unregistered component type: {}", component.getClass());
+            return null;
+        }
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
+        List<CompiledComponentSerializer.CompiledField> fields = Lists.newArrayListWithCapacity(serializer.getFields().length);
+        List<ProtobufEncodedPersistedData> values = Lists.newArrayListWithCapacity(serializer.getFields().length);
+        for (CompiledComponentSerializer.CompiledField compiledField : serializer.getFields()) {
+            ProtobufEncodedPersistedData value = compiledField.encodeValue(compiledField.getMetadata().getValue(component),
+                    encodingContext);
+            if (value != null) {
+                fields.add(compiledField);
+                values.add(value);
+            }
+        }
+        return encodeComponent(componentMetadata, fields, values);
+    }
+
+    /**
+     * Encodes the differences between two components. The result is the encoded form of what
+     * {@link #serialize(Component, Component)} returns.
+     *
+     * @param base  The base component to compare against.
+     * @param delta The component whose differences will be encoded
+     * @return The encoded component, or null if it could not be serialized or does not differ
+     */
+    public byte[] encode(Component base, Component delta) {
+        ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(base.getClass());
+        if (componentMetadata == null) {
+            logger.error("Unregistered component type: {}", base.getClass());
+            return null;
+        }
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
+        List<CompiledComponentSerializer.CompiledField> fields = Lists.newArrayList();
+        List<ProtobufEncodedPersistedData> values = Lists.newArrayList();
+        for (CompiledComponentSerializer.CompiledField compiledField : serializer.getFields()) {
+            if (compiledField.isSerializable()) {
+                Object origValue = compiledField.getMetadata().getValue(base);
+                Object deltaValue = compiledField.getMetadata().getValue(delta);
+                if (!Objects.equal(origValue, deltaValue)) {
+                    ProtobufEncodedPersistedData value = compiledField.encodeValue(deltaValue, encodingContext);
+                    if (value != null) {
+                        fields.add(compiledField);
+                        values.add(value);
+                    }
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return encodeComponent(componentMetadata, fields, values);
+    }
+
+    /**
+     * Entity references get serialized by looking up the referenced entity, so components holding them serialize
+     * differently once that entity is changed or gone. Other components can be serialized at any later time, even on
+     * another thread, as long as they are not modified.
+     *
+     * @param component
+     * @return Whether the serialized form of the component depends on more than the component itself
+     */
+    public boolean isReferencingEntities(Component component) {
+        ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
+        return componentMetadata == null || getCompiledSerializer(componentMetadata).isReferencingEntities();
+    }
+
+    private byte[] encodeComponent(ComponentMetadata<?> componentMetadata,
+                                   List<CompiledComponentSerializer.CompiledField> fields,
+                                   List<ProtobufEncodedPersistedData> values) {
+        Integer compId = idTable.get(componentMetadata.getType());
+        String typeName = compId == null ? componentMetadata.getUri().toString() : null;
+        int[] fieldSizes = new int[fields.size()];
+        int size;
+        if (compId != null) {
+            size = CodedOutputStream.computeInt32Size(EntityData.Component.TYPE_INDEX_FIELD_NUMBER, compId);
+        } else {
+            size = CodedOutputStream.computeStringSize(EntityData.Component.TYPE_FIELD_NUMBER, typeName);
+        }
+        for (int i = 0; i < fieldSizes.length; i++) {
+            ReplicatedFieldMetadata<?, ?> field = fields.get(i).getMetadata();
+            if (usingFieldIds) {
+                fieldSizes[i] = CodedOutputStream.computeInt32Size(EntityData.NameValue.NAME_INDEX_FIELD_NUMBER, field.getId());
+            } else {
+                fieldSizes[i] = CodedOutputStream.computeStringSize(EntityData.NameValue.NAME_FIELD_NUMBER, field.getName());
+            }
+            fieldSizes[i] += values.get(i).computeFieldSize(EntityData.NameValue.VALUE_FIELD_NUMBER);
+            size += CodedOutputStream.computeTagSize(EntityData.Component.FIELD_FIELD_NUMBER)
+                    + CodedOutputStream.computeRawVarint32Size(fieldSizes[i]) + fieldSizes[i];
+        }
+
+        byte[] encoded = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+        try {
+            // In field number order, as the message would be written
+            if (compId != null) {
+                output.writeInt32(EntityData.Component.TYPE_INDEX_FIELD_NUMBER, compId);
+            }
+            for (int i = 0; i < fieldSizes.length; i++) {
+                ReplicatedFieldMetadata<?, ?> field = fields.get(i).getMetadata();
+                output.writeTag(EntityData.Component.FIELD_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeRawVarint32(fieldSizes[i]);
+                if (usingFieldIds) {
+                    values.get(i).writeTo(output, EntityData.NameValue.VALUE_FIELD_NUMBER);
+                    output.writeInt32(EntityData.NameValue.NAME_INDEX_FIELD_NUMBER, field.getId());
+                } else {
+                    output.writeString(EntityData.NameValue.NAME_FIELD_NUMBER, field.getName());
+                    values.get(i).writeTo(output, EntityData.NameValue.VALUE_FIELD_NUMBER);
+                }
+            }
+            if (typeName != null) {
+                output.writeString(EntityData.Component.TYPE_FIELD_NUMBER, typeName);
+            }
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // the array is sized up front, so this only happens if a size was computed wrongly
+            throw new IllegalStateException("Failed to encode component " + componentMetadata.getUri(), e);
+        }
+        return encoded;
+    }
+
     /**
      * Determines the component class that the serialized component is for.
      *
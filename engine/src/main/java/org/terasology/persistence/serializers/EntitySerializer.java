@@ -16,6 +16,7 @@
 
 package org.terasology.persistence.serializers;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.terasology.entitySystem.Component;
@@ -30,6 +31,7 @@
 import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
 import org.terasology.protobuf.EntityData;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -185,17 +187,22 @@ public EntityRef deserialize(EntityData.Entity entityData) {
      * @return The mapping of components
      */
     private Map<Class<? extends Component>, Component> createInitialComponents(EntityData.Entity entityData) {
-        Set<ComponentMetadata<?>> removedComponents = Sets.newHashSet();
-        for (String removedComp : entityData.getRemovedComponentList()) {
-            ComponentMetadata<?> removedMetadata = componentLibrary.resolve(removedComp);
-            if (removedMetadata != null) {
-                removedComponents.add(removedMetadata);
+        Set<ComponentMetadata<?>> removedComponents = Collections.emptySet();
+        if (entityData.getRemovedComponentCount() > 0) {
+            removedComponents = Sets.newHashSetWithExpectedSize(entityData.getRemovedComponentCount());
+            for (String removedComp : entityData.getRemovedComponentList()) {
+                ComponentMetadata<?> removedMetadata = componentLibrary.resolve(removedComp);
+                if (removedMetadata != null) {
+                    removedComponents.add(removedMetadata);
+                }
             }
         }
 
-        Map<Class<? extends Component>, Component> componentMap = Maps.newHashMap();
+        Map<Class<? extends Component>, Component> componentMap;
         if (entityData.hasParentPrefab() && !entityData.getParentPrefab().isEmpty() && prefabManager.exists(entityData.getParentPrefab())) {
             Prefab prefab = prefabManager.getPrefab(entityData.getParentPrefab());
+            // Room for the prefab's components, the info component and the ones only the entity has
+            componentMap = Maps.newHashMapWithExpectedSize(Iterables.size(prefab.iterateComponents()) + entityData.getComponentCount() + 1);
             for (Component component : prefab.iterateComponents()) {
                 ComponentMetadata<?> metadata = componentLibrary.getMetadata(component);
                 if (!removedComponents.contains(metadata)) {
@@ -203,6 +210,8 @@ private Map<Class<? extends Component>, Component> createInitialComponents(Entit
                 }
             }
             componentMap.put(EntityInfoComponent.class, new EntityInfoComponent(prefab, true, prefab.isAlwaysRelevant()));
+        } else {
+            componentMap = Maps.newHashMapWithExpectedSize(entityData.getComponentCount());
         }
         return componentMap;
     }
@@ -20,9 +20,12 @@
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.protobuf.ByteString;
+import gnu.trove.map.TByteObjectMap;
+import gnu.trove.map.hash.TByteObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.Component;
@@ -34,10 +37,7 @@
 import org.terasology.entitySystem.metadata.ComponentMetadata;
 import org.terasology.entitySystem.metadata.ReplicatedFieldMetadata;
 import org.terasology.entitySystem.prefab.Prefab;
-import org.terasology.persistence.typeHandling.PersistedData;
-import org.terasology.persistence.typeHandling.Serializer;
 import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
-import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedDataSerializer;
 import org.terasology.protobuf.EntityData;
 
@@ -54,6 +54,7 @@ public class NetworkEntitySerializer {
     private ComponentLibrary componentLibrary;
     private TypeHandlerLibrary typeHandlerLibrary;
     private ProtobufPersistedDataSerializer serializationContext;
+    private Map<Class<? extends Component>, CompiledComponentSerializer> compiledSerializers = Maps.newHashMap();
     private BiMap<Class<? extends Component>, Integer> idTable = ImmutableBiMap.<Class<? extends Component>, Integer>builder().build();
 
     public NetworkEntitySerializer(EngineEntityManager entityManager, ComponentLibrary componentLibrary, TypeHandlerLibrary typeHandlerLibrary) {
@@ -97,7 +98,7 @@ private EntityData.PackedEntity.Builder serializeEntityFull(EntityRef entityRef,
                 continue;
             }
 
-            serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+            serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true, null);
         }
         entity.setFieldIds(fieldIds.toByteString());
         entity.setComponentFieldCounts(componentFieldCounts.toByteString());
@@ -122,7 +123,7 @@ private EntityData.PackedEntity.Builder serializeEntityDelta(EntityRef entityRef
             Component prefabComponent = prefab.getComponent(component.getClass());
 
             if (prefabComponent == null) {
-                serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+                serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true, null);
             } else {
                 serializeComponentDelta(prefabComponent, component, fieldCheck, entity, fieldIds, componentFieldCounts, true);
             }
@@ -148,16 +149,17 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
         }
 
         byte fieldCount = 0;
-        Serializer serializer = typeHandlerLibrary.getSerializerFor(componentMetadata);
-        for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
+        for (CompiledComponentSerializer.CompiledField compiledField : serializer.getFields()) {
+            ReplicatedFieldMetadata<?, ?> field = compiledField.getMetadata();
             if (fieldCheck.shouldSerializeField(field, newComponent, componentInitial)) {
                 Object oldValue = field.getValue(oldComponent);
                 Object newValue = field.getValue(newComponent);
                 if (!Objects.equal(oldValue, newValue)) {
-                    PersistedData data = serializer.serializeValue(field, newValue, serializationContext);
-                    if (!data.isNull()) {
+                    EntityData.Value data = compiledField.serializeValue(newValue, serializationContext);
+                    if (data != null) {
                         entityFieldIds.write(field.getId());
-                        entityData.addFieldValue(((ProtobufPersistedData) data).getValue());
+                        entityData.addFieldValue(data);
                         fieldCount++;
                     } else {
                         logger.error("Exception serializing component type: {}, field: {} - returned null", componentMetadata, field);
@@ -174,21 +176,31 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
 
     private void serializeComponentFull(Component component, boolean ignoreIfNoFields, FieldSerializeCheck<Component> fieldCheck,
                                         EntityData.PackedEntity.Builder entityData, ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts,
-                                        boolean componentInitial) {
+                                        boolean componentInitial, TByteObjectMap<EntityData.Value> sentFieldValues) {
         ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
         if (componentMetadata == null) {
             logger.error("Unregistered component type: {}", component.getClass());
             return;
         }
 
-        Serializer serializer = typeHandlerLibrary.getSerializerFor(componentMetadata);
+        CompiledComponentSerializer serializer = getCompiledSerializer(componentMetadata);
         byte fieldCount = 0;
-        for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
+        for (CompiledComponentSerializer.CompiledField compiledField : serializer.getFields()) {
+            ReplicatedFieldMetadata<?, ?> field = compiledField.getMetadata();
             if (fieldCheck.shouldSerializeField(field, component, componentInitial)) {
-                PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
+                EntityData.Value value = compiledField.serialize(component, serializationContext);
+                if (value == null) {
+                    value = EntityData.Value.getDefaultInstance();
+                }
+                if (sentFieldValues != null) {
+                    EntityData.Value sentValue = sentFieldValues.put(field.getId(), value);
+                    if (!componentInitial && value.equals(sentValue)) {
+                        continue;
+                    }
+                }
                 entityFieldIds.write(field.getId());
 
-                entityData.addFieldValue(((ProtobufPersistedData) fieldValue).getValue());
+                entityData.addFieldValue(value);
                 fieldCount++;
             }
         }
@@ -225,13 +237,13 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
                 createdNewComponent = true;
                 component = metadata.newInstance();
             }
-            Serializer serializer = typeHandlerLibrary.getSerializerFor(metadata);
+            CompiledComponentSerializer serializer = getCompiledSerializer(metadata);
             for (int fieldIndex = 0; fieldIndex < UnsignedBytes.toInt(entityData.getComponentFieldCounts().byteAt(componentIndex)); ++fieldIndex) {
                 byte fieldId = entityData.getFieldIds().byteAt(fieldPos);
-                ReplicatedFieldMetadata fieldMetadata = metadata.getField(fieldId);
-                if (fieldMetadata != null && fieldCheck.shouldDeserialize(metadata, fieldMetadata)) {
-                    logger.trace("Deserializing field {} of component {} as value {}", fieldMetadata, metadata, entityData.getFieldValue(fieldPos));
-                    serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)));
+                CompiledComponentSerializer.CompiledField field = serializer.getField(fieldId);
+                if (field != null && fieldCheck.shouldDeserialize(metadata, field.getMetadata())) {
+                    logger.trace("Deserializing field {} of component {} as value {}", field.getMetadata(), metadata, entityData.getFieldValue(fieldPos));
+                    serializer.deserializeOnto(component, field, entityData.getFieldValue(fieldPos));
                 }
                 fieldPos++;
             }
@@ -270,6 +282,20 @@ public EntityRef deserialize(EntityData.PackedEntity entityData) {
 
     public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
                                              Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck) {
+        return serialize(entityRef, added, changed, removed, fieldCheck, null);
+    }
+
+    /**
+     * Serializes the given changes of the entity. Fields of changed components are only written when their value
+     * differs from the value that got written last time.
+     *
+     * @param sentFieldValues the last written field values per component of the entity, which get updated by this
+     *                        method. If null, all fields of changed components get written.
+     * @return the serialized changes, or null if nothing needs to be sent
+     */
+    public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
+                                             Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck,
+                                             Map<Class<? extends Component>, TByteObjectMap<EntityData.Value>> sentFieldValues) {
         EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
 
         ByteString.Output fieldIds = ByteString.newOutput();
@@ -279,18 +305,23 @@ public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extend
             if (component == null) {
                 logger.error("Non-existent component marked as added: {}", componentType);
             }
-            serializeComponentFull(entityRef.getComponent(componentType), false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+            serializeComponentFull(entityRef.getComponent(componentType), false, fieldCheck, entity, fieldIds, componentFieldCounts, true,
+                    getSentFieldValues(sentFieldValues, componentType));
         }
         for (Class<? extends Component> componentType : changed) {
             Component comp = entityRef.getComponent(componentType);
             if (comp != null) {
-                serializeComponentFull(comp, true, fieldCheck, entity, fieldIds, componentFieldCounts, false);
+                serializeComponentFull(comp, true, fieldCheck, entity, fieldIds, componentFieldCounts, false,
+                        getSentFieldValues(sentFieldValues, componentType));
             } else {
                 logger.error("Non-existent component marked as changed: {}", componentType);
             }
         }
         for (Class<? extends Component> componentType : removed) {
             entity.addRemovedComponent(idTable.get(componentType));
+            if (sentFieldValues != null) {
+                sentFieldValues.remove(componentType);
+            }
         }
         entity.setFieldIds(fieldIds.toByteString());
         entity.setComponentFieldCounts(componentFieldCounts.toByteString());
@@ -300,4 +331,21 @@ public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extend
             return entity.build();
         }
     }
+
+    private CompiledComponentSerializer getCompiledSerializer(ComponentMetadata<?> componentMetadata) {
+        CompiledComponentSerializer serializer = compiledSerializers.get(componentMetadata.getType());
+        if (serializer == null || serializer.getMetadata() != componentMetadata) {
+            serializer = CompiledComponentSerializer.compile(componentMetadata, typeHandlerLibrary);
+            compiledSerializers.put(componentMetadata.getType(), serializer);
+        }
+        return serializer;
+    }
+
+    private static TByteObjectMap<EntityData.Value> getSentFieldValues(
+            Map<Class<? extends Component>, TByteObjectMap<EntityData.Value>> sentFieldValues, Class<? extends Component> componentType) {
+        if (sentFieldValues == null) {
+            return null;
+        }
+        return sentFieldValues.computeIfAbsent(componentType, type -> new TByteObjectHashMap<>());
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.TLongList;
+import org.terasology.persistence.typeHandling.DeserializationException;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.PersistedDataArray;
+import org.terasology.persistence.typeHandling.PersistedDataMap;
+import org.terasology.protobuf.EntityData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An {@link EntityData.Value} in its encoded form, as written by {@link ProtobufEncodedPersistedDataSerializer}.
+ * <br><br>
+ * The bytes can be written into an enclosing message as they are. The value is only parsed when it is read, which
+ * type handlers rarely do while serializing.
+ */
+public class ProtobufEncodedPersistedData implements PersistedData, PersistedDataArray {
+    private final byte[] encoded;
+    private ProtobufPersistedData parsed;
+
+    /**
+     * @param encoded the encoded value, which must not be modified afterwards
+     */
+    public ProtobufEncodedPersistedData(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    /**
+     * @return the size of the encoded value in bytes
+     */
+    public int getSerializedSize() {
+        return encoded.length;
+    }
+
+    /**
+     * @return the size of the value when written as the given field of a message
+     */
+    public int computeFieldSize(int fieldNumber) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeRawVarint32Size(encoded.length)
+                + encoded.length;
+    }
+
+    /**
+     * Writes the value as the given field of a message, the same way the message would write a value it holds.
+     */
+    public void writeTo(CodedOutputStream output, int fieldNumber) throws IOException {
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(encoded.length);
+        output.writeRawBytes(encoded);
+    }
+
+    /**
+     * @return the parsed value
+     * @throws DeserializationException if the bytes are not a valid value
+     */
+    public EntityData.Value getValue() {
+        return getParsed().getValue();
+    }
+
+    private ProtobufPersistedData getParsed() {
+        if (parsed == null) {
+            try {
+                parsed = new ProtobufPersistedData(EntityData.Value.parseFrom(encoded));
+            } catch (InvalidProtocolBufferException e) {
+                throw new DeserializationException("Failed to parse encoded value", e);
+            }
+        }
+        return parsed;
+    }
+
+    @Override
+    public String getAsString() {
+        return getParsed().getAsString();
+    }
+
+    @Override
+    public double getAsDouble() {
+        return getParsed().getAsDouble();
+    }
+
+    @Override
+    public float getAsFloat() {
+        return getParsed().getAsFloat();
+    }
+
+    @Override
+    public int getAsInteger() {
+        return getParsed().getAsInteger();
+    }
+
+    @Override
+    public long getAsLong() {
+        return getParsed().getAsLong();
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        return getParsed().getAsBoolean();
+    }
+
+    @Override
+    public byte[] getAsBytes() {
+        return getParsed().getAsBytes();
+    }
+
+    @Override
+    public ByteBuffer getAsByteBuffer() {
+        return getParsed().getAsByteBuffer();
+    }
+
+    @Override
+    public PersistedDataArray getAsArray() {
+        return getParsed().getAsArray();
+    }
+
+    @Override
+    public PersistedDataMap getAsValueMap() {
+        return getParsed().getAsValueMap();
+    }
+
+    @Override
+    public boolean isString() {
+        return getParsed().isString();
+    }
+
+    @Override
+    public boolean isNumber() {
+        return getParsed().isNumber();
+    }
+
+    @Override
+    public boolean isBoolean() {
+        return getParsed().isBoolean();
+    }
+
+    @Override
+    public boolean isBytes() {
+        return getParsed().isBytes();
+    }
+
+    @Override
+    public boolean isArray() {
+        return true;
+    }
+
+    @Override
+    public boolean isValueMap() {
+        return getParsed().isValueMap();
+    }
+
+    /**
+     * A value without any content encodes to no bytes at all, so this does not need to parse the value.
+     */
+    @Override
+    public boolean isNull() {
+        return encoded.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return getParsed().toString();
+    }
+
+    @Override
+    public int size() {
+        return getParsed().size();
+    }
+
+    @Override
+    public PersistedData getArrayItem(int index) {
+        return getParsed().getArrayItem(index);
+    }
+
+    @Override
+    public boolean isNumberArray() {
+        return getParsed().isNumberArray();
+    }
+
+    @Override
+    public boolean isBooleanArray() {
+        return getParsed().isBooleanArray();
+    }
+
+    @Override
+    public boolean isStringArray() {
+        return getParsed().isStringArray();
+    }
+
+    @Override
+    public List<String> getAsStringArray() {
+        return getParsed().getAsStringArray();
+    }
+
+    @Override
+    public TDoubleList getAsDoubleArray() {
+        return getParsed().getAsDoubleArray();
+    }
+
+    @Override
+    public TFloatList getAsFloatArray() {
+        return getParsed().getAsFloatArray();
+    }
+
+    @Override
+    public TIntList getAsIntegerArray() {
+        return getParsed().getAsIntegerArray();
+    }
+
+    @Override
+    public TLongList getAsLongArray() {
+        return getParsed().getAsLongArray();
+    }
+
+    @Override
+    public boolean[] getAsBooleanArray() {
+        return getParsed().getAsBooleanArray();
+    }
+
+    @Override
+    public List<PersistedData> getAsValueArray() {
+        return getParsed().getAsValueArray();
+    }
+
+    @Override
+    public Iterator<PersistedData> iterator() {
+        return getParsed().iterator();
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import gnu.trove.iterator.TDoubleIterator;
+import gnu.trove.iterator.TFloatIterator;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.PersistedDataSerializer;
+import org.terasology.protobuf.EntityData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes to {@link EntityData.Value}s like {@link ProtobufPersistedDataSerializer}, but writes each value straight
+ * to its encoded form instead of building the message. Nested values are copied into their parent as bytes.
+ * <br><br>
+ * The values produced are {@link ProtobufEncodedPersistedData}, which parse to the same messages as the values of
+ * {@link ProtobufPersistedDataSerializer}. Values of that serializer are accepted as nested values too.
+ */
+public class ProtobufEncodedPersistedDataSerializer implements PersistedDataSerializer {
+    private static final ProtobufEncodedPersistedData NULL = new ProtobufEncodedPersistedData(new byte[0]);
+
+    @Override
+    public PersistedData serialize(String value) {
+        return serializeStrings(Arrays.asList(value));
+    }
+
+    @Override
+    public PersistedData serialize(String... values) {
+        return serializeStrings(Arrays.asList(values));
+    }
+
+    @Override
+    public PersistedData serializeStrings(Iterable<String> value) {
+        List<byte[]> strings = Lists.newArrayList();
+        int size = 0;
+        for (String item : value) {
+            byte[] utf8 = item.getBytes(StandardCharsets.UTF_8);
+            strings.add(utf8);
+            size += computeLengthDelimitedSize(EntityData.Value.STRING_FIELD_NUMBER, utf8.length);
+        }
+        return write(size, output -> {
+            for (byte[] utf8 : strings) {
+                writeLengthDelimited(output, EntityData.Value.STRING_FIELD_NUMBER, utf8);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(float value) {
+        return serialize(new float[]{value});
+    }
+
+    @Override
+    public PersistedData serialize(float... values) {
+        int dataSize = values.length * 4;
+        return write(computePackedSize(EntityData.Value.FLOAT_FIELD_NUMBER, dataSize), output -> {
+            writePackedHeader(output, EntityData.Value.FLOAT_FIELD_NUMBER, dataSize);
+            for (float val : values) {
+                output.writeFloatNoTag(val);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(TFloatIterator value) {
+        TFloatArrayList values = new TFloatArrayList();
+        while (value.hasNext()) {
+            values.add(value.next());
+        }
+        return serialize(values.toArray());
+    }
+
+    @Override
+    public PersistedData serialize(int value) {
+        return serialize(new int[]{value});
+    }
+
+    @Override
+    public PersistedData serialize(int... values) {
+        int dataSize = 0;
+        for (int val : values) {
+            dataSize += CodedOutputStream.computeSInt32SizeNoTag(val);
+        }
+        final int packedSize = dataSize;
+        return write(computePackedSize(EntityData.Value.INTEGER_FIELD_NUMBER, packedSize), output -> {
+            writePackedHeader(output, EntityData.Value.INTEGER_FIELD_NUMBER, packedSize);
+            for (int val : values) {
+                output.writeSInt32NoTag(val);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(TIntIterator value) {
+        TIntArrayList values = new TIntArrayList();
+        while (value.hasNext()) {
+            values.add(value.next());
+        }
+        return serialize(values.toArray());
+    }
+
+    @Override
+    public PersistedData serialize(long value) {
+        return serialize(new long[]{value});
+    }
+
+    @Override
+    public PersistedData serialize(long... values) {
+        int dataSize = 0;
+        for (long val : values) {
+            dataSize += CodedOutputStream.computeSInt64SizeNoTag(val);
+        }
+        final int packedSize = dataSize;
+        return write(computePackedSize(EntityData.Value.LONG_FIELD_NUMBER, packedSize), output -> {
+            writePackedHeader(output, EntityData.Value.LONG_FIELD_NUMBER, packedSize);
+            for (long val : values) {
+                output.writeSInt64NoTag(val);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(TLongIterator value) {
+        TLongArrayList values = new TLongArrayList();
+        while (value.hasNext()) {
+            values.add(value.next());
+        }
+        return serialize(values.toArray());
+    }
+
+    @Override
+    public PersistedData serialize(boolean value) {
+        return serialize(new boolean[]{value});
+    }
+
+    @Override
+    public PersistedData serialize(boolean... values) {
+        int dataSize = values.length;
+        return write(computePackedSize(EntityData.Value.BOOLEAN_FIELD_NUMBER, dataSize), output -> {
+            writePackedHeader(output, EntityData.Value.BOOLEAN_FIELD_NUMBER, dataSize);
+            for (boolean val : values) {
+                output.writeBoolNoTag(val);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(double value) {
+        return serialize(new double[]{value});
+    }
+
+    @Override
+    public PersistedData serialize(double... values) {
+        int dataSize = values.length * 8;
+        return write(computePackedSize(EntityData.Value.DOUBLE_FIELD_NUMBER, dataSize), output -> {
+            writePackedHeader(output, EntityData.Value.DOUBLE_FIELD_NUMBER, dataSize);
+            for (double val : values) {
+                output.writeDoubleNoTag(val);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(TDoubleIterator value) {
+        TDoubleArrayList values = new TDoubleArrayList();
+        while (value.hasNext()) {
+            values.add(value.next());
+        }
+        return serialize(values.toArray());
+    }
+
+    @Override
+    public PersistedData serialize(byte[] value) {
+        return write(computeLengthDelimitedSize(EntityData.Value.BYTES_FIELD_NUMBER, value.length),
+                output -> writeLengthDelimited(output, EntityData.Value.BYTES_FIELD_NUMBER, value));
+    }
+
+    @Override
+    public PersistedData serialize(ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        return serialize(bytes);
+    }
+
+    @Override
+    public PersistedData serialize(PersistedData... data) {
+        return serialize(Arrays.asList(data));
+    }
+
+    @Override
+    public PersistedData serialize(Iterable<PersistedData> data) {
+        List<ProtobufEncodedPersistedData> values = Lists.newArrayList();
+        int size = 0;
+        for (PersistedData value : data) {
+            ProtobufEncodedPersistedData encodedValue = toEncoded(value);
+            values.add(encodedValue);
+            size += encodedValue.computeFieldSize(EntityData.Value.VALUE_FIELD_NUMBER);
+        }
+        return write(size, output -> {
+            for (ProtobufEncodedPersistedData value : values) {
+                value.writeTo(output, EntityData.Value.VALUE_FIELD_NUMBER);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serialize(Map<String, PersistedData> data) {
+        int entryCount = data.size();
+        byte[][] names = new byte[entryCount][];
+        ProtobufEncodedPersistedData[] values = new ProtobufEncodedPersistedData[entryCount];
+        int[] entrySizes = new int[entryCount];
+        int size = 0;
+        int index = 0;
+        for (Map.Entry<String, PersistedData> entry : data.entrySet()) {
+            names[index] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            values[index] = toEncoded(entry.getValue());
+            entrySizes[index] = computeLengthDelimitedSize(EntityData.NameValue.NAME_FIELD_NUMBER, names[index].length)
+                    + values[index].computeFieldSize(EntityData.NameValue.VALUE_FIELD_NUMBER);
+            size += computeLengthDelimitedSize(EntityData.Value.NAME_VALUE_FIELD_NUMBER, entrySizes[index]);
+            index++;
+        }
+        return write(size, output -> {
+            for (int i = 0; i < entryCount; i++) {
+                output.writeTag(EntityData.Value.NAME_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeRawVarint32(entrySizes[i]);
+                writeLengthDelimited(output, EntityData.NameValue.NAME_FIELD_NUMBER, names[i]);
+                values[i].writeTo(output, EntityData.NameValue.VALUE_FIELD_NUMBER);
+            }
+        });
+    }
+
+    @Override
+    public PersistedData serializeNull() {
+        return NULL;
+    }
+
+    /**
+     * @return the given value in its encoded form, encoding values of {@link ProtobufPersistedDataSerializer} if needed
+     */
+    public static ProtobufEncodedPersistedData toEncoded(PersistedData data) {
+        if (data instanceof ProtobufEncodedPersistedData) {
+            return (ProtobufEncodedPersistedData) data;
+        }
+        return new ProtobufEncodedPersistedData(((ProtobufPersistedData) data).getValue().toByteArray());
+    }
+
+    private static int computeLengthDelimitedSize(int fieldNumber, int length) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeRawVarint32Size(length) + length;
+    }
+
+    private static void writeLengthDelimited(CodedOutputStream output, int fieldNumber, byte[] bytes) throws IOException {
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(bytes.length);
+        output.writeRawBytes(bytes);
+    }
+
+    /**
+     * Packed fields without elements are left out entirely, like messages do.
+     */
+    private static int computePackedSize(int fieldNumber, int dataSize) {
+        if (dataSize == 0) {
+            return 0;
+        }
+        return computeLengthDelimitedSize(fieldNumber, dataSize);
+    }
+
+    private static void writePackedHeader(CodedOutputStream output, int fieldNumber, int dataSize) throws IOException {
+        if (dataSize != 0) {
+            output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeRawVarint32(dataSize);
+        }
+    }
+
+    private static ProtobufEncodedPersistedData write(int size, ValueWriter writer) {
+        if (size == 0) {
+            return NULL;
+        }
+        byte[] encoded = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+        try {
+            writer.write(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // the array is sized up front, so this only happens if a size was computed wrongly
+            throw new IllegalStateException("Failed to encode value", e);
+        }
+        return new ProtobufEncodedPersistedData(encoded);
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(CodedOutputStream output) throws IOException;
+    }
+}
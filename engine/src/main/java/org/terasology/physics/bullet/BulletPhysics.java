@@ -431,9 +431,9 @@ public Iterator<EntityRef> physicsEntitiesIterator() {
     @Override
     public void awakenArea(org.terasology.math.geom.Vector3f pos, float radius) {
         Vector3f min = new Vector3f(VecMath.to(pos));
-        min.sub(new Vector3f(0.6f, 0.6f, 0.6f));
+        min.sub(new Vector3f(radius, radius, radius));
         Vector3f max = new Vector3f(VecMath.to(pos));
-        max.add(new Vector3f(0.6f, 0.6f, 0.6f));
+        max.add(new Vector3f(radius, radius, radius));
         discreteDynamicsWorld.awakenRigidBodiesInArea(min, max);
     }
 
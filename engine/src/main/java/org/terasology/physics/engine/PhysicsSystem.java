@@ -33,6 +33,7 @@
 import org.terasology.logic.location.LocationResynchEvent;
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.NetworkComponent;
 import org.terasology.network.NetworkSystem;
@@ -51,6 +52,7 @@
 import org.terasology.physics.events.BlockImpactEvent;
 import org.terasology.registry.In;
 import org.terasology.world.OnChangedBlock;
+import org.terasology.world.OnChangedBlocks;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockComponent;
@@ -149,6 +151,14 @@ public void onBlockAltered(OnChangedBlock event, EntityRef entity) {
         physics.awakenArea(event.getBlockPosition().toVector3f(), 0.6f);
     }
 
+    @ReceiveEvent
+    public void onBlocksAltered(OnChangedBlocks event, EntityRef worldEntity) {
+        Vector3f center = event.getRegion().center();
+        center.sub(0.5f, 0.5f, 0.5f);
+        Vector3i size = event.getRegion().size();
+        physics.awakenArea(center, Math.max(size.x, Math.max(size.y, size.z)) / 2.0f + 0.6f);
+    }
+
     @ReceiveEvent
     public void onItemImpact(ImpactEvent event, EntityRef entity) {
         RigidBody rigidBody = physics.getRigidBody(entity);
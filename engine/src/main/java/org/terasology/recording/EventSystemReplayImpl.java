@@ -19,6 +19,7 @@
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.event.internal.EventReceiver;
 import org.terasology.entitySystem.event.internal.EventSystem;
+import org.terasology.entitySystem.event.internal.ThreadEventBuffer;
 import com.esotericsoftware.reflectasm.MethodAccess;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicates;
@@ -80,6 +81,7 @@
 public class EventSystemReplayImpl implements EventSystem {
 
     private static final Logger logger = LoggerFactory.getLogger(EventSystemReplayImpl.class);
+    private static final int STREAMED_EVENT_BUFFER_SIZE = 1024;
 
     private Map<Class<? extends Event>, SetMultimap<Class<? extends Component>, EventHandlerInfo>> componentSpecificHandlers = Maps.newHashMap();
     private SetMultimap<Class<? extends Event>, EventSystemReplayImpl.EventHandlerInfo> generalHandlers = HashMultimap.create();
@@ -99,6 +101,8 @@ public class EventSystemReplayImpl implements EventSystem {
     //Event replaying
     /** if the recorded events were loaded from the RecordedEventStore. */
     private boolean areRecordedEventsLoaded;
+    /** if the recorded events are read from streamed segments instead of the RecordedEventStore. */
+    private boolean areRecordedEventsStreamed;
     /** When the events were loaded. Used to reproduce the events at the correct time. */
     private long replayEventsLoadTime;
     /** Necessary to do some entity id mapping from original client and replay client. */
@@ -142,10 +146,16 @@ private void fillRecordedEvents() {
         }
     }
 
+    private void queuePendingEvent(PendingEvent event) {
+        if (!ThreadEventBuffer.offer(event)) {
+            pendingEvents.offer(event);
+        }
+    }
+
     // send method of EventSystemImpl
     private void originalSend(EntityRef entity, Event event) {
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event));
+            queuePendingEvent(new PendingEvent(entity, event));
         } else {
             networkReplicate(entity, event);
 
@@ -165,7 +175,7 @@ private void originalSend(EntityRef entity, Event event) {
     private void originalSend(EntityRef entity, Event event, Component component) {
 
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event, component));
+            queuePendingEvent(new PendingEvent(entity, event, component));
         } else {
             SetMultimap<Class<? extends Component>, EventSystemReplayImpl.EventHandlerInfo> handlers = componentSpecificHandlers.get(event.getClass());
             if (handlers != null) {
@@ -207,7 +217,12 @@ private void processRecordedEvents() {
         //If replay is ready, process some recorded events if the time is right.
         if (recordAndReplayCurrentStatus.getStatus() == RecordAndReplayStatus.REPLAYING) {
             processRecordedEventsBatch(1);
-            if (this.recordedEvents.isEmpty()) {
+            if (this.areRecordedEventsStreamed) {
+                fillStreamedRecordedEvents();
+                if (this.recordedEvents.isEmpty()) {
+                    finishReplay();
+                }
+            } else if (this.recordedEvents.isEmpty()) {
                 if (recordAndReplayUtils.getFileCount() <= recordAndReplayUtils.getFileAmount()) { //Get next recorded events file
                     loadNextRecordedEventFile();
                 } else {
@@ -231,8 +246,24 @@ private void loadNextRecordedEventFile() {
         fillRecordedEvents();
     }
 
+    /**
+     * Tops up recordedEvents from the streamed recording once less than half of its buffer is left, so only a bounded
+     * amount of recorded events is kept in memory.
+     */
+    private void fillStreamedRecordedEvents() {
+        int size = this.recordedEvents.size();
+        if (size < STREAMED_EVENT_BUFFER_SIZE / 2) {
+            recordAndReplaySerializer.readStreamedEvents(this.recordedEvents, STREAMED_EVENT_BUFFER_SIZE - size);
+        }
+    }
+
     private void initialiseReplayData() {
-        fillRecordedEvents();
+        this.areRecordedEventsStreamed = recordAndReplaySerializer.hasStreamedEvents();
+        if (this.areRecordedEventsStreamed) {
+            fillStreamedRecordedEvents();
+        } else {
+            fillRecordedEvents();
+        }
         this.areRecordedEventsLoaded = true;
         logger.info("Loaded Recorded Events!");
         replayEventsLoadTime = System.currentTimeMillis();
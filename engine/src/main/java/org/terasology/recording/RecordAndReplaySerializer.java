@@ -27,12 +27,17 @@
 import org.terasology.engine.paths.PathManager;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.persistence.typeHandling.SerializationException;
+import org.terasology.protobuf.EntityData;
 import org.terasology.reflection.TypeRegistry;
 
 import java.io.FileWriter;
 import java.io.FileReader;
+import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -47,12 +52,15 @@ public final class RecordAndReplaySerializer {
     private static final String FILE_AMOUNT = "/file_amount" + JSON;
     private static final String STATE_EVENT_POSITION = "/state_event_position" + JSON;
     private static final String DIRECTION_ORIGIN_LIST = "/direction_origin_list" + JSON;
+    private static final long EVENT_SEGMENT_SIZE = 16 * 1024 * 1024;
 
     private RecordedEventStore recordedEventStore;
     private RecordAndReplayUtils recordAndReplayUtils;
     private CharacterStateEventPositionMap characterStateEventPositionMap;
     private DirectionAndOriginPosRecorderList directionAndOriginPosRecorderList;
     private RecordedEventSerializer recordedEventSerializer;
+    private RecordedEventWriter recordedEventWriter;
+    private RecordedEventReader recordedEventReader;
 
     public RecordAndReplaySerializer(EntityManager manager, RecordedEventStore store,
                                      RecordAndReplayUtils recordAndReplayUtils,
@@ -66,12 +74,35 @@ public RecordAndReplaySerializer(EntityManager manager, RecordedEventStore store
         this.recordedEventSerializer = new RecordedEventSerializer(manager, moduleManager, typeRegistry);
     }
 
+    /**
+     * Streams the events added to the RecordedEventStore to binary segments in the recording folder while recording,
+     * instead of keeping them in memory until the next save writes them as json.
+     */
+    public void enableEventStreaming() {
+        recordedEventWriter = new RecordedEventWriter(() ->
+                PathManager.getInstance().getRecordingPath(recordAndReplayUtils.getGameTitle()), EVENT_SEGMENT_SIZE);
+        recordedEventStore.streamTo(this::streamRecordedEvent);
+    }
+
+    private void streamRecordedEvent(RecordedEvent event) {
+        try {
+            recordedEventWriter.write(recordedEventSerializer.serializeRecordedEvent(event));
+        } catch (SerializationException e) {
+            logger.error("Error while serializing recorded event", e);
+        }
+    }
+
     /**
      * Serialize the recorded data.
      */
     public void serializeRecordAndReplayData() {
         String recordingPath = PathManager.getInstance().getRecordingPath(recordAndReplayUtils.getGameTitle()).toString();
-        serializeRecordedEvents(recordingPath);
+        if (recordedEventWriter != null) {
+            recordedEventWriter.close();
+            logger.info("RecordedEvents streaming completed!");
+        } else {
+            serializeRecordedEvents(recordingPath);
+        }
         Gson gson = new GsonBuilder().create();
         serializeFileAmount(gson, recordingPath);
         serializeCharacterStateEventPositionMap(gson, recordingPath);
@@ -83,6 +114,10 @@ public void serializeRecordAndReplayData() {
      * @param recordingPath path where the data should be saved.
      */
     public void serializeRecordedEvents(String recordingPath) {
+        if (recordedEventWriter != null) {
+            recordedEventWriter.flush();
+            return;
+        }
         String filepath = recordingPath + EVENT_DIR + recordAndReplayUtils.getFileCount() + JSON;
         recordAndReplayUtils.setFileAmount(recordAndReplayUtils.getFileAmount() + 1);
         recordAndReplayUtils.setFileCount(recordAndReplayUtils.getFileCount() + 1);
@@ -94,8 +129,14 @@ public void serializeRecordedEvents(String recordingPath) {
      * Deserialize recorded data.
      */
     public void deserializeRecordAndReplayData() {
-        String recordingPath = PathManager.getInstance().getRecordingPath(recordAndReplayUtils.getGameTitle()).toString();
-        deserializeRecordedEvents(recordingPath);
+        Path recordingDirectory = PathManager.getInstance().getRecordingPath(recordAndReplayUtils.getGameTitle());
+        String recordingPath = recordingDirectory.toString();
+        if (RecordedEventReader.hasSegments(recordingDirectory)) {
+            recordedEventReader = new RecordedEventReader(recordingDirectory);
+            logger.info("Replaying streamed RecordedEvents");
+        } else {
+            deserializeRecordedEvents(recordingPath);
+        }
         Gson gson = new GsonBuilder().create();
         deserializeFileAmount(gson, recordingPath);
         deserializeCharacterStateEventPositionMap(gson, recordingPath);
@@ -113,6 +154,48 @@ void deserializeRecordedEvents(String recordingPath) {
         logger.info("RecordedEvents Deserialization completed!");
     }
 
+    /**
+     * @return whether the recording being replayed has its events in streamed segments, which are read with
+     * {@link #readStreamedEvents(Collection, int)} instead of the RecordedEventStore.
+     */
+    public boolean hasStreamedEvents() {
+        return recordedEventReader != null;
+    }
+
+    /**
+     * Reads the next streamed RecordedEvents of the recording being replayed.
+     * @param target the collection the events are added to.
+     * @param maxEvents the maximum amount of events to read.
+     * @return the amount of events read, 0 once every event was read.
+     */
+    public int readStreamedEvents(Collection<RecordedEvent> target, int maxEvents) {
+        if (recordedEventReader == null) {
+            return 0;
+        }
+        int count = 0;
+        try {
+            for (EntityData.Value value = recordedEventReader.next(); value != null; value = recordedEventReader.next()) {
+                target.add(recordedEventSerializer.deserializeRecordedEvent(value));
+                if (++count == maxEvents) {
+                    return count;
+                }
+            }
+        } catch (IOException | SerializationException e) {
+            logger.error("Error while reading streamed recorded events", e);
+        }
+        closeStreamedEvents();
+        return count;
+    }
+
+    private void closeStreamedEvents() {
+        try {
+            recordedEventReader.close();
+        } catch (IOException e) {
+            logger.error("Error while closing streamed recorded events", e);
+        }
+        recordedEventReader = null;
+    }
+
     private void serializeFileAmount(Gson gson, String recordingPath) {
         try {
             JsonWriter writer = new JsonWriter(new FileWriter(recordingPath + FILE_AMOUNT));
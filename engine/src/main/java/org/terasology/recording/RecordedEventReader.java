@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.recording;
+
+import org.terasology.protobuf.EntityData;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the events written by a {@link RecordedEventWriter} back one at a time, opening the segments in order as they
+ * are needed.
+ */
+class RecordedEventReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private int segmentIndex;
+    private InputStream input;
+
+    RecordedEventReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return whether the directory contains streamed recorded events
+     */
+    static boolean hasSegments(Path directory) {
+        return Files.isRegularFile(RecordedEventWriter.getSegmentPath(directory, 1));
+    }
+
+    /**
+     * @return the next serialized event, or null if all segments have been read
+     * @throws IOException if a segment could not be read
+     */
+    EntityData.Value next() throws IOException {
+        while (true) {
+            if (input == null) {
+                Path path = RecordedEventWriter.getSegmentPath(directory, segmentIndex + 1);
+                if (!Files.isRegularFile(path)) {
+                    return null;
+                }
+                segmentIndex++;
+                input = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+            }
+            EntityData.Value value = EntityData.Value.parseDelimitedFrom(input);
+            if (value != null) {
+                return value;
+            }
+            input.close();
+            input = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+}
@@ -22,9 +22,13 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.persistence.serializers.GsonSerializer;
+import org.terasology.persistence.serializers.ProtobufSerializer;
+import org.terasology.persistence.typeHandling.PersistedData;
 import org.terasology.persistence.typeHandling.SerializationException;
 import org.terasology.persistence.typeHandling.TypeHandlerLibrary;
 import org.terasology.persistence.typeHandling.extensionTypes.EntityRefTypeHandler;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
+import org.terasology.protobuf.EntityData;
 import org.terasology.reflection.TypeInfo;
 import org.terasology.reflection.TypeRegistry;
 
@@ -32,6 +36,7 @@
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Serializes and deserializes RecordedEvents.
@@ -40,13 +45,17 @@ class RecordedEventSerializer {
 
     private static final Logger logger = LoggerFactory.getLogger(RecordedEventSerializer.class);
 
+    private static final TypeInfo<RecordedEvent> RECORDED_EVENT_TYPE = TypeInfo.of(RecordedEvent.class);
+
     private GsonSerializer gsonSerializer;
+    private ProtobufSerializer protobufSerializer;
 
     public RecordedEventSerializer(EntityManager entityManager, ModuleManager moduleManager, TypeRegistry typeRegistry) {
         TypeHandlerLibrary typeHandlerLibrary = TypeHandlerLibrary.forModuleEnvironment(moduleManager, typeRegistry);
         typeHandlerLibrary.addTypeHandler(EntityRef.class, new EntityRefTypeHandler((EngineEntityManager) entityManager));
 
         gsonSerializer = new GsonSerializer(typeHandlerLibrary);
+        protobufSerializer = new ProtobufSerializer(typeHandlerLibrary);
     }
 
     /**
@@ -81,4 +90,35 @@ public List<RecordedEvent> deserializeRecordedEvents(String filePath) {
 
         return events;
     }
+
+    /**
+     * Serializes a single RecordedEvent to the protobuf value that is streamed to the recording segments. This has to
+     * happen on the thread that recorded the event, since the type handlers may access the entity manager.
+     *
+     * @param event the RecordedEvent to serialize.
+     * @return the serialized event.
+     * @throws SerializationException if there is no type handler for a part of the event.
+     */
+    public EntityData.Value serializeRecordedEvent(RecordedEvent event) throws SerializationException {
+        Optional<PersistedData> serialized = protobufSerializer.serialize(event, RECORDED_EVENT_TYPE);
+        if (!serialized.isPresent()) {
+            throw new SerializationException("Could not serialize recorded event " + event.getIndex());
+        }
+        return ((ProtobufPersistedData) serialized.get()).getValue();
+    }
+
+    /**
+     * Deserializes a single RecordedEvent read from a recording segment.
+     *
+     * @param value the serialized event.
+     * @return the RecordedEvent.
+     * @throws SerializationException if the event could not be deserialized.
+     */
+    public RecordedEvent deserializeRecordedEvent(EntityData.Value value) throws SerializationException {
+        Optional<RecordedEvent> deserialized = protobufSerializer.deserialize(new ProtobufPersistedData(value), RECORDED_EVENT_TYPE);
+        if (!deserialized.isPresent()) {
+            throw new SerializationException("Could not deserialize recorded event");
+        }
+        return deserialized.get();
+    }
 }
@@ -17,6 +17,7 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Responsible for storing the recorded events.
@@ -24,6 +25,7 @@
 public class RecordedEventStore {
 
     private List<RecordedEvent> events;
+    private Consumer<RecordedEvent> stream;
 
     public RecordedEventStore() {
         events = new ArrayList<>();
@@ -31,9 +33,20 @@ public RecordedEventStore() {
 
 
     public boolean add(RecordedEvent event) {
+        if (stream != null) {
+            stream.accept(event);
+            return true;
+        }
         return events.add(event);
     }
 
+    /**
+     * Passes every event added from now on to the given consumer instead of storing it.
+     */
+    void streamTo(Consumer<RecordedEvent> consumer) {
+        stream = consumer;
+    }
+
     public List<RecordedEvent> getEvents() {
         return events;
     }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.recording;
+
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.protobuf.EntityData;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Appends serialized recorded events to rolling segment files on a background thread, so the events of a long
+ * recording never have to be kept in memory.
+ * <br><br>
+ * Each segment is a sequence of length delimited {@link EntityData.Value}s. A new segment is started once the current
+ * one has grown past the segment size. The queue to the writer thread is bounded, so recording blocks instead of
+ * buffering without limit if the disk cannot keep up.
+ */
+class RecordedEventWriter {
+
+    static final String SEGMENT_PREFIX = "events";
+    static final String SEGMENT_SUFFIX = ".bin";
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordedEventWriter.class);
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Object CLOSE = new Object();
+
+    private final Supplier<Path> directory;
+    private final long segmentSize;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private Thread writerThread;
+    private boolean closed;
+
+    // Only accessed by the writer thread
+    private Path segmentDirectory;
+    private CountingOutputStream output;
+    private boolean failed;
+    private volatile int segmentCount;
+
+    /**
+     * @param directory   provides the directory the segments are written to, resolved when the first event is written
+     * @param segmentSize the size in bytes after which a new segment is started
+     */
+    RecordedEventWriter(Supplier<Path> directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @return the path of the segment with the given index, starting with 1
+     */
+    static Path getSegmentPath(Path directory, int index) {
+        return directory.resolve(SEGMENT_PREFIX + index + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Queues an event to be appended to the current segment. Blocks while the queue is full.
+     */
+    synchronized void write(EntityData.Value event) {
+        if (closed) {
+            logger.warn("Dropping recorded event, the recording was already closed");
+            return;
+        }
+        if (writerThread == null) {
+            writerThread = new Thread(this::run, "Recorded event writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        enqueue(event);
+    }
+
+    /**
+     * Blocks until all events written so far are in the segment files.
+     */
+    synchronized void flush() {
+        if (writerThread == null || closed) {
+            return;
+        }
+        CountDownLatch flushed = new CountDownLatch(1);
+        enqueue(flushed);
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes all queued events, closes the current segment and stops the writer thread. Later events are dropped.
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writerThread != null) {
+            enqueue(CLOSE);
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the number of segments started so far
+     */
+    int getSegmentCount() {
+        return segmentCount;
+    }
+
+    private void enqueue(Object entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while queueing a recorded event");
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Object entry = queue.take();
+                if (entry == CLOSE) {
+                    break;
+                } else if (entry instanceof CountDownLatch) {
+                    flushSegment();
+                    ((CountDownLatch) entry).countDown();
+                } else {
+                    writeEvent((EntityData.Value) entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Recorded event writer interrupted, events still queued are lost");
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void writeEvent(EntityData.Value event) {
+        if (failed) {
+            return;
+        }
+        try {
+            if (output == null || output.getCount() >= segmentSize) {
+                startSegment();
+            }
+            event.writeDelimitedTo(output);
+        } catch (IOException e) {
+            failed = true;
+            logger.error("Error while writing recorded events, the rest of the recording is dropped", e);
+        }
+    }
+
+    private void startSegment() throws IOException {
+        closeSegment();
+        if (segmentDirectory == null) {
+            segmentDirectory = directory.get();
+            Files.createDirectories(segmentDirectory);
+        }
+        Path path = getSegmentPath(segmentDirectory, segmentCount + 1);
+        output = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        segmentCount++;
+    }
+
+    private void flushSegment() {
+        if (output != null && !failed) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                failed = true;
+                logger.error("Error while flushing recorded events", e);
+            }
+        }
+    }
+
+    private void closeSegment() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                logger.error("Error while closing recorded event segment", e);
+            }
+            output = null;
+        }
+    }
+}
@@ -184,6 +184,35 @@ public boolean intersects(AABB aabb) {
         return true;
     }
 
+    /**
+     * Tests the box between the given corners, relative to the given view position, against the view frustum.
+     *
+     * @return OUTSIDE if the box doesn't intersect the frustum, INSIDE if the box is completely inside the frustum,
+     * INTERSECTING otherwise
+     */
+    public Intersection intersection(Vector3f viewPosition, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        Intersection result = Intersection.INSIDE;
+        for (int i = 0; i < 6; i++) {
+            final float a = planes[i].getA();
+            final float b = planes[i].getB();
+            final float c = planes[i].getC();
+            // The corners furthest along and furthest against the normal of the plane
+            final float positiveX = (a > 0 ? maxX : minX) - viewPosition.x;
+            final float positiveY = (b > 0 ? maxY : minY) - viewPosition.y;
+            final float positiveZ = (c > 0 ? maxZ : minZ) - viewPosition.z;
+            if (a * positiveX + b * positiveY + c * positiveZ + planes[i].getD() <= 0) {
+                return Intersection.OUTSIDE;
+            }
+            final float negativeX = (a > 0 ? minX : maxX) - viewPosition.x;
+            final float negativeY = (b > 0 ? minY : maxY) - viewPosition.y;
+            final float negativeZ = (c > 0 ? minZ : maxZ) - viewPosition.z;
+            if (a * negativeX + b * negativeY + c * negativeZ + planes[i].getD() <= 0) {
+                result = Intersection.INTERSECTING;
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns true if the given sphere intersects the given AABB.
      */
@@ -195,4 +224,10 @@ public boolean intersects(Vector3f position, float radius) {
         }
         return true;
     }
+
+    public enum Intersection {
+        OUTSIDE,
+        INTERSECTING,
+        INSIDE
+    }
 }
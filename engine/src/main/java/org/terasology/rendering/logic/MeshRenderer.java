@@ -35,6 +35,7 @@
 import org.terasology.entitySystem.systems.RegisterSystem;
 import org.terasology.entitySystem.systems.RenderSystem;
 import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.location.WorldTransformCache;
 import org.terasology.logic.players.LocalPlayer;
 import org.terasology.math.AABB;
 import org.terasology.math.MatrixUtils;
@@ -74,6 +75,7 @@ public class MeshRenderer extends BaseComponentSystem implements RenderSystem {
 
     private NearestSortingList opaqueMeshSorter = new NearestSortingList();
     private NearestSortingList translucentMeshSorter = new NearestSortingList();
+    private WorldTransformCache worldTransforms = new WorldTransformCache();
 
     private int lastRendered;
 
@@ -171,6 +173,7 @@ private void renderEntitiesByMaterial(SetMultimap<Material, EntityRef> meshByMat
 
         Quat4f worldRot = new Quat4f();
         Vector3f worldPos = new Vector3f();
+        worldTransforms.clear();
 
         FloatBuffer tempMatrixBuffer44 = BufferUtils.createFloatBuffer(16);
         FloatBuffer tempMatrixBuffer33 = BufferUtils.createFloatBuffer(12);
@@ -188,9 +191,8 @@ private void renderEntitiesByMaterial(SetMultimap<Material, EntityRef> meshByMat
                 lastRendered = entities.size();
                 for (EntityRef entity : entities) {
                     MeshComponent meshComp = entity.getComponent(MeshComponent.class);
-                    LocationComponent location = entity.getComponent(LocationComponent.class);
-
-                    if (isHidden(entity, meshComp) || location == null || meshComp.mesh == null || !isRelevant(entity, location.getWorldPosition())) {
+                    if (isHidden(entity, meshComp) || meshComp.mesh == null || worldTransforms.getWorldPosition(entity, worldPos) == null
+                            || !isRelevant(entity, worldPos)) {
                         continue;
                     }
                     if (meshComp.mesh.isDisposed()) {
@@ -198,9 +200,8 @@ private void renderEntitiesByMaterial(SetMultimap<Material, EntityRef> meshByMat
                         continue;
                     }
 
-                    location.getWorldRotation(worldRot);
-                    location.getWorldPosition(worldPos);
-                    float worldScale = location.getWorldScale();
+                    worldTransforms.getWorldRotation(entity, worldRot);
+                    float worldScale = worldTransforms.getWorldScale(entity);
 
                     Transform toWorldSpace = new Transform(worldPos, worldRot, worldScale);
 
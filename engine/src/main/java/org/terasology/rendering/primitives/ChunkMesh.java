@@ -24,6 +24,7 @@
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL15;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.module.sandbox.API;
 import org.terasology.rendering.VertexBufferObjectUtil;
@@ -111,6 +112,9 @@ public enum RenderPhase {
     /* CONCURRENCY */
     private ReentrantLock lock = new ReentrantLock();
 
+    /* VISIBILITY */
+    private long sideConnections = ChunkVisibilityGraph.ALL_SIDES_CONNECTED;
+
     /* MEASUREMENTS */
     private int timeToGenerateBlockVertices;
     private int timeToGenerateOptimizedBuffers;
@@ -343,6 +347,22 @@ public boolean isEmpty() {
         return triangleCount == 0;
     }
 
+    long getSideConnections() {
+        return sideConnections;
+    }
+
+    void setSideConnections(long sideConnections) {
+        this.sideConnections = sideConnections;
+    }
+
+    /**
+     * Tells whether the chunk can be seen through from one side to the other, i.e. if the two sides are connected by
+     * blocks that don't occlude the view. If the connections haven't been calculated, all sides are connected.
+     */
+    public boolean areSidesConnected(Side from, Side to) {
+        return ChunkVisibilityGraph.areSidesConnected(sideConnections, from, to);
+    }
+
     void setTimeToGenerateBlockVertices(int timeToGenerateBlockVertices) {
         this.timeToGenerateBlockVertices = timeToGenerateBlockVertices;
     }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.config.RenderingConfig;
+import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the final vertex and index buffers of tessellated chunks on disk, so chunks which haven't changed since they
+ * were last tessellated, possibly in an earlier session, don't need to be tessellated again.
+ * <br><br>
+ * A cached mesh is only used if the hash of the chunk's blocks and lighting, the hash of the blocks and lighting of the
+ * border around the chunk, the tessellation version and the tessellation settings all match. The tessellation version
+ * covers the appearance of all registered blocks, which depends on the block atlas. The settings are read from the
+ * rendering config whenever a key is created, so changing them doesn't bring back meshes of the old settings.
+ * <br><br>
+ * Cache files are memory mapped and their buffers are uploaded as they are. As some platforms can't replace or delete
+ * a file while it is mapped, every mesh gets its own file, named after its key, and outdated files of a chunk are
+ * only deleted on a best effort basis once a newer mesh was stored.
+ * <br><br>
+ * The cache can be used by several threads concurrently.
+ */
+public class ChunkMeshCache {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkMeshCache.class);
+
+    private static final int MAGIC = 0x54434d43;
+    private static final int FORMAT_VERSION = 2;
+    private static final int RENDER_TYPES = ChunkMesh.RenderType.values().length;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8 * 3 + RENDER_TYPES * 8;
+
+    private static final int GREEDY_MESHING = 1;
+    private static final int OCCLUSION_CULLING = 2;
+
+    private static final long HASH_SEED = 0x27d4eb2f165667c5L;
+
+    private final Path directory;
+    private final GLBufferPool bufferPool;
+    private final RenderingConfig renderingConfig;
+    private final long tessellationVersion;
+
+    /**
+     * @param directory the directory of the cache files, created if needed
+     * @param renderingConfig the config the tessellator reads its settings from, or null if it always uses the regular
+     *                        tessellation
+     * @param tessellationVersion see {@link #calculateTessellationVersion(BlockManager)}
+     */
+    public ChunkMeshCache(Path directory, GLBufferPool bufferPool, RenderingConfig renderingConfig, long tessellationVersion)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.bufferPool = bufferPool;
+        this.renderingConfig = renderingConfig;
+        this.tessellationVersion = tessellationVersion;
+    }
+
+    /**
+     * Hashes everything about the registered blocks that affects the meshes: their ids, shapes, texture coordinates
+     * and render relevant flags.
+     */
+    public static long calculateTessellationVersion(BlockManager blockManager) {
+        long hash = HASH_SEED;
+        hash = mix(hash, FORMAT_VERSION);
+        final Map<String, Short> blockIds = new TreeMap<>(blockManager.getBlockIdMap());
+        for (Map.Entry<String, Short> entry : blockIds.entrySet()) {
+            hash = mix(hash, entry.getKey().hashCode());
+            hash = mix(hash, entry.getValue());
+            final Block block = blockManager.getBlock(entry.getValue());
+            if (block == null) {
+                continue;
+            }
+            hash = mix(hash, (block.isTranslucent() ? 1 : 0) | (block.isDoubleSided() ? 2 : 0) | (block.isLiquid() ? 4 : 0)
+                    | (block.isWater() ? 8 : 0) | (block.isIce() ? 16 : 0) | (block.isGrass() ? 32 : 0)
+                    | (block.isWaving() ? 64 : 0) | (block.isShadowCasting() ? 128 : 0)
+                    | (block.getMeshGenerator() != null ? 256 : 0));
+            for (BlockPart part : BlockPart.values()) {
+                final BlockMeshPart meshPart = block.getPrimaryAppearance().getPart(part);
+                if (meshPart != null) {
+                    hash = mix(hash, meshPart.getTexFrames());
+                    for (int i = 0; i < meshPart.size(); i++) {
+                        final Vector3f vertex = meshPart.getVertex(i);
+                        final Vector2f texCoord = meshPart.getTexCoord(i);
+                        hash = mix(hash, Float.floatToIntBits(vertex.x));
+                        hash = mix(hash, Float.floatToIntBits(vertex.y));
+                        hash = mix(hash, Float.floatToIntBits(vertex.z));
+                        hash = mix(hash, Float.floatToIntBits(texCoord.x));
+                        hash = mix(hash, Float.floatToIntBits(texCoord.y));
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the blocks and lighting of the chunk and of the border around it, which together with the current
+     * tessellation settings determine the mesh.
+     */
+    public Key createKey(Vector3i chunkPosition, ChunkView chunkView) {
+        int settings = 0;
+        if (renderingConfig != null && renderingConfig.isGreedyMeshing()) {
+            settings |= GREEDY_MESHING;
+        }
+        if (renderingConfig != null && renderingConfig.isOcclusionCulling()) {
+            settings |= OCCLUSION_CULLING;
+        }
+        long contentHash = HASH_SEED;
+        long borderHash = HASH_SEED;
+        for (int y = -1; y <= ChunkConstants.SIZE_Y; y++) {
+            for (int z = -1; z <= ChunkConstants.SIZE_Z; z++) {
+                for (int x = -1; x <= ChunkConstants.SIZE_X; x++) {
+                    final int value = (chunkView.getBlock(x, y, z).getId() << 16)
+                            | ((chunkView.getSunlight(x, y, z) & 0xFF) << 8) | (chunkView.getLight(x, y, z) & 0xFF);
+                    if (x < 0 || y < 0 || z < 0 || x == ChunkConstants.SIZE_X || y == ChunkConstants.SIZE_Y || z == ChunkConstants.SIZE_Z) {
+                        borderHash = mix(borderHash, value);
+                    } else {
+                        contentHash = mix(contentHash, value);
+                    }
+                }
+            }
+        }
+        return new Key(new Vector3i(chunkPosition), settings, contentHash, borderHash);
+    }
+
+    /**
+     * @return the cached mesh, with its buffers ready to be uploaded, or null if there is no matching mesh in the cache
+     */
+    public ChunkMesh load(Key key) {
+        final Path file = getFile(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            logger.warn("Failed to read cached mesh {}", file, e);
+            return null;
+        }
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != tessellationVersion
+                || buffer.getInt() != key.settings || buffer.getLong() != key.contentHash || buffer.getLong() != key.borderHash) {
+            return null;
+        }
+        final long sideConnections = buffer.getLong();
+        final int[] sizes = new int[RENDER_TYPES * 2];
+        long dataSize = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = buffer.getInt();
+            dataSize += sizes[i] * 4L;
+        }
+        if (dataSize != buffer.remaining()) {
+            return null;
+        }
+
+        final ChunkMesh mesh = new ChunkMesh(bufferPool);
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            final ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            elements.finalVertices = slice(buffer, sizes[type.getIndex() * 2]);
+            elements.finalIndices = slice(buffer, sizes[type.getIndex() * 2 + 1]);
+        }
+        mesh.setSideConnections(sideConnections);
+        return mesh;
+    }
+
+    /**
+     * Stores the final buffers of the freshly generated mesh. The mesh must not have been uploaded yet.
+     */
+    public void store(Key key, ChunkMesh mesh) {
+        final Path file = getFile(key);
+        if (Files.exists(file)) {
+            // Another thread already stored the mesh, and the file may be mapped by now
+            return;
+        }
+
+        int dataSize = 0;
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            final ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            dataSize += (elements.finalVertices.remaining() + elements.finalIndices.remaining()) * 4;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + dataSize).order(ByteOrder.nativeOrder());
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putLong(tessellationVersion);
+        buffer.putInt(key.settings);
+        buffer.putLong(key.contentHash);
+        buffer.putLong(key.borderHash);
+        buffer.putLong(mesh.getSideConnections());
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            final ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            buffer.putInt(elements.finalVertices.remaining());
+            buffer.putInt(elements.finalIndices.remaining());
+        }
+        final IntBuffer data = buffer.asIntBuffer();
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            final ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            data.put(elements.finalVertices.duplicate());
+            data.put(elements.finalIndices.duplicate());
+        }
+        buffer.rewind();
+
+        final Path tempFile = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (!Files.exists(file)) {
+                logger.warn("Failed to cache mesh of chunk {}", key.position, e);
+            }
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // The temporary file gets overwritten the next time
+            }
+            return;
+        }
+        deleteOutdatedFiles(key.position, file);
+    }
+
+    /**
+     * Deletes the other cache files of the chunk. Files which are still mapped can't be deleted on some platforms, they
+     * are left for the next time a mesh of the chunk gets stored.
+     */
+    private void deleteOutdatedFiles(Vector3i chunkPosition, Path currentFile) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, getFilePrefix(chunkPosition) + "*.mesh")) {
+            for (Path file : files) {
+                if (!file.equals(currentFile)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        logger.debug("Failed to delete outdated mesh {}", file, e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to list the meshes of chunk {}", chunkPosition, e);
+        }
+    }
+
+    private Path getFile(Key key) {
+        long hash = mix(HASH_SEED, key.settings);
+        hash = mix(hash, (int) key.contentHash);
+        hash = mix(hash, (int) (key.contentHash >>> 32));
+        hash = mix(hash, (int) key.borderHash);
+        hash = mix(hash, (int) (key.borderHash >>> 32));
+        return directory.resolve(getFilePrefix(key.position) + Long.toHexString(hash) + ".mesh");
+    }
+
+    private static String getFilePrefix(Vector3i chunkPosition) {
+        return chunkPosition.x + "." + chunkPosition.y + "." + chunkPosition.z + ".";
+    }
+
+    private static IntBuffer slice(ByteBuffer buffer, int ints) {
+        final ByteBuffer slice = buffer.slice().order(ByteOrder.nativeOrder());
+        slice.limit(ints * 4);
+        buffer.position(buffer.position() + ints * 4);
+        return slice.asIntBuffer();
+    }
+
+    private static long mix(long hash, int value) {
+        return Long.rotateLeft(hash ^ (value * 0x9e3779b97f4a7c15L), 31) * 0xc2b2ae3d27d4eb4fL;
+    }
+
+    /**
+     * Identifies the state of a chunk a mesh was generated from.
+     */
+    public static final class Key {
+        private final Vector3i position;
+        private final int settings;
+        private final long contentHash;
+        private final long borderHash;
+
+        private Key(Vector3i position, int settings, long contentHash, long borderHash) {
+            this.position = position;
+            this.settings = settings;
+            this.contentHash = contentHash;
+            this.borderHash = borderHash;
+        }
+
+        public boolean matches(Key other) {
+            return position.equals(other.position) && settings == other.settings && contentHash == other.contentHash && borderHash == other.borderHash;
+        }
+    }
+}
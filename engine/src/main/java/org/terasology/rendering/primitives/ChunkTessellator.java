@@ -18,16 +18,17 @@
 import com.google.common.base.Stopwatch;
 import gnu.trove.iterator.TIntIterator;
 import org.lwjgl.BufferUtils;
+import org.terasology.config.RenderingConfig;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
 import org.terasology.math.Direction;
 import org.terasology.math.TeraMath;
-import org.terasology.math.geom.Vector3f;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.rendering.RenderMath;
 import org.terasology.world.ChunkView;
 import org.terasology.world.block.Block;
 import org.terasology.world.chunks.ChunkConstants;
 
+import java.nio.IntBuffer;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -36,12 +37,34 @@
  */
 public final class ChunkTessellator {
 
+    /**
+     * Signs of the x and z (or x and y, y and z depending on the normal) offsets of the four positions sampled around
+     * a vertex to calculate its lighting.
+     */
+    private static final float[] SAMPLE_SIGNS_A = {1, 1, -1, -1};
+    private static final float[] SAMPLE_SIGNS_B = {1, -1, -1, 1};
+
     private static int statVertexArrayUpdateCount;
 
     private GLBufferPool bufferPool;
+    private final RenderingConfig renderingConfig;
+    private final ThreadLocal<GreedyMesher> greedyMesher;
+    private final ThreadLocal<ChunkVisibilityGraph> visibilityGraph = ThreadLocal.withInitial(ChunkVisibilityGraph::new);
 
     public ChunkTessellator(GLBufferPool bufferPool) {
+        this(bufferPool, null, 0);
+    }
+
+    /**
+     * @param renderingConfig the config telling whether greedy meshing and occlusion culling are enabled, or null to
+     *                        always use the regular tessellation
+     * @param relativeTileSize the size of a tile of the world atlas in texture coordinates, see {@link org.terasology.world.block.tiles.WorldAtlas#getRelativeTileSize()}
+     */
+    public ChunkTessellator(GLBufferPool bufferPool, RenderingConfig renderingConfig, float relativeTileSize) {
         this.bufferPool = bufferPool;
+        this.renderingConfig = renderingConfig;
+        // Meshes get generated by the mesh update threads and the main thread, so each thread gets its own scratch buffers
+        this.greedyMesher = ThreadLocal.withInitial(() -> new GreedyMesher(relativeTileSize));
     }
 
     public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalOffset) {
@@ -50,11 +73,17 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
 
         final Stopwatch watch = Stopwatch.createStarted();
 
+        GreedyMesher greedy = null;
+        if (renderingConfig != null && renderingConfig.isGreedyMeshing()) {
+            greedy = greedyMesher.get();
+            greedy.generate(chunkView, meshHeight, verticalOffset);
+        }
+
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
                 for (int y = verticalOffset; y < verticalOffset + meshHeight; y++) {
                     Block block = chunkView.getBlock(x, y, z);
-                    if (block != null && block.getMeshGenerator() != null) {
+                    if (block != null && block.getMeshGenerator() != null && (greedy == null || !GreedyMesher.isMergeable(block))) {
                         block.getMeshGenerator().generateChunkMesh(chunkView, mesh, x, y, z);
                     }
                 }
@@ -62,10 +91,16 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
         }
         watch.stop();
 
+        // The connections are only meaningful for the whole chunk
+        if (renderingConfig != null && renderingConfig.isOcclusionCulling()
+                && meshHeight == ChunkConstants.SIZE_Y && verticalOffset == 0) {
+            mesh.setSideConnections(visibilityGraph.get().calculateSideConnections(chunkView));
+        }
+
         mesh.setTimeToGenerateBlockVertices((int) watch.elapsed(TimeUnit.MILLISECONDS));
 
         watch.reset().start();
-        generateOptimizedBuffers(chunkView, mesh);
+        generateOptimizedBuffers(chunkView, mesh, greedy);
         watch.stop();
         mesh.setTimeToGenerateOptimizedBuffers((int) watch.elapsed(TimeUnit.MILLISECONDS));
         statVertexArrayUpdateCount++;
@@ -74,11 +109,23 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
         return mesh;
     }
 
-    private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
+    /**
+     * @param greedy the opaque faces which were merged by the greedy mesher, or null if greedy meshing is disabled
+     */
+    private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh, GreedyMesher greedy) {
         PerformanceMonitor.startActivity("OptimizeBuffers");
 
+        final float[] result = new float[3];
         for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
             ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            IntBuffer greedyVertices = null;
+            IntBuffer greedyIndices = null;
+            if (greedy != null && type == ChunkMesh.RenderType.OPAQUE) {
+                greedyVertices = greedy.getVertices();
+                greedyIndices = greedy.getIndices();
+            }
+            final int indexOffset = greedyVertices != null ? greedy.getVertexCount() : 0;
+
             // Vertices double to account for light info
             elements.finalVertices = BufferUtils.createIntBuffer(
                     elements.vertices.size() + /* POSITION */
@@ -87,19 +134,22 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
                     elements.frames.size() + /* TEX0.w (animation frame counts) */
                     elements.vertexCount*3 + /* TEX1 (lighting data) */
                     elements.color.size() + /* COLOR */
-                    elements.normals.size() /* NORMALS */
+                    elements.normals.size() + /* NORMALS */
+                    (greedyVertices != null ? greedyVertices.remaining() : 0)
             );
+            if (greedyVertices != null) {
+                elements.finalVertices.put(greedyVertices);
+            }
 
             for (int i = 0; i < elements.vertexCount; i ++) {
-                Vector3f vertexPos = new Vector3f(
-                        elements.vertices.get(i*3),
-                        elements.vertices.get(i*3 + 1),
-                        elements.vertices.get(i*3 + 2));
+                final float vertexX = elements.vertices.get(i*3);
+                final float vertexY = elements.vertices.get(i*3 + 1);
+                final float vertexZ = elements.vertices.get(i*3 + 2);
 
                 /* POSITION */
-                elements.finalVertices.put(Float.floatToIntBits(vertexPos.x));
-                elements.finalVertices.put(Float.floatToIntBits(vertexPos.y));
-                elements.finalVertices.put(Float.floatToIntBits(vertexPos.z));
+                elements.finalVertices.put(Float.floatToIntBits(vertexX));
+                elements.finalVertices.put(Float.floatToIntBits(vertexY));
+                elements.finalVertices.put(Float.floatToIntBits(vertexZ));
 
                 /* UV0 - TEX DATA 0.xy */
                 elements.finalVertices.put(Float.floatToIntBits(elements.tex.get(i*2)));
@@ -111,9 +161,10 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
                 /* ANIMATION FRAME COUNT - TEX DATA 0.w*/
                 elements.finalVertices.put(Float.floatToIntBits(elements.frames.get(i)));
 
-                float[] result = new float[3];
-                Vector3f normal = new Vector3f(elements.normals.get(i*3), elements.normals.get(i*3 + 1), elements.normals.get(i*3 + 2));
-                calcLightingValuesForVertexPos(chunkView, vertexPos, result, normal);
+                final float normalX = elements.normals.get(i*3);
+                final float normalY = elements.normals.get(i*3 + 1);
+                final float normalZ = elements.normals.get(i*3 + 2);
+                calcLightingValuesForVertexPos(chunkView, vertexX, vertexY, vertexZ, normalX, normalY, normalZ, result, 0);
 
                 /* LIGHTING DATA / TEX DATA 1 */
                 elements.finalVertices.put(Float.floatToIntBits(result[0]));
@@ -129,15 +180,18 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
                 elements.finalVertices.put(packedColor);
 
                 /* NORMALS */
-                elements.finalVertices.put(Float.floatToIntBits(normal.x));
-                elements.finalVertices.put(Float.floatToIntBits(normal.y));
-                elements.finalVertices.put(Float.floatToIntBits(normal.z));
+                elements.finalVertices.put(Float.floatToIntBits(normalX));
+                elements.finalVertices.put(Float.floatToIntBits(normalY));
+                elements.finalVertices.put(Float.floatToIntBits(normalZ));
             }
 
-            elements.finalIndices = BufferUtils.createIntBuffer(elements.indices.size());
+            elements.finalIndices = BufferUtils.createIntBuffer(elements.indices.size() + (greedyIndices != null ? greedyIndices.remaining() : 0));
+            if (greedyIndices != null) {
+                elements.finalIndices.put(greedyIndices);
+            }
             TIntIterator indexIterator = elements.indices.iterator();
             while (indexIterator.hasNext()) {
-                elements.finalIndices.put(indexIterator.next());
+                elements.finalIndices.put(indexIterator.next() + indexOffset);
             }
 
             elements.finalVertices.flip();
@@ -146,57 +200,15 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
         PerformanceMonitor.endActivity();
     }
 
-    private void calcLightingValuesForVertexPos(ChunkView chunkView, Vector3f vertexPos, float[] output, Vector3f normal) {
+    /**
+     * Calculates the sunlight, block light and ambient occlusion of a vertex, from the four blocks in front of the
+     * vertex and the light values of the eight blocks around it.
+     *
+     * @param output receives the sunlight, block light and ambient occlusion, starting at the given offset
+     */
+    static void calcLightingValuesForVertexPos(ChunkView chunkView, float vertexX, float vertexY, float vertexZ,
+                                               float normalX, float normalY, float normalZ, float[] output, int offset) {
         PerformanceMonitor.startActivity("calcLighting");
-        float[] lights = new float[8];
-        float[] blockLights = new float[8];
-        Block[] blocks = new Block[4];
-
-        PerformanceMonitor.startActivity("gatherLightInfo");
-        Direction dir = Direction.inDirection(normal);
-        switch (dir) {
-            case LEFT:
-            case RIGHT:
-                blocks[0] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y + 0.1f), (vertexPos.z + 0.1f));
-                blocks[1] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y + 0.1f), (vertexPos.z - 0.1f));
-                blocks[2] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-                blocks[3] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-                break;
-            case FORWARD:
-            case BACKWARD:
-                blocks[0] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y + 0.1f), (vertexPos.z + 0.8f * normal.z));
-                blocks[1] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.8f * normal.z));
-                blocks[2] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.8f * normal.z));
-                blocks[3] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y + 0.1f), (vertexPos.z + 0.8f * normal.z));
-                break;
-            default:
-                blocks[0] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z + 0.1f));
-                blocks[1] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z - 0.1f));
-                blocks[2] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z - 0.1f));
-                blocks[3] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z + 0.1f));
-        }
-
-        lights[0] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-        lights[1] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        lights[2] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        lights[3] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-
-        lights[4] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-        lights[5] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        lights[6] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        lights[7] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-
-        blockLights[0] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-        blockLights[1] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        blockLights[2] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        blockLights[3] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-
-        blockLights[4] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-        blockLights[5] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        blockLights[6] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        blockLights[7] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-        PerformanceMonitor.endActivity();
-
         float resultLight = 0;
         float resultBlockLight = 0;
         int counterLight = 0;
@@ -204,42 +216,65 @@ private void calcLightingValuesForVertexPos(ChunkView chunkView, Vector3f vertex
 
         int occCounter = 0;
         int occCounterBillboard = 0;
-        for (int i = 0; i < 8; i++) {
-            if (lights[i] > 0) {
-                resultLight += lights[i];
-                counterLight++;
+
+        PerformanceMonitor.startActivity("gatherLightInfo");
+        final Direction dir = Direction.inDirection(normalX, normalY, normalZ);
+        for (int i = 0; i < 4; i++) {
+            final float signA = SAMPLE_SIGNS_A[i];
+            final float signB = SAMPLE_SIGNS_B[i];
+            final Block block;
+            switch (dir) {
+                case LEFT:
+                case RIGHT:
+                    block = chunkView.getBlock(vertexX + 0.8f * normalX, vertexY + 0.1f * signA, vertexZ + 0.1f * signB);
+                    break;
+                case FORWARD:
+                case BACKWARD:
+                    block = chunkView.getBlock(vertexX + 0.1f * signA, vertexY + 0.1f * signB, vertexZ + 0.8f * normalZ);
+                    break;
+                default:
+                    block = chunkView.getBlock(vertexX + 0.1f * signA, vertexY + 0.8f * normalY, vertexZ + 0.1f * signB);
             }
-            if (blockLights[i] > 0) {
-                resultBlockLight += blockLights[i];
-                counterBlockLight++;
+            if (block.isShadowCasting() && !block.isTranslucent()) {
+                occCounter++;
+            } else if (block.isShadowCasting()) {
+                occCounterBillboard++;
             }
 
-            if (i < 4) {
-                Block b = blocks[i];
+            for (int level = 0; level < 2; level++) {
+                final float sampleX = vertexX + 0.1f * signA;
+                final float sampleY = level == 0 ? vertexY + 0.8f : vertexY - 0.1f;
+                final float sampleZ = vertexZ + 0.1f * signB;
 
-                if (b.isShadowCasting() && !b.isTranslucent()) {
-                    occCounter++;
-                } else if (b.isShadowCasting()) {
-                    occCounterBillboard++;
+                final byte light = chunkView.getSunlight(sampleX, sampleY, sampleZ);
+                if (light > 0) {
+                    resultLight += light;
+                    counterLight++;
+                }
+                final byte blockLight = chunkView.getLight(sampleX, sampleY, sampleZ);
+                if (blockLight > 0) {
+                    resultBlockLight += blockLight;
+                    counterBlockLight++;
                 }
             }
         }
+        PerformanceMonitor.endActivity();
 
         double resultAmbientOcclusion = (TeraMath.pow(0.40, occCounter) + TeraMath.pow(0.80, occCounterBillboard)) / 2.0;
 
         if (counterLight == 0) {
-            output[0] = 0;
+            output[offset] = 0;
         } else {
-            output[0] = resultLight / counterLight / 15f;
+            output[offset] = resultLight / counterLight / 15f;
         }
 
         if (counterBlockLight == 0) {
-            output[1] = 0;
+            output[offset + 1] = 0;
         } else {
-            output[1] = resultBlockLight / counterBlockLight / 15f;
+            output[offset + 1] = resultBlockLight / counterBlockLight / 15f;
         }
 
-        output[2] = (float) resultAmbientOcclusion;
+        output[offset + 2] = (float) resultAmbientOcclusion;
         PerformanceMonitor.endActivity();
     }
 
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.terasology.math.Side;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+
+/**
+ * Calculates which sides of a chunk are connected through blocks that don't occlude the view. The view can't pass
+ * through a chunk between two sides which aren't connected, so the chunks behind it can be culled.
+ * <br><br>
+ * The connections are stored as bits of a long, one bit for each ordered pair of sides. The flood fill uses scratch
+ * buffers, so an instance must only be used by a single thread.
+ */
+final class ChunkVisibilityGraph {
+    static final long ALL_SIDES_CONNECTED = -1L;
+
+    private static final Side[] SIDES = Side.values();
+    private static final long ALL_SIDE_BITS = (1L << (SIDES.length * SIDES.length)) - 1;
+    private static final int SIZE_X = ChunkConstants.SIZE_X;
+    private static final int SIZE_Y = ChunkConstants.SIZE_Y;
+    private static final int SIZE_Z = ChunkConstants.SIZE_Z;
+    private static final int BLOCK_COUNT = SIZE_X * SIZE_Y * SIZE_Z;
+
+    private final long[] visited = new long[(BLOCK_COUNT + 63) / 64];
+    private final int[] queue = new int[BLOCK_COUNT];
+
+    private Block lastBlock;
+    private boolean lastBlockOccluding;
+
+    static boolean areSidesConnected(long sideConnections, Side from, Side to) {
+        return (sideConnections & (1L << (from.ordinal() * SIDES.length + to.ordinal()))) != 0;
+    }
+
+    /**
+     * Flood fills the non occluding blocks of the chunk and connects all sides reached by the same fill.
+     *
+     * @return the connections of the sides of the chunk
+     */
+    long calculateSideConnections(ChunkView chunkView) {
+        Arrays.fill(visited, 0);
+        lastBlock = null;
+
+        long sideConnections = 0;
+        for (int index = 0; index < BLOCK_COUNT; index++) {
+            if (isVisited(index)) {
+                continue;
+            }
+            setVisited(index);
+            if (isOccluding(chunkView.getBlock(getX(index), getY(index), getZ(index)))) {
+                continue;
+            }
+
+            final int reachedSides = floodFill(chunkView, index);
+            for (Side from : SIDES) {
+                if ((reachedSides & (1 << from.ordinal())) != 0) {
+                    for (Side to : SIDES) {
+                        if ((reachedSides & (1 << to.ordinal())) != 0) {
+                            sideConnections |= 1L << (from.ordinal() * SIDES.length + to.ordinal());
+                        }
+                    }
+                }
+            }
+            if (sideConnections == ALL_SIDE_BITS) {
+                return ALL_SIDES_CONNECTED;
+            }
+        }
+        return sideConnections;
+    }
+
+    /**
+     * @return the bits of the sides of the chunk reached from the given, already visited block
+     */
+    private int floodFill(ChunkView chunkView, int start) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+
+        int reachedSides = 0;
+        while (head < tail) {
+            final int index = queue[head++];
+            final int x = getX(index);
+            final int y = getY(index);
+            final int z = getZ(index);
+
+            if (x == 0) {
+                reachedSides |= 1 << Side.LEFT.ordinal();
+            } else {
+                tail = visit(chunkView, x - 1, y, z, tail);
+            }
+            if (x == SIZE_X - 1) {
+                reachedSides |= 1 << Side.RIGHT.ordinal();
+            } else {
+                tail = visit(chunkView, x + 1, y, z, tail);
+            }
+            if (y == 0) {
+                reachedSides |= 1 << Side.BOTTOM.ordinal();
+            } else {
+                tail = visit(chunkView, x, y - 1, z, tail);
+            }
+            if (y == SIZE_Y - 1) {
+                reachedSides |= 1 << Side.TOP.ordinal();
+            } else {
+                tail = visit(chunkView, x, y + 1, z, tail);
+            }
+            if (z == 0) {
+                reachedSides |= 1 << Side.FRONT.ordinal();
+            } else {
+                tail = visit(chunkView, x, y, z - 1, tail);
+            }
+            if (z == SIZE_Z - 1) {
+                reachedSides |= 1 << Side.BACK.ordinal();
+            } else {
+                tail = visit(chunkView, x, y, z + 1, tail);
+            }
+        }
+        return reachedSides;
+    }
+
+    /**
+     * Queues the block if it hasn't been visited yet and doesn't occlude the view.
+     *
+     * @return the new tail of the queue
+     */
+    private int visit(ChunkView chunkView, int x, int y, int z, int tail) {
+        final int index = getIndex(x, y, z);
+        if (isVisited(index)) {
+            return tail;
+        }
+        setVisited(index);
+        if (isOccluding(chunkView.getBlock(x, y, z))) {
+            return tail;
+        }
+        queue[tail] = index;
+        return tail + 1;
+    }
+
+    private boolean isOccluding(Block block) {
+        // Chunks mostly consist of long runs of the same block
+        if (block != lastBlock) {
+            lastBlock = block;
+            lastBlockOccluding = block != null && block.getMeshGenerator() != null && !block.isTranslucent() && hasOnlyFullSides(block);
+        }
+        return lastBlockOccluding;
+    }
+
+    private static boolean hasOnlyFullSides(Block block) {
+        for (Side side : SIDES) {
+            if (!block.isFullSide(side)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isVisited(int index) {
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void setVisited(int index) {
+        visited[index >>> 6] |= 1L << index;
+    }
+
+    private static int getIndex(int x, int y, int z) {
+        return x + SIZE_X * (z + SIZE_Z * y);
+    }
+
+    private static int getX(int index) {
+        return index % SIZE_X;
+    }
+
+    private static int getY(int index) {
+        return index / (SIZE_X * SIZE_Z);
+    }
+
+    private static int getZ(int index) {
+        return (index / SIZE_X) % SIZE_Z;
+    }
+}
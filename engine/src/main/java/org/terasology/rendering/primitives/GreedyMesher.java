@@ -0,0 +1,423 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.lwjgl.BufferUtils;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.RenderMath;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.nio.IntBuffer;
+
+/**
+ * Generates the opaque faces of full cube blocks, merging adjacent coplanar faces of the same block and with the same
+ * lighting into single quads.
+ * <br><br>
+ * The faces of each side are processed slice by slice: a mask of the visible faces of the slice is built first, then
+ * rectangles of equal faces are grown greedily, first along one axis of the slice and then along the other. Faces
+ * whose corners are lit differently are kept as they are, so the smooth lighting looks the same as without merging.
+ * <br><br>
+ * The vertices are written in the layout of {@link ChunkMesh.VertexElements#finalVertices} to buffers which are reused
+ * for every mesh, so an instance must only be used by a single thread.
+ * Merged quads encode their texture coordinates as {@code TEXTURE_REPEAT_SCALE * (tile index + 1)} plus the number of
+ * times the tile repeats along the quad, which the chunk shader turns back into repeated atlas coordinates.
+ */
+final class GreedyMesher {
+    static final float TEXTURE_REPEAT_SCALE = 128f;
+
+    private static final int VERTEX_SIZE = 14;
+    private static final int LIGHTS_PER_FACE = 4 * 3;
+    private static final int INITIAL_FACE_CAPACITY = 4096;
+    private static final Side[] SIDES = Side.values();
+
+    private final float relativeTileSize;
+
+    private IntBuffer vertices = BufferUtils.createIntBuffer(INITIAL_FACE_CAPACITY * 4 * VERTEX_SIZE);
+    private IntBuffer indices = BufferUtils.createIntBuffer(INITIAL_FACE_CAPACITY * 6);
+    private int vertexCount;
+
+    private Block[] faceBlocks = new Block[0];
+    private float[] faceLights = new float[0];
+    private boolean[] faceMergeable = new boolean[0];
+    private boolean[] faceDone = new boolean[0];
+
+    private final int[] origin = new int[3];
+    private final int[] size = new int[3];
+    private final int[] pos = new int[3];
+    private final float[] vertexPos = new float[3];
+
+    GreedyMesher(float relativeTileSize) {
+        this.relativeTileSize = relativeTileSize;
+    }
+
+    /**
+     * @return true if the faces of the block are generated by the greedy mesher instead of the block's mesh generator
+     */
+    static boolean isMergeable(Block block) {
+        if (block == null || !(block.getMeshGenerator() instanceof BlockMeshGeneratorSingleShape)
+                || block.isLiquid() || block.isWaving() || block.isDoubleSided() || block.isTranslucent()
+                || block.isWater() || block.isIce()) {
+            return false;
+        }
+        final BlockAppearance appearance = block.getPrimaryAppearance();
+        if (appearance.getPart(BlockPart.CENTER) != null) {
+            return false;
+        }
+        for (Side side : SIDES) {
+            final BlockMeshPart part = appearance.getPart(BlockPart.fromSide(side));
+            if (!block.isFullSide(side) || part == null || part.size() != 4 || part.getTexFrames() > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the faces of all mergeable blocks in the given part of the chunk, replacing the previously generated faces.
+     */
+    void generate(ChunkView chunkView, int meshHeight, int verticalOffset) {
+        vertices.clear();
+        indices.clear();
+        vertexCount = 0;
+
+        origin[0] = 0;
+        origin[1] = verticalOffset;
+        origin[2] = 0;
+        size[0] = ChunkConstants.SIZE_X;
+        size[1] = meshHeight;
+        size[2] = ChunkConstants.SIZE_Z;
+
+        for (Side side : SIDES) {
+            final Vector3i direction = side.getVector3i();
+            final int axis = direction.x != 0 ? 0 : (direction.y != 0 ? 1 : 2);
+            final int axisU = (axis + 1) % 3;
+            final int axisV = (axis + 2) % 3;
+            ensureSliceCapacity(size[axisU] * size[axisV]);
+            for (int slice = 0; slice < size[axis]; slice++) {
+                fillSlice(chunkView, side, axis, axisU, axisV, slice);
+                mergeSlice(side, axis, axisU, axisV, slice);
+            }
+        }
+    }
+
+    /**
+     * @return the generated vertices, ready to be read
+     */
+    IntBuffer getVertices() {
+        IntBuffer result = vertices.duplicate();
+        result.flip();
+        return result;
+    }
+
+    /**
+     * @return the generated indices, ready to be read
+     */
+    IntBuffer getIndices() {
+        IntBuffer result = indices.duplicate();
+        result.flip();
+        return result;
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    private void fillSlice(ChunkView chunkView, Side side, int axis, int axisU, int axisV, int slice) {
+        final Vector3i direction = side.getVector3i();
+        final BlockPart blockPart = BlockPart.fromSide(side);
+        final int sizeU = size[axisU];
+        final int sizeV = size[axisV];
+        pos[axis] = origin[axis] + slice;
+        for (int v = 0; v < sizeV; v++) {
+            for (int u = 0; u < sizeU; u++) {
+                final int face = v * sizeU + u;
+                pos[axisU] = origin[axisU] + u;
+                pos[axisV] = origin[axisV] + v;
+                faceBlocks[face] = null;
+                faceDone[face] = false;
+
+                final Block block = chunkView.getBlock(pos[0], pos[1], pos[2]);
+                if (!isMergeable(block)) {
+                    continue;
+                }
+                final Block adjacent = chunkView.getBlock(pos[0] + direction.x, pos[1] + direction.y, pos[2] + direction.z);
+                if (!BlockMeshGeneratorSingleShape.isSideVisibleForBlockTypes(adjacent, block, side)) {
+                    continue;
+                }
+
+                final BlockMeshPart part = block.getPrimaryAppearance().getPart(blockPart);
+                final int lights = face * LIGHTS_PER_FACE;
+                for (int i = 0; i < 4; i++) {
+                    final Vector3f vertex = part.getVertex(i);
+                    final Vector3f normal = part.getNormal(i);
+                    ChunkTessellator.calcLightingValuesForVertexPos(chunkView, vertex.x + pos[0], vertex.y + pos[1], vertex.z + pos[2],
+                            normal.x, normal.y, normal.z, faceLights, lights + i * 3);
+                }
+                faceBlocks[face] = block;
+                faceMergeable[face] = isUniformlyLit(lights) && coversWholeTile(part);
+            }
+        }
+    }
+
+    private void mergeSlice(Side side, int axis, int axisU, int axisV, int slice) {
+        final int sizeU = size[axisU];
+        final int sizeV = size[axisV];
+        for (int v = 0; v < sizeV; v++) {
+            for (int u = 0; u < sizeU; u++) {
+                final int face = v * sizeU + u;
+                if (faceBlocks[face] == null || faceDone[face]) {
+                    continue;
+                }
+
+                int width = 1;
+                int height = 1;
+                if (faceMergeable[face]) {
+                    while (u + width < sizeU && canMerge(face, face + width)) {
+                        width++;
+                    }
+                    grow:
+                    while (v + height < sizeV) {
+                        for (int i = 0; i < width; i++) {
+                            if (!canMerge(face, (v + height) * sizeU + u + i)) {
+                                break grow;
+                            }
+                        }
+                        height++;
+                    }
+                }
+                for (int j = 0; j < height; j++) {
+                    for (int i = 0; i < width; i++) {
+                        faceDone[(v + j) * sizeU + u + i] = true;
+                    }
+                }
+
+                pos[axis] = origin[axis] + slice;
+                pos[axisU] = origin[axisU] + u;
+                pos[axisV] = origin[axisV] + v;
+                appendQuad(faceBlocks[face], side, axisU, axisV, width, height, face * LIGHTS_PER_FACE);
+            }
+        }
+    }
+
+    private boolean canMerge(int face, int other) {
+        if (faceDone[other] || faceBlocks[other] != faceBlocks[face] || !faceMergeable[other]) {
+            return false;
+        }
+        final int lights = face * LIGHTS_PER_FACE;
+        final int otherLights = other * LIGHTS_PER_FACE;
+        return faceLights[lights] == faceLights[otherLights]
+                && faceLights[lights + 1] == faceLights[otherLights + 1]
+                && faceLights[lights + 2] == faceLights[otherLights + 2];
+    }
+
+    private boolean isUniformlyLit(int lights) {
+        for (int i = 3; i < LIGHTS_PER_FACE; i++) {
+            if (faceLights[lights + i] != faceLights[lights + i % 3]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Only faces showing a whole tile of the atlas can be repeated by the shader.
+     */
+    private boolean coversWholeTile(BlockMeshPart part) {
+        final float expectedExtent = relativeTileSize * (TEXTURE_REPEAT_SCALE - 2) / TEXTURE_REPEAT_SCALE;
+        final float tolerance = relativeTileSize / TEXTURE_REPEAT_SCALE / 2;
+        float minX = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < part.size(); i++) {
+            final Vector2f texCoord = part.getTexCoord(i);
+            minX = Math.min(minX, texCoord.x);
+            maxX = Math.max(maxX, texCoord.x);
+            minY = Math.min(minY, texCoord.y);
+            maxY = Math.max(maxY, texCoord.y);
+        }
+        return relativeTileSize > 0
+                && Math.abs(maxX - minX - expectedExtent) < tolerance
+                && Math.abs(maxY - minY - expectedExtent) < tolerance;
+    }
+
+    /**
+     * Appends the face of the block at {@link #pos}, stretched over width times height faces of the slice.
+     */
+    private void appendQuad(Block block, Side side, int axisU, int axisV, int width, int height, int lights) {
+        final BlockMeshPart part = block.getPrimaryAppearance().getPart(BlockPart.fromSide(side));
+        ChunkVertexFlag vertexFlag = ChunkVertexFlag.NORMAL;
+        if (block.isGrass() && side != Side.TOP && side != Side.BOTTOM) {
+            vertexFlag = ChunkVertexFlag.COLOR_MASK;
+        }
+        final int flags = Float.floatToIntBits(vertexFlag.getValue());
+        final int frames = Float.floatToIntBits(part.getTexFrames());
+        final int color = RenderMath.packColor(1, 1, 1, 1);
+
+        final float midU = getMidpoint(part, axisU);
+        final float midV = getMidpoint(part, axisV);
+
+        final boolean repeated = width > 1 || height > 1;
+        float tileX = 0;
+        float tileY = 0;
+        float midTexX = 0;
+        float midTexY = 0;
+        int repeatX = 0;
+        int repeatY = 0;
+        if (repeated) {
+            float minX = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE;
+            float minY = Float.MAX_VALUE;
+            float maxY = -Float.MAX_VALUE;
+            for (int i = 0; i < part.size(); i++) {
+                final Vector2f texCoord = part.getTexCoord(i);
+                minX = Math.min(minX, texCoord.x);
+                maxX = Math.max(maxX, texCoord.x);
+                minY = Math.min(minY, texCoord.y);
+                maxY = Math.max(maxY, texCoord.y);
+            }
+            midTexX = (minX + maxX) / 2;
+            midTexY = (minY + maxY) / 2;
+            tileX = TEXTURE_REPEAT_SCALE * (1 + (float) Math.floor(minX / relativeTileSize));
+            tileY = TEXTURE_REPEAT_SCALE * (1 + (float) Math.floor(minY / relativeTileSize));
+
+            // Find out whether the x axis of the texture runs along the u or the v axis of the slice
+            final Vector3f first = part.getVertex(0);
+            final Vector2f firstTexCoord = part.getTexCoord(0);
+            boolean xAlongU = true;
+            for (int i = 1; i < part.size(); i++) {
+                final Vector3f vertex = part.getVertex(i);
+                if ((getComponent(vertex, axisU) > midU) != (getComponent(first, axisU) > midU)
+                        && (getComponent(vertex, axisV) > midV) == (getComponent(first, axisV) > midV)) {
+                    final Vector2f texCoord = part.getTexCoord(i);
+                    xAlongU = Math.abs(texCoord.x - firstTexCoord.x) > Math.abs(texCoord.y - firstTexCoord.y);
+                    break;
+                }
+            }
+            repeatX = xAlongU ? width : height;
+            repeatY = xAlongU ? height : width;
+        }
+
+        ensureQuadCapacity(part.size(), part.indicesSize());
+        final int firstVertex = vertexCount;
+        for (int i = 0; i < part.size(); i++) {
+            final Vector3f vertex = part.getVertex(i);
+            vertexPos[0] = vertex.x + pos[0];
+            vertexPos[1] = vertex.y + pos[1];
+            vertexPos[2] = vertex.z + pos[2];
+            if (getComponent(vertex, axisU) > midU) {
+                vertexPos[axisU] += width - 1;
+            }
+            if (getComponent(vertex, axisV) > midV) {
+                vertexPos[axisV] += height - 1;
+            }
+
+            /* POSITION */
+            vertices.put(Float.floatToIntBits(vertexPos[0]));
+            vertices.put(Float.floatToIntBits(vertexPos[1]));
+            vertices.put(Float.floatToIntBits(vertexPos[2]));
+
+            /* UV0 - TEX DATA 0.xy */
+            final Vector2f texCoord = part.getTexCoord(i);
+            if (repeated) {
+                vertices.put(Float.floatToIntBits(tileX + (texCoord.x > midTexX ? repeatX : 0)));
+                vertices.put(Float.floatToIntBits(tileY + (texCoord.y > midTexY ? repeatY : 0)));
+            } else {
+                vertices.put(Float.floatToIntBits(texCoord.x));
+                vertices.put(Float.floatToIntBits(texCoord.y));
+            }
+
+            /* FLAGS - TEX DATA 0.z */
+            vertices.put(flags);
+
+            /* ANIMATION FRAME COUNT - TEX DATA 0.w*/
+            vertices.put(frames);
+
+            /* LIGHTING DATA / TEX DATA 1 */
+            vertices.put(Float.floatToIntBits(faceLights[lights + i * 3]));
+            vertices.put(Float.floatToIntBits(faceLights[lights + i * 3 + 1]));
+            vertices.put(Float.floatToIntBits(faceLights[lights + i * 3 + 2]));
+
+            /* PACKED COLOR */
+            vertices.put(color);
+
+            /* NORMALS */
+            final Vector3f normal = part.getNormal(i);
+            vertices.put(Float.floatToIntBits(normal.x));
+            vertices.put(Float.floatToIntBits(normal.y));
+            vertices.put(Float.floatToIntBits(normal.z));
+        }
+        for (int i = 0; i < part.indicesSize(); i++) {
+            indices.put(firstVertex + part.getIndex(i));
+        }
+        vertexCount += part.size();
+    }
+
+    private static float getMidpoint(BlockMeshPart part, int axis) {
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int i = 0; i < part.size(); i++) {
+            final float value = getComponent(part.getVertex(i), axis);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return (min + max) / 2;
+    }
+
+    private static float getComponent(Vector3f vector, int axis) {
+        switch (axis) {
+            case 0:
+                return vector.x;
+            case 1:
+                return vector.y;
+            default:
+                return vector.z;
+        }
+    }
+
+    private void ensureSliceCapacity(int faces) {
+        if (faceBlocks.length < faces) {
+            faceBlocks = new Block[faces];
+            faceLights = new float[faces * LIGHTS_PER_FACE];
+            faceMergeable = new boolean[faces];
+            faceDone = new boolean[faces];
+        }
+    }
+
+    private void ensureQuadCapacity(int vertexAmount, int indexAmount) {
+        if (vertices.remaining() < vertexAmount * VERTEX_SIZE) {
+            vertices = grow(vertices, vertexAmount * VERTEX_SIZE);
+        }
+        if (indices.remaining() < indexAmount) {
+            indices = grow(indices, indexAmount);
+        }
+    }
+
+    private static IntBuffer grow(IntBuffer buffer, int required) {
+        final IntBuffer grown = BufferUtils.createIntBuffer(Math.max(buffer.capacity() * 2, buffer.position() + required));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
@@ -24,6 +24,7 @@
 import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.chunk.ChunkMonitor;
 import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkMeshCache;
 import org.terasology.rendering.primitives.ChunkTessellator;
 import org.terasology.utilities.concurrency.TaskMaster;
 import org.terasology.world.ChunkView;
@@ -58,6 +59,7 @@ public final class ChunkMeshUpdateManager {
 
     private final ChunkTessellator tessellator;
     private final WorldProvider worldProvider;
+    private final ChunkMeshCache meshCache;
     /**
      * This variable is volatile, so that it's value is visible to worker thread that calculates the best task to
      * process
@@ -67,8 +69,16 @@ public final class ChunkMeshUpdateManager {
     private volatile float cameraChunkPosZ;
 
     public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider) {
+        this(tessellator, worldProvider, null);
+    }
+
+    /**
+     * @param meshCache the cache of meshes from earlier tessellations, or null to always tessellate the chunks
+     */
+    public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshCache meshCache) {
         this.tessellator = tessellator;
         this.worldProvider = worldProvider;
+        this.meshCache = meshCache;
 
         chunkUpdater = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Updater", NUM_TASK_THREADS, new ChunkUpdaterComparator());
     }
@@ -113,7 +123,7 @@ public List<RenderableChunk> availableChunksForUpdate() {
     private void executeChunkUpdate(final RenderableChunk c) {
         chunksProcessing.add(c);
 
-        ChunkUpdateTask task = new ChunkUpdateTask(c, tessellator, worldProvider, this);
+        ChunkUpdateTask task = new ChunkUpdateTask(c, tessellator, worldProvider, meshCache, this);
         try {
             chunkUpdater.put(task);
         } catch (InterruptedException e) {
@@ -135,13 +145,16 @@ private static class ChunkUpdateTask implements ChunkTask {
         private RenderableChunk c;
         private ChunkTessellator tessellator;
         private WorldProvider worldProvider;
+        private ChunkMeshCache meshCache;
         private ChunkMeshUpdateManager chunkMeshUpdateManager;
 
-        ChunkUpdateTask(RenderableChunk chunk, ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshUpdateManager chunkMeshUpdateManager) {
+        ChunkUpdateTask(RenderableChunk chunk, ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshCache meshCache,
+                        ChunkMeshUpdateManager chunkMeshUpdateManager) {
             this.chunkMeshUpdateManager = chunkMeshUpdateManager;
             this.c = chunk;
             this.tessellator = tessellator;
             this.worldProvider = worldProvider;
+            this.meshCache = meshCache;
         }
 
         @Override
@@ -170,7 +183,7 @@ public void run() {
                  */
                 c.setDirty(false);
                 if (chunkView.isValidView()) {
-                    newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+                    newMesh = generateMesh(chunkView);
 
                     c.setPendingMesh(newMesh);
                     ChunkMonitor.fireChunkTessellated(c.getPosition(), newMesh);
@@ -182,6 +195,23 @@ public void run() {
             c = null;
             tessellator = null;
             worldProvider = null;
+            meshCache = null;
+        }
+
+        private ChunkMesh generateMesh(ChunkView chunkView) {
+            if (meshCache == null) {
+                return tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+            }
+            ChunkMeshCache.Key cacheKey = meshCache.createKey(c.getPosition(), chunkView);
+            ChunkMesh mesh = meshCache.load(cacheKey);
+            if (mesh == null) {
+                mesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+                // Only cache the mesh if neither the chunk nor the tessellation settings changed while it was tessellated
+                if (cacheKey.matches(meshCache.createKey(c.getPosition(), chunkView))) {
+                    meshCache.store(cacheKey, mesh);
+                }
+            }
+            return mesh;
         }
     }
 
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.cameras.ViewFrustum;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Arrays;
+
+/**
+ * Determines which chunks of the renderable region can be seen from the camera.
+ * <br><br>
+ * The renderable region is tested against the view frustum as an implicit octree: boxes of chunks completely inside
+ * the frustum don't need to be tested chunk by chunk, boxes outside of it are skipped as a whole.
+ * <br><br>
+ * With occlusion culling, the chunks in the frustum are then traversed breadth first, starting at the chunk of the
+ * camera. A chunk is only entered from a neighbour if the view can pass through the neighbour, from the side it was
+ * entered to the side facing the chunk, see {@link ChunkMesh#areSidesConnected(Side, Side)}. The traversal never
+ * turns back towards the camera, so enclosed chunks, like caves below the surface, aren't reached.
+ */
+class ChunkVisibilityCuller {
+    private static final Side[] SIDES = Side.values();
+    private static final byte IN_FRUSTUM = 1;
+    private static final byte VISIBLE = 2;
+
+    private Region3i region = Region3i.empty();
+    private int regionSizeX;
+    private int regionSizeY;
+    private int regionSizeZ;
+    private RenderableChunk[] chunks = new RenderableChunk[0];
+    private byte[] states = new byte[0];
+    private byte[] entrySides = new byte[0];
+    private byte[] travelledSides = new byte[0];
+    private int[] queue = new int[0];
+
+    private final Vector3f viewPosition = new Vector3f();
+
+    /**
+     * @param renderableRegion the region of chunks to consider, in chunk coordinates
+     * @param renderableChunks the loaded chunks of the region
+     * @param frustum the view frustum of the camera
+     * @param frustumViewPosition the position the frustum planes are relative to
+     * @param cameraPosition the position of the camera in world coordinates
+     * @param occlusionCulling whether chunks hidden behind other chunks should be culled
+     */
+    void update(Region3i renderableRegion, Iterable<? extends RenderableChunk> renderableChunks, ViewFrustum frustum,
+                Vector3f frustumViewPosition, Vector3f cameraPosition, boolean occlusionCulling) {
+        region = renderableRegion;
+        viewPosition.set(frustumViewPosition);
+        final Vector3i size = region.size();
+        regionSizeX = size.x;
+        regionSizeY = size.y;
+        regionSizeZ = size.z;
+        final int volume = size.x * size.y * size.z;
+        if (chunks.length != volume) {
+            chunks = new RenderableChunk[volume];
+            states = new byte[volume];
+            entrySides = new byte[volume];
+            travelledSides = new byte[volume];
+            queue = new int[volume];
+        } else {
+            Arrays.fill(chunks, null);
+            Arrays.fill(states, (byte) 0);
+        }
+        if (volume == 0) {
+            return;
+        }
+
+        for (RenderableChunk chunk : renderableChunks) {
+            final Vector3i position = chunk.getPosition();
+            if (region.encompasses(position.x, position.y, position.z)) {
+                chunks[getIndex(position.x, position.y, position.z)] = chunk;
+            }
+        }
+
+        markInFrustum(frustum, 0, 0, 0, size.x, size.y, size.z);
+
+        final int cameraX = (int) Math.floor(cameraPosition.x / ChunkConstants.SIZE_X);
+        final int cameraY = (int) Math.floor(cameraPosition.y / ChunkConstants.SIZE_Y);
+        final int cameraZ = (int) Math.floor(cameraPosition.z / ChunkConstants.SIZE_Z);
+        if (occlusionCulling && region.encompasses(cameraX, cameraY, cameraZ)) {
+            traverse(getIndex(cameraX, cameraY, cameraZ));
+        } else {
+            for (int index = 0; index < volume; index++) {
+                if (states[index] == IN_FRUSTUM) {
+                    states[index] |= VISIBLE;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the chunk was found to be visible by the last update, or is in the view frustum if it isn't
+     * part of the region of the last update
+     */
+    boolean isVisible(RenderableChunk chunk, ViewFrustum frustum) {
+        final Vector3i position = chunk.getPosition();
+        if (!region.encompasses(position.x, position.y, position.z)) {
+            return frustum.intersects(chunk.getAABB());
+        }
+        return (states[getIndex(position.x, position.y, position.z)] & VISIBLE) != 0;
+    }
+
+    /**
+     * Marks the chunks of the given box, relative to the region, which are in the view frustum.
+     */
+    private void markInFrustum(ViewFrustum frustum, int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+        final float minX = (region.minX() + x) * ChunkConstants.SIZE_X;
+        final float minY = (region.minY() + y) * ChunkConstants.SIZE_Y;
+        final float minZ = (region.minZ() + z) * ChunkConstants.SIZE_Z;
+        final ViewFrustum.Intersection intersection = frustum.intersection(viewPosition, minX, minY, minZ,
+                minX + sizeX * ChunkConstants.SIZE_X, minY + sizeY * ChunkConstants.SIZE_Y, minZ + sizeZ * ChunkConstants.SIZE_Z);
+        if (intersection == ViewFrustum.Intersection.OUTSIDE) {
+            return;
+        }
+        if (intersection == ViewFrustum.Intersection.INSIDE || sizeX * sizeY * sizeZ == 1) {
+            for (int localY = y; localY < y + sizeY; localY++) {
+                for (int localZ = z; localZ < z + sizeZ; localZ++) {
+                    for (int localX = x; localX < x + sizeX; localX++) {
+                        states[getLocalIndex(localX, localY, localZ)] = IN_FRUSTUM;
+                    }
+                }
+            }
+            return;
+        }
+
+        final int halfX = (sizeX + 1) / 2;
+        final int halfY = (sizeY + 1) / 2;
+        final int halfZ = (sizeZ + 1) / 2;
+        for (int octant = 0; octant < 8; octant++) {
+            final boolean upperX = (octant & 1) != 0;
+            final boolean upperY = (octant & 2) != 0;
+            final boolean upperZ = (octant & 4) != 0;
+            final int octantSizeX = upperX ? sizeX - halfX : halfX;
+            final int octantSizeY = upperY ? sizeY - halfY : halfY;
+            final int octantSizeZ = upperZ ? sizeZ - halfZ : halfZ;
+            if (octantSizeX > 0 && octantSizeY > 0 && octantSizeZ > 0) {
+                markInFrustum(frustum, upperX ? x + halfX : x, upperY ? y + halfY : y, upperZ ? z + halfZ : z,
+                        octantSizeX, octantSizeY, octantSizeZ);
+            }
+        }
+    }
+
+    private void traverse(int cameraIndex) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = cameraIndex;
+        states[cameraIndex] |= VISIBLE;
+        travelledSides[cameraIndex] = 0;
+
+        while (head < tail) {
+            final int index = queue[head++];
+            final int x = index % regionSizeX;
+            final int y = index / (regionSizeX * regionSizeZ);
+            final int z = (index / regionSizeX) % regionSizeZ;
+
+            for (Side side : SIDES) {
+                // Never turn back towards the camera
+                if ((travelledSides[index] & (1 << side.reverse().ordinal())) != 0) {
+                    continue;
+                }
+                final Vector3i direction = side.getVector3i();
+                final int neighbourX = x + direction.x;
+                final int neighbourY = y + direction.y;
+                final int neighbourZ = z + direction.z;
+                if (neighbourX < 0 || neighbourY < 0 || neighbourZ < 0
+                        || neighbourX >= regionSizeX || neighbourY >= regionSizeY || neighbourZ >= regionSizeZ) {
+                    continue;
+                }
+                final int neighbour = getLocalIndex(neighbourX, neighbourY, neighbourZ);
+                if (states[neighbour] != IN_FRUSTUM) {
+                    continue;
+                }
+                if (index != cameraIndex && !canSeeThrough(chunks[index], SIDES[entrySides[index]], side)) {
+                    continue;
+                }
+                states[neighbour] |= VISIBLE;
+                entrySides[neighbour] = (byte) side.reverse().ordinal();
+                travelledSides[neighbour] = (byte) (travelledSides[index] | (1 << side.ordinal()));
+                queue[tail++] = neighbour;
+            }
+        }
+    }
+
+    /**
+     * Chunks which aren't loaded or tessellated yet are treated as completely transparent.
+     */
+    private static boolean canSeeThrough(RenderableChunk chunk, Side from, Side to) {
+        return chunk == null || !chunk.hasMesh() || chunk.getMesh().areSidesConnected(from, to);
+    }
+
+    private int getIndex(int x, int y, int z) {
+        return getLocalIndex(x - region.minX(), y - region.minY(), z - region.minZ());
+    }
+
+    private int getLocalIndex(int x, int y, int z) {
+        return x + regionSizeX * (z + regionSizeZ * y);
+    }
+}
@@ -21,7 +21,9 @@
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
 import org.terasology.config.RenderingConfig;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.logic.players.LocalPlayer;
 import org.terasology.math.Region3i;
 import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3f;
@@ -30,15 +32,20 @@
 import org.terasology.registry.CoreRegistry;
 import org.terasology.rendering.cameras.Camera;
 import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkMeshCache;
 import org.terasology.rendering.primitives.ChunkTessellator;
 import org.terasology.rendering.world.viewDistance.ViewDistance;
 import org.terasology.world.ChunkView;
 import org.terasology.world.WorldProvider;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.tiles.WorldAtlas;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.RenderableChunk;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -71,6 +78,12 @@ class RenderableWorldImpl implements RenderableWorld {
 
     private Camera playerCamera;
     private Camera shadowMapCamera;
+    private final ChunkVisibilityCuller visibilityCuller = new ChunkVisibilityCuller();
+    private final Vector3f viewPosition = new Vector3f();
+    /**
+     * The position of the active camera, for the comparators of the chunks, updated before the chunks are sorted.
+     */
+    private final Vector3f sortingCameraPosition = new Vector3f();
 
     private Config config = CoreRegistry.get(Config.class);
     private RenderingConfig renderingConfig = config.getRendering();
@@ -87,8 +100,9 @@ class RenderableWorldImpl implements RenderableWorld {
 
         this.worldProvider = worldProvider;
         this.chunkProvider = chunkProvider;
-        chunkTessellator = new ChunkTessellator(bufferPool);
-        chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider);
+        WorldAtlas worldAtlas = CoreRegistry.get(WorldAtlas.class);
+        chunkTessellator = new ChunkTessellator(bufferPool, renderingConfig, worldAtlas != null ? worldAtlas.getRelativeTileSize() : 0);
+        chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider, createMeshCache(bufferPool));
 
         this.playerCamera = playerCamera;
 
@@ -99,12 +113,27 @@ class RenderableWorldImpl implements RenderableWorld {
                 new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkBackToFrontComparator()));
     }
 
+    private ChunkMeshCache createMeshCache(GLBufferPool bufferPool) {
+        BlockManager blockManager = CoreRegistry.get(BlockManager.class);
+        if (!renderingConfig.isMeshCache() || blockManager == null) {
+            return null;
+        }
+        Path directory = PathManager.getInstance().getMeshCachePath(worldProvider.getTitle() + " " + worldProvider.getSeed());
+        try {
+            return new ChunkMeshCache(directory, bufferPool, renderingConfig, ChunkMeshCache.calculateTessellationVersion(blockManager));
+        } catch (IOException e) {
+            logger.error("Failed to create the mesh cache in {}", directory, e);
+            return null;
+        }
+    }
+
     @Override
     public void onChunkLoaded(Vector3i chunkCoordinates) {
         if (renderableRegion.encompasses(chunkCoordinates)) {
             Chunk chunk = chunkProvider.getChunk(chunkCoordinates);
             if (chunk != null) {
                 chunksInProximityOfCamera.add(chunk);
+                updateSortingCameraPosition();
                 Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
             } else {
                 logger.warn("Warning: onChunkLoaded called for a null chunk!");
@@ -225,6 +254,7 @@ public boolean updateChunksInProximity(Region3i newRenderableRegion) {
             }
 
             if (chunksHaveBeenAdded) {
+                updateSortingCameraPosition();
                 Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
             }
             renderableRegion = newRenderableRegion;
@@ -305,6 +335,16 @@ public int queueVisibleChunks(boolean isFirstRenderingStageForCurrentFrame) {
         ChunkMesh mesh;
         boolean isDynamicShadows = renderingConfig.isDynamicShadows();
 
+        updateSortingCameraPosition();
+        PerformanceMonitor.startActivity("Culling Chunks");
+        LocalPlayer localPlayer = CoreRegistry.get(LocalPlayer.class);
+        if (localPlayer != null) {
+            localPlayer.getViewPosition(viewPosition);
+        }
+        visibilityCuller.update(renderableRegion, chunksInProximityOfCamera, playerCamera.getViewFrustum(), viewPosition,
+                playerCamera.getPosition(), renderingConfig.isOcclusionCulling());
+        PerformanceMonitor.endActivity();
+
         for (RenderableChunk chunk : chunksInProximityOfCamera) {
             if (isChunkValidForRender(chunk)) {
                 mesh = chunk.getMesh();
@@ -389,7 +429,7 @@ private boolean isChunkVisibleFromMainLight(RenderableChunk chunk) {
     }
 
     private boolean isChunkVisible(RenderableChunk chunk) {
-        return isChunkVisible(playerCamera, chunk);
+        return visibilityCuller.isVisible(chunk, playerCamera.getViewFrustum());
     }
 
     private boolean isChunkVisible(Camera camera, RenderableChunk chunk) {
@@ -445,18 +485,23 @@ private static float squaredDistanceToCamera(RenderableChunk chunk, Vector3f cam
         return result.lengthSquared();
     }
 
-    // TODO: find the right place to check if the activeCamera has changed,
-    // TODO: so that the comparators can hold an up-to-date reference to it
-    // TODO: and avoid having to find it on a per-comparison basis.
-    private static class ChunkFrontToBackComparator implements Comparator<RenderableChunk> {
+    private void updateSortingCameraPosition() {
+        WorldRenderer worldRenderer = CoreRegistry.get(WorldRenderer.class);
+        if (worldRenderer != null && worldRenderer.getActiveCamera() != null) {
+            sortingCameraPosition.set(worldRenderer.getActiveCamera().getPosition());
+        } else {
+            sortingCameraPosition.set(playerCamera.getPosition());
+        }
+    }
+
+    private class ChunkFrontToBackComparator implements Comparator<RenderableChunk> {
 
         @Override
         public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
             Preconditions.checkNotNull(chunk1);
             Preconditions.checkNotNull(chunk2);
-            Vector3f cameraPosition = CoreRegistry.get(WorldRenderer.class).getActiveCamera().getPosition();
-            double distance1 = squaredDistanceToCamera(chunk1, cameraPosition);
-            double distance2 = squaredDistanceToCamera(chunk2, cameraPosition);
+            double distance1 = squaredDistanceToCamera(chunk1, sortingCameraPosition);
+            double distance2 = squaredDistanceToCamera(chunk2, sortingCameraPosition);
 
             // Using Double.compare as simple d1 < d2 comparison is flagged as problematic by Jenkins
             // On the other hand Double.compare can return any positive/negative value apparently,
@@ -465,15 +510,14 @@ public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
         }
     }
 
-    private static class ChunkBackToFrontComparator implements Comparator<RenderableChunk> {
+    private class ChunkBackToFrontComparator implements Comparator<RenderableChunk> {
 
         @Override
         public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
             Preconditions.checkNotNull(chunk1);
             Preconditions.checkNotNull(chunk2);
-            Vector3f cameraPosition = CoreRegistry.get(WorldRenderer.class).getActiveCamera().getPosition();
-            double distance1 = squaredDistanceToCamera(chunk1, cameraPosition);
-            double distance2 = squaredDistanceToCamera(chunk2, cameraPosition);
+            double distance1 = squaredDistanceToCamera(chunk1, sortingCameraPosition);
+            double distance2 = squaredDistanceToCamera(chunk2, sortingCameraPosition);
 
             if (distance1 == distance2) {
                 return 0;
@@ -16,6 +16,8 @@
 
 package org.terasology.utilities.procedural;
 
+import java.util.Arrays;
+
 /**
  * Computes Brownian noise based on some noise generator.
  * Originally, Brown integrates white noise, but using other noises can be sometimes useful, too.
@@ -107,6 +109,69 @@ public float noise(float x, float y, float z) {
         return result * scale;
     }
 
+    /**
+     * Fractional Brownian Motion of a grid of positions. Every octave is evaluated for the whole grid with the batch
+     * evaluation of the base noise and then added to the result. The positions of the octaves are scaled one axis at a
+     * time, exactly like the position of {@link #noise(float, float)}, so the results are the same.
+     */
+    @Override
+    public void noise(float[] target, float[] xs, float[] ys) {
+        int size = xs.length * ys.length;
+        float[] octave = new float[size];
+        Arrays.fill(target, 0, size, 0.0f);
+
+        float[] workingXs = xs.clone();
+        float[] workingYs = ys.clone();
+        for (int i = 0; i < getOctaves(); i++) {
+            other.noise(octave, workingXs, workingYs);
+            accumulate(target, octave, spectralWeights[i], size);
+
+            multiply(workingXs, (float) getLacunarity(), workingXs.length);
+            multiply(workingYs, (float) getLacunarity(), workingYs.length);
+        }
+
+        multiply(target, scale, size);
+    }
+
+    /**
+     * Fractional Brownian Motion of a grid of positions. Every octave is evaluated for the whole grid with the batch
+     * evaluation of the base noise and then added to the result. The positions of the octaves are scaled one axis at a
+     * time, exactly like the position of {@link #noise(float, float, float)}, so the results are the same.
+     */
+    @Override
+    public void noise(float[] target, float[] xs, float[] ys, float[] zs) {
+        int size = xs.length * ys.length * zs.length;
+        float[] octave = new float[size];
+        Arrays.fill(target, 0, size, 0.0f);
+
+        float[] workingXs = xs.clone();
+        float[] workingYs = ys.clone();
+        float[] workingZs = zs.clone();
+        for (int i = 0; i < getOctaves(); i++) {
+            other.noise(octave, workingXs, workingYs, workingZs);
+            accumulate(target, octave, spectralWeights[i], size);
+
+            multiply(workingXs, (float) getLacunarity(), workingXs.length);
+            multiply(workingYs, (float) getLacunarity(), workingYs.length);
+            multiply(workingZs, (float) getLacunarity(), workingZs.length);
+        }
+
+        multiply(target, scale, size);
+    }
+
+    // Plain loops over arrays, so that the JIT can vectorize them
+    private static void accumulate(float[] target, float[] octave, float weight, int size) {
+        for (int i = 0; i < size; i++) {
+            target[i] += octave[i] * weight;
+        }
+    }
+
+    private static void multiply(float[] target, float factor, int size) {
+        for (int i = 0; i < size; i++) {
+            target[i] *= factor;
+        }
+    }
+
     private static float computeScale(float[] spectralWeights) {
         float sum = 0;
         for (float weight : spectralWeights) {
@@ -16,6 +16,9 @@
 
 package org.terasology.utilities.procedural;
 
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Rect2i;
+
 /**
  * Provides or generates noise
  *
@@ -59,4 +62,89 @@ public interface Noise {
      * @return The noise value in the range [-1..1]
      */
     float noise(float x, float y, float z);
+
+    /**
+     * Fills an array with the noise values of a grid of positions: {@code target[x + xs.length * y]} becomes
+     * {@code noise(xs[x], ys[y])}.
+     * <br><br>
+     * The default implementation evaluates one position at a time, implementations override it to evaluate the whole
+     * grid faster. The results must be exactly the same as those of {@link #noise(float, float)}.
+     *
+     * @param target The array to fill, at least xs.length * ys.length long
+     * @param xs     The positions of the columns on the x-axis
+     * @param ys     The positions of the rows on the y-axis
+     */
+    default void noise(float[] target, float[] xs, float[] ys) {
+        for (int y = 0; y < ys.length; y++) {
+            for (int x = 0; x < xs.length; x++) {
+                target[x + xs.length * y] = noise(xs[x], ys[y]);
+            }
+        }
+    }
+
+    /**
+     * Fills an array with the noise values of a grid of positions: {@code target[x + xs.length * (y + ys.length * z)]}
+     * becomes {@code noise(xs[x], ys[y], zs[z])}.
+     * <br><br>
+     * The default implementation evaluates one position at a time, implementations override it to evaluate the whole
+     * grid faster. The results must be exactly the same as those of {@link #noise(float, float, float)}.
+     *
+     * @param target The array to fill, at least xs.length * ys.length * zs.length long
+     */
+    default void noise(float[] target, float[] xs, float[] ys, float[] zs) {
+        for (int z = 0; z < zs.length; z++) {
+            for (int y = 0; y < ys.length; y++) {
+                for (int x = 0; x < xs.length; x++) {
+                    target[x + xs.length * (y + ys.length * z)] = noise(xs[x], ys[y], zs[z]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param region The positions to evaluate
+     * @param scaleX The factor the x positions are multiplied with
+     * @param scaleY The factor the y positions are multiplied with
+     * @return The noise values {@code noise(scaleX * x, scaleY * y)} of the positions of the region, indexed by
+     * {@code x + sizeX * y}
+     */
+    default float[] noise(Rect2i region, float scaleX, float scaleY) {
+        float[] xs = new float[region.sizeX()];
+        for (int x = 0; x < xs.length; x++) {
+            xs[x] = scaleX * (region.minX() + x);
+        }
+        float[] ys = new float[region.sizeY()];
+        for (int y = 0; y < ys.length; y++) {
+            ys[y] = scaleY * (region.minY() + y);
+        }
+        float[] result = new float[xs.length * ys.length];
+        noise(result, xs, ys);
+        return result;
+    }
+
+    /**
+     * @param region The positions to evaluate
+     * @param scaleX The factor the x positions are multiplied with
+     * @param scaleY The factor the y positions are multiplied with
+     * @param scaleZ The factor the z positions are multiplied with
+     * @return The noise values {@code noise(scaleX * x, scaleY * y, scaleZ * z)} of the positions of the region,
+     * indexed by {@code x + sizeX * (y + sizeY * z)}
+     */
+    default float[] noise(Region3i region, float scaleX, float scaleY, float scaleZ) {
+        float[] xs = new float[region.sizeX()];
+        for (int x = 0; x < xs.length; x++) {
+            xs[x] = scaleX * (region.minX() + x);
+        }
+        float[] ys = new float[region.sizeY()];
+        for (int y = 0; y < ys.length; y++) {
+            ys[y] = scaleY * (region.minY() + y);
+        }
+        float[] zs = new float[region.sizeZ()];
+        for (int z = 0; z < zs.length; z++) {
+            zs[z] = scaleZ * (region.minZ() + z);
+        }
+        float[] result = new float[xs.length * ys.length * zs.length];
+        noise(result, xs, ys, zs);
+        return result;
+    }
 }
@@ -54,6 +54,19 @@ public class SimplexNoise extends AbstractNoise implements Noise2D, Noise3D {
             new Grad(1, 1, 1, 0), new Grad(1, 1, -1, 0), new Grad(1, -1, 1, 0), new Grad(1, -1, -1, 0),
             new Grad(-1, 1, 1, 0), new Grad(-1, 1, -1, 0), new Grad(-1, -1, 1, 0), new Grad(-1, -1, -1, 0)};
 
+    // The components of grad3 as flat tables, used by the batch evaluation
+    private static final float[] GRAD3_X = new float[grad3.length];
+    private static final float[] GRAD3_Y = new float[grad3.length];
+    private static final float[] GRAD3_Z = new float[grad3.length];
+
+    static {
+        for (int i = 0; i < grad3.length; i++) {
+            GRAD3_X[i] = grad3[i].x;
+            GRAD3_Y[i] = grad3[i].y;
+            GRAD3_Z[i] = grad3[i].z;
+        }
+    }
+
     // Skewing and unskewing factors for 2, 3, and 4 dimensions
     private static final float F2 = 0.5f * (float) (Math.sqrt(3.0f) - 1.0f);
     private static final float G2 = (3.0f - (float) Math.sqrt(3.0f)) / 6.0f;
@@ -332,6 +345,152 @@ public float noise(float xin, float yin, float zin) {
     }
 
 
+    /**
+     * 2D simplex noise of a grid of positions, with the same results as evaluating them one by one.
+     */
+    @Override
+    public void noise(float[] target, float[] xs, float[] ys) {
+        for (int y = 0; y < ys.length; y++) {
+            noiseRow(target, xs.length * y, xs, ys[y]);
+        }
+    }
+
+    /**
+     * 3D simplex noise of a grid of positions, with the same results as evaluating them one by one.
+     */
+    @Override
+    public void noise(float[] target, float[] xs, float[] ys, float[] zs) {
+        for (int z = 0; z < zs.length; z++) {
+            for (int y = 0; y < ys.length; y++) {
+                noiseRow(target, xs.length * (y + ys.length * z), xs, ys[y], zs[z]);
+            }
+        }
+    }
+
+    /**
+     * The 2D noise of one row of a grid, the same computation as {@link #noise(float, float)} with the gradients
+     * read from the flat tables.
+     */
+    private void noiseRow(float[] target, int offset, float[] xs, float yin) {
+        final short[] permutation = perm;
+        final short[] permutationMod12 = permMod12;
+        for (int x = 0; x < xs.length; x++) {
+            float xin = xs[x];
+            float s = (xin + yin) * F2;
+            int i = TeraMath.floorToInt(xin + s);
+            int j = TeraMath.floorToInt(yin + s);
+            float t = (i + j) * G2;
+            float x0 = xin - (i - t);
+            float y0 = yin - (j - t);
+
+            int i1 = x0 > y0 ? 1 : 0;
+            int j1 = 1 - i1;
+
+            float x1 = x0 - i1 + G2;
+            float y1 = y0 - j1 + G2;
+            float x2 = x0 - 1.0f + 2.0f * G2;
+            float y2 = y0 - 1.0f + 2.0f * G2;
+
+            int ii = i & 255;
+            int jj = j & 255;
+            int gi0 = permutationMod12[ii + permutation[jj]];
+            int gi1 = permutationMod12[ii + i1 + permutation[jj + j1]];
+            int gi2 = permutationMod12[ii + 1 + permutation[jj + 1]];
+
+            float n0 = 0.0f;
+            float n1 = 0.0f;
+            float n2 = 0.0f;
+            float t0 = 0.5f - x0 * x0 - y0 * y0;
+            if (t0 >= 0) {
+                t0 *= t0;
+                n0 = t0 * t0 * (GRAD3_X[gi0] * x0 + GRAD3_Y[gi0] * y0);
+            }
+            float t1 = 0.5f - x1 * x1 - y1 * y1;
+            if (t1 >= 0) {
+                t1 *= t1;
+                n1 = t1 * t1 * (GRAD3_X[gi1] * x1 + GRAD3_Y[gi1] * y1);
+            }
+            float t2 = 0.5f - x2 * x2 - y2 * y2;
+            if (t2 >= 0) {
+                t2 *= t2;
+                n2 = t2 * t2 * (GRAD3_X[gi2] * x2 + GRAD3_Y[gi2] * y2);
+            }
+            target[offset + x] = 70.0f * (n0 + n1 + n2);
+        }
+    }
+
+    /**
+     * The 3D noise of one row of a grid, the same computation as {@link #noise(float, float, float)} with the
+     * gradients read from the flat tables.
+     */
+    private void noiseRow(float[] target, int offset, float[] xs, float yin, float zin) {
+        final short[] permutation = perm;
+        final short[] permutationMod12 = permMod12;
+        for (int x = 0; x < xs.length; x++) {
+            float xin = xs[x];
+            float s = (xin + yin + zin) * F3;
+            int i = TeraMath.floorToInt(xin + s);
+            int j = TeraMath.floorToInt(yin + s);
+            int k = TeraMath.floorToInt(zin + s);
+            float t = (i + j + k) * G3;
+            float x0 = xin - (i - t);
+            float y0 = yin - (j - t);
+            float z0 = zin - (k - t);
+
+            // The second corner steps along the largest coordinate, the third corner along the two largest ones
+            int i1 = x0 >= y0 && x0 >= z0 ? 1 : 0;
+            int j1 = x0 < y0 && y0 >= z0 ? 1 : 0;
+            int k1 = 1 - i1 - j1;
+            int i2 = x0 >= y0 || x0 >= z0 ? 1 : 0;
+            int j2 = x0 < y0 || y0 >= z0 ? 1 : 0;
+            int k2 = 2 - i2 - j2;
+
+            float x1 = x0 - i1 + G3;
+            float y1 = y0 - j1 + G3;
+            float z1 = z0 - k1 + G3;
+            float x2 = x0 - i2 + 2.0f * G3;
+            float y2 = y0 - j2 + 2.0f * G3;
+            float z2 = z0 - k2 + 2.0f * G3;
+            float x3 = x0 - 1.0f + 3.0f * G3;
+            float y3 = y0 - 1.0f + 3.0f * G3;
+            float z3 = z0 - 1.0f + 3.0f * G3;
+
+            int ii = i & 255;
+            int jj = j & 255;
+            int kk = k & 255;
+            int gi0 = permutationMod12[ii + permutation[jj + permutation[kk]]];
+            int gi1 = permutationMod12[ii + i1 + permutation[jj + j1 + permutation[kk + k1]]];
+            int gi2 = permutationMod12[ii + i2 + permutation[jj + j2 + permutation[kk + k2]]];
+            int gi3 = permutationMod12[ii + 1 + permutation[jj + 1 + permutation[kk + 1]]];
+
+            float n0 = 0.0f;
+            float n1 = 0.0f;
+            float n2 = 0.0f;
+            float n3 = 0.0f;
+            float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0;
+            if (t0 >= 0) {
+                t0 *= t0;
+                n0 = t0 * t0 * (GRAD3_X[gi0] * x0 + GRAD3_Y[gi0] * y0 + GRAD3_Z[gi0] * z0);
+            }
+            float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1;
+            if (t1 >= 0) {
+                t1 *= t1;
+                n1 = t1 * t1 * (GRAD3_X[gi1] * x1 + GRAD3_Y[gi1] * y1 + GRAD3_Z[gi1] * z1);
+            }
+            float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2;
+            if (t2 >= 0) {
+                t2 *= t2;
+                n2 = t2 * t2 * (GRAD3_X[gi2] * x2 + GRAD3_Y[gi2] * y2 + GRAD3_Z[gi2] * z2);
+            }
+            float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3;
+            if (t3 >= 0) {
+                t3 *= t3;
+                n3 = t3 * t3 * (GRAD3_X[gi3] * x3 + GRAD3_Y[gi3] * y3 + GRAD3_Z[gi3] * z3);
+            }
+            target[offset + x] = 32.0f * (n0 + n1 + n2 + n3);
+        }
+    }
+
     /**
      * 4D simplex noise, better simplex rank ordering method 2012-03-09
      *
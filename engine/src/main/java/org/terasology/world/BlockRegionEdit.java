@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import org.terasology.math.Region3i;
+import org.terasology.world.block.Block;
+
+/**
+ * Decides the new block for every position of a region edited with
+ * {@link org.terasology.world.internal.WorldProviderCore#setBlocks(Region3i, BlockRegionEdit)}.
+ *
+ */
+@FunctionalInterface
+public interface BlockRegionEdit {
+
+    /**
+     * @param x       The world x position of the block
+     * @param y       The world y position of the block
+     * @param z       The world z position of the block
+     * @param current The block currently at the position
+     * @return The block to place at the position, or null to keep the current block
+     */
+    Block apply(int x, int y, int z, Block current);
+
+    /**
+     * @return An edit setting every block of the region to the given block
+     */
+    static BlockRegionEdit fill(Block block) {
+        return (x, y, z, current) -> block;
+    }
+
+    /**
+     * @return An edit replacing every occurrence of one block with another block
+     */
+    static BlockRegionEdit replace(Block from, Block to) {
+        return (x, y, z, current) -> current == from ? to : null;
+    }
+
+    /**
+     * Pastes an array of blocks into a region, for example a copied structure.
+     *
+     * @param region The region the blocks are pasted into
+     * @param blocks The blocks in the iteration order of the region, null entries keep the current block
+     * @return An edit placing the pasted block at every position of the region
+     */
+    static BlockRegionEdit paste(Region3i region, Block[] blocks) {
+        if (blocks.length != region.sizeX() * region.sizeY() * region.sizeZ()) {
+            throw new IllegalArgumentException("Expected " + region.sizeX() * region.sizeY() * region.sizeZ() + " blocks for " + region
+                    + " but got " + blocks.length);
+        }
+        final int minX = region.minX();
+        final int minY = region.minY();
+        final int minZ = region.minZ();
+        final int sizeY = region.sizeY();
+        final int sizeZ = region.sizeZ();
+        return (x, y, z, current) -> blocks[(z - minZ) + sizeZ * ((y - minY) + sizeY * (x - minX))];
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world;
+
+import org.terasology.entitySystem.event.Event;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.propagation.BlockChange;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Event sent to the world entity when a region edit changed blocks of a chunk. It replaces the {@link OnChangedBlock}
+ * events of the single blocks, so there is one event per edited chunk instead of one per changed block.
+ *
+ */
+public class OnChangedBlocks implements Event {
+    private Vector3i chunkPos;
+    private Region3i region;
+    private Collection<BlockChange> changes;
+
+    public OnChangedBlocks(Vector3i chunkPos, Region3i region, Collection<BlockChange> changes) {
+        this.chunkPos = new Vector3i(chunkPos);
+        this.region = region;
+        this.changes = changes;
+    }
+
+    /**
+     * @return The position of the chunk the changed blocks are in
+     */
+    public Vector3i getChunkPos() {
+        return chunkPos;
+    }
+
+    /**
+     * @return The part of the edited region inside the chunk, it contains every changed block
+     */
+    public Region3i getRegion() {
+        return region;
+    }
+
+    public Collection<BlockChange> getChanges() {
+        return Collections.unmodifiableCollection(changes);
+    }
+}
@@ -18,12 +18,27 @@
 
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
+import org.terasology.world.propagation.BlockChange;
+
+import java.util.Collection;
 
 /**
  */
 public interface WorldChangeListener {
 
     void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock);
-    
+
+    /**
+     * Called once per chunk when a region edit changed blocks of the chunk.
+     *
+     * @param chunkPos The position of the chunk the changed blocks are in
+     * @param changes  The changes of the blocks
+     */
+    default void onBlocksChanged(Vector3i chunkPos, Collection<BlockChange> changes) {
+        for (BlockChange change : changes) {
+            onBlockChanged(change.getPosition(), change.getTo(), change.getFrom());
+        }
+    }
+
     void onExtraDataChanged(int i, Vector3i pos, int newData, int oldData);
 }
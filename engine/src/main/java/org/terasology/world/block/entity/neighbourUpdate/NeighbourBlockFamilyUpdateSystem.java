@@ -29,12 +29,14 @@
 import org.terasology.registry.In;
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.OnChangedBlock;
+import org.terasology.world.OnChangedBlocks;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockComponent;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.block.family.UpdatesWithNeighboursFamily;
 import org.terasology.world.block.items.OnBlockItemPlaced;
+import org.terasology.world.propagation.BlockChange;
 
 import java.util.Set;
 
@@ -107,6 +109,20 @@ public void blockUpdate(OnChangedBlock event, EntityRef blockEntity) {
         }
     }
 
+    /**
+     * Region edits announce their changes once per chunk, the neighbours of all the changed blocks are updated like
+     * after a large block update.
+     */
+    @ReceiveEvent
+    public void blocksUpdate(OnChangedBlocks event, EntityRef worldEntity) {
+        for (BlockChange change : event.getChanges()) {
+            blocksUpdatedInLargeBlockUpdate.add(change.getPosition());
+        }
+        if (largeBlockUpdateCount == 0) {
+            notifyNeighboursOfChangedBlocks();
+        }
+    }
+
     private void processUpdateForBlockLocation(Vector3i blockLocation) {
         for (Side side : Side.getAllSides()) {
             Vector3i neighborLocation = new Vector3i(blockLocation);
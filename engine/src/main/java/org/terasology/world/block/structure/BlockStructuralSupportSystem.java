@@ -30,10 +30,12 @@
 import org.terasology.registry.Share;
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.OnChangedBlock;
+import org.terasology.world.OnChangedBlocks;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockComponent;
 import org.terasology.world.block.entity.placement.PlaceBlocks;
+import org.terasology.world.propagation.BlockChange;
 
 import java.util.Collections;
 import java.util.Comparator;
@@ -89,6 +91,20 @@ public void checkForSupportRemoved(OnChangedBlock event, EntityRef entity) {
         }
     }
 
+    @ReceiveEvent
+    public void checkForSupportRemoved(OnChangedBlocks event, EntityRef worldEntity) {
+        PerformanceMonitor.startActivity("StructuralCheck");
+        try {
+            for (BlockChange change : event.getChanges()) {
+                for (Side side : Side.getAllSides()) {
+                    validateSupportForBlockOnSide(change.getPosition(), side);
+                }
+            }
+        } finally {
+            PerformanceMonitor.endActivity();
+        }
+    }
+
     @ReceiveEvent
     public void preventInvalidPlacement(PlaceBlocks placeBlocks, EntityRef world) {
         final Map<Vector3i, Block> blocksMap = placeBlocks.getBlocks();
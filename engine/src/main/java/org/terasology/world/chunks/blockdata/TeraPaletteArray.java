@@ -0,0 +1,342 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.world.chunks.blockdata;
+
+import com.google.common.base.Preconditions;
+import org.terasology.world.chunks.deflate.TeraVisitingDeflator;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * TeraPaletteArray stores elements of 16 bit size as indices into a palette of the distinct values of the array.
+ * Its elements are in the range -32'768 through +32'767, like the ones of {@link TeraDenseArray16Bit}.
+ * <br><br>
+ * The indices are bit packed into longs and use 1, 2, 4, 8 or 16 bits, depending on the size of the palette. An array
+ * with less than 16 distinct values needs at most 4 bits per element. When a value is set which is not part of the
+ * palette yet and the palette is full, the indices get repacked with twice as many bits. Values which are no longer
+ * used stay in the palette until the array gets deflated.
+ * <br><br>
+ * The array can be read while it is being written to: the palette and the indices get published together, so a read
+ * never combines indices of one packing with the palette or bits per index of another. Writes are synchronized.
+ *
+ */
+public class TeraPaletteArray extends TeraArray {
+
+    /**
+     * The palette, the size of the palette, the bits per index and the indices. A new state gets built and published
+     * whenever one of them changes. Only the indices of the current state get modified in place, by {@link #set}.
+     */
+    private volatile State state;
+
+    public TeraPaletteArray() {
+        super();
+    }
+
+    public TeraPaletteArray(int sizeX, int sizeY, int sizeZ) {
+        super(sizeX, sizeY, sizeZ, true);
+    }
+
+    public TeraPaletteArray(int sizeX, int sizeY, int sizeZ, short[] palette, int paletteSize, int bitsPerIndex, long[] indices) {
+        super(sizeX, sizeY, sizeZ, false);
+        Preconditions.checkNotNull(palette);
+        Preconditions.checkNotNull(indices);
+        Preconditions.checkArgument(paletteSize > 0 && paletteSize <= palette.length,
+                "The parameter 'paletteSize' has to be in the range 1 to " + palette.length + " but is " + paletteSize);
+        Preconditions.checkArgument(Integer.bitCount(bitsPerIndex) == 1 && bitsPerIndex <= 16 && paletteSize <= 1 << bitsPerIndex,
+                "The parameter 'bitsPerIndex' has to be 1, 2, 4, 8 or 16 and large enough for the palette but is " + bitsPerIndex);
+        Preconditions.checkArgument(indices.length == getIndicesLength(getSizeXYZ(), bitsPerIndex),
+                "The length of parameter 'indices' has to be " + getIndicesLength(getSizeXYZ(), bitsPerIndex) + " but is " + indices.length);
+        this.state = new State(palette, paletteSize, bitsPerIndex, indices);
+    }
+
+    public TeraPaletteArray(TeraArray in) {
+        super(Preconditions.checkNotNull(in).getSizeX(), in.getSizeY(), in.getSizeZ(), true);
+        for (int y = 0; y < getSizeY(); y++) {
+            for (int z = 0; z < getSizeZ(); z++) {
+                for (int x = 0; x < getSizeX(); x++) {
+                    set(x, y, z, in.get(x, y, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the smallest supported number of bits per index that can address a palette of the given size
+     */
+    public static int getBitsPerIndex(int paletteSize) {
+        int bits = 1;
+        while (1 << bits < paletteSize) {
+            bits <<= 1;
+        }
+        return bits;
+    }
+
+    /**
+     * @return the number of longs needed to store the given number of indices
+     */
+    public static int getIndicesLength(int count, int bitsPerIndex) {
+        return (count * bitsPerIndex + 63) / 64;
+    }
+
+    /**
+     * Reads an index from bit packed indices. Indices never span two longs, as the supported numbers of bits per index
+     * are powers of two.
+     */
+    public static int getIndex(long[] indices, int bitsPerIndex, int pos) {
+        final int bit = pos * bitsPerIndex;
+        return (int) (indices[bit >>> 6] >>> (bit & 63)) & ((1 << bitsPerIndex) - 1);
+    }
+
+    public static void setIndex(long[] indices, int bitsPerIndex, int pos, int index) {
+        final int bit = pos * bitsPerIndex;
+        final long mask = ((1L << bitsPerIndex) - 1) << (bit & 63);
+        indices[bit >>> 6] = (indices[bit >>> 6] & ~mask) | (((long) index << (bit & 63)) & mask);
+    }
+
+    @Override
+    protected void initialize() {
+        this.state = new State(new short[2], 1, 1, new long[getIndicesLength(getSizeXYZ(), 1)]);
+    }
+
+    public int getPaletteSize() {
+        return state.paletteSize;
+    }
+
+    public int getBitsPerIndex() {
+        return state.bitsPerIndex;
+    }
+
+    @Override
+    public boolean isSparse() {
+        return false;
+    }
+
+    @Override
+    public TeraArray copy() {
+        State current = state;
+        return new TeraPaletteArray(getSizeX(), getSizeY(), getSizeZ(), Arrays.copyOf(current.palette, current.paletteSize),
+                current.paletteSize, current.bitsPerIndex, Arrays.copyOf(current.indices, current.indices.length));
+    }
+
+    @Override
+    public TeraArray deflate(TeraVisitingDeflator deflator) {
+        State current = state;
+        return Preconditions.checkNotNull(deflator).deflatePaletteArray(current.palette, current.paletteSize, current.bitsPerIndex,
+                current.indices, getSizeX(), getSizeY(), getSizeZ());
+    }
+
+    @Override
+    public int getEstimatedMemoryConsumptionInBytes() {
+        State current = state;
+        if (current == null) {
+            return 4;
+        } else {
+            return 48 + current.palette.length * 2 + current.indices.length * 8;
+        }
+    }
+
+    @Override
+    public int getElementSizeInBits() {
+        return 16;
+    }
+
+    @Override
+    public int get(int x, int y, int z) {
+        int pos = pos(x, y, z);
+        State current = state;
+        int index = getIndex(current.indices, current.bitsPerIndex, pos);
+        if (index >= current.paletteSize) {
+            // The index has been set after the palette grew, so the grown palette has been published already
+            current = state;
+            index = getIndex(current.indices, current.bitsPerIndex, pos);
+        }
+        return current.palette[index];
+    }
+
+    @Override
+    public synchronized int set(int x, int y, int z, int value) {
+        int pos = pos(x, y, z);
+        State current = state;
+        int old = current.palette[getIndex(current.indices, current.bitsPerIndex, pos)];
+        if (old != (short) value) {
+            setPaletteValue(pos, (short) value);
+        }
+        return old;
+    }
+
+    @Override
+    public synchronized boolean set(int x, int y, int z, int value, int expected) {
+        int pos = pos(x, y, z);
+        State current = state;
+        int old = current.palette[getIndex(current.indices, current.bitsPerIndex, pos)];
+        if (old == expected) {
+            if (old != (short) value) {
+                setPaletteValue(pos, (short) value);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Points the index at the given position to the value, publishing a new state first if the value has to be added
+     * to the palette.
+     */
+    private void setPaletteValue(int pos, short value) {
+        State current = state;
+        int index = current.indexOf(value);
+        if (index < 0) {
+            current = current.withValue(value, getSizeXYZ());
+            index = current.paletteSize - 1;
+            state = current;
+        }
+        setIndex(current.indices, current.bitsPerIndex, pos, index);
+    }
+
+    /**
+     * The palette entries below the palette size and the size itself never change once the state has been published.
+     * Entries get only added beyond the size of all published states, so states of the same array can share the palette
+     * until it has to grow.
+     */
+    private static final class State {
+        private final short[] palette;
+        private final int paletteSize;
+        private final int bitsPerIndex;
+        private final long[] indices;
+
+        private State(short[] palette, int paletteSize, int bitsPerIndex, long[] indices) {
+            this.palette = palette;
+            this.paletteSize = paletteSize;
+            this.bitsPerIndex = bitsPerIndex;
+            this.indices = indices;
+        }
+
+        private int indexOf(short value) {
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return a state with the value appended to the palette, with the indices repacked if the bits per index no
+         * longer suffice
+         */
+        private State withValue(short value, int count) {
+            short[] newPalette = palette;
+            if (paletteSize == palette.length) {
+                newPalette = Arrays.copyOf(palette, paletteSize * 2);
+            }
+            newPalette[paletteSize] = value;
+
+            int newBitsPerIndex = bitsPerIndex;
+            long[] newIndices = indices;
+            if (paletteSize == 1 << bitsPerIndex) {
+                newBitsPerIndex = bitsPerIndex * 2;
+                newIndices = new long[getIndicesLength(count, newBitsPerIndex)];
+                for (int pos = 0; pos < count; pos++) {
+                    setIndex(newIndices, newBitsPerIndex, pos, getIndex(indices, bitsPerIndex, pos));
+                }
+            }
+            return new State(newPalette, paletteSize + 1, newBitsPerIndex, newIndices);
+        }
+    }
+
+    public static class SerializationHandler extends TeraArray.BasicSerializationHandler<TeraPaletteArray> {
+
+        @Override
+        public boolean canHandle(Class<?> clazz) {
+            return TeraPaletteArray.class.equals(clazz);
+        }
+
+        @Override
+        protected int internalComputeMinimumBufferSize(TeraPaletteArray array) {
+            final State state = array.state;
+            if (state == null) {
+                return 4;
+            } else {
+                return 12 + state.paletteSize * 2 + state.indices.length * 8;
+            }
+        }
+
+        @Override
+        protected void internalSerialize(TeraPaletteArray array, ByteBuffer buffer) {
+            final State state = array.state;
+            if (state == null) {
+                buffer.putInt(0);
+            } else {
+                final long[] indices = state.indices;
+                buffer.putInt(state.paletteSize);
+                buffer.putInt(state.bitsPerIndex);
+                final ShortBuffer sbuffer = buffer.asShortBuffer();
+                sbuffer.put(state.palette, 0, state.paletteSize);
+                buffer.position(buffer.position() + state.paletteSize * 2);
+                buffer.putInt(indices.length);
+                final LongBuffer lbuffer = buffer.asLongBuffer();
+                lbuffer.put(indices);
+                buffer.position(buffer.position() + indices.length * 8);
+            }
+        }
+
+        @Override
+        protected TeraPaletteArray internalDeserialize(int sizeX, int sizeY, int sizeZ, ByteBuffer buffer) {
+            final int paletteSize = buffer.getInt();
+            if (paletteSize > 0) {
+                final int bitsPerIndex = buffer.getInt();
+                final short[] palette = new short[paletteSize];
+                final ShortBuffer sbuffer = buffer.asShortBuffer();
+                sbuffer.get(palette, 0, paletteSize);
+                buffer.position(buffer.position() + paletteSize * 2);
+                final long[] indices = new long[buffer.getInt()];
+                final LongBuffer lbuffer = buffer.asLongBuffer();
+                lbuffer.get(indices, 0, indices.length);
+                buffer.position(buffer.position() + indices.length * 8);
+                return new TeraPaletteArray(sizeX, sizeY, sizeZ, palette, paletteSize, bitsPerIndex, indices);
+            }
+            return new TeraPaletteArray(sizeX, sizeY, sizeZ);
+        }
+    }
+
+    public static class Factory implements TeraArray.Factory<TeraPaletteArray> {
+
+        @Override
+        public Class<TeraPaletteArray> getArrayClass() {
+            return TeraPaletteArray.class;
+        }
+
+        @Override
+        public SerializationHandler createSerializationHandler() {
+            return new SerializationHandler();
+        }
+
+        @Override
+        public TeraPaletteArray create() {
+            return new TeraPaletteArray();
+        }
+
+        @Override
+        public TeraPaletteArray create(int sizeX, int sizeY, int sizeZ) {
+            return new TeraPaletteArray(sizeX, sizeY, sizeZ);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.world.chunks.deflate;
+
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraPaletteArray;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * TeraPaletteDeflator additionally converts dense 8 and 16-bit arrays to {@link TeraPaletteArray palette arrays},
+ * whenever they have at most 256 distinct values and the palette array uses less memory than the result of the
+ * standard deflation.
+ *
+ */
+public class TeraPaletteDeflator extends TeraStandardDeflator {
+
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    public TeraPaletteDeflator() {
+    }
+
+    @Override
+    public TeraArray deflateDenseArray16Bit(short[] data, int rowSize, int sizeX, int sizeY, int sizeZ) {
+        final TeraArray deflated = super.deflateDenseArray16Bit(data, rowSize, sizeX, sizeY, sizeZ);
+        final TeraArray palette = createPaletteArray(pos -> data[pos], sizeX, sizeY, sizeZ);
+        return smallest(deflated, palette, 16 + data.length * 2);
+    }
+
+    @Override
+    public TeraArray deflateDenseArray8Bit(byte[] data, int rowSize, int sizeX, int sizeY, int sizeZ) {
+        final TeraArray deflated = super.deflateDenseArray8Bit(data, rowSize, sizeX, sizeY, sizeZ);
+        final TeraArray palette = createPaletteArray(pos -> data[pos], sizeX, sizeY, sizeZ);
+        return smallest(deflated, palette, 16 + data.length);
+    }
+
+    private static TeraArray smallest(TeraArray deflated, TeraArray palette, int inputSize) {
+        if (palette == null) {
+            return deflated;
+        }
+        int deflatedSize = deflated != null ? deflated.getEstimatedMemoryConsumptionInBytes() : inputSize;
+        if (palette.getEstimatedMemoryConsumptionInBytes() < deflatedSize) {
+            return palette;
+        }
+        return deflated;
+    }
+
+    /**
+     * @return the values as palette array, or null if there are too many distinct values
+     */
+    private static TeraPaletteArray createPaletteArray(IntUnaryOperator values, int sizeX, int sizeY, int sizeZ) {
+        final int size = sizeX * sizeY * sizeZ;
+        final short[] palette = new short[MAX_PALETTE_SIZE];
+        final byte[] dataIndices = new byte[size];
+        int paletteSize = 0;
+        int lastIndex = 0;
+        for (int pos = 0; pos < size; pos++) {
+            final short value = (short) values.applyAsInt(pos);
+            if (paletteSize == 0 || palette[lastIndex] != value) {
+                lastIndex = 0;
+                while (lastIndex < paletteSize && palette[lastIndex] != value) {
+                    lastIndex++;
+                }
+                if (lastIndex == paletteSize) {
+                    if (paletteSize == MAX_PALETTE_SIZE) {
+                        return null;
+                    }
+                    palette[paletteSize++] = value;
+                }
+            }
+            dataIndices[pos] = (byte) lastIndex;
+        }
+        final int bitsPerIndex = TeraPaletteArray.getBitsPerIndex(paletteSize);
+        final long[] indices = new long[TeraPaletteArray.getIndicesLength(size, bitsPerIndex)];
+        for (int pos = 0; pos < size; pos++) {
+            TeraPaletteArray.setIndex(indices, bitsPerIndex, pos, dataIndices[pos] & 0xFF);
+        }
+        return new TeraPaletteArray(sizeX, sizeY, sizeZ, Arrays.copyOf(palette, paletteSize), paletteSize, bitsPerIndex, indices);
+    }
+}
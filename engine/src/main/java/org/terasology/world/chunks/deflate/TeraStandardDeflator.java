@@ -17,6 +17,8 @@
 package org.terasology.world.chunks.deflate;
 
 import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraPaletteArray;
 import org.terasology.world.chunks.blockdata.TeraSparseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraSparseArray4Bit;
 import org.terasology.world.chunks.blockdata.TeraSparseArray8Bit;
@@ -212,4 +214,50 @@ public TeraArray deflateSparseArray4Bit(final byte[][] inflated, final byte[] de
         return null;
     }
 
+    /**
+     * Removes the values which are no longer used from the palette. Arrays with a single value become sparse arrays
+     * and arrays which would need 16 bits per index become dense arrays.
+     */
+    @Override
+    public TeraArray deflatePaletteArray(short[] palette, int paletteSize, int bitsPerIndex, long[] indices, int sizeX, int sizeY, int sizeZ) {
+        final int size = sizeX * sizeY * sizeZ;
+        final boolean[] used = new boolean[paletteSize];
+        int usedCount = 0;
+        for (int pos = 0; pos < size; pos++) {
+            int index = TeraPaletteArray.getIndex(indices, bitsPerIndex, pos);
+            if (!used[index]) {
+                used[index] = true;
+                ++usedCount;
+            }
+        }
+        if (usedCount == 1) {
+            return new TeraSparseArray16Bit(sizeX, sizeY, sizeZ, palette[TeraPaletteArray.getIndex(indices, bitsPerIndex, 0)]);
+        }
+        final int newBitsPerIndex = TeraPaletteArray.getBitsPerIndex(usedCount);
+        if (newBitsPerIndex == 16) {
+            final short[] data = new short[size];
+            for (int pos = 0; pos < size; pos++) {
+                data[pos] = palette[TeraPaletteArray.getIndex(indices, bitsPerIndex, pos)];
+            }
+            return new TeraDenseArray16Bit(sizeX, sizeY, sizeZ, data);
+        }
+        if (usedCount == paletteSize) {
+            return null;
+        }
+        final short[] newPalette = new short[usedCount];
+        final int[] newIndex = new int[paletteSize];
+        int next = 0;
+        for (int i = 0; i < paletteSize; i++) {
+            if (used[i]) {
+                newPalette[next] = palette[i];
+                newIndex[i] = next++;
+            }
+        }
+        final long[] newIndices = new long[TeraPaletteArray.getIndicesLength(size, newBitsPerIndex)];
+        for (int pos = 0; pos < size; pos++) {
+            TeraPaletteArray.setIndex(newIndices, newBitsPerIndex, pos, newIndex[TeraPaletteArray.getIndex(indices, bitsPerIndex, pos)]);
+        }
+        return new TeraPaletteArray(sizeX, sizeY, sizeZ, newPalette, usedCount, newBitsPerIndex, newIndices);
+    }
+
 }
@@ -19,6 +19,8 @@
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.math.AABB;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.BaseVector3i;
@@ -26,6 +28,7 @@
 import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.chunk.ChunkMonitor;
 import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.rendering.primitives.ChunkMesh;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
@@ -36,6 +39,7 @@
 import org.terasology.world.chunks.blockdata.TeraArray;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
 import org.terasology.world.chunks.deflate.TeraDeflator;
+import org.terasology.world.chunks.deflate.TeraPaletteDeflator;
 import org.terasology.world.chunks.deflate.TeraStandardDeflator;
 
 import java.text.DecimalFormat;
@@ -67,6 +71,10 @@ public class ChunkImpl implements Chunk {
     private volatile TeraArray blockDataSnapshot;
     private TeraArray[] extraData;
     private volatile TeraArray[] extraDataSnapshots;
+    /**
+     * Only written by the thread that modifies the chunk, so incrementing the volatile field is fine.
+     */
+    private volatile long modificationCount;
 
     private AABB aabb;
     private Region3i region;
@@ -110,6 +118,14 @@ public Vector3i getPosition() {
         return new Vector3i(chunkPos);
     }
 
+    /**
+     * @return a counter that changes whenever the block or extra data of the chunk gets modified, which are the parts
+     *         of the chunk that get persisted. Changes to the lighting are not counted.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
     @Override
     public boolean isDirty() {
         return dirty;
@@ -154,6 +170,9 @@ public Block setBlock(int x, int y, int z, Block block) {
             blockData = blockData.copy();
         }
         int oldValue = blockData.set(x, y, z, block.getId());
+        if (oldValue != block.getId()) {
+            modificationCount++;
+        }
         return blockManager.getBlock((short) oldValue);
     }
 
@@ -240,7 +259,9 @@ public void setExtraData(int index, int x, int y, int z, int value) {
         if (extraDataSnapshots != null && extraData[index] == extraDataSnapshots[index]) {
             extraData[index] = extraData[index].copy();
         }
-        extraData[index].set(x, y, z, value);
+        if (extraData[index].set(x, y, z, value) != value) {
+            modificationCount++;
+        }
     }
     
     @Override
@@ -308,6 +329,7 @@ public AABB getAABB() {
     @Override
     public void deflate() {
         final TeraDeflator def = new TeraStandardDeflator();
+        final TeraDeflator blockDef = isPaletteBlockStorageEnabled() ? new TeraPaletteDeflator() : def;
         if (logger.isDebugEnabled()) {
             int blocksSize = blockData.getEstimatedMemoryConsumptionInBytes();
             int sunlightSize = sunlightData.getEstimatedMemoryConsumptionInBytes();
@@ -319,7 +341,7 @@ public void deflate() {
             }
             int totalSize = blocksSize + sunlightRegenSize + sunlightSize + lightSize + extraSize;
 
-            blockData = def.deflate(blockData);
+            blockData = blockDef.deflate(blockData);
             lightData = def.deflate(lightData);
             for (int i = 0; i < extraData.length; i++) {
                 extraData[i] = def.deflate(extraData[i]);
@@ -355,7 +377,7 @@ public void deflate() {
             ChunkMonitor.fireChunkDeflated(this, totalSize, totalReduced);
         } else {
             final int oldSize = getEstimatedMemoryConsumptionInBytes();
-            blockData = def.deflate(blockData);
+            blockData = blockDef.deflate(blockData);
             lightData = def.deflate(lightData);
             for (int i = 0; i < extraData.length; i++) {
                 extraData[i] = def.deflate(extraData[i]);
@@ -364,6 +386,11 @@ public void deflate() {
         }
     }
 
+    private static boolean isPaletteBlockStorageEnabled() {
+        Config config = CoreRegistry.get(Config.class);
+        return config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.PALETTE_BLOCK_STORAGE);
+    }
+
     @Override
     public void deflateSunlight() {
         final TeraDeflator def = new TeraStandardDeflator();
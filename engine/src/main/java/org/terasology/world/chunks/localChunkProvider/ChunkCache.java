@@ -15,6 +15,8 @@
  */
 package org.terasology.world.chunks.localChunkProvider;
 
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.chunks.Chunk;
 
@@ -24,9 +26,35 @@
 /**
  * Chunk storage which allows to look up for chunks based on their world position.
  */
-interface ChunkCache {
+public interface ChunkCache {
     Chunk get(Vector3i chunkPosition);
 
+    default Chunk get(int x, int y, int z) {
+        return get(new Vector3i(x, y, z));
+    }
+
+    /**
+     * @return the chunks of the region, indexed like {@link TeraMath#calculate3DArrayIndex} relative to the minimum of
+     * the region. Chunks which are not in the cache are null.
+     */
+    default Chunk[] getChunks(Region3i region) {
+        final Vector3i regionSize = region.size();
+        final Chunk[] chunks = new Chunk[regionSize.x * regionSize.y * regionSize.z];
+        for (Vector3i chunkPos : region) {
+            Chunk chunk = get(chunkPos);
+            chunkPos.sub(region.minX(), region.minY(), region.minZ());
+            chunks[TeraMath.calculate3DArrayIndex(chunkPos, regionSize)] = chunk;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the 3x3x3 chunks around the given chunk position, indexed like {@link #getChunks(Region3i)}
+     */
+    default Chunk[] getNeighbourhood(Vector3i chunkPosition) {
+        return getChunks(Region3i.createFromCenterExtents(chunkPosition, 1));
+    }
+
     void put(Vector3i chunkPosition, Chunk chunk);
 
     Iterator<Vector3i> iterateChunkPositions();
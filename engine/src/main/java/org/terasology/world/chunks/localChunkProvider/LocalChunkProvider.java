@@ -26,6 +26,8 @@
 import gnu.trove.map.hash.TShortObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
@@ -34,12 +36,12 @@
 import org.terasology.math.ChunkMath;
 import org.terasology.math.Region3i;
 import org.terasology.math.Side;
-import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.monitoring.chunk.ChunkMonitor;
 import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.StorageManager;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.utilities.concurrency.TaskMaster;
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.block.BeforeDeactivateBlocks;
@@ -63,6 +65,7 @@
 import org.terasology.world.chunks.internal.ReadyChunkInfo;
 import org.terasology.world.chunks.pipeline.AbstractChunkTask;
 import org.terasology.world.chunks.pipeline.ChunkGenerationPipeline;
+import org.terasology.world.chunks.pipeline.ChunkGenerationStage;
 import org.terasology.world.chunks.pipeline.ChunkTask;
 import org.terasology.world.generation.impl.EntityBufferImpl;
 import org.terasology.world.generator.WorldGenerator;
@@ -74,6 +77,7 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -128,7 +132,7 @@ public LocalChunkProvider(StorageManager storageManager, EntityManager entityMan
                 extraDataManager,
                 new LightMergingChunkFinalizer(),
                 LightMergingChunkFinalizer::new,
-                new ConcurrentMapChunkCache());
+                createChunkCache());
     }
 
     LocalChunkProvider(StorageManager storageManager, EntityManager entityManager, WorldGenerator generator,
@@ -140,7 +144,7 @@ public LocalChunkProvider(StorageManager storageManager, EntityManager entityMan
         this.generator = generator;
         this.blockManager = blockManager;
         this.extraDataManager = extraDataManager;
-        this.pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        this.pipeline = createPipeline();
         this.unloadRequestTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Unloader", 4);
         this.chunkFinalizer = chunkFinalizer;
         this.chunkCache = chunkCache;
@@ -149,6 +153,14 @@ public LocalChunkProvider(StorageManager storageManager, EntityManager entityMan
         ChunkMonitor.fireChunkProviderInitialized(this);
     }
 
+    private static ChunkCache createChunkCache() {
+        Config config = CoreRegistry.get(Config.class);
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.PACKED_POSITION_CHUNK_CACHE)) {
+            return new PackedPositionChunkCache();
+        }
+        return new ConcurrentMapChunkCache();
+    }
+
 
     public void setBlockEntityRegistry(BlockEntityRegistry value) {
         this.registry = value;
@@ -179,15 +191,11 @@ public ChunkViewCore getSubviewAroundChunk(Vector3i chunkPos) {
     }
 
     private ChunkViewCore createWorldView(Region3i region, Vector3i offset) {
-        Chunk[] chunks = new Chunk[region.sizeX() * region.sizeY() * region.sizeZ()];
-        for (Vector3i chunkPos : region) {
-            Chunk chunk = chunkCache.get(chunkPos);
+        Chunk[] chunks = chunkCache.getChunks(region);
+        for (Chunk chunk : chunks) {
             if (chunk == null) {
                 return null;
             }
-            chunkPos.sub(region.minX(), region.minY(), region.minZ());
-            int index = TeraMath.calculate3DArrayIndex(chunkPos, region.size());
-            chunks[index] = chunk;
         }
         return new ChunkViewCoreImpl(chunks, region, offset, blockManager.getBlock(BlockManager.AIR_ID));
     }
@@ -500,8 +508,8 @@ private boolean makeChunkAvailable(final ReadyChunkInfo readyChunkInfo) {
         if (chunk == null) {
             return false;
         }
-        for (Vector3i pos : Region3i.createFromCenterExtents(readyChunkInfo.getPos(), 1)) {
-            if (chunkCache.get(pos) == null) {
+        for (Chunk neighbour : chunkCache.getNeighbourhood(readyChunkInfo.getPos())) {
+            if (neighbour == null) {
                 return false;
             }
         }
@@ -618,7 +626,7 @@ public void purgeWorld() {
         preparingChunks.clear();
         worldEntity.send(new PurgeWorldEvent());
 
-        pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        pipeline = createPipeline();
         unloadRequestTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Unloader", 8);
         chunkFinalizer = chunkFinalizerSupplier.get();
         chunkFinalizer.initialize(this);
@@ -633,37 +641,67 @@ public void purgeWorld() {
         }
     }
 
+    private ChunkGenerationPipeline createPipeline() {
+        return new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator(), EnumSet.allOf(ChunkGenerationStage.class));
+    }
+
     private void createOrLoadChunk(Vector3i chunkPos) {
         Chunk chunk = chunkCache.get(chunkPos);
         if (chunk == null && !preparingChunks.contains(chunkPos)) {
             preparingChunks.add(chunkPos);
-            pipeline.doTask(new AbstractChunkTask(chunkPos) {
+            pipeline.doTask(ChunkGenerationStage.STORAGE_LOAD, new AbstractChunkTask(chunkPos) {
                 @Override
                 public String getName() {
-                    return "Create or Load Chunk";
+                    return "Load Chunk";
                 }
 
                 @Override
                 public void run() {
                     ChunkStore chunkStore = storageManager.loadChunkStore(getPosition());
-                    Chunk chunk;
-                    EntityBufferImpl buffer = new EntityBufferImpl();
                     if (chunkStore == null) {
-                        chunk = new ChunkImpl(getPosition(), blockManager, extraDataManager);
-                        generator.createChunk(chunk, buffer);
+                        generateChunk(getPosition());
                     } else {
-                        chunk = chunkStore.getChunk();
+                        lightChunk(chunkStore.getChunk(), chunkStore, Collections.emptyList());
                     }
-
-                    InternalLightProcessor.generateInternalLighting(chunk);
-                    chunk.deflate();
-                    TShortObjectMap<TIntList> mappings = createBatchBlockEventMappings(chunk);
-                    readyChunks.offer(new ReadyChunkInfo(chunk, mappings, chunkStore, buffer.getAll()));
                 }
             });
         }
     }
 
+    private void generateChunk(Vector3i chunkPos) {
+        pipeline.doTask(ChunkGenerationStage.GENERATION, new AbstractChunkTask(chunkPos) {
+            @Override
+            public String getName() {
+                return "Generate Chunk";
+            }
+
+            @Override
+            public void run() {
+                Chunk chunk = new ChunkImpl(getPosition(), blockManager, extraDataManager);
+                EntityBufferImpl buffer = new EntityBufferImpl();
+                generator.createChunk(chunk, buffer);
+                lightChunk(chunk, null, buffer.getAll());
+            }
+        });
+    }
+
+    private void lightChunk(Chunk chunk, ChunkStore chunkStore, List<EntityStore> entities) {
+        pipeline.doTask(ChunkGenerationStage.LIGHTING, new AbstractChunkTask(chunk.getPosition()) {
+            @Override
+            public String getName() {
+                return "Light Chunk";
+            }
+
+            @Override
+            public void run() {
+                InternalLightProcessor.generateInternalLighting(chunk);
+                chunk.deflate();
+                TShortObjectMap<TIntList> mappings = createBatchBlockEventMappings(chunk);
+                readyChunks.offer(new ReadyChunkInfo(chunk, mappings, chunkStore, entities));
+            }
+        });
+    }
+
 
     @Override
     public void onChunkIsReady(Chunk chunk) {
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.base.Preconditions;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Chunk cache which stores the chunks in an open addressing hash table, keyed by the chunk positions packed into longs.
+ * Looking up chunks neither allocates nor locks, only changes to the cache are synchronized.
+ * <br><br>
+ * Once a slot of the table got a position assigned, the position stays the same for the lifetime of the table.
+ * Removing a chunk just clears the chunk of the slot, so lookups running concurrently always probe the right slots.
+ * The slots of removed chunks get reclaimed when the table is rebuilt.
+ * <br><br>
+ * Chunk positions are limited to 21 bits per coordinate, i.e. -1048576 to 1048575.
+ */
+public class PackedPositionChunkCache implements ChunkCache {
+    private static final int COORDINATE_BITS = 21;
+    private static final int MIN_COORDINATE = -(1 << (COORDINATE_BITS - 1));
+    private static final int MAX_COORDINATE = (1 << (COORDINATE_BITS - 1)) - 1;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+    /**
+     * Packed positions never have the sign bit set, so this can't be the key of a chunk.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+    private int usedSlots;
+
+    @Override
+    public Chunk get(Vector3i chunkPosition) {
+        return get(chunkPosition.x, chunkPosition.y, chunkPosition.z);
+    }
+
+    @Override
+    public Chunk get(int x, int y, int z) {
+        if (!isInRange(x, y, z)) {
+            return null;
+        }
+        return table.get(pack(x, y, z));
+    }
+
+    @Override
+    public Chunk[] getChunks(Region3i region) {
+        final Table current = table;
+        final Vector3i regionSize = region.size();
+        final Chunk[] chunks = new Chunk[regionSize.x * regionSize.y * regionSize.z];
+        for (int z = 0; z < regionSize.z; z++) {
+            for (int y = 0; y < regionSize.y; y++) {
+                for (int x = 0; x < regionSize.x; x++) {
+                    int chunkX = region.minX() + x;
+                    int chunkY = region.minY() + y;
+                    int chunkZ = region.minZ() + z;
+                    if (isInRange(chunkX, chunkY, chunkZ)) {
+                        chunks[TeraMath.calculate3DArrayIndex(x, y, z, regionSize)] = current.get(pack(chunkX, chunkY, chunkZ));
+                    }
+                }
+            }
+        }
+        return chunks;
+    }
+
+    @Override
+    public synchronized void put(Vector3i chunkPosition, Chunk chunk) {
+        Preconditions.checkNotNull(chunk);
+        Preconditions.checkArgument(isInRange(chunkPosition.x, chunkPosition.y, chunkPosition.z),
+                "Chunk position out of range: " + chunkPosition);
+        final long key = pack(chunkPosition.x, chunkPosition.y, chunkPosition.z);
+        int slot = table.find(key);
+        if (table.keys.get(slot) == key) {
+            if (table.chunks.getAndSet(slot, chunk) == null) {
+                size++;
+            }
+            return;
+        }
+        if (usedSlots + 1 > table.capacity() / 4 * 3) {
+            rebuild();
+            slot = table.find(key);
+        }
+        table.keys.set(slot, key);
+        table.chunks.set(slot, chunk);
+        usedSlots++;
+        size++;
+    }
+
+    @Override
+    public Iterator<Vector3i> iterateChunkPositions() {
+        final Table current = table;
+        final List<Vector3i> positions = new ArrayList<>(size);
+        for (int slot = 0; slot < current.capacity(); slot++) {
+            if (current.chunks.get(slot) != null) {
+                positions.add(unpack(current.keys.get(slot)));
+            }
+        }
+        final Iterator<Vector3i> snapshot = positions.iterator();
+        return new Iterator<Vector3i>() {
+            private Vector3i last;
+
+            @Override
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override
+            public Vector3i next() {
+                last = snapshot.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                Preconditions.checkState(last != null, "next() has not been called");
+                removeChunkAt(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Collection<Chunk> getAllChunks() {
+        final Table current = table;
+        final List<Chunk> chunks = new ArrayList<>(size);
+        for (int slot = 0; slot < current.capacity(); slot++) {
+            Chunk chunk = current.chunks.get(slot);
+            if (chunk != null) {
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    @Override
+    public synchronized void clear() {
+        table = new Table(INITIAL_CAPACITY);
+        size = 0;
+        usedSlots = 0;
+    }
+
+    @Override
+    public boolean containsChunkAt(Vector3i chunkPosition) {
+        return get(chunkPosition) != null;
+    }
+
+    @Override
+    public synchronized void removeChunkAt(Vector3i chunkPosition) {
+        if (!isInRange(chunkPosition.x, chunkPosition.y, chunkPosition.z)) {
+            return;
+        }
+        final long key = pack(chunkPosition.x, chunkPosition.y, chunkPosition.z);
+        final int slot = table.find(key);
+        if (table.keys.get(slot) == key && table.chunks.getAndSet(slot, null) != null) {
+            size--;
+        }
+    }
+
+    /**
+     * Copies the chunks to a new table, sized for the current number of chunks, and drops the slots of removed chunks.
+     */
+    private void rebuild() {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < size * 3) {
+            capacity <<= 1;
+        }
+        final Table oldTable = table;
+        final Table newTable = new Table(capacity);
+        for (int slot = 0; slot < oldTable.capacity(); slot++) {
+            Chunk chunk = oldTable.chunks.get(slot);
+            if (chunk != null) {
+                long key = oldTable.keys.get(slot);
+                int newSlot = newTable.find(key);
+                newTable.keys.set(newSlot, key);
+                newTable.chunks.set(newSlot, chunk);
+            }
+        }
+        usedSlots = size;
+        table = newTable;
+    }
+
+    private static boolean isInRange(int x, int y, int z) {
+        return x >= MIN_COORDINATE && x <= MAX_COORDINATE
+                && y >= MIN_COORDINATE && y <= MAX_COORDINATE
+                && z >= MIN_COORDINATE && z <= MAX_COORDINATE;
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((x & COORDINATE_MASK) << (2 * COORDINATE_BITS)) | ((y & COORDINATE_MASK) << COORDINATE_BITS) | (z & COORDINATE_MASK);
+    }
+
+    static Vector3i unpack(long key) {
+        return new Vector3i(
+                (int) ((key << (64 - 3 * COORDINATE_BITS)) >> (64 - COORDINATE_BITS)),
+                (int) ((key << (64 - 2 * COORDINATE_BITS)) >> (64 - COORDINATE_BITS)),
+                (int) ((key << (64 - COORDINATE_BITS)) >> (64 - COORDINATE_BITS)));
+    }
+
+    private static final class Table {
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<Chunk> chunks;
+        private final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            chunks = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                keys.set(slot, EMPTY);
+            }
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * @return the slot of the key, or the empty slot the key would be put into
+         */
+        int find(long key) {
+            int slot = hash(key) & mask;
+            while (true) {
+                long slotKey = keys.get(slot);
+                if (slotKey == key || slotKey == EMPTY) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        Chunk get(long key) {
+            int slot = hash(key) & mask;
+            while (true) {
+                long slotKey = keys.get(slot);
+                if (slotKey == key) {
+                    return chunks.get(slot);
+                }
+                if (slotKey == EMPTY) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private static int hash(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32);
+        }
+    }
+}
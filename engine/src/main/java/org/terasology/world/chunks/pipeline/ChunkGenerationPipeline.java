@@ -16,38 +16,151 @@
 
 package org.terasology.world.chunks.pipeline;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.utilities.concurrency.TaskMaster;
 
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Processes chunk tasks in separate {@link ChunkGenerationStage}s. Every stage has its own thread pool and its own
+ * queue, ordered by the given task comparator. A task of one stage typically hands the chunk on to the next stage by
+ * submitting a new task once it is done. Only the stages given on construction get a thread pool.
  */
 public class ChunkGenerationPipeline {
-    private static final int NUM_TASK_THREADS = 8;
+    /**
+     * The number of threads the pipeline used when all stages shared a single pool.
+     */
+    public static final int DEFAULT_TOTAL_THREADS = 8;
+
     private static final Logger logger = LoggerFactory.getLogger(ChunkGenerationPipeline.class);
 
-    private TaskMaster<ChunkTask> chunkGenerator;
+    private final Map<ChunkGenerationStage, TaskMaster<ChunkTask>> stages = Maps.newEnumMap(ChunkGenerationStage.class);
+    private final Map<ChunkGenerationStage, AtomicLong> completedTasks = Maps.newEnumMap(ChunkGenerationStage.class);
+
+    /**
+     * @param taskComparator orders the waiting tasks of every stage
+     * @param usedStages     the stages tasks will be submitted to
+     */
+    public ChunkGenerationPipeline(Comparator<ChunkTask> taskComparator, Set<ChunkGenerationStage> usedStages) {
+        this(taskComparator, usedStages, Math.max(DEFAULT_TOTAL_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param taskComparator orders the waiting tasks of every stage
+     * @param usedStages     the stages tasks will be submitted to
+     * @param totalThreads   the thread count the stages take their share of
+     */
+    public ChunkGenerationPipeline(Comparator<ChunkTask> taskComparator, Set<ChunkGenerationStage> usedStages,
+                                   int totalThreads) {
+        Preconditions.checkArgument(!usedStages.isEmpty(), "The pipeline needs at least one stage");
+        for (ChunkGenerationStage stage : usedStages) {
+            int threads = stage.getThreadCount(totalThreads);
+            logger.debug("Using {} threads for chunk stage {}", threads, stage);
+            stages.put(stage, TaskMaster.createDynamicPriorityTaskMaster(stage.getThreadName(), threads, taskComparator));
+            completedTasks.put(stage, new AtomicLong());
+        }
+    }
 
-    public ChunkGenerationPipeline(Comparator<ChunkTask> taskComparator) {
-        chunkGenerator = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Generator", NUM_TASK_THREADS, taskComparator);
+    /**
+     * @return the stages this pipeline has a thread pool for
+     */
+    public Set<ChunkGenerationStage> getStages() {
+        return Collections.unmodifiableSet(stages.keySet());
     }
 
+    /**
+     * Runs the task in the {@link ChunkGenerationStage#GENERATION} stage.
+     */
     public void doTask(ChunkTask task) {
+        doTask(ChunkGenerationStage.GENERATION, task);
+    }
+
+    public void doTask(ChunkGenerationStage stage, ChunkTask task) {
         try {
-            chunkGenerator.put(task);
+            getTaskMaster(stage).put(new CountingChunkTask(task, completedTasks.get(stage)));
         } catch (InterruptedException e) {
             logger.error("Failed to enqueue task {}", task, e);
         }
     }
 
+    /**
+     * @return the number of tasks waiting to be processed by the stage
+     */
+    public int getQueueDepth(ChunkGenerationStage stage) {
+        return getTaskMaster(stage).getQueueSize();
+    }
+
+    /**
+     * @return the number of tasks the stage has finished since the pipeline was created
+     */
+    public long getCompletedTaskCount(ChunkGenerationStage stage) {
+        AtomicLong counter = completedTasks.get(stage);
+        Preconditions.checkArgument(counter != null, "Stage %s is not part of this pipeline", stage);
+        return counter.get();
+    }
+
     public void shutdown() {
-        chunkGenerator.shutdown(new ShutdownChunkTask(), false);
+        for (TaskMaster<ChunkTask> stage : stages.values()) {
+            stage.shutdown(new ShutdownChunkTask(), false);
+        }
     }
 
     public void restart() {
-        chunkGenerator.restart();
+        for (TaskMaster<ChunkTask> stage : stages.values()) {
+            stage.restart();
+        }
     }
 
+    private TaskMaster<ChunkTask> getTaskMaster(ChunkGenerationStage stage) {
+        TaskMaster<ChunkTask> taskMaster = stages.get(stage);
+        Preconditions.checkArgument(taskMaster != null, "Stage %s is not part of this pipeline", stage);
+        return taskMaster;
+    }
+
+    /**
+     * Counts the completed tasks of a stage.
+     */
+    private static final class CountingChunkTask implements ChunkTask {
+        private final ChunkTask task;
+        private final AtomicLong counter;
+
+        CountingChunkTask(ChunkTask task, AtomicLong counter) {
+            this.task = task;
+            this.counter = counter;
+        }
+
+        @Override
+        public Vector3i getPosition() {
+            return task.getPosition();
+        }
+
+        @Override
+        public String getName() {
+            return task.getName();
+        }
+
+        @Override
+        public void run() {
+            task.run();
+            counter.incrementAndGet();
+        }
+
+        @Override
+        public boolean isTerminateSignal() {
+            return task.isTerminateSignal();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
 }
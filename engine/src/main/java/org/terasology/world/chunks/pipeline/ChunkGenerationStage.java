@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+/**
+ * The stages a chunk passes through in the {@link ChunkGenerationPipeline} before it is handed to the chunk finalizer.
+ * <br><br>
+ * Each stage is processed by its own pool of threads. The pools are sized as a share of the thread count the pipeline
+ * used for all of its work when it still had a single pool, so loading and generating chunks can still use as many
+ * threads as before.
+ */
+public enum ChunkGenerationStage {
+    /**
+     * Loading a previously stored chunk: reading, decompressing and deserializing it.
+     */
+    STORAGE_LOAD("Chunk-Storage", 1.0f),
+    /**
+     * Generating a new chunk: computing the world facets and rasterizing them into blocks.
+     */
+    GENERATION("Chunk-Generator", 1.0f),
+    /**
+     * Computing the internal lighting of the chunk and compacting its data. This is cheaper than the other stages.
+     */
+    LIGHTING("Chunk-Lighting", 0.5f);
+
+    private final String threadName;
+    private final float threadShare;
+
+    ChunkGenerationStage(String threadName, float threadShare) {
+        this.threadName = threadName;
+        this.threadShare = threadShare;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @param totalThreads the number of threads the pipeline may use for all of its work
+     * @return the number of threads to process this stage with, at least one
+     */
+    public int getThreadCount(int totalThreads) {
+        return Math.max(1, (int) (totalThreads * threadShare));
+    }
+}
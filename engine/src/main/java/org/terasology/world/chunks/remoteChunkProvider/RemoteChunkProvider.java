@@ -39,6 +39,7 @@
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.pipeline.AbstractChunkTask;
 import org.terasology.world.chunks.pipeline.ChunkGenerationPipeline;
+import org.terasology.world.chunks.pipeline.ChunkGenerationStage;
 import org.terasology.world.chunks.pipeline.ChunkTask;
 import org.terasology.world.internal.ChunkViewCore;
 import org.terasology.world.internal.ChunkViewCoreImpl;
@@ -49,6 +50,7 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
@@ -76,7 +78,8 @@ public class RemoteChunkProvider implements ChunkProvider, GeneratingChunkProvid
     public RemoteChunkProvider(BlockManager blockManager, LocalPlayer localPlayer) {
         this.blockManager = blockManager;
         this.localPlayer = localPlayer;
-        pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator(),
+                EnumSet.of(ChunkGenerationStage.LIGHTING));
         ChunkMonitor.fireChunkProviderInitialized(this);
     }
 
@@ -85,7 +88,7 @@ public void subscribe(ChunkReadyListener chunkReadyListener) {
     }
 
     public void receiveChunk(final Chunk chunk) {
-        pipeline.doTask(new AbstractChunkTask(chunk.getPosition()) {
+        pipeline.doTask(ChunkGenerationStage.LIGHTING, new AbstractChunkTask(chunk.getPosition()) {
             @Override
             public String getName() {
                 return "Internal Light Generation";
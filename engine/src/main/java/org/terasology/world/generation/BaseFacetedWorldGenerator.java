@@ -15,21 +15,33 @@
  */
 package org.terasology.world.generation;
 
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.engine.SimpleUri;
+import org.terasology.registry.In;
 import org.terasology.world.chunks.CoreChunk;
 import org.terasology.world.generator.WorldConfigurator;
 import org.terasology.world.generator.WorldGenerator;
 import org.terasology.world.zones.Zone;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The most commonly used implementation of {@link WorldGenerator} based on the idea of Facets
  */
 public abstract class BaseFacetedWorldGenerator implements WorldGenerator {
 
+    /**
+     * The number of chunk columns to keep the column facets of, enough for the chunks around several players
+     */
+    private static final int COLUMN_FACET_CACHE_SIZE = 1024;
+
     protected WorldBuilder worldBuilder;
 
+    @In
+    private Config config;
+
     private final SimpleUri uri;
 
     private String worldSeed;
@@ -67,6 +79,15 @@ public void setWorldSeed(final String seed) {
 
     @Override
     public void initialize() {
+        // only chunk generation benefits from these, previews are never initialized
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.FACET_CACHE)) {
+            getWorldBuilder().setColumnFacetCacheSize(COLUMN_FACET_CACHE_SIZE);
+            world = null;
+        }
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.PARALLEL_FACET_PROVIDERS)) {
+            getWorldBuilder().setProviderExecutor(ForkJoinPool.commonPool());
+            world = null;
+        }
         getWorld().initialize();
     }
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded cache of the regions which generate the facets depending only on the x and z coordinates. The chunks
+ * stacked in a chunk column all share the region of that column, so these facets are generated once per column
+ * instead of once per chunk.
+ * <br><br>
+ * The least recently used columns are evicted first. The cache is safe to use from several chunk generation threads;
+ * the column regions themselves are not, so they have to be synchronized on while generating facets.
+ */
+public class ColumnFacetCache {
+
+    private final Cache<Rect2i, RegionImpl> columns;
+
+    /**
+     * @param maximumSize the number of chunk columns to keep the facets of
+     */
+    public ColumnFacetCache(int maximumSize) {
+        columns = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * @param region the region to get the column of
+     * @param loader creates the column region if it is not cached
+     * @return the column region covering the same x and z coordinates as the given region
+     */
+    RegionImpl getColumn(Region3i region, Callable<RegionImpl> loader) {
+        Vector3i min = region.min();
+        Vector3i size = region.size();
+        try {
+            return columns.get(Rect2i.createFromMinAndSize(min.x, min.z, size.x, size.z), loader);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to generate the column facets of " + region, e.getCause());
+        }
+    }
+
+    /**
+     * Drops all cached columns, for example because the seed or configuration of the facet providers changed.
+     */
+    public void invalidateAll() {
+        columns.invalidateAll();
+    }
+
+    /**
+     * @return the hit and miss counts of the column lookups so far
+     */
+    public CacheStats getStats() {
+        return columns.stats();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The dependencies between the facet providers of a world, derived once from their {@link Produces}, {@link Requires}
+ * and {@link Updates} annotations. A provider depends on
+ * <ul>
+ * <li>every provider in the chains of the facets it requires, as it may only read them once they are complete</li>
+ * <li>every provider ahead of it in the chains of the facets it produces or updates, as they write the same facets</li>
+ * </ul>
+ * Providers without a path between them in this graph can run at the same time. If an executor is given, the
+ * providers of a region are submitted to it as soon as all their dependencies are done; otherwise they run on the
+ * calling thread in the order of the facet chains.
+ * <br><br>
+ * The time spent in each provider is recorded in either case.
+ */
+class FacetProviderGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetProviderGraph.class);
+
+    private final ImmutableSetMultimap<FacetProvider, FacetProvider> dependencies;
+    private final ImmutableMap<FacetProvider, Integer> order;
+    private final Map<FacetProvider, Timing> timings;
+    private final Executor executor;
+
+    /**
+     * @param providerChains the providers needed for each facet, in the order they have to run in
+     * @param executor       the executor to run independent providers concurrently on, or null to run them on the
+     *                       calling thread
+     */
+    FacetProviderGraph(ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains, Executor executor) {
+        this.executor = executor;
+
+        ImmutableSetMultimap.Builder<FacetProvider, FacetProvider> dependencyBuilder = ImmutableSetMultimap.builder();
+        for (FacetProvider provider : Sets.newLinkedHashSet(providerChains.values())) {
+            Requires requires = provider.getClass().getAnnotation(Requires.class);
+            if (requires != null) {
+                for (Facet facet : requires.value()) {
+                    dependencyBuilder.putAll(provider, providerChains.get(facet.value()));
+                }
+            }
+            Produces produces = provider.getClass().getAnnotation(Produces.class);
+            if (produces != null) {
+                for (Class<? extends WorldFacet> facet : produces.value()) {
+                    dependencyBuilder.putAll(provider, precedingProviders(providerChains.get(facet), provider));
+                }
+            }
+            Updates updates = provider.getClass().getAnnotation(Updates.class);
+            if (updates != null) {
+                for (Facet facet : updates.value()) {
+                    dependencyBuilder.putAll(provider, precedingProviders(providerChains.get(facet.value()), provider));
+                }
+            }
+        }
+        ImmutableSetMultimap<FacetProvider, FacetProvider> allDependencies = dependencyBuilder.build();
+
+        Map<FacetProvider, Integer> sortedProviders = new LinkedHashMap<>();
+        Set<FacetProvider> visiting = Sets.newHashSet();
+        for (FacetProvider provider : Sets.newLinkedHashSet(providerChains.values())) {
+            sort(provider, allDependencies, visiting, sortedProviders);
+        }
+        this.order = ImmutableMap.copyOf(sortedProviders);
+
+        // only keep the dependencies on providers which are sorted first, dropping the edges which close a cycle
+        ImmutableSetMultimap.Builder<FacetProvider, FacetProvider> acyclicDependencies = ImmutableSetMultimap.builder();
+        allDependencies.forEach((provider, dependency) -> {
+            if (order.get(dependency) < order.get(provider)) {
+                acyclicDependencies.put(provider, dependency);
+            }
+        });
+        this.dependencies = acyclicDependencies.build();
+
+        this.timings = Maps.newHashMap();
+        for (FacetProvider provider : order.keySet()) {
+            timings.put(provider, new Timing());
+        }
+    }
+
+    private static List<FacetProvider> precedingProviders(List<FacetProvider> chain, FacetProvider provider) {
+        int index = chain.indexOf(provider);
+        return index < 0 ? ImmutableList.of() : chain.subList(0, index);
+    }
+
+    private static void sort(FacetProvider provider, ImmutableSetMultimap<FacetProvider, FacetProvider> dependencies,
+                             Set<FacetProvider> visiting, Map<FacetProvider, Integer> sorted) {
+        if (sorted.containsKey(provider)) {
+            return;
+        }
+        if (!visiting.add(provider)) {
+            logger.warn("Circular dependency between facet providers involving {}", provider);
+            return;
+        }
+        for (FacetProvider dependency : dependencies.get(provider)) {
+            if (dependency != provider) {
+                sort(dependency, dependencies, visiting, sorted);
+            }
+        }
+        visiting.remove(provider);
+        sorted.put(provider, sorted.size());
+    }
+
+    /**
+     * @return whether the providers are run concurrently, which requires the region data to be thread safe
+     */
+    boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Runs the given providers on the region, each one only after the providers it depends on.
+     *
+     * @param providers the providers to run in the order of the facet chains, dependencies which are not part of it
+     *                  are expected to be done already
+     * @param region    the region to generate the facets of
+     */
+    void process(Collection<FacetProvider> providers, GeneratingRegion region) {
+        if (executor == null || providers.size() == 1) {
+            providers.forEach(provider -> process(provider, region));
+            return;
+        }
+
+        List<FacetProvider> sortedProviders = Lists.newArrayList(providers);
+        sortedProviders.sort(Comparator.comparing(provider -> order.getOrDefault(provider, Integer.MAX_VALUE)));
+
+        Map<FacetProvider, CompletableFuture<Void>> tasks = Maps.newHashMapWithExpectedSize(sortedProviders.size());
+        for (FacetProvider provider : sortedProviders) {
+            CompletableFuture<?>[] pendingDependencies = dependencies.get(provider).stream()
+                    .map(tasks::get)
+                    .filter(task -> task != null)
+                    .toArray(CompletableFuture<?>[]::new);
+            tasks.put(provider, CompletableFuture.allOf(pendingDependencies).thenRunAsync(() -> process(provider, region), executor));
+        }
+        try {
+            CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture<?>[tasks.size()])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void process(FacetProvider provider, GeneratingRegion region) {
+        long start = System.nanoTime();
+        provider.process(region);
+        Timing timing = timings.get(provider);
+        if (timing != null) {
+            timing.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the mean time in milliseconds each provider took to process a region, for the providers that ran so far
+     */
+    Map<FacetProvider, Double> getMeanProcessingTimes() {
+        Map<FacetProvider, Double> result = new LinkedHashMap<>();
+        order.keySet().forEach(provider -> {
+            Timing timing = timings.get(provider);
+            long runs = timing.runs.sum();
+            if (runs > 0) {
+                result.put(provider, timing.nanos.sum() / (runs * 1000000.0));
+            }
+        });
+        return result;
+    }
+
+    private static final class Timing {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        void record(long elapsed) {
+            runs.increment();
+            nanos.add(elapsed);
+        }
+    }
+}
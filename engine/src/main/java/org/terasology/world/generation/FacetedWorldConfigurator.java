@@ -34,6 +34,8 @@ public class FacetedWorldConfigurator implements WorldConfigurator {
 
     private final List<ConfigurableFacetProvider> providers;
 
+    private Runnable changeListener = () -> { };
+
     public FacetedWorldConfigurator(List<ConfigurableFacetProvider> providersList) {
         for (ConfigurableFacetProvider provider : providersList) {
             Component old = properties.put(provider.getConfigurationName(), provider.getConfiguration());
@@ -44,6 +46,13 @@ public FacetedWorldConfigurator(List<ConfigurableFacetProvider> providersList) {
         this.providers = providersList;
     }
 
+    /**
+     * @param changeListener called whenever the configuration of a provider changed
+     */
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
     @Override
     public Map<String, Component> getProperties() {
         return Collections.unmodifiableMap(properties);
@@ -55,6 +64,7 @@ public void setProperty(String key, Component comp) {
             if (key.equals(facetProvider.getConfigurationName())) {
                 facetProvider.setConfiguration(comp);
                 properties.put(key, comp);
+                changeListener.run();
                 return;
             }
         }
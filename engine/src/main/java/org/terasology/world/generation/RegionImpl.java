@@ -15,11 +15,18 @@
  */
 package org.terasology.world.generation;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.terasology.math.Region3i;
 import org.terasology.utilities.collection.TypeMap;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,30 +38,84 @@ public class RegionImpl implements Region, GeneratingRegion {
     private final ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains;
     private final Map<Class<? extends WorldFacet>, Border3D> borders;
 
-    private final TypeMap<WorldFacet> generatingFacets = TypeMap.create();
+    private final RegionImpl column;
+    private final SetMultimap<FacetProvider, Class<? extends WorldFacet>> columnProviders;
+    private final Set<Class<? extends WorldFacet>> columnFacets;
+    private final FacetProviderGraph providerGraph;
+
+    private final TypeMap<WorldFacet> generatingFacets;
     private final Set<FacetProvider> processedProviders = Sets.newHashSet();
     private final TypeMap<WorldFacet> generatedFacets = TypeMap.create();
 
     public RegionImpl(Region3i region, ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains, Map<Class<? extends WorldFacet>, Border3D> borders) {
+        this(region, facetProviderChains, borders, null, ImmutableSetMultimap.of(), null);
+    }
+
+    /**
+     * @param column          the region of the chunk column to take the facets of the column providers from
+     * @param columnProviders the providers whose facets only depend on the x and z coordinates, mapped to the facets
+     *                        they produce or update
+     * @param providerGraph   runs the providers in dependency order, or null to run them one chain after another
+     */
+    RegionImpl(Region3i region, ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains, Map<Class<? extends WorldFacet>, Border3D> borders,
+               RegionImpl column, SetMultimap<FacetProvider, Class<? extends WorldFacet>> columnProviders, FacetProviderGraph providerGraph) {
         this.region = region;
         this.facetProviderChains = facetProviderChains;
         this.borders = borders;
+        this.column = column;
+        this.columnProviders = columnProviders;
+        this.columnFacets = ImmutableSet.copyOf(columnProviders.values());
+        this.providerGraph = providerGraph;
+        if (providerGraph != null && providerGraph.isParallel()) {
+            // providers running at the same time set their facets concurrently
+            this.generatingFacets = TypeMap.create(Collections.synchronizedMap(new HashMap<>()));
+        } else {
+            this.generatingFacets = TypeMap.create();
+        }
     }
 
     @Override
     public <T extends WorldFacet> T getFacet(Class<T> dataType) {
         T facet = generatedFacets.get(dataType);
         if (facet == null) {
-            facetProviderChains.get(dataType).stream().filter(provider -> !processedProviders.contains(provider)).forEach(provider -> {
-                provider.process(this);
-                processedProviders.add(provider);
-            });
-            facet = generatingFacets.get(dataType);
+            if (column != null && columnFacets.contains(dataType)) {
+                facet = getColumnFacet(dataType);
+                generatingFacets.put(dataType, facet);
+            } else {
+                List<FacetProvider> pendingProviders = Lists.newArrayList();
+                facetProviderChains.get(dataType).stream().filter(provider -> !processedProviders.contains(provider)).forEach(provider -> {
+                    if (column != null && columnProviders.containsKey(provider)) {
+                        // the column already ran the provider, so just share its results
+                        for (Class<? extends WorldFacet> type : columnProviders.get(provider)) {
+                            copyColumnFacet(type);
+                        }
+                    } else if (providerGraph == null) {
+                        provider.process(this);
+                    } else {
+                        pendingProviders.add(provider);
+                    }
+                    processedProviders.add(provider);
+                });
+                if (!pendingProviders.isEmpty()) {
+                    providerGraph.process(pendingProviders, this);
+                }
+                facet = generatingFacets.get(dataType);
+            }
             generatedFacets.put(dataType, facet);
         }
         return facet;
     }
 
+    private <T extends WorldFacet> void copyColumnFacet(Class<T> type) {
+        generatingFacets.put(type, getColumnFacet(type));
+    }
+
+    private <T extends WorldFacet> T getColumnFacet(Class<T> type) {
+        synchronized (column) {
+            return column.getFacet(type);
+        }
+    }
+
     @Override
     public Region3i getRegion() {
         return region;
@@ -16,6 +16,7 @@
 package org.terasology.world.generation;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -34,6 +35,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 /**
  */
@@ -46,6 +49,8 @@ public class WorldBuilder extends ProviderStore {
     private final List<WorldRasterizer> rasterizers = Lists.newArrayList();
     private final List<EntityProvider> entityProviders = new ArrayList<>();
     private int seaLevel = 32;
+    private ColumnFacetCache columnFacetCache;
+    private Executor providerExecutor;
 
     private WorldGeneratorPluginLibrary pluginLibrary;
 
@@ -91,6 +96,30 @@ public WorldBuilder setSeaLevel(int level) {
         return this;
     }
 
+    /**
+     * Shares the facets which only depend on the x and z coordinates between all regions of a chunk column. This only
+     * pays off if regions are generated chunk by chunk, which is why previews leave it disabled.
+     *
+     * @param size the number of chunk columns to keep the facets of, or 0 to disable the cache
+     * @return this
+     */
+    public WorldBuilder setColumnFacetCacheSize(int size) {
+        this.columnFacetCache = size > 0 ? new ColumnFacetCache(size) : null;
+        return this;
+    }
+
+    /**
+     * Runs facet providers which don't depend on each other concurrently, so a single region is generated faster. This
+     * relies on the providers declaring all facets they read or write.
+     *
+     * @param executor the executor to run the providers on, or null to run them on the thread requesting the facets
+     * @return this
+     */
+    public WorldBuilder setProviderExecutor(Executor executor) {
+        this.providerExecutor = executor;
+        return this;
+    }
+
     public World build() {
         // TODO: ensure the required providers are present
 
@@ -101,7 +130,68 @@ public World build() {
             provider.setSeed(seed);
         }
         ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains = determineProviderChains();
-        return new WorldImpl(providerChains, rasterizers, entityProviders, determineBorders(providerChains), seaLevel);
+        FacetProviderGraph providerGraph = new FacetProviderGraph(providerChains, providerExecutor);
+        if (columnFacetCache == null) {
+            return new WorldImpl(providerChains, rasterizers, entityProviders, determineBorders(providerChains), seaLevel,
+                    null, ImmutableSetMultimap.of(), providerGraph);
+        }
+        // the seed may have changed since the columns were generated
+        columnFacetCache.invalidateAll();
+        return new WorldImpl(providerChains, rasterizers, entityProviders, determineBorders(providerChains), seaLevel,
+                columnFacetCache, determineColumnProviders(providerChains), providerGraph);
+    }
+
+    /**
+     * Finds the providers which can run once per chunk column: all facets they produce, update or require have to be
+     * 2D facets which no other provider derives from a 3D facet.
+     *
+     * @return the column providers mapped to the facets they produce or update
+     */
+    private ImmutableSetMultimap<FacetProvider, Class<? extends WorldFacet>> determineColumnProviders(
+            ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains) {
+        Set<FacetProvider> providers = new LinkedHashSet<>(providerChains.values());
+        Set<Class<? extends WorldFacet>> columnFacets = providerChains.keySet().stream()
+                .filter(WorldFacet2D.class::isAssignableFrom)
+                .collect(Collectors.toSet());
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (FacetProvider provider : providers) {
+                if (!columnFacets.containsAll(involvedFacets(provider))) {
+                    changed |= columnFacets.removeAll(generatedFacets(provider));
+                }
+            }
+        }
+
+        ImmutableSetMultimap.Builder<FacetProvider, Class<? extends WorldFacet>> result = ImmutableSetMultimap.builder();
+        for (FacetProvider provider : providers) {
+            Set<Class<? extends WorldFacet>> generated = generatedFacets(provider);
+            if (!generated.isEmpty() && columnFacets.containsAll(involvedFacets(provider))) {
+                result.putAll(provider, generated);
+            }
+        }
+        return result.build();
+    }
+
+    private Set<Class<? extends WorldFacet>> generatedFacets(FacetProvider provider) {
+        Set<Class<? extends WorldFacet>> facets = Sets.newHashSet();
+        Produces produces = provider.getClass().getAnnotation(Produces.class);
+        if (produces != null) {
+            facets.addAll(Arrays.asList(produces.value()));
+        }
+        for (Facet facet : updatedFacets(provider)) {
+            facets.add(facet.value());
+        }
+        return facets;
+    }
+
+    private Set<Class<? extends WorldFacet>> involvedFacets(FacetProvider provider) {
+        Set<Class<? extends WorldFacet>> facets = generatedFacets(provider);
+        for (Facet facet : requiredFacets(provider)) {
+            facets.add(facet.value());
+        }
+        return facets;
     }
 
     private Map<Class<? extends WorldFacet>, Border3D> determineBorders(ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains) {
@@ -325,6 +415,12 @@ public FacetedWorldConfigurator createConfigurator() {
             }
         }
         FacetedWorldConfigurator worldConfigurator = new FacetedWorldConfigurator(configurables);
+        // the cached columns were generated with the old configuration
+        worldConfigurator.setChangeListener(() -> {
+            if (columnFacetCache != null) {
+                columnFacetCache.invalidateAll();
+            }
+        });
         return worldConfigurator;
     }
 }
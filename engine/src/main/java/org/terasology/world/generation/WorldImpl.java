@@ -15,12 +15,17 @@
  */
 package org.terasology.world.generation;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.world.chunks.CoreChunk;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -34,22 +39,76 @@ public class WorldImpl implements World {
     private final List<EntityProvider> entityProviders;
     private final Map<Class<? extends WorldFacet>, Border3D> borders;
     private final int seaLevel;
+    private final ColumnFacetCache columnFacetCache;
+    private final SetMultimap<FacetProvider, Class<? extends WorldFacet>> columnProviders;
+    private final FacetProviderGraph providerGraph;
 
     public WorldImpl(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
                      List<WorldRasterizer> worldRasterizers,
                      List<EntityProvider> entityProviders,
                      Map<Class<? extends WorldFacet>, Border3D> borders,
                      int seaLevel) {
+        this(facetProviderChains, worldRasterizers, entityProviders, borders, seaLevel, null, ImmutableSetMultimap.of(), null);
+    }
+
+    /**
+     * @param columnFacetCache the cache to share the facets of the column providers between the regions of a chunk
+     *                         column in, or null to generate every region on its own
+     * @param columnProviders  the providers whose facets only depend on the x and z coordinates, mapped to the facets
+     *                         they produce or update
+     * @param providerGraph    runs the providers of a region in dependency order, or null to run them one facet chain
+     *                         after another
+     */
+    WorldImpl(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
+                     List<WorldRasterizer> worldRasterizers,
+                     List<EntityProvider> entityProviders,
+                     Map<Class<? extends WorldFacet>, Border3D> borders,
+                     int seaLevel,
+                     ColumnFacetCache columnFacetCache,
+                     SetMultimap<FacetProvider, Class<? extends WorldFacet>> columnProviders,
+                     FacetProviderGraph providerGraph) {
         this.facetProviderChains = facetProviderChains;
         this.worldRasterizers = worldRasterizers;
         this.entityProviders = entityProviders;
         this.borders = borders;
         this.seaLevel = seaLevel;
+        this.columnFacetCache = columnFacetCache;
+        this.columnProviders = columnProviders;
+        this.providerGraph = providerGraph;
     }
 
     @Override
     public Region getWorldData(Region3i region) {
-        return new RegionImpl(region, facetProviderChains, borders);
+        if (columnFacetCache == null || columnProviders.isEmpty()) {
+            return new RegionImpl(region, facetProviderChains, borders, null, ImmutableSetMultimap.of(), providerGraph);
+        }
+        RegionImpl column = columnFacetCache.getColumn(region, () -> {
+            // the column facets don't depend on y, so every chunk of the column can use the same region
+            Region3i columnRegion = Region3i.createFromMinAndSize(new Vector3i(region.minX(), 0, region.minZ()), region.size());
+            return new RegionImpl(columnRegion, facetProviderChains, borders, null, ImmutableSetMultimap.of(), providerGraph);
+        });
+        return new RegionImpl(region, facetProviderChains, borders, column, columnProviders, providerGraph);
+    }
+
+    /**
+     * @return the hit and miss counts of the column facet cache, all zero if the cache is disabled
+     */
+    public CacheStats getColumnFacetCacheStats() {
+        if (columnFacetCache == null) {
+            return new CacheStats(0, 0, 0, 0, 0, 0);
+        }
+        return columnFacetCache.getStats();
+    }
+
+    /**
+     * @return the mean time in milliseconds each facet provider took to process a region so far, empty if the
+     *         providers are not instrumented
+     */
+    public Map<FacetProvider, Double> getMeanProviderTimes() {
+        if (providerGraph == null) {
+            return Collections.emptyMap();
+        }
+        return providerGraph.getMeanProcessingTimes();
     }
 
     @Override
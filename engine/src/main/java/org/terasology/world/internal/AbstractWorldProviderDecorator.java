@@ -19,6 +19,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.world.BlockRegionEdit;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.block.Block;
 import org.terasology.world.time.WorldTime;
@@ -101,6 +102,11 @@ public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
         return base.setBlocks(blocks);
     }
 
+    @Override
+    public int setBlocks(Region3i region, BlockRegionEdit edit) {
+        return base.setBlocks(region, edit);
+    }
+
     @Override
     public Block getBlock(int x, int y, int z) {
         return base.getBlock(x, y, z);
@@ -49,6 +49,7 @@
 import org.terasology.network.NetworkComponent;
 import org.terasology.reflection.metadata.FieldMetadata;
 import org.terasology.world.BlockEntityRegistry;
+import org.terasology.world.BlockRegionEdit;
 import org.terasology.world.OnChangedBlock;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockComponent;
@@ -138,8 +139,65 @@ public final Block setBlockRetainComponent(Vector3i pos, Block type, Class<? ext
         return null;
     }
 
+    /**
+     * Changes the block entities of the blocks changed by the edit. Block entities which already exist are transformed
+     * to the new block. Entities are created for the placed blocks which are kept active or come with a prefab, like
+     * {@link #setBlock(Vector3i, Block)} does, so their components receive the usual lifecycle events. The entities of
+     * other blocks are created when they are needed. The changes are announced by the
+     * {@link org.terasology.world.OnChangedBlocks} events of the edit, so no {@link OnChangedBlock} events are sent to
+     * the block entities.
+     */
+    @Override
+    public int setBlocks(Region3i region, BlockRegionEdit edit) {
+        if (GameThread.isCurrentThread()) {
+            Map<Vector3i, Block> oldTypes = Maps.newHashMap();
+            for (Vector3i pos : blockEntityLookup.keySet()) {
+                if (region.encompasses(pos)) {
+                    oldTypes.put(pos, getBlock(pos.x, pos.y, pos.z));
+                }
+            }
+            Map<Vector3i, Block> placedTypes = Maps.newHashMap();
+            int changed = super.setBlocks(region, (x, y, z, current) -> {
+                Block type = edit.apply(x, y, z, current);
+                if (type != null && type != current && (type.isKeepActive() || type.getPrefab().isPresent())) {
+                    Vector3i pos = new Vector3i(x, y, z);
+                    if (!oldTypes.containsKey(pos)) {
+                        oldTypes.put(pos, current);
+                        placedTypes.put(pos, type);
+                    }
+                }
+                return type;
+            });
+            for (Map.Entry<Vector3i, Block> entry : oldTypes.entrySet()) {
+                Vector3i pos = entry.getKey();
+                Block type = getBlock(pos.x, pos.y, pos.z);
+                EntityRef blockEntity = getExistingBlockEntityAt(pos);
+                if (!blockEntity.exists() && type == placedTypes.get(pos) && isBlockRelevant(pos.x, pos.y, pos.z)) {
+                    blockEntity = createBlockEntity(pos, entry.getValue());
+                }
+                if (type != entry.getValue() && blockEntity.exists()) {
+                    transformBlockEntity(blockEntity, entry.getValue(), type, false, Collections.<Class<? extends Component>>emptySet());
+                }
+            }
+            return changed;
+        }
+        return 0;
+    }
+
     private void updateBlockEntity(EntityRef blockEntity, Vector3i pos, Block oldType, Block type,
                                    boolean forceEntityUpdate, Set<Class<? extends Component>> retainComponents) {
+        transformBlockEntity(blockEntity, oldType, type, forceEntityUpdate, retainComponents);
+
+        OnChangedBlock changedEvent = new OnChangedBlock(pos, type, oldType);
+        EntityRef regionEntity = blockRegionLookup.get(pos);
+        if (regionEntity != null) {
+            regionEntity.send(changedEvent);
+        }
+        blockEntity.send(changedEvent);
+    }
+
+    private void transformBlockEntity(EntityRef blockEntity, Block oldType, Block type,
+                                      boolean forceEntityUpdate, Set<Class<? extends Component>> retainComponents) {
         if (type.isKeepActive()) {
             temporaryBlockEntities.remove(blockEntity);
         } else if (oldType.isKeepActive() && isTemporaryBlock(blockEntity, type)) {
@@ -148,13 +206,6 @@ private void updateBlockEntity(EntityRef blockEntity, Vector3i pos, Block oldTyp
         if (forceEntityUpdate || !(Objects.equal(oldType.getBlockFamily(), type.getBlockFamily()) && Objects.equal(oldType.getPrefab(), type.getPrefab()))) {
             updateBlockEntityComponents(blockEntity, oldType, type, retainComponents);
         }
-
-        OnChangedBlock changedEvent = new OnChangedBlock(pos, type, oldType);
-        EntityRef regionEntity = blockRegionLookup.get(pos);
-        if (regionEntity != null) {
-            regionEntity.send(changedEvent);
-        }
-        blockEntity.send(changedEvent);
     }
 
     @Override
@@ -19,6 +19,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.world.BlockRegionEdit;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.block.Block;
 import org.terasology.world.time.WorldTime;
@@ -121,6 +122,31 @@ default Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
         return resultMap;
     }
 
+    /**
+     * Changes the blocks of a region, for example to fill it, to replace one block type or to paste a structure.
+     * <br><br>
+     * Implementations may apply the edit chunk by chunk: the lighting of the whole edit is then processed at once and
+     * the change is announced with one {@link org.terasology.world.OnChangedBlocks} event per chunk instead of one
+     * {@link org.terasology.world.OnChangedBlock} event per block.
+     *
+     * @param region The region to edit
+     * @param edit   Decides the new block for every position of the region
+     * @return The number of blocks which changed. Blocks in chunks which are not loaded are skipped
+     */
+    default int setBlocks(Region3i region, BlockRegionEdit edit) {
+        int changed = 0;
+        for (Vector3i pos : region) {
+            if (isBlockRelevant(pos.x, pos.y, pos.z)) {
+                Block current = getBlock(pos.x, pos.y, pos.z);
+                Block type = edit.apply(pos.x, pos.y, pos.z, current);
+                if (type != null && type != current && setBlock(pos, type) != null) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
     /**
      * Returns the block at the given position.
      *
@@ -21,6 +21,8 @@
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.terasology.config.Config;
+import org.terasology.config.ExperimentalFeature;
 import org.terasology.context.Context;
 import org.terasology.engine.SimpleUri;
 import org.terasology.entitySystem.entity.EntityManager;
@@ -28,7 +30,9 @@
 import org.terasology.math.ChunkMath;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.world.BlockRegionEdit;
 import org.terasology.world.OnChangedBlock;
+import org.terasology.world.OnChangedBlocks;
 import org.terasology.world.WorldChangeListener;
 import org.terasology.world.WorldComponent;
 import org.terasology.world.block.Block;
@@ -41,6 +45,7 @@
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.propagation.BatchPropagator;
 import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.ChunkIslandPropagator;
 import org.terasology.world.propagation.PropagationRules;
 import org.terasology.world.propagation.PropagatorWorldView;
 import org.terasology.world.propagation.StandardBatchPropagator;
@@ -78,7 +83,7 @@ public class WorldProviderCoreImpl implements WorldProviderCore {
     private final List<WorldChangeListener> listeners = Lists.newArrayList();
 
     private Map<Vector3i, BlockChange> blockChanges = Maps.newHashMap();
-    private List<BatchPropagator> propagators = Lists.newArrayList();
+    private ChunkIslandPropagator propagator;
 
     private Block unloadedBlock;
 
@@ -96,6 +101,16 @@ public WorldProviderCoreImpl(String title, String customTitle, String seed, long
         this.worldTime = new WorldTimeImpl();
         worldTime.setMilliseconds(time);
 
+        Config config = context.get(Config.class);
+        int propagationThreads = 1;
+        if (config != null && config.getSystem().isExperimentalFeatureEnabled(ExperimentalFeature.PARALLEL_LIGHT_PROPAGATION)) {
+            propagationThreads = Runtime.getRuntime().availableProcessors();
+        }
+        propagator = new ChunkIslandPropagator(() -> createPropagators(chunkProvider), propagationThreads);
+    }
+
+    private static List<BatchPropagator> createPropagators(ChunkProvider chunkProvider) {
+        List<BatchPropagator> propagators = Lists.newArrayList();
         propagators.add(new StandardBatchPropagator(new LightPropagationRules(), new LightWorldView(chunkProvider)));
         PropagatorWorldView regenWorldView = new SunlightRegenWorldView(chunkProvider);
         PropagationRules sunlightRules = new SunlightPropagationRules(regenWorldView);
@@ -103,6 +118,7 @@ public WorldProviderCoreImpl(String title, String customTitle, String seed, long
         BatchPropagator sunlightPropagator = new StandardBatchPropagator(sunlightRules, sunlightWorldView);
         propagators.add(new SunlightRegenBatchPropagator(new SunlightRegenPropagationRules(), regenWorldView, sunlightPropagator, sunlightWorldView));
         propagators.add(sunlightPropagator);
+        return propagators;
     }
 
     public WorldProviderCoreImpl(WorldInfo info, GeneratingChunkProvider chunkProvider, Block unloadedBlock,
@@ -137,9 +153,7 @@ public WorldInfo getWorldInfo() {
 
     @Override
     public void processPropagation() {
-        for (BatchPropagator propagator : propagators) {
-            propagator.process(blockChanges.values());
-        }
+        propagator.process(blockChanges.values());
         blockChanges.clear();
     }
 
@@ -249,7 +263,56 @@ public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
 
         return result;
     }
-    
+
+    @Override
+    public int setBlocks(Region3i region, BlockRegionEdit edit) {
+        EntityRef worldEntity = getWorldEntity();
+        int changed = 0;
+        for (Vector3i chunkPos : ChunkMath.calcChunkPos(region)) {
+            CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+            if (chunk != null) {
+                changed += setBlocks(chunk, region.intersect(chunk.getRegion()), edit, worldEntity);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Applies the part of a region edit inside one chunk. The chunks around the edited region are marked dirty once
+     * and the listeners are notified once for all the changed blocks of the chunk.
+     */
+    private int setBlocks(CoreChunk chunk, Region3i chunkRegion, BlockRegionEdit edit, EntityRef worldEntity) {
+        int offsetX = chunk.getChunkWorldOffsetX();
+        int offsetY = chunk.getChunkWorldOffsetY();
+        int offsetZ = chunk.getChunkWorldOffsetZ();
+        List<BlockChange> changes = Lists.newArrayList();
+        for (int x = chunkRegion.minX(); x <= chunkRegion.maxX(); x++) {
+            for (int y = chunkRegion.minY(); y <= chunkRegion.maxY(); y++) {
+                for (int z = chunkRegion.minZ(); z <= chunkRegion.maxZ(); z++) {
+                    Block oldBlockType = chunk.getBlock(x - offsetX, y - offsetY, z - offsetZ);
+                    Block type = edit.apply(x, y, z, oldBlockType);
+                    if (type != null && type != oldBlockType) {
+                        chunk.setBlock(x - offsetX, y - offsetY, z - offsetZ, type);
+                        Vector3i worldPos = new Vector3i(x, y, z);
+                        BlockChange oldChange = blockChanges.get(worldPos);
+                        if (oldChange == null) {
+                            blockChanges.put(worldPos, new BlockChange(worldPos, oldBlockType, type));
+                        } else {
+                            oldChange.setTo(type);
+                        }
+                        changes.add(new BlockChange(worldPos, oldBlockType, type));
+                    }
+                }
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            setDirtyChunksNear(chunkRegion);
+            notifyBlocksChanged(chunk.getPosition(), chunkRegion, changes, worldEntity);
+        }
+        return changes.size();
+    }
+
     private void setDirtyChunksNear(Vector3i pos0) {
         for (Vector3i pos : ChunkMath.getChunkRegionAroundWorldPos(pos0, 1)) {
             RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
@@ -259,6 +322,15 @@ private void setDirtyChunksNear(Vector3i pos0) {
         }
     }
 
+    private void setDirtyChunksNear(Region3i region) {
+        for (Vector3i pos : ChunkMath.calcChunkPos(region.expand(1))) {
+            RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
+            if (dirtiedChunk != null) {
+                dirtiedChunk.setDirty(true);
+            }
+        }
+    }
+
     private void notifyBlockChanged(Vector3i pos, Block type, Block oldType) {
         // TODO: Could use a read/write writeLock.
         // TODO: Review, should only happen on main thread (as should changes to listeners)
@@ -269,6 +341,15 @@ private void notifyBlockChanged(Vector3i pos, Block type, Block oldType) {
         }
         type.getEntity().send(new OnChangedBlock(pos, type, oldType));
     }
+
+    private void notifyBlocksChanged(Vector3i chunkPos, Region3i chunkRegion, List<BlockChange> changes, EntityRef worldEntity) {
+        synchronized (listeners) {
+            for (WorldChangeListener listener : listeners) {
+                listener.onBlocksChanged(chunkPos, changes);
+            }
+        }
+        worldEntity.send(new OnChangedBlocks(chunkPos, chunkRegion, changes));
+    }
     
     private void notifyExtraDataChanged(int index, Vector3i pos, int newData, int oldData) {
         // TODO: Change to match block , if those changes are made.
@@ -350,6 +431,7 @@ public int setExtraData(int index, Vector3i worldPos, int value) {
     @Override
     public void dispose() {
         chunkProvider.dispose();
+        propagator.shutdown();
 
     }
 
@@ -34,22 +34,11 @@ public AbstractFullWorldView(ChunkProvider chunkProvider) {
         this.chunkProvider = chunkProvider;
     }
 
-    /**
-     * Get's the chunk for a given position
-     *
-     * @param pos The position in the world
-     * @return The chunk for that position
-     */
-    private Chunk getChunk(Vector3i pos) {
-
-        return chunkProvider.getChunk(ChunkMath.calcChunkPos(pos));
-    }
-
     @Override
     public byte getValueAt(Vector3i pos) {
-        LitChunk chunk = getChunk(pos);
+        LitChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(pos.x), ChunkMath.calcChunkPosY(pos.y), ChunkMath.calcChunkPosZ(pos.z));
         if (chunk != null) {
-            return getValueAt(chunk, ChunkMath.calcBlockPos(pos.x, pos.y, pos.z));
+            return getValueAt(chunk, ChunkMath.calcBlockPosX(pos.x), ChunkMath.calcBlockPosY(pos.y), ChunkMath.calcBlockPosZ(pos.z));
         }
         return UNAVAILABLE;
     }
@@ -58,18 +47,30 @@ public byte getValueAt(Vector3i pos) {
      * Obtains the relevant value from the given chunk
      *
      * @param chunk The chunk containing the position
-     * @param pos   The internal position of the chunk to get the value from
+     * @param x     The internal x position of the chunk to get the value from
+     * @param y     The internal y position
+     * @param z     The internal z position
      * @return The relevant value for this view
      */
-    protected abstract byte getValueAt(LitChunk chunk, Vector3i pos);
+    protected abstract byte getValueAt(LitChunk chunk, int x, int y, int z);
 
     @Override
     public void setValueAt(Vector3i pos, byte value) {
-        setValueAt(getChunk(pos), ChunkMath.calcBlockPos(pos.x, pos.y, pos.z), value);
-        for (Vector3i affectedChunkPos : ChunkMath.getChunkRegionAroundWorldPos(pos, 1)) {
-            Chunk dirtiedChunk = chunkProvider.getChunk(affectedChunkPos);
-            if (dirtiedChunk != null) {
-                dirtiedChunk.setDirty(true);
+        LitChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(pos.x), ChunkMath.calcChunkPosY(pos.y), ChunkMath.calcChunkPosZ(pos.z));
+        setValueAt(chunk, ChunkMath.calcBlockPosX(pos.x), ChunkMath.calcBlockPosY(pos.y), ChunkMath.calcBlockPosZ(pos.z), value);
+
+        /* Dirty all chunks within one block of the position, the same as ChunkMath.getChunkRegionAroundWorldPos(pos, 1) */
+        int maxChunkX = ChunkMath.calcChunkPosX(pos.x + 1);
+        int maxChunkY = ChunkMath.calcChunkPosY(pos.y + 1);
+        int maxChunkZ = ChunkMath.calcChunkPosZ(pos.z + 1);
+        for (int chunkX = ChunkMath.calcChunkPosX(pos.x - 1); chunkX <= maxChunkX; chunkX++) {
+            for (int chunkY = ChunkMath.calcChunkPosY(pos.y - 1); chunkY <= maxChunkY; chunkY++) {
+                for (int chunkZ = ChunkMath.calcChunkPosZ(pos.z - 1); chunkZ <= maxChunkZ; chunkZ++) {
+                    Chunk dirtiedChunk = chunkProvider.getChunk(chunkX, chunkY, chunkZ);
+                    if (dirtiedChunk != null) {
+                        dirtiedChunk.setDirty(true);
+                    }
+                }
             }
         }
     }
@@ -78,16 +79,18 @@ public void setValueAt(Vector3i pos, byte value) {
      * Sets the relevant value for the given chunk
      *
      * @param chunk The chunk containing the position
-     * @param pos   The internal position of the chunk to set the value of
+     * @param x     The internal x position of the chunk to set the value of
+     * @param y     The internal y position
+     * @param z     The internal z position
      * @param value The new value
      */
-    protected abstract void setValueAt(LitChunk chunk, Vector3i pos, byte value);
+    protected abstract void setValueAt(LitChunk chunk, int x, int y, int z, byte value);
 
     @Override
     public Block getBlockAt(Vector3i pos) {
-        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPos(pos));
+        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(pos.x), ChunkMath.calcChunkPosY(pos.y), ChunkMath.calcChunkPosZ(pos.z));
         if (chunk != null) {
-            return chunk.getBlock(ChunkMath.calcBlockPos(pos));
+            return chunk.getBlock(ChunkMath.calcBlockPosX(pos.x), ChunkMath.calcBlockPosY(pos.y), ChunkMath.calcBlockPosZ(pos.z));
         }
         return null;
     }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Processes block changes with a chain of batch propagators, like light, sunlight regeneration and sunlight.
+ * <br><br>
+ * With more than one thread, the changes are split into islands of chunk columns which can't affect each other, and the
+ * islands are processed in parallel. Light spreads less than a chunk, so a change only affects blocks in its own chunk
+ * column and the columns right next to it, which is also where the propagators read from. Sunlight regeneration can
+ * run down a whole column, so columns are never split. Columns which are at least {@link #ISLAND_DISTANCE} columns
+ * apart along x or z therefore never touch the same chunks.
+ * <br><br>
+ * Every thread uses its own chain of propagators, created by the given factory. The world views of the propagators
+ * must allow different chunks to be changed concurrently.
+ */
+public class ChunkIslandPropagator {
+    static final int ISLAND_DISTANCE = 3;
+
+    /* Below this, handing the changes to other threads costs more than it saves */
+    private static final int MIN_PARALLEL_CHANGES = 64;
+
+    private final List<BatchPropagator> propagators;
+    private final ThreadLocal<List<BatchPropagator>> workerPropagators;
+    private final ExecutorService executorService;
+
+    /**
+     * @param propagatorFactory creates a chain of propagators, which are run in order
+     * @param threads           the number of threads to process islands on, including the calling thread
+     */
+    public ChunkIslandPropagator(Supplier<List<BatchPropagator>> propagatorFactory, int threads) {
+        this.propagators = propagatorFactory.get();
+        this.workerPropagators = ThreadLocal.withInitial(propagatorFactory);
+        if (threads > 1) {
+            executorService = Executors.newFixedThreadPool(threads - 1,
+                    new ThreadFactoryBuilder().setNameFormat("Light-Propagation-%d").setDaemon(true).build());
+        } else {
+            executorService = null;
+        }
+    }
+
+    public void process(Collection<BlockChange> changes) {
+        if (executorService == null || changes.size() < MIN_PARALLEL_CHANGES) {
+            process(propagators, changes);
+            return;
+        }
+
+        List<List<BlockChange>> islands = splitIntoIslands(changes);
+        if (islands.size() == 1) {
+            process(propagators, changes);
+            return;
+        }
+
+        List<Future<?>> futures = Lists.newArrayListWithCapacity(islands.size() - 1);
+        for (int i = 1; i < islands.size(); i++) {
+            List<BlockChange> island = islands.get(i);
+            futures.add(executorService.submit(() -> process(workerPropagators.get(), island)));
+        }
+        try {
+            process(propagators, islands.get(0));
+        } finally {
+            /* All islands must be done before the world can be changed again, even if one of them failed */
+            waitFor(futures);
+        }
+    }
+
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+    }
+
+    private static void waitFor(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                Uninterruptibles.getUninterruptibly(future);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new RuntimeException("Failed to propagate block changes", e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void process(List<BatchPropagator> chain, Collection<BlockChange> changes) {
+        for (BatchPropagator propagator : chain) {
+            propagator.process(changes);
+        }
+    }
+
+    /**
+     * Groups the changes by chunk column and merges columns closer than {@link #ISLAND_DISTANCE} columns.
+     *
+     * @return the islands, largest first
+     */
+    static List<List<BlockChange>> splitIntoIslands(Collection<BlockChange> changes) {
+        TLongIntMap columnIndices = new TLongIntHashMap();
+        List<List<BlockChange>> columnChanges = Lists.newArrayList();
+        List<Vector3i> columns = Lists.newArrayList();
+        for (BlockChange change : changes) {
+            Vector3i pos = change.getPosition();
+            int columnX = ChunkMath.calcChunkPosX(pos.x);
+            int columnZ = ChunkMath.calcChunkPosZ(pos.z);
+            long key = columnKey(columnX, columnZ);
+            int index;
+            if (columnIndices.containsKey(key)) {
+                index = columnIndices.get(key);
+            } else {
+                index = columns.size();
+                columnIndices.put(key, index);
+                columns.add(new Vector3i(columnX, 0, columnZ));
+                columnChanges.add(Lists.newArrayList());
+            }
+            columnChanges.get(index).add(change);
+        }
+
+        /* Union find over the columns, joining every column with the close columns around it */
+        int[] parents = new int[columns.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            Vector3i column = columns.get(i);
+            for (int dx = 1 - ISLAND_DISTANCE; dx < ISLAND_DISTANCE; dx++) {
+                for (int dz = 1 - ISLAND_DISTANCE; dz < ISLAND_DISTANCE; dz++) {
+                    long key = columnKey(column.x + dx, column.z + dz);
+                    if (columnIndices.containsKey(key)) {
+                        int rootA = findRoot(parents, i);
+                        int rootB = findRoot(parents, columnIndices.get(key));
+                        parents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+                    }
+                }
+            }
+        }
+
+        int[] islandIndices = new int[columns.size()];
+        List<List<BlockChange>> islands = Lists.newArrayList();
+        for (int i = 0; i < columns.size(); i++) {
+            int root = findRoot(parents, i);
+            if (root == i) {
+                islandIndices[i] = islands.size();
+                islands.add(Lists.newArrayList());
+            }
+            islands.get(islandIndices[root]).addAll(columnChanges.get(i));
+        }
+        islands.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        return islands;
+    }
+
+    private static int findRoot(int[] parents, int index) {
+        int root = index;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        /* Path compression */
+        int current = index;
+        while (parents[current] != root) {
+            int next = parents[current];
+            parents[current] = root;
+            current = next;
+        }
+        return root;
+    }
+
+    private static long columnKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
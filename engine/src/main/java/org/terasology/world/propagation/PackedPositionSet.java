@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import gnu.trove.procedure.TLongProcedure;
+import org.terasology.math.geom.BaseVector3i;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.Arrays;
+
+/**
+ * An insertion ordered set of block positions, each packed into a long, used as the queues of the batch propagators.
+ * <br><br>
+ * Positions are kept in an open addressing table which indexes an array of the positions in insertion order, so
+ * adding, removing and iterating positions doesn't allocate once the arrays have grown large enough. Clearing the set
+ * only touches the slots which were used, so sets which once were large stay cheap to clear.
+ * <br><br>
+ * Each coordinate is packed into 21 bits, so positions must lie within +-1048575 blocks of the origin.
+ */
+final class PackedPositionSet {
+    private static final int COORDINATE_BITS = 21;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+
+    /* Packed positions never have the sign bit set */
+    private static final long EMPTY = -1L;
+    private static final long REMOVED = -1L;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private int[] entryIndices;
+    private int mask;
+
+    private long[] entries;
+    private int[] entrySlots;
+    private int entryCount;
+    private int size;
+
+    PackedPositionSet() {
+        keys = new long[INITIAL_CAPACITY * 2];
+        Arrays.fill(keys, EMPTY);
+        entryIndices = new int[keys.length];
+        mask = keys.length - 1;
+        entries = new long[INITIAL_CAPACITY];
+        entrySlots = new int[INITIAL_CAPACITY];
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((x & COORDINATE_MASK) << (2 * COORDINATE_BITS)) | ((y & COORDINATE_MASK) << COORDINATE_BITS) | (z & COORDINATE_MASK);
+    }
+
+    static long pack(BaseVector3i pos) {
+        return pack(pos.x(), pos.y(), pos.z());
+    }
+
+    static int unpackX(long packedPos) {
+        return (int) ((packedPos << (64 - 3 * COORDINATE_BITS)) >> (64 - COORDINATE_BITS));
+    }
+
+    static int unpackY(long packedPos) {
+        return (int) ((packedPos << (64 - 2 * COORDINATE_BITS)) >> (64 - COORDINATE_BITS));
+    }
+
+    static int unpackZ(long packedPos) {
+        return (int) ((packedPos << (64 - COORDINATE_BITS)) >> (64 - COORDINATE_BITS));
+    }
+
+    /**
+     * @param packedPos the packed position
+     * @param target    the vector to store the position in
+     * @return target
+     */
+    static Vector3i unpack(long packedPos, Vector3i target) {
+        target.set(unpackX(packedPos), unpackY(packedPos), unpackZ(packedPos));
+        return target;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long packedPos) {
+        return findSlot(packedPos) >= 0;
+    }
+
+    /**
+     * @return true if the position wasn't in the set yet
+     */
+    boolean add(long packedPos) {
+        int slot = slotOf(packedPos);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == packedPos) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (entryCount == entries.length) {
+            growEntries();
+        }
+        keys[slot] = packedPos;
+        entryIndices[slot] = entryCount;
+        entries[entryCount] = packedPos;
+        entrySlots[entryCount] = slot;
+        entryCount++;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the position was in the set
+     */
+    boolean remove(long packedPos) {
+        int slot = findSlot(packedPos);
+        if (slot < 0) {
+            return false;
+        }
+        entries[entryIndices[slot]] = REMOVED;
+        size--;
+
+        /* Shift the following entries of the probe sequence back, so lookups never stop early at the freed slot */
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                entryIndices[free] = entryIndices[next];
+                entrySlots[entryIndices[free]] = free;
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        return true;
+    }
+
+    /**
+     * Calls the procedure with each position of the set, in the order they were added. The set must not be changed
+     * while iterating it.
+     */
+    void forEach(TLongProcedure procedure) {
+        for (int i = 0; i < entryCount; i++) {
+            long packedPos = entries[i];
+            if (packedPos != REMOVED && !procedure.execute(packedPos)) {
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        if (entryCount == 0) {
+            return;
+        }
+        if (entryCount * 4 < keys.length) {
+            /* The slots of removed entries may have been reused, but only by other entries which get cleared too */
+            for (int i = 0; i < entryCount; i++) {
+                keys[entrySlots[i]] = EMPTY;
+            }
+        } else {
+            Arrays.fill(keys, EMPTY);
+        }
+        entryCount = 0;
+        size = 0;
+    }
+
+    private int findSlot(long packedPos) {
+        int slot = slotOf(packedPos);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == packedPos) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotOf(long packedPos) {
+        long hash = packedPos * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Drops removed entries if there are enough of them, otherwise makes room for more entries.
+     */
+    private void growEntries() {
+        if (size * 2 <= entryCount) {
+            rehash(keys.length);
+        } else {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+            entrySlots = Arrays.copyOf(entrySlots, entrySlots.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        if (capacity != keys.length) {
+            keys = new long[capacity];
+            entryIndices = new int[capacity];
+            mask = capacity - 1;
+        }
+        Arrays.fill(keys, EMPTY);
+
+        int count = 0;
+        for (int i = 0; i < entryCount; i++) {
+            long packedPos = entries[i];
+            if (packedPos == REMOVED) {
+                continue;
+            }
+            int slot = slotOf(packedPos);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = packedPos;
+            entryIndices[slot] = count;
+            entries[count] = packedPos;
+            entrySlots[count] = slot;
+            count++;
+        }
+        entryCount = count;
+    }
+}
@@ -16,7 +16,6 @@
 package org.terasology.world.propagation;
 
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.terasology.math.ChunkMath;
 import org.terasology.math.Region3i;
 import org.terasology.math.Side;
@@ -27,7 +26,6 @@
 
 import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Batch propagator that works on a set of changed blocks
@@ -41,8 +39,16 @@ public class StandardBatchPropagator implements BatchPropagator {
     private PropagatorWorldView world;
 
     /* Queues are stored in reverse order. Ie, strongest light is 0. */
-    private Set<Vector3i>[] reduceQueues;
-    private Set<Vector3i>[] increaseQueues;
+    private PackedPositionSet[] reduceQueues;
+    private PackedPositionSet[] increaseQueues;
+
+    /* A queue being processed is swapped with its spare, so positions queued meanwhile are processed in the next round */
+    private PackedPositionSet[] spareReduceQueues;
+    private PackedPositionSet[] spareIncreaseQueues;
+
+    /* Reused for all positions, neither the world nor the rules keep them */
+    private final Vector3i processedPos = new Vector3i();
+    private final Vector3i adjacentPos = new Vector3i();
 
     private Map<Side, Vector3i> chunkEdgeDeltas = Maps.newEnumMap(Side.class);
 
@@ -70,11 +76,15 @@ public StandardBatchPropagator(PropagationRules rules, PropagatorWorldView world
             chunkEdgeDeltas.put(side, delta);
         }
 
-        increaseQueues = new Set[rules.getMaxValue()];
-        reduceQueues = new Set[rules.getMaxValue()];
+        increaseQueues = new PackedPositionSet[rules.getMaxValue()];
+        reduceQueues = new PackedPositionSet[rules.getMaxValue()];
+        spareIncreaseQueues = new PackedPositionSet[rules.getMaxValue()];
+        spareReduceQueues = new PackedPositionSet[rules.getMaxValue()];
         for (int i = 0; i < rules.getMaxValue(); ++i) {
-            increaseQueues[i] = Sets.newLinkedHashSet();
-            reduceQueues[i] = Sets.newLinkedHashSet();
+            increaseQueues[i] = new PackedPositionSet();
+            reduceQueues[i] = new PackedPositionSet();
+            spareIncreaseQueues[i] = new PackedPositionSet();
+            spareReduceQueues[i] = new PackedPositionSet();
         }
 
     }
@@ -122,10 +132,11 @@ private void reviewChange(BlockChange blockChange) {
             if (comparison.isRestricting() && existingValue > 0) {
                 /* If the propagation of the new value is going to be lower/reduced */
                 reduce(blockChange.getPosition(), existingValue);
-                Vector3i adjPos = side.getAdjacentPos(blockChange.getPosition());
-                byte adjValue = world.getValueAt(adjPos);
+                adjacentPos.set(blockChange.getPosition());
+                adjacentPos.add(side.getVector3i());
+                byte adjValue = world.getValueAt(adjacentPos);
                 if (adjValue == rules.propagateValue(existingValue, side, blockChange.getFrom())) {
-                    reduce(adjPos, adjValue);
+                    reduce(adjacentPos, adjValue);
                 }
 
             } else if (comparison.isPermitting()) {
@@ -135,10 +146,11 @@ private void reviewChange(BlockChange blockChange) {
                     queueSpreadValue(blockChange.getPosition(), existingValue);
                 }
                 /* Spread it out to the block on the side */
-                Vector3i adjPos = side.getAdjacentPos(blockChange.getPosition());
-                byte adjValue = world.getValueAt(adjPos);
+                adjacentPos.set(blockChange.getPosition());
+                adjacentPos.add(side.getVector3i());
+                byte adjValue = world.getValueAt(adjacentPos);
                 if (adjValue != PropagatorWorldView.UNAVAILABLE) {
-                    queueSpreadValue(adjPos, adjValue);
+                    queueSpreadValue(adjacentPos, adjValue);
                 }
             }
         }
@@ -152,7 +164,7 @@ private void reviewChange(BlockChange blockChange) {
      * @param oldValue The value present before reset
      */
     private void purge(Vector3i pos, byte oldValue) {
-        increaseQueues[rules.getMaxValue() - oldValue].remove(pos);
+        increaseQueues[rules.getMaxValue() - oldValue].remove(PackedPositionSet.pack(pos));
 
         /* Clear the value and re-propagate it if it's a positive value */
         Block block = world.getBlockAt(pos);
@@ -167,16 +179,17 @@ private void purge(Vector3i pos, byte oldValue) {
         for (Side side : Side.getAllSides()) {
             /* Handle this value being reset to the default by updating sides as needed */
             byte expectedValue = rules.propagateValue(oldValue, side, block);
-            Vector3i adjPos = side.getAdjacentPos(pos);
+            adjacentPos.set(pos);
+            adjacentPos.add(side.getVector3i());
             if (rules.canSpreadOutOf(block, side)) {
-                byte adjValue = world.getValueAt(adjPos);
+                byte adjValue = world.getValueAt(adjacentPos);
                 if (adjValue == expectedValue) {
-                    Block adjBlock = world.getBlockAt(adjPos);
+                    Block adjBlock = world.getBlockAt(adjacentPos);
                     if (rules.canSpreadInto(adjBlock, side.reverse())) {
-                        reduce(adjPos, expectedValue);
+                        reduce(adjacentPos, expectedValue);
                     }
                 } else if (adjValue > 0) {
-                    queueSpreadValue(adjPos, adjValue);
+                    queueSpreadValue(adjacentPos, adjValue);
                 }
             }
         }
@@ -191,13 +204,16 @@ private void processReduction() {
             byte oldValue = (byte) (rules.getMaxValue() - depth);
 
             while (!reduceQueues[depth].isEmpty()) {
-                Set<Vector3i> toProcess = reduceQueues[depth];
-                reduceQueues[depth] = Sets.newLinkedHashSetWithExpectedSize(toProcess.size());
+                PackedPositionSet toProcess = reduceQueues[depth];
+                reduceQueues[depth] = spareReduceQueues[depth];
+                spareReduceQueues[depth] = toProcess;
 
                 /* This step will add any new reductions to to the `reduceQueues` set */
-                for (Vector3i pos : toProcess) {
-                    purge(pos, oldValue);
-                }
+                toProcess.forEach(packedPos -> {
+                    purge(PackedPositionSet.unpack(packedPos, processedPos), oldValue);
+                    return true;
+                });
+                toProcess.clear();
             }
         }
     }
@@ -211,13 +227,16 @@ private void processIncrease() {
             byte value = (byte) (rules.getMaxValue() - depth);
 
             while (!increaseQueues[depth].isEmpty()) {
-                Set<Vector3i> toProcess = increaseQueues[depth];
-                increaseQueues[depth] = Sets.newLinkedHashSetWithExpectedSize(toProcess.size());
+                PackedPositionSet toProcess = increaseQueues[depth];
+                increaseQueues[depth] = spareIncreaseQueues[depth];
+                spareIncreaseQueues[depth] = toProcess;
 
                 /* This step will add any new values to `increaseQueues` */
-                for (Vector3i pos : toProcess) {
-                    push(pos, value);
-                }
+                toProcess.forEach(packedPos -> {
+                    push(PackedPositionSet.unpack(packedPos, processedPos), value);
+                    return true;
+                });
+                toProcess.clear();
             }
         }
 
@@ -238,14 +257,15 @@ private void push(Vector3i pos, byte value) {
             byte propagatedValue = rules.propagateValue(value, side, block);
 
             if (rules.canSpreadOutOf(block, side)) {
-                Vector3i adjPos = side.getAdjacentPos(pos);
-                byte adjValue = world.getValueAt(adjPos);
+                adjacentPos.set(pos);
+                adjacentPos.add(side.getVector3i());
+                byte adjValue = world.getValueAt(adjacentPos);
 
                 if (adjValue < propagatedValue && adjValue != PropagatorWorldView.UNAVAILABLE) {
-                    Block adjBlock = world.getBlockAt(adjPos);
+                    Block adjBlock = world.getBlockAt(adjacentPos);
 
                     if (rules.canSpreadInto(adjBlock, side.reverse())) {
-                        increase(adjPos, propagatedValue);
+                        increase(adjacentPos, propagatedValue);
                     }
                 }
             }
@@ -274,7 +294,7 @@ private void increase(Vector3i position, byte value) {
      */
     private void reduce(Vector3i position, byte oldValue) {
         if (oldValue > 0) {
-            reduceQueues[rules.getMaxValue() - oldValue].add(position);
+            reduceQueues[rules.getMaxValue() - oldValue].add(PackedPositionSet.pack(position));
         }
     }
 
@@ -286,8 +306,12 @@ private void reduce(Vector3i position, byte oldValue) {
      * @param value    The value to propagate out
      */
     private void queueSpreadValue(Vector3i position, byte value) {
+        queueSpreadValue(PackedPositionSet.pack(position), value);
+    }
+
+    private void queueSpreadValue(long packedPosition, byte value) {
         if (value > 1) {
-            increaseQueues[rules.getMaxValue() - value].add(position);
+            increaseQueues[rules.getMaxValue() - value].add(packedPosition);
         }
     }
 
@@ -295,7 +319,7 @@ private void queueSpreadValue(Vector3i position, byte value) {
      * Clears all the queues and cleans up the object
      */
     private void cleanUp() {
-        for (Set<Vector3i> queue : increaseQueues) {
+        for (PackedPositionSet queue : increaseQueues) {
             queue.clear();
         }
     }
@@ -342,7 +366,8 @@ private void propagateDepth(LitChunk adjChunk, Side side, boolean propagateExter
                 adjPos.add(chunkEdgeDeltas.get(side));
                 byte value = rules.getValue(adjChunk, adjPos);
                 if (value > 1) {
-                    queueSpreadValue(adjChunk.chunkToWorldPosition(adjPos), value);
+                    queueSpreadValue(PackedPositionSet.pack(adjChunk.chunkToWorldPositionX(adjPos.x),
+                            adjChunk.chunkToWorldPositionY(adjPos.y), adjChunk.chunkToWorldPositionZ(adjPos.z)), value);
                 }
             }
         }
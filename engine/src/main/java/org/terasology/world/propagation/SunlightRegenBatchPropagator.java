@@ -15,7 +15,6 @@
  */
 package org.terasology.world.propagation;
 
-import com.google.common.collect.Sets;
 import org.terasology.math.ChunkMath;
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
@@ -24,7 +23,6 @@
 import org.terasology.world.chunks.LitChunk;
 
 import java.util.Arrays;
-import java.util.Set;
 
 /**
  * Batch propagator that works on a set of changed blocks
@@ -37,8 +35,12 @@ public class SunlightRegenBatchPropagator implements BatchPropagator {
     private PropagatorWorldView sunlightWorld;
     private BatchPropagator sunlightPropagator;
 
-    private Set<Vector3i>[] reduceQueues;
-    private Set<Vector3i>[] increaseQueues;
+    private PackedPositionSet[] reduceQueues;
+    private PackedPositionSet[] increaseQueues;
+
+    /* Reused for all positions, neither the worlds nor the sunlight propagator keep them */
+    private final Vector3i processedPos = new Vector3i();
+    private final Vector3i columnPos = new Vector3i();
 
     public SunlightRegenBatchPropagator(PropagationRules regenRules, PropagatorWorldView regenWorld, BatchPropagator sunlightPropagator, PropagatorWorldView sunlightWorld) {
         this.regenRules = regenRules;
@@ -46,11 +48,11 @@ public SunlightRegenBatchPropagator(PropagationRules regenRules, PropagatorWorld
         this.sunlightPropagator = sunlightPropagator;
         this.sunlightWorld = sunlightWorld;
 
-        increaseQueues = new Set[regenRules.getMaxValue() + 1];
-        reduceQueues = new Set[regenRules.getMaxValue() + 1];
+        increaseQueues = new PackedPositionSet[regenRules.getMaxValue() + 1];
+        reduceQueues = new PackedPositionSet[regenRules.getMaxValue() + 1];
         for (int i = 0; i < regenRules.getMaxValue() + 1; ++i) {
-            increaseQueues[i] = Sets.newLinkedHashSet();
-            reduceQueues[i] = Sets.newLinkedHashSet();
+            increaseQueues[i] = new PackedPositionSet();
+            reduceQueues[i] = new PackedPositionSet();
         }
     }
 
@@ -102,14 +104,17 @@ private void reviewChangeToTop(BlockChange blockChange) {
     }
 
     private void queueSpreadRegen(Vector3i position, byte value) {
-        increaseQueues[value].add(position);
+        increaseQueues[value].add(PackedPositionSet.pack(position));
     }
 
     private void processRegenReduction() {
         for (byte depth = 0; depth <= regenRules.getMaxValue(); depth++) {
-            Set<Vector3i> toProcess = reduceQueues[depth];
+            PackedPositionSet toProcess = reduceQueues[depth];
 
-            toProcess.forEach(this::purge);
+            toProcess.forEach(packedPos -> {
+                purge(PackedPositionSet.unpack(packedPos, processedPos));
+                return true;
+            });
             toProcess.clear();
         }
     }
@@ -117,12 +122,13 @@ private void processRegenReduction() {
     private void purge(Vector3i pos) {
         int expectedValue = regenWorld.getValueAt(pos);
         if (expectedValue != 0) {
-            Vector3i position = new Vector3i(pos);
+            Vector3i position = columnPos;
+            position.set(pos);
             for (byte i = 0; i <= ChunkConstants.MAX_SUNLIGHT_REGEN; ++i) {
                 if (regenWorld.getValueAt(position) == expectedValue) {
                     regenWorld.setValueAt(position, i);
                     if (expectedValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD > 0) {
-                        sunlightPropagator.regenerate(new Vector3i(position), (byte) (expectedValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD));
+                        sunlightPropagator.regenerate(position, (byte) (expectedValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD));
                     }
                 } else {
                     break;
@@ -137,11 +143,13 @@ private void purge(Vector3i pos) {
 
     private void processRegenIncrease() {
         for (byte depth = regenRules.getMaxValue(); depth >= 0; depth--) {
-            Set<Vector3i> toProcess = increaseQueues[depth];
+            PackedPositionSet toProcess = increaseQueues[depth];
+            byte value = depth;
 
-            for (Vector3i pos : toProcess) {
-                push(pos, depth);
-            }
+            toProcess.forEach(packedPos -> {
+                push(PackedPositionSet.unpack(packedPos, processedPos), value);
+                return true;
+            });
             toProcess.clear();
         }
     }
@@ -149,7 +157,8 @@ private void processRegenIncrease() {
     private void push(Vector3i pos, byte value) {
         byte regenValue = value;
         Block block = regenWorld.getBlockAt(pos);
-        Vector3i position = new Vector3i(pos);
+        Vector3i position = columnPos;
+        position.set(pos);
         while (regenRules.canSpreadOutOf(block, Side.BOTTOM)) {
             regenValue = regenRules.propagateValue(regenValue, Side.BOTTOM, block);
             position.y -= 1;
@@ -158,13 +167,13 @@ private void push(Vector3i pos, byte value) {
                 block = regenWorld.getBlockAt(position);
                 if (regenRules.canSpreadInto(block, Side.TOP)) {
                     regenWorld.setValueAt(position, regenValue);
-                    reduceQueues[adjValue].remove(position);
+                    reduceQueues[adjValue].remove(PackedPositionSet.pack(position));
                     byte sunlightValue = (byte) (regenValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD);
                     if (sunlightValue > 0) {
                         byte prevValue = sunlightWorld.getValueAt(position);
                         if (prevValue < sunlightValue) {
                             sunlightWorld.setValueAt(position, sunlightValue);
-                            sunlightPropagator.propagateFrom(new Vector3i(position), sunlightValue);
+                            sunlightPropagator.propagateFrom(position, sunlightValue);
                         }
                     }
                 } else {
@@ -181,7 +190,7 @@ private void cleanUp() {
 
     private void reduce(Vector3i position, byte oldValue) {
         if (oldValue > 0) {
-            reduceQueues[oldValue].add(position);
+            reduceQueues[oldValue].add(PackedPositionSet.pack(position));
         }
     }
 
@@ -15,7 +15,6 @@
  */
 package org.terasology.world.propagation.light;
 
-import org.terasology.math.geom.Vector3i;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.AbstractFullWorldView;
@@ -31,12 +30,12 @@ public LightWorldView(ChunkProvider chunkProvider) {
     }
 
     @Override
-    protected byte getValueAt(LitChunk chunk, Vector3i pos) {
-        return chunk.getLight(pos);
+    protected byte getValueAt(LitChunk chunk, int x, int y, int z) {
+        return chunk.getLight(x, y, z);
     }
 
     @Override
-    protected void setValueAt(LitChunk chunk, Vector3i pos, byte value) {
-        chunk.setLight(pos, value);
+    protected void setValueAt(LitChunk chunk, int x, int y, int z, byte value) {
+        chunk.setLight(x, y, z, value);
     }
 }
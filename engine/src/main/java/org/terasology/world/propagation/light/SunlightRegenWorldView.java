@@ -15,7 +15,6 @@
  */
 package org.terasology.world.propagation.light;
 
-import org.terasology.math.geom.Vector3i;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.AbstractFullWorldView;
@@ -32,12 +31,12 @@ public SunlightRegenWorldView(ChunkProvider chunkProvider) {
     }
 
     @Override
-    protected byte getValueAt(LitChunk chunk, Vector3i pos) {
-        return chunk.getSunlightRegen(pos);
+    protected byte getValueAt(LitChunk chunk, int x, int y, int z) {
+        return chunk.getSunlightRegen(x, y, z);
     }
 
     @Override
-    protected void setValueAt(LitChunk chunk, Vector3i pos, byte value) {
-        chunk.setSunlightRegen(pos, value);
+    protected void setValueAt(LitChunk chunk, int x, int y, int z, byte value) {
+        chunk.setSunlightRegen(x, y, z, value);
     }
 }
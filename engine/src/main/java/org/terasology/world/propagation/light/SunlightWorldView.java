@@ -15,7 +15,6 @@
  */
 package org.terasology.world.propagation.light;
 
-import org.terasology.math.geom.Vector3i;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.AbstractFullWorldView;
@@ -32,13 +31,13 @@ public SunlightWorldView(ChunkProvider chunkProvider) {
     }
 
     @Override
-    protected byte getValueAt(LitChunk chunk, Vector3i pos) {
-        return chunk.getSunlight(pos);
+    protected byte getValueAt(LitChunk chunk, int x, int y, int z) {
+        return chunk.getSunlight(x, y, z);
     }
 
     @Override
-    protected void setValueAt(LitChunk chunk, Vector3i pos, byte value) {
-        chunk.setSunlight(pos, value);
+    protected void setValueAt(LitChunk chunk, int x, int y, int z, byte value) {
+        chunk.setSunlight(x, y, z, value);
     }
 
 }
@@ -69,6 +69,7 @@ varying vec3 normal;
 
 varying float blockHint;
 varying float isUpside;
+varying vec2 greedyTileCorner;
 
 uniform sampler2D textureAtlas;
 uniform sampler2D textureEffects;
@@ -91,6 +92,11 @@ void main() {
 #endif
 
     vec2 texCoord = gl_TexCoord[0].xy;
+    if (greedyTileCorner.x >= 0.0) {
+        // Repeat the tile across the face, without sampling the border of the tile
+        texCoord = greedyTileCorner + TEXTURE_OFFSET / 128.0
+            + fract((texCoord - greedyTileCorner) / TEXTURE_OFFSET) * TEXTURE_OFFSET * (126.0 / 128.0);
+    }
 
     vec3 normalizedViewPos = -normalize(vertexViewPos.xyz);
     vec2 projectedPos = projectVertexToTexCoord(vertexProjPos);
@@ -120,7 +126,7 @@ void main() {
     texCoord += height * viewDirectionUvProjection * TEXTURE_OFFSET;
 	
     //Crudely prevent the parallax from extending to other textures in the same atlas.
-    vec2 texCorner = floor(gl_TexCoord[0].xy/TEXTURE_OFFSET)*TEXTURE_OFFSET;
+    vec2 texCorner = greedyTileCorner.x >= 0.0 ? greedyTileCorner : floor(gl_TexCoord[0].xy/TEXTURE_OFFSET)*TEXTURE_OFFSET;
     vec2 texSize = vec2(1,1)*TEXTURE_OFFSET*0.9999; //Remain strictly this side of the edge of the texture.
     texCoord = clamp(texCoord, texCorner, texCorner + texSize);
 #endif
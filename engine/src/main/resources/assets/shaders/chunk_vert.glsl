@@ -107,6 +107,7 @@ varying vec3 sunVecView;
 
 varying float isUpside;
 varying float blockHint;
+varying vec2 greedyTileCorner;
 
 void main()
 {
@@ -119,7 +120,14 @@ void main()
 	vertexViewPos = gl_ModelViewMatrix * gl_Vertex;
 	vertexWorldPos = gl_Vertex.xyz + chunkPositionWorld.xyz;
 	
-	if (animationFrameCount > 0) {
+	greedyTileCorner = vec2(-1.0);
+	if (gl_TexCoord[0].x >= 128.0) {
+	    // Faces merged by the greedy mesher encode 128 * (tile index + 1) plus the number of times the tile repeats
+	    vec2 tile = floor(gl_TexCoord[0].xy / 128.0) - 1.0;
+	    vec2 repetitions = gl_TexCoord[0].xy - (tile + 1.0) * 128.0;
+	    greedyTileCorner = tile * TEXTURE_OFFSET;
+	    gl_TexCoord[0].xy = greedyTileCorner + repetitions * TEXTURE_OFFSET;
+	} else if (animationFrameCount > 0) {
 	    /*int*/ float globalFrameIndex = floor(time * 6 *60*60*24/48); // 6Hz at default world time scale
 	    /*int*/ float frameIndex = mod(globalFrameIndex, animationFrameCount);
 	    gl_TexCoord[0].x += frameIndex * TEXTURE_OFFSET;